@@ -24,80 +24,194 @@
  */
 package org.praisenter;
 
-import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Class used to store a set of locks based on a given key.
+ * Class used to store a set of read/write locks based on a given key.
+ * <p>
+ * Locks are reference counted: a lock exists in the map only while at least one
+ * thread holds or is waiting on it.  Operations on different keys don't contend
+ * with each other.
+ * <p>
+ * Acquiring a lock returns a {@link Lease} which must be closed to release it:
+ * <pre>
+ * try (LockMap.Lease lease = locks.write(key)) {
+ *     // exclusive access to key
+ * }
+ * </pre>
  * @author William Bittle
- * @version 3.0.0
+ * @version 3.1.7
  * @param <T> the key type
  */
 public final class LockMap<T> {
-	/** The key map */
-	private final WeakHashMap<KeyWrapper<T>, WeakReference<KeyWrapper<T>>> keys = new WeakHashMap<>();
+	/** The active locks */
+	private final ConcurrentHashMap<T, Entry> locks = new ConcurrentHashMap<>();
 	
 	/**
-	 * Returns the lock for the given key or creates a new lock
-	 * if one doesn't exist.
+	 * Acquires a shared lock for the given key, waiting if necessary.
 	 * @param key the key
-	 * @return Object
+	 * @return {@link Lease}
 	 */
-	public synchronized Object get(T key) {
-		if (key == null) throw new NullPointerException();
-		KeyWrapper<T> mKey = new KeyWrapper<T>(key);
-		WeakReference<KeyWrapper<T>> value = this.keys.get(mKey);
-		KeyWrapper<T> old = value == null ? null : value.get();
-		if (old == null) { 
-			value = new WeakReference<KeyWrapper<T>>(mKey);
-			this.keys.put(mKey, value);
-			return mKey;
+	public Lease read(T key) {
+		Entry entry = this.retain(key);
+		Lock lock = entry.lock.readLock();
+		lock.lock();
+		return new Lease(entry, lock, () -> this.release(key));
+	}
+	
+	/**
+	 * Acquires an exclusive lock for the given key, waiting if necessary.
+	 * @param key the key
+	 * @return {@link Lease}
+	 */
+	public Lease write(T key) {
+		Entry entry = this.retain(key);
+		Lock lock = entry.lock.writeLock();
+		lock.lock();
+		return new Lease(entry, lock, () -> this.release(key));
+	}
+	
+	/**
+	 * Attempts to acquire a shared lock for the given key within the given time.
+	 * @param key the key
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit of the timeout argument
+	 * @return {@link Lease} or null if the lock could not be acquired in time
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public Lease tryRead(T key, long timeout, TimeUnit unit) throws InterruptedException {
+		Entry entry = this.retain(key);
+		return this.tryLock(key, entry, entry.lock.readLock(), timeout, unit);
+	}
+	
+	/**
+	 * Attempts to acquire an exclusive lock for the given key within the given time.
+	 * @param key the key
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit of the timeout argument
+	 * @return {@link Lease} or null if the lock could not be acquired in time
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public Lease tryWrite(T key, long timeout, TimeUnit unit) throws InterruptedException {
+		Entry entry = this.retain(key);
+		return this.tryLock(key, entry, entry.lock.writeLock(), timeout, unit);
+	}
+	
+	/**
+	 * Returns the number of keys that currently have a lock held or requested.
+	 * @return int
+	 */
+	public int size() {
+		return this.locks.size();
+	}
+	
+	private Lease tryLock(T key, Entry entry, Lock lock, long timeout, TimeUnit unit) throws InterruptedException {
+		boolean acquired = false;
+		try {
+			acquired = lock.tryLock(timeout, unit);
+		} finally {
+			if (!acquired) {
+				this.release(key);
+			}
 		}
-		return old;
+		return acquired ? new Lease(entry, lock, () -> this.release(key)) : null;
 	}
 	
 	/**
-	 * A wrapper class for the keys so that while the wrapper is in
-	 * use the key will not be garbage collected.
+	 * Returns the lock entry for the given key, creating it if necessary, and
+	 * increments its reference count.
+	 * @param key the key
+	 * @return {@link Entry}
+	 */
+	private Entry retain(T key) {
+		if (key == null) throw new NullPointerException();
+		// NOTE: the reference count is only modified inside compute calls
+		// which are atomic per key
+		return this.locks.compute(key, (k, v) -> {
+			if (v == null) {
+				v = new Entry();
+			}
+			v.references++;
+			return v;
+		});
+	}
+	
+	/**
+	 * Decrements the reference count for the given key's lock, removing
+	 * it when no one is using it anymore.
+	 * @param key the key
+	 */
+	private void release(T key) {
+		this.locks.computeIfPresent(key, (k, v) -> {
+			v.references--;
+			return v.references <= 0 ? null : v;
+		});
+	}
+	
+	/**
+	 * A held lock.  Closing the lease releases the lock.
 	 * @author William Bittle
-	 * @version 3.0.0
-	 * @param <T> the key type
+	 * @version 3.1.7
 	 */
-	private static final class KeyWrapper<T> {
-		/** The key */
-		private final T key;
+	public static final class Lease implements AutoCloseable {
+		/** The lock entry */
+		private final Entry entry;
+		
+		/** The held lock */
+		private final Lock lock;
 		
-		/** The hashcode */
-		private final int hashCode;
+		/** Releases the entry's reference */
+		private final Runnable release;
+		
+		/** True if this lease has been released */
+		private boolean closed;
 		
 		/**
 		 * Minimal constructor.
-		 * @param key the key
+		 * @param entry the lock entry
+		 * @param lock the held lock
+		 * @param release releases the entry's reference
 		 */
-		public KeyWrapper(T key) {
-			this.key = key;
-			this.hashCode = key.hashCode();
+		private Lease(Entry entry, Lock lock, Runnable release) {
+			this.entry = entry;
+			this.lock = lock;
+			this.release = release;
+			this.closed = false;
 		}
 		
-		/* (non-Javadoc)
-		 * @see java.lang.Object#equals(java.lang.Object)
+		/**
+		 * Returns true if the current thread holds the exclusive lock for this lease's key.
+		 * @return boolean
 		 */
-		@Override
-		public boolean equals(Object obj) {
-			if (obj == this) return true;
-			if (obj == null) return false;
-			if (obj instanceof KeyWrapper) {
-				return this.key.equals(((KeyWrapper<?>)obj).key);
-			}
-			return false;
+		public boolean isWriteLocked() {
+			return this.entry.lock.isWriteLockedByCurrentThread();
 		}
 		
 		/* (non-Javadoc)
-		 * @see java.lang.Object#hashCode()
+		 * @see java.lang.AutoCloseable#close()
 		 */
 		@Override
-		public int hashCode() {
-			return this.hashCode;
+		public void close() {
+			if (this.closed) return;
+			this.closed = true;
+			this.lock.unlock();
+			this.release.run();
 		}
 	}
+	
+	/**
+	 * A reference counted lock.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class Entry {
+		/** The lock */
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		
+		/** The number of leases and waiters; guarded by the map */
+		private int references;
+	}
 }
@@ -15,4 +15,14 @@ import java.lang.annotation.Target;
 @Target({ ElementType.METHOD })
 public @interface Watchable {
 	public String name() default "";
+	
+	/**
+	 * For lists and sets, true if the items should only be watched when explicitly
+	 * requested (see UndoManager.watch) rather than when the owning object is watched.
+	 * <p>
+	 * Changes to the list or set itself are always watched.  Use this for collections
+	 * that can be very large (like the verses of a chapter) where only a few items are
+	 * likely to be edited.
+	 */
+	public boolean lazy() default false;
 }
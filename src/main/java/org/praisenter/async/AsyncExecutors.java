@@ -0,0 +1,258 @@
+package org.praisenter.async;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javafx.application.Platform;
+
+/**
+ * The application's shared executors.
+ * <p>
+ * Work is split by what it's bound by so that one kind of work can't starve another:
+ * <ul>
+ * <li>{@link #IO} - file system and index work (saving, deleting, importing)</li>
+ * <li>{@link #CPU} - computation (searching, serializing, image processing)</li>
+ * <li>{@link #callOnJavaFXThreadAndWait(Callable)} - work that must run on the Java FX thread
+ * from a background thread (slide rendering for example)</li>
+ * </ul>
+ * Each pool has a fixed number of named daemon threads.  Use {@link #throttle(Collection, int, Function)}
+ * when fanning out many operations so that only a limited number are in flight at once.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class AsyncExecutors {
+	/** The number of IO threads; more than a few doesn't help with disk access */
+	private static final int IO_THREADS = 4;
+
+	/** The number of CPU threads; leave one core for the Java FX thread */
+	private static final int CPU_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+	/** The maximum number of background requests waiting on the Java FX thread */
+	private static final int FX_PERMITS = 2;
+
+	/** The default number of in-flight operations for multi-item operations */
+	public static final int DEFAULT_THROTTLE = IO_THREADS * 2;
+
+	/** Executor for IO bound work */
+	public static final ThreadPoolExecutor IO = create("praisenter-io", IO_THREADS);
+
+	/** Executor for CPU bound work */
+	public static final ThreadPoolExecutor CPU = create("praisenter-cpu", CPU_THREADS);
+
+	/** Limits the number of background threads queuing work on the Java FX thread */
+	private static final Semaphore FX = new Semaphore(FX_PERMITS, true);
+
+	private AsyncExecutors() {}
+
+	private static ThreadPoolExecutor create(String name, int threads) {
+		return create(name, threads, new LinkedBlockingQueue<>());
+	}
+
+	private static ThreadPoolExecutor create(String name, int threads, BlockingQueue<Runnable> queue) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				threads, threads,
+				30, TimeUnit.SECONDS,
+				queue,
+				new NamedThreadFactory(name));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Creates a new executor that runs queued tasks in priority order instead of
+	 * the order they were submitted.
+	 * <p>
+	 * Tasks must implement {@link Comparable} (lowest first) and must be given
+	 * to {@link ThreadPoolExecutor#execute(Runnable)} rather than submit, which
+	 * wraps them.  The caller is responsible for shutting down the executor.
+	 * @param name the thread name prefix
+	 * @param threads the number of threads
+	 * @return ThreadPoolExecutor
+	 */
+	public static ThreadPoolExecutor createPriorityExecutor(String name, int threads) {
+		return create(name, threads, new PriorityBlockingQueue<>());
+	}
+
+	/**
+	 * Runs the given operation on the Java FX thread and waits for the result.
+	 * <p>
+	 * Only a few background threads can have work queued on the Java FX thread at a
+	 * time, the rest wait here.  This keeps mass operations (like pasting hundreds of
+	 * slides that each need to be rendered) from flooding the Java FX thread and
+	 * starving user input.
+	 * <p>
+	 * If called from the Java FX thread the operation is run immediately.
+	 * @param operation the operation
+	 * @return T
+	 * @throws Exception if the operation fails or the current thread is interrupted
+	 */
+	public static <T> T callOnJavaFXThreadAndWait(Callable<T> operation) throws Exception {
+		if (Platform.isFxApplicationThread()) {
+			return operation.call();
+		}
+
+		FX.acquire();
+		try {
+			final CompletableFuture<T> future = new CompletableFuture<>();
+			Platform.runLater(() -> {
+				try {
+					future.complete(operation.call());
+				} catch (Throwable t) {
+					future.completeExceptionally(t);
+				}
+			});
+			try {
+				return future.get();
+			} catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof Exception) throw (Exception)cause;
+				throw ex;
+			}
+		} finally {
+			FX.release();
+		}
+	}
+
+	/**
+	 * Performs the given operation for each item, but only allows the given number
+	 * of operations to be in progress at one time.
+	 * <p>
+	 * The next operation is started when a previous one completes.  The returned
+	 * list contains a future for each item, in the same order as the items, which
+	 * completes when that item's operation completes.
+	 * @param items the items
+	 * @param limit the maximum number of in-flight operations
+	 * @param operation the operation to perform for each item
+	 * @return List&lt;CompletableFuture&lt;R&gt;&gt;
+	 */
+	public static <T, R> List<CompletableFuture<R>> throttle(Collection<T> items, int limit, Function<T, CompletableFuture<R>> operation) {
+		final Throttle<T, R> throttle = new Throttle<>(items, operation);
+		final int n = Math.min(Math.max(1, limit), items.size());
+		for (int i = 0; i < n; i++) {
+			throttle.next();
+		}
+		return throttle.results;
+	}
+
+	/**
+	 * Waits until the shared executors have no queued or running tasks.
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit
+	 * @return boolean true if the executors are idle
+	 */
+	public static boolean awaitQuiescence(long timeout, TimeUnit unit) {
+		final long end = System.nanoTime() + unit.toNanos(timeout);
+		while (!isQuiescent(IO) || !isQuiescent(CPU)) {
+			if (System.nanoTime() >= end) {
+				return false;
+			}
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isQuiescent(ThreadPoolExecutor executor) {
+		return executor.getActiveCount() == 0 && executor.getQueue().isEmpty();
+	}
+
+	/**
+	 * Tracks the progress of a {@link AsyncExecutors#throttle(Collection, int, Function)} call.
+	 * @param <T> the item type
+	 * @param <R> the result type
+	 */
+	private static final class Throttle<T, R> {
+		private final List<T> items;
+		private final List<CompletableFuture<R>> results;
+		private final Function<T, CompletableFuture<R>> operation;
+		private final AtomicInteger index;
+
+		public Throttle(Collection<T> items, Function<T, CompletableFuture<R>> operation) {
+			this.items = new ArrayList<>(items);
+			this.results = new ArrayList<>(items.size());
+			for (int i = 0; i < items.size(); i++) {
+				this.results.add(new CompletableFuture<>());
+			}
+			this.operation = operation;
+			this.index = new AtomicInteger();
+		}
+
+		public void next() {
+			// NOTE: loop instead of recursing when operations complete immediately
+			while (true) {
+				final int i = this.index.getAndIncrement();
+				if (i >= this.items.size()) {
+					return;
+				}
+
+				CompletableFuture<R> future;
+				try {
+					future = this.operation.apply(this.items.get(i));
+				} catch (Throwable t) {
+					future = CompletableFuture.failedFuture(t);
+				}
+
+				final CompletableFuture<R> result = this.results.get(i);
+				if (future.isDone()) {
+					this.complete(future, result);
+					continue;
+				}
+
+				future.whenComplete((r, t) -> {
+					this.complete(r, t, result);
+					this.next();
+				});
+				return;
+			}
+		}
+
+		private void complete(CompletableFuture<R> future, CompletableFuture<R> result) {
+			future.whenComplete((r, t) -> this.complete(r, t, result));
+		}
+
+		private void complete(R r, Throwable t, CompletableFuture<R> result) {
+			if (t != null) {
+				result.completeExceptionally(t);
+			} else {
+				result.complete(r);
+			}
+		}
+	}
+
+	/**
+	 * Creates daemon threads named {name}-{n}.
+	 */
+	private static final class NamedThreadFactory implements ThreadFactory {
+		private final String name;
+		private final AtomicInteger count;
+
+		public NamedThreadFactory(String name) {
+			this.name = name;
+			this.count = new AtomicInteger();
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, this.name + "-" + this.count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package org.praisenter.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javafx.application.Platform;
+
+/**
+ * An executor that runs tasks on the Java FX thread, coalescing all tasks submitted
+ * before the Java FX thread gets to them into one pass.
+ * <p>
+ * Rather than one Platform.runLater call per task, only one is outstanding at a time
+ * and it drains everything that has queued up.  The whole pass is run through the given
+ * batcher (for example {@link org.praisenter.data.PersistableList#batch(Runnable)}) so that
+ * observers see one change instead of one per task.
+ * <p>
+ * Tasks are run in the order they were submitted.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class JavaFXBatchExecutor implements Executor {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/** The maximum number of tasks to run in one pass so that the Java FX thread stays responsive */
+	private static final int MAX_BATCH_SIZE = 500;
+
+	/** Wraps each pass */
+	private final Consumer<Runnable> batcher;
+
+	/** The tasks waiting to run */
+	private final Queue<Runnable> pending;
+
+	/** True if a pass has been scheduled but hasn't started draining */
+	private final AtomicBoolean scheduled;
+
+	/**
+	 * Creates a new executor that runs each pass using the given batcher.
+	 * @param batcher the batcher; it must call the given runnable once on the current thread
+	 */
+	public JavaFXBatchExecutor(Consumer<Runnable> batcher) {
+		this.batcher = batcher;
+		this.pending = new ConcurrentLinkedQueue<>();
+		this.scheduled = new AtomicBoolean(false);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(Runnable command) {
+		this.pending.add(command);
+		this.schedule();
+	}
+
+	private void schedule() {
+		if (this.scheduled.compareAndSet(false, true)) {
+			Platform.runLater(this::drain);
+		}
+	}
+
+	private void drain() {
+		// anything submitted from here on needs another pass
+		this.scheduled.set(false);
+		try {
+			this.batcher.accept(() -> {
+				int n = 0;
+				Runnable task;
+				while (n < MAX_BATCH_SIZE && (task = this.pending.poll()) != null) {
+					n++;
+					try {
+						task.run();
+					} catch (Throwable t) {
+						LOGGER.error("Unexpected error running batched task", t);
+					}
+				}
+			});
+		} finally {
+			if (!this.pending.isEmpty()) {
+				this.schedule();
+			}
+		}
+	}
+}
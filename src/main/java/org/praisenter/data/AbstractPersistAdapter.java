@@ -1,6 +1,7 @@
 package org.praisenter.data;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -9,38 +10,47 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Stream;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.LockMap;
+import org.praisenter.ThrowableConsumer;
+import org.praisenter.async.AsyncExecutors;
 //import org.praisenter.data.json.JsonIO;
 import org.praisenter.utility.MimeType;
 
 public abstract class AbstractPersistAdapter<T extends Persistable, E extends PathResolver<T>> implements PersistAdapter<T> {
 	/** The class-level logger */
 	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The writer shared by all adapters so that concurrent saves are committed together */
+	private static final AtomicFileWriter WRITER = new AtomicFileWriter();
 
 	protected final E pathResolver;
 	protected final Map<ImportExportFormat, ImportExportProvider<T>> importExportProviders;
 	
 	private final LockMap<UUID> locks;
-	private final Object exportLock;
 	
 	public AbstractPersistAdapter(E pathResolver) {
 		this.pathResolver = pathResolver;
 		this.locks = new LockMap<>();
-		this.exportLock = new Object();
 		this.importExportProviders = new LinkedHashMap<>();
 	}
 	
@@ -59,8 +69,12 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 		final List<T> items = new ArrayList<T>();
 		final Path basePath = this.pathResolver.getBasePath();
 		LOGGER.trace("Loading data from '{}'", basePath.toAbsolutePath());
+		AtomicFileWriter.cleanUp(basePath);
 		try (DirectoryStream<Path> stream = Files.newDirectoryStream(basePath)) {
 			for (Path path : stream) {
+				if (AtomicFileWriter.isTemporary(path)) {
+					continue;
+				}
 				try {
 					LOGGER.trace("Loading '{}'", path.toAbsolutePath());
 					T item = this.load(path);
@@ -79,7 +93,7 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 	@Override
 	public void create(T item) throws IOException {
 		LOGGER.trace("Getting lock for '{}'", item.getId());
-		synchronized (this.locks.get(item.getId())) {
+		try (LockMap.Lease lease = this.locks.write(item.getId())) {
 			LOGGER.trace("Lock for '{}' obtained", item.getId());
 			Path path = this.pathResolver.getPath(item);
 			LOGGER.trace("Checking if file exists at '{}'", path.toAbsolutePath());
@@ -94,7 +108,7 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 	@Override
 	public void update(T item) throws IOException {
 		LOGGER.trace("Getting lock for '{}'", item.getId());
-		synchronized (this.locks.get(item.getId())) {
+		try (LockMap.Lease lease = this.locks.write(item.getId())) {
 			LOGGER.trace("Lock for '{}' obtained", item.getId());
 			Path path = this.pathResolver.getPath(item);
 			LOGGER.debug("Updating file '{}'", path.toAbsolutePath());
@@ -104,23 +118,19 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 	
 	@Override
 	public void delete(T item) throws IOException {
-		LOGGER.trace("Getting export lock");
-		synchronized (this.exportLock) {
-			LOGGER.trace("Export lock obtained");
-			LOGGER.trace("Getting lock for '{}'", item.getId());
-			synchronized (this.locks.get(item.getId())) {
-				LOGGER.trace("Lock for '{}' obtained", item.getId());
-				Path path = this.pathResolver.getPath(item);
-				LOGGER.debug("Deleting file '{}'", path.toAbsolutePath());
-				this.delete(path, item);
-			}
+		LOGGER.trace("Getting lock for '{}'", item.getId());
+		try (LockMap.Lease lease = this.locks.write(item.getId())) {
+			LOGGER.trace("Lock for '{}' obtained", item.getId());
+			Path path = this.pathResolver.getPath(item);
+			LOGGER.debug("Deleting file '{}'", path.toAbsolutePath());
+			this.delete(path, item);
 		}
 	}
 	
 	@Override
 	public boolean upsert(T item) throws IOException {
 		LOGGER.trace("Getting lock for '{}'", item.getId());
-		synchronized (this.locks.get(item.getId())) {
+		try (LockMap.Lease lease = this.locks.write(item.getId())) {
 			LOGGER.trace("Lock for '{}' obtained", item.getId());
 			Path path = this.pathResolver.getPath(item);
 			boolean exists = Files.exists(path);
@@ -136,24 +146,20 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 	
 	@Override
 	public void exportData(ImportExportFormat format, Path path, T item) throws IOException {
-		LOGGER.trace("Getting export lock");
-		synchronized (this.exportLock) {
-			LOGGER.trace("Export lock obtained");
-			LOGGER.trace("Getting export provider for format '{}'", format);
-			ImportExportProvider<T> provider = this.importExportProviders.get(format);
-			if (provider == null) {
-				throw new UnknownFormatException(format.name());
-			}
-			LOGGER.trace("Format provider found '{}", provider.getClass().getName());
-			LOGGER.trace("Getting lock for '{}'", item.getId());
-			synchronized (this.locks.get(item.getId())) {
-				LOGGER.trace("Lock for '{}' obtained", item.getId());
-				try (FileOutputStream fos = new FileOutputStream(path.toFile());
-					BufferedOutputStream bos = new BufferedOutputStream(fos)) {
-					LOGGER.debug("Exporting item '{}'", item.getName());
-					provider.exp(this, bos, item);
-				}	
-			}
+		LOGGER.trace("Getting export provider for format '{}'", format);
+		ImportExportProvider<T> provider = this.importExportProviders.get(format);
+		if (provider == null) {
+			throw new UnknownFormatException(format.name());
+		}
+		LOGGER.trace("Format provider found '{}", provider.getClass().getName());
+		LOGGER.trace("Getting read lock for '{}'", item.getId());
+		try (LockMap.Lease lease = this.locks.read(item.getId())) {
+			LOGGER.trace("Read lock for '{}' obtained", item.getId());
+			try (FileOutputStream fos = new FileOutputStream(path.toFile());
+				BufferedOutputStream bos = new BufferedOutputStream(fos)) {
+				LOGGER.debug("Exporting item '{}'", item.getName());
+				provider.exp(this, bos, item);
+			}	
 		}
 	}
 	
@@ -165,27 +171,107 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 			throw new UnknownFormatException(format.name());
 		}
 		LOGGER.trace("Format provider found '{}", provider.getClass().getName());
-		LOGGER.trace("Getting export lock");
-		synchronized (this.exportLock) {
-			LOGGER.trace("Export lock obtained");
+		
+		if (items.size() <= 1 || !this.isParallelExportSupported()) {
 			for (T item : items) {
-				LOGGER.trace("Getting lock for '{}'", item.getId());
-				synchronized (this.locks.get(item.getId())) {
-					LOGGER.trace("Lock for '{}' obtained", item.getId());
+				LOGGER.trace("Getting read lock for '{}'", item.getId());
+				try (LockMap.Lease lease = this.locks.read(item.getId())) {
+					LOGGER.trace("Read lock for '{}' obtained", item.getId());
 					LOGGER.debug("Exporting item '{}'", item.getName());
 					provider.exp(this, destination, item);
 				}
 			}
+			return;
+		}
+		
+		// items are serialized and compressed concurrently into their own in-memory zips
+		// and then this thread copies the compressed entries to the destination in order;
+		// the number of items in flight is bounded to limit memory usage
+		final int window = Math.max(2, Runtime.getRuntime().availableProcessors());
+		final Deque<CompletableFuture<byte[]>> staged = new ArrayDeque<>();
+		final Iterator<T> it = items.iterator();
+		while (it.hasNext() || !staged.isEmpty()) {
+			while (it.hasNext() && staged.size() < window) {
+				final T item = it.next();
+				staged.add(CompletableFuture.supplyAsync(() -> this.stage(provider, item), AsyncExecutors.CPU));
+			}
+			
+			byte[] data;
+			try {
+				data = staged.poll().join();
+			} catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException)cause;
+				}
+				throw new IOException(cause);
+			}
+			
+			try (ZipFile zip = ZipFile.builder().setSeekableByteChannel(new SeekableInMemoryByteChannel(data)).get()) {
+				zip.copyRawEntries(destination, e -> true);
+			}
+		}
+	}
+	
+	/**
+	 * Returns true if {@link #exportData(ImportExportFormat, ZipArchiveOutputStream, List)} can serialize
+	 * items concurrently.
+	 * <p>
+	 * Concurrent export buffers each item in memory before it's written, so adapters whose
+	 * items are large (media for example) should return false.
+	 * @return boolean
+	 */
+	protected boolean isParallelExportSupported() {
+		return true;
+	}
+	
+	/**
+	 * Exports the given item to a new in-memory zip and returns its bytes.
+	 * @param provider the export provider
+	 * @param item the item
+	 * @return byte[]
+	 */
+	private byte[] stage(ImportExportProvider<T> provider, T item) {
+		LOGGER.trace("Getting read lock for '{}'", item.getId());
+		try (LockMap.Lease lease = this.locks.read(item.getId())) {
+			LOGGER.trace("Read lock for '{}' obtained", item.getId());
+			LOGGER.debug("Exporting item '{}'", item.getName());
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bos)) {
+				provider.exp(this, zos, item);
+			}
+			return bos.toByteArray();
+		} catch (IOException ex) {
+			throw new CompletionException(ex);
 		}
 	}
 
 	@Override
 	public DataImportResult<T> importData(Path path) throws IOException {
+		return this.importData(path, ImportHeader.read(path));
+	}
+	
+	@Override
+	public DataImportResult<T> importData(Path path, ImportHeader header) throws IOException {
 		Collection<ImportExportProvider<T>> providers = this.importExportProviders.values();
-		return this.importFile(path, providers);
+		return this.importFile(path, header, providers);
+	}
+	
+	@Override
+	public boolean isImportSupported(Path path, ImportHeader header) {
+		// zips that aren't supported by a provider are imported one file at a time
+		if (MimeType.ZIP.is(header.getMimeType())) {
+			return true;
+		}
+		for (ImportExportProvider<T> provider : this.importExportProviders.values()) {
+			if (provider.isSupported(path, header)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	private DataImportResult<T> importFile(Path path, Collection<ImportExportProvider<T>> providers) throws IOException {
+	private DataImportResult<T> importFile(Path path, ImportHeader header, Collection<ImportExportProvider<T>> providers) throws IOException {
 		DataImportResult<T> results = new DataImportResult<>();
 		
 		LOGGER.debug("Importing data from '{}'", path.toAbsolutePath());
@@ -194,9 +280,10 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 		}
 		
 		// STEP 1: Attempt to import the file as-is
+		// NOTE: the header is read once for all the providers
 		for (ImportExportProvider<T> provider : providers) {
 			LOGGER.trace("Testing provider '{}'", provider.getClass().getName());
-			if (provider.isSupported(path)) {
+			if (provider.isSupported(path, header)) {
 				try {
 					LOGGER.info("Attempting import of '{}' using provider '{}'", path.toAbsolutePath(), provider.getClass());
 					DataImportResult<T> res = provider.imp(this, path);
@@ -216,7 +303,7 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 			// we failed to read the raw file with a format provider
 			// check if the file is a zip and we'll try to import each
 			// file as an item
-			if (MimeType.ZIP.check(path)) {
+			if (MimeType.ZIP.is(header.getMimeType())) {
 				LOGGER.debug("The file '{}' is a zip file, attempting to extract to import contents individually", path.toAbsolutePath());
 				// create a temp location to store the unzipped files
 				Path importPath = this.pathResolver.getBasePath().resolve("temp");
@@ -229,11 +316,13 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 					LOGGER.debug("Unzip to '{}' completed successfully", tempPath.toAbsolutePath());
 					
 					// process the directory
+					// NOTE: the files are imported one at a time since the files
+					// given to the import are already imported concurrently
 					try (Stream<Path> fileStream = Files.walk(tempPath)) {
 						fileStream.forEach(p -> {
 							if (Files.isRegularFile(p)) {
 								try {
-									DataImportResult<T> res = this.importFile(p, providers);
+									DataImportResult<T> res = this.importFile(p, ImportHeader.read(p), providers);
 									results.add(res);
 								} catch (IOException e) {
 									LOGGER.debug("Failed to import file '" + p.toAbsolutePath() + "'", e);
@@ -298,14 +387,29 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 	    }
 	}
 	
+	/**
+	 * Writes the file at the given path by writing to a temporary file and then
+	 * atomically replacing the target.
+	 * <p>
+	 * Sub classes should use this method for all writes to their managed files so
+	 * that a file is never left half-written and so that concurrent saves can be
+	 * committed to disk together.
+	 * @param path the path to write
+	 * @param writer the code to write the file's contents
+	 * @throws IOException if an IO error occurs
+	 */
+	protected final void write(Path path, ThrowableConsumer<OutputStream> writer) throws IOException {
+		WRITER.write(path, writer);
+	}
+	
 	@Override
 	public Path getFilePath(T item) {
 		return this.pathResolver.getPath(item);
 	}
 	
 	@Override
-	public Object getLock(UUID id) {
-		return this.locks.get(id);
+	public LockMap.Lease acquireLock(UUID id) {
+		return this.locks.write(id);
 	}
 	
 	@Override
@@ -0,0 +1,278 @@
+package org.praisenter.data;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.ThrowableConsumer;
+
+/**
+ * Writes files by first writing to a temporary file next to the target and then
+ * atomically renaming it over the target.
+ * <p>
+ * Commits are grouped: each caller writes its temporary file on its own thread and
+ * then hands it to a single committer thread which drains all pending commits, forces
+ * them to disk, renames them and then syncs each affected directory once for the whole
+ * batch. Callers block until their batch is committed, so from the caller's perspective
+ * the write is still synchronous.
+ * <p>
+ * Since the target is only ever replaced by a rename, readers will either see the old
+ * file or the new file, never a partially written one.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class AtomicFileWriter {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/** The extension of temporary files created by this class */
+	public static final String TEMP_EXTENSION = ".tmp";
+
+	/** The maximum number of files to commit in one batch */
+	private static final int MAX_BATCH_SIZE = 128;
+
+	/** The write buffer size */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** Used to generate unique temporary file names */
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	/** The commits waiting for the committer */
+	private final BlockingQueue<PendingCommit> pending;
+
+	/** The committer thread */
+	private final Thread committer;
+
+	public AtomicFileWriter() {
+		this.pending = new LinkedBlockingQueue<>();
+		this.committer = new Thread(this::commitLoop, "praisenter-file-committer");
+		this.committer.setDaemon(true);
+		this.committer.start();
+	}
+
+	/**
+	 * Writes the file at the given path using the given writer.
+	 * <p>
+	 * The writer is called on the current thread with a buffered stream to a temporary
+	 * file.  This method returns once the temporary file has been synced to disk and
+	 * moved over the given path.
+	 * @param path the target file
+	 * @param writer the code to write the contents
+	 * @throws IOException if an IO error occurs
+	 */
+	public void write(Path path, ThrowableConsumer<OutputStream> writer) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName().toString() + "." + SEQUENCE.incrementAndGet() + TEMP_EXTENSION);
+
+		FileChannel channel = FileChannel.open(temp,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		try {
+			// NOTE: don't close the stream here, that would close the channel
+			OutputStream os = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+			writer.accept(os);
+			os.flush();
+		} catch (Exception ex) {
+			closeQuietly(channel);
+			deleteQuietly(temp);
+			if (ex instanceof IOException) {
+				throw (IOException)ex;
+			}
+			throw new IOException("Failed to write '" + path.toAbsolutePath() + "'.", ex);
+		}
+
+		PendingCommit commit = new PendingCommit(path, temp, channel);
+		this.pending.add(commit);
+
+		try {
+			commit.future.get();
+		} catch (InterruptedException ex) {
+			// the committer still owns the temp file, it will finish or clean it up
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for '" + path.toAbsolutePath() + "' to be committed.");
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			throw new IOException("Failed to commit '" + path.toAbsolutePath() + "'.", cause);
+		}
+	}
+
+	/**
+	 * Deletes any temporary files left in the given directory by an interrupted write
+	 * (for example, due to power loss).
+	 * @param directory the directory
+	 */
+	public static void cleanUp(Path directory) {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEMP_EXTENSION)) {
+			for (Path path : stream) {
+				LOGGER.info("Deleting incomplete file '{}'", path.toAbsolutePath());
+				deleteQuietly(path);
+			}
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to clean up incomplete files in '" + directory.toAbsolutePath() + "'", ex);
+		}
+	}
+
+	/**
+	 * Returns true if the given path is a temporary file created by this class.
+	 * @param path the path
+	 * @return boolean
+	 */
+	public static boolean isTemporary(Path path) {
+		return path.getFileName().toString().endsWith(TEMP_EXTENSION);
+	}
+
+	/**
+	 * The committer thread's main loop.
+	 */
+	private void commitLoop() {
+		final List<PendingCommit> batch = new ArrayList<>();
+		while (true) {
+			try {
+				// wait for at least one then take anything else that queued
+				// up while we were waiting or committing the last batch
+				batch.add(this.pending.take());
+				this.pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+				this.commit(batch);
+			} catch (InterruptedException ex) {
+				LOGGER.warn("The file committer was interrupted", ex);
+			} catch (Throwable t) {
+				// make sure nobody is left waiting
+				for (PendingCommit commit : batch) {
+					commit.future.completeExceptionally(t);
+				}
+				LOGGER.error("Unexpected error in the file committer", t);
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Commits the given batch.
+	 * @param batch the batch
+	 */
+	private void commit(List<PendingCommit> batch) {
+		LOGGER.trace("Committing {} file(s)", batch.size());
+
+		// STEP 1: force all the data to disk
+		for (PendingCommit commit : batch) {
+			try {
+				commit.channel.force(true);
+			} catch (Exception ex) {
+				commit.error = ex;
+			} finally {
+				closeQuietly(commit.channel);
+			}
+		}
+
+		// STEP 2: replace the targets
+		Set<Path> directories = new LinkedHashSet<>();
+		for (PendingCommit commit : batch) {
+			if (commit.error != null) {
+				deleteQuietly(commit.temp);
+				continue;
+			}
+			try {
+				try {
+					Files.move(commit.temp, commit.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException ex) {
+					LOGGER.debug("Atomic move not supported for '{}', falling back to replace", commit.path.toAbsolutePath());
+					Files.move(commit.temp, commit.path, StandardCopyOption.REPLACE_EXISTING);
+				}
+				directories.add(commit.path.toAbsolutePath().getParent());
+			} catch (Exception ex) {
+				commit.error = ex;
+				deleteQuietly(commit.temp);
+			}
+		}
+
+		// STEP 3: sync the directory entries once for the batch
+		for (Path directory : directories) {
+			syncDirectory(directory);
+		}
+
+		// STEP 4: release the callers
+		for (PendingCommit commit : batch) {
+			if (commit.error != null) {
+				commit.future.completeExceptionally(commit.error);
+			} else {
+				commit.future.complete(null);
+			}
+		}
+	}
+
+	/**
+	 * Syncs the given directory so that renames are durable.
+	 * @param directory the directory
+	 */
+	private static void syncDirectory(Path directory) {
+		if (directory == null) return;
+		// JAVABUG (L) 10/19/26 [workaround] Opening a directory for sync isn't supported on Windows, NTFS renames are journaled anyway
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (Exception ex) {
+			LOGGER.trace("Unable to sync directory '{}': {}", directory, ex.getMessage());
+		}
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		try {
+			channel.close();
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to close file channel", ex);
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to delete temporary file '" + path.toAbsolutePath() + "'", ex);
+		}
+	}
+
+	/**
+	 * Represents a written, but not yet committed file.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class PendingCommit {
+		private final Path path;
+		private final Path temp;
+		private final FileChannel channel;
+		private final CompletableFuture<Void> future;
+		private Exception error;
+
+		public PendingCommit(Path path, Path temp, FileChannel channel) {
+			this.path = path;
+			this.temp = temp;
+			this.channel = channel;
+			this.future = new CompletableFuture<>();
+		}
+	}
+}
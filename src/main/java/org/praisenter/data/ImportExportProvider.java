@@ -22,6 +22,33 @@ public interface ImportExportProvider<T extends Persistable> {
 	 */
 	public boolean isSupported(String mimeType);
 	
+	/**
+	 * Determines if the given file path, whose mimetype has already been detected, is
+	 * supported by this format provider.
+	 * <p>
+	 * This avoids detecting the mimetype of the file again for each provider.
+	 * @param path a path to a file
+	 * @param mimeType the file mimetype
+	 * @return boolean
+	 */
+	public default boolean isSupported(Path path, String mimeType) {
+		return this.isSupported(mimeType);
+	}
+	
+	/**
+	 * Determines if the given file path, whose header has already been read, is supported
+	 * by this format provider.
+	 * <p>
+	 * Providers whose formats share a mimetype (XML for example) should check the header
+	 * so that only the provider for the format is asked to import the file.
+	 * @param path a path to a file
+	 * @param header the file header
+	 * @return boolean
+	 */
+	public default boolean isSupported(Path path, ImportHeader header) {
+		return this.isSupported(path, header.getMimeType());
+	}
+	
 	/**
 	 * Determines if the given stream (and file/entry name) is supported by this format provider.
 	 * <p>
@@ -0,0 +1,163 @@
+package org.praisenter.data;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.data.json.JsonIO;
+import org.praisenter.data.json.PraisenterFormat;
+import org.praisenter.utility.MimeType;
+import org.praisenter.utility.XmlStreams;
+
+/**
+ * The header of a file to import, read once for all the import providers.
+ * <p>
+ * The header is the mime type of the file and, for XML files, the root element or, for
+ * JSON files, the Praisenter format.  Only the start of the file is read so that choosing
+ * the providers that can import a file doesn't require each one to read the file.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class ImportHeader {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The mime type */
+	private final String mimeType;
+	
+	/** The local name of the root element; null if it's not an XML file */
+	private final String rootName;
+	
+	/** The namespace of the root element; can be null */
+	private final String rootNamespace;
+	
+	/** The attributes of the root element by local name */
+	private final Map<String, String> rootAttributes;
+	
+	/** The Praisenter format; null if it's not a Praisenter JSON file */
+	private final PraisenterFormat format;
+	
+	/**
+	 * Full constructor.
+	 * @param mimeType the mime type
+	 * @param rootName the local name of the root element
+	 * @param rootNamespace the namespace of the root element
+	 * @param rootAttributes the attributes of the root element
+	 * @param format the Praisenter format
+	 */
+	private ImportHeader(String mimeType, String rootName, String rootNamespace, Map<String, String> rootAttributes, PraisenterFormat format) {
+		this.mimeType = mimeType;
+		this.rootName = rootName;
+		this.rootNamespace = rootNamespace;
+		this.rootAttributes = rootAttributes;
+		this.format = format;
+	}
+	
+	/**
+	 * Reads the header of the given file.
+	 * <p>
+	 * The mime type is always detected.  The root element is only read for XML and text
+	 * files and the Praisenter format is only read for JSON files.
+	 * @param path the file
+	 * @return {@link ImportHeader}
+	 */
+	public static ImportHeader read(Path path) {
+		final String mimeType = MimeType.get(path);
+		if (mimeType == null) {
+			return new ImportHeader(mimeType, null, null, Collections.emptyMap(), null);
+		}
+		
+		if (MimeType.XML.is(mimeType) || mimeType.toLowerCase().startsWith("text")) {
+			try (InputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+				XMLStreamReader r = XmlStreams.createReader(stream);
+				// only the root element needs to be read
+				while (r.hasNext()) {
+					if (r.next() == XMLStreamConstants.START_ELEMENT) {
+						Map<String, String> attributes = new HashMap<>();
+						for (int i = 0; i < r.getAttributeCount(); i++) {
+							attributes.put(r.getAttributeLocalName(i), r.getAttributeValue(i));
+						}
+						return new ImportHeader(mimeType, r.getLocalName(), r.getNamespaceURI(), attributes, null);
+					}
+				}
+			} catch (Exception ex) {
+				LOGGER.trace("Failed to read the root element of '" + path.toAbsolutePath() + "'.", ex);
+			}
+		} else if (MimeType.JSON.is(mimeType)) {
+			try (InputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+				PraisenterFormat format = JsonIO.peekPraisenterFormat(stream);
+				return new ImportHeader(mimeType, null, null, Collections.emptyMap(), format);
+			} catch (Exception ex) {
+				LOGGER.trace("Failed to read the Praisenter format of '" + path.toAbsolutePath() + "'.", ex);
+			}
+		}
+		
+		return new ImportHeader(mimeType, null, null, Collections.emptyMap(), null);
+	}
+	
+	/**
+	 * Returns the mime type.
+	 * @return String
+	 */
+	public String getMimeType() {
+		return this.mimeType;
+	}
+	
+	/**
+	 * Returns true if the root element has the given local name (ignoring case).
+	 * @param name the local name
+	 * @return boolean
+	 */
+	public boolean isRoot(String name) {
+		return this.rootName != null && this.rootName.equalsIgnoreCase(name);
+	}
+	
+	/**
+	 * Returns the local name of the root element or null if the file isn't XML.
+	 * @return String
+	 */
+	public String getRootName() {
+		return this.rootName;
+	}
+	
+	/**
+	 * Returns the namespace of the root element or null if it doesn't have one.
+	 * @return String
+	 */
+	public String getRootNamespace() {
+		return this.rootNamespace;
+	}
+	
+	/**
+	 * Returns the value of the given attribute of the root element or null if it doesn't have it.
+	 * @param name the local name of the attribute
+	 * @return String
+	 */
+	public String getRootAttribute(String name) {
+		return this.rootAttributes.get(name);
+	}
+	
+	/**
+	 * Returns the Praisenter format or null if the file isn't a Praisenter JSON file.
+	 * @return {@link PraisenterFormat}
+	 */
+	public PraisenterFormat getFormat() {
+		return this.format;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.rootName != null ? this.mimeType + "<" + this.rootName + ">" : this.mimeType;
+	}
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.praisenter.LockMap;
 
 public interface PersistAdapter<T extends Persistable> {
 	public void initialize() throws IOException;
@@ -14,8 +15,10 @@ public interface PersistAdapter<T extends Persistable> {
 	public void update(T item) throws IOException;
 	public void delete(T item) throws IOException;
 	public boolean upsert(T item) throws IOException;
-	public Object getLock(UUID id);
+	public LockMap.Lease acquireLock(UUID id);
 	public DataImportResult<T> importData(Path path) throws IOException;
+	public DataImportResult<T> importData(Path path, ImportHeader header) throws IOException;
+	public boolean isImportSupported(Path path, ImportHeader header);
 	public void exportData(ImportExportFormat format, ZipArchiveOutputStream destination, List<T> items) throws IOException;
 	public void exportData(ImportExportFormat format, Path path, T item) throws IOException;
 	public Path getFilePath(T item);
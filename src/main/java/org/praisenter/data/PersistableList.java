@@ -0,0 +1,212 @@
+package org.praisenter.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javafx.collections.ModifiableObservableListBase;
+
+/**
+ * An observable list of {@link Persistable}s that also maintains an id to index map
+ * so that items can be found, replaced or removed by id without scanning the list.
+ * <p>
+ * Modifications can be grouped using {@link #batch(Runnable)} so that listeners
+ * (and any FilteredList/SortedList built on top of this list) receive a single
+ * change event for the whole group.
+ * <p>
+ * Like all observable lists bound to the UI, this list should only be modified on
+ * the Java FX thread.
+ * @author William Bittle
+ * @version 3.1.7
+ * @param <T> the item type
+ */
+public final class PersistableList<T extends Persistable> extends ModifiableObservableListBase<T> {
+	/** The items */
+	private final List<T> items;
+
+	/** The index of each item by id */
+	private final Map<UUID, Integer> indices;
+
+	/** True if the index map needs to be rebuilt before use */
+	private boolean indicesInvalid;
+
+	public PersistableList() {
+		this.items = new ArrayList<>();
+		this.indices = new HashMap<>();
+		this.indicesInvalid = false;
+	}
+
+	/**
+	 * Runs the given operation, reporting all modifications it makes to this
+	 * list as a single change.
+	 * @param operation the operation
+	 */
+	public void batch(Runnable operation) {
+		this.beginChange();
+		try {
+			operation.run();
+		} finally {
+			this.endChange();
+		}
+	}
+
+	/**
+	 * Returns the index of the item with the given id or -1 if not found.
+	 * @param id the id
+	 * @return int
+	 */
+	public int indexOfId(UUID id) {
+		if (id == null) return -1;
+		this.ensureIndices();
+		Integer index = this.indices.get(id);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * Returns the item with the given id or null if not found.
+	 * @param id the id
+	 * @return T
+	 */
+	public T getById(UUID id) {
+		int index = this.indexOfId(id);
+		return index >= 0 ? this.items.get(index) : null;
+	}
+
+	/**
+	 * Replaces the item with the same id as the given item, or adds it if there
+	 * isn't one.
+	 * @param item the item
+	 * @return boolean true if an item was replaced
+	 */
+	public boolean replace(T item) {
+		int index = this.indexOfId(item.getId());
+		if (index >= 0) {
+			this.set(index, item);
+			return true;
+		}
+		this.add(item);
+		return false;
+	}
+
+	/**
+	 * Removes the item with the given id.
+	 * @param id the id
+	 * @return boolean true if the item was found and removed
+	 */
+	public boolean removeById(UUID id) {
+		int index = this.indexOfId(id);
+		if (index >= 0) {
+			this.remove(index);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all items whose ids are in the given set as a single change.
+	 * @param ids the ids
+	 * @return boolean true if any item was removed
+	 */
+	public boolean removeAllById(Set<UUID> ids) {
+		if (ids.isEmpty()) return false;
+		boolean[] removed = new boolean[] { false };
+		this.batch(() -> {
+			// go backwards so that the indices stay valid
+			for (int i = this.items.size() - 1; i >= 0; i--) {
+				if (ids.contains(this.items.get(i).getId())) {
+					this.remove(i);
+					removed[0] = true;
+				}
+			}
+		});
+		return removed[0];
+	}
+
+	/* (non-Javadoc)
+	 * @see javafx.collections.ModifiableObservableListBase#addAll(java.util.Collection)
+	 */
+	@Override
+	public boolean addAll(Collection<? extends T> c) {
+		if (c.isEmpty()) return false;
+		this.batch(() -> {
+			for (T item : c) {
+				this.add(item);
+			}
+		});
+		return true;
+	}
+
+	private void ensureIndices() {
+		if (this.indicesInvalid) {
+			this.indices.clear();
+			for (int i = 0; i < this.items.size(); i++) {
+				this.indices.put(this.items.get(i).getId(), i);
+			}
+			this.indicesInvalid = false;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see javafx.collections.ModifiableObservableListBase#get(int)
+	 */
+	@Override
+	public T get(int index) {
+		return this.items.get(index);
+	}
+
+	/* (non-Javadoc)
+	 * @see javafx.collections.ModifiableObservableListBase#size()
+	 */
+	@Override
+	public int size() {
+		return this.items.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see javafx.collections.ModifiableObservableListBase#doAdd(int, java.lang.Object)
+	 */
+	@Override
+	protected void doAdd(int index, T element) {
+		this.items.add(index, element);
+		if (!this.indicesInvalid && index == this.items.size() - 1) {
+			// appending doesn't move anything else
+			this.indices.put(element.getId(), index);
+		} else {
+			this.indicesInvalid = true;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see javafx.collections.ModifiableObservableListBase#doSet(int, java.lang.Object)
+	 */
+	@Override
+	protected T doSet(int index, T element) {
+		T old = this.items.set(index, element);
+		if (!this.indicesInvalid) {
+			if (!old.getId().equals(element.getId())) {
+				this.indices.remove(old.getId());
+			}
+			this.indices.put(element.getId(), index);
+		}
+		return old;
+	}
+
+	/* (non-Javadoc)
+	 * @see javafx.collections.ModifiableObservableListBase#doRemove(int)
+	 */
+	@Override
+	protected T doRemove(int index) {
+		T old = this.items.remove(index);
+		if (!this.indicesInvalid && index == this.items.size()) {
+			// removing the last item doesn't move anything else
+			this.indices.remove(old.getId());
+		} else {
+			this.indicesInvalid = true;
+		}
+		return old;
+	}
+}
@@ -10,7 +10,8 @@ import java.util.concurrent.CompletionException;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.praisenter.async.AsyncHelper;
+import org.praisenter.async.AsyncExecutors;
+import org.praisenter.async.JavaFXBatchExecutor;
 import org.praisenter.data.search.SearchIndex;
 
 import javafx.application.Platform;
@@ -23,15 +24,19 @@ public final class PersistentStore<T extends Persistable> {
 	private final PersistAdapter<T> adapter;
 	private final SearchIndex index;
 	
-	private final ObservableList<T> items;
+	private final PersistableList<T> items;
 	private final ObservableList<T> itemsReadOnly;
 	
+	/** Applies list changes on the Java FX thread, one batch per pulse */
+	private final JavaFXBatchExecutor fxExecutor;
+	
 	public PersistentStore(PersistAdapter<T> adapter, SearchIndex index) {
 		this.adapter = adapter;
 		this.index = index;
 		
-		this.items = FXCollections.observableArrayList();
+		this.items = new PersistableList<>();
 		this.itemsReadOnly = FXCollections.unmodifiableObservableList(this.items);
+		this.fxExecutor = new JavaFXBatchExecutor(this.items::batch);
 	}
 	
 	public CompletableFuture<List<T>> initialize() {
@@ -42,10 +47,10 @@ public final class PersistentStore<T extends Persistable> {
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((items) -> {
+		}, AsyncExecutors.IO).thenApplyAsync((items) -> {
 			this.items.addAll(items);
 			return items;
-		}));
+		}, this.fxExecutor);
 	}
 	
 	private void throwIfNotJavaFXThread() {
@@ -61,13 +66,7 @@ public final class PersistentStore<T extends Persistable> {
 	
 	public T getItem(UUID id) {
 		this.throwIfNotJavaFXThread();
-		for (int i = 0; i < this.items.size(); i++) {
-			T item = this.items.get(i);
-			if (id.equals(item.getId())) {
-				return item;
-			}
-		}
-		return null;
+		return this.items.getById(id);
 	}
 	
 	public CompletableFuture<Void> create(T item) {
@@ -78,9 +77,9 @@ public final class PersistentStore<T extends Persistable> {
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
+		}, AsyncExecutors.IO).thenRunAsync(() -> {
 			this.items.add(item);
-		}));
+		}, this.fxExecutor);
 	}
 	
 	public CompletableFuture<Void> update(T item) {
@@ -91,18 +90,12 @@ public final class PersistentStore<T extends Persistable> {
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			int index = -1;
-			for (int i = 0; i < this.items.size(); i++) {
-				T test = this.items.get(i);
-				if (test.getId().equals(item.getId())) {
-					index = i;
-				}
-			}
-			if (index >= 0 && index < this.items.size()) {
+		}, AsyncExecutors.IO).thenRunAsync(() -> {
+			int index = this.items.indexOfId(item.getId());
+			if (index >= 0) {
 				this.items.set(index, item);
 			}
-		}));
+		}, this.fxExecutor);
 	}
 	
 	public CompletableFuture<Void> delete(T item) {
@@ -113,9 +106,9 @@ public final class PersistentStore<T extends Persistable> {
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			this.items.removeIf(i -> i.getId().equals(item.getId()));
-		}));
+		}, AsyncExecutors.IO).thenRunAsync(() -> {
+			this.items.removeById(item.getId());
+		}, this.fxExecutor);
 	}
 	
 	public CompletableFuture<DataImportResult<T>> importData(Path path, boolean isTypeKnown) {
@@ -139,20 +132,55 @@ public final class PersistentStore<T extends Persistable> {
 					return null;
 				}
 			}
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
+		}, AsyncExecutors.IO).thenApplyAsync((result) -> {
 			if (result != null) {
 				for (T item : result.getUpdated()) {
-					int index = this.items.indexOf(item);
-					if (index < 0 || index >= this.items.size()) {
-						this.items.add(item);
-					} else {
-						this.items.set(index, item);
-					}
+					this.items.replace(item);
 				}
 				this.items.addAll(result.getCreated());
 			}
 			return result;
-		}));
+		}, this.fxExecutor);
+	}
+	
+	/**
+	 * Imports the given file on the calling thread.
+	 * <p>
+	 * Unlike {@link #importData(Path, boolean)} the search index and the items are not
+	 * updated so that imports of many files can do so in batches; see
+	 * {@link #addImported(DataImportResult)}.
+	 * @param path the file
+	 * @param header the header of the file
+	 * @return {@link DataImportResult}
+	 * @throws IOException if an IO error occurs
+	 */
+	public DataImportResult<T> importFile(Path path, ImportHeader header) throws IOException {
+		return this.adapter.importData(path, header);
+	}
+	
+	/**
+	 * Returns true if any of the import formats support the given file.
+	 * @param path the file
+	 * @param header the header of the file
+	 * @return boolean
+	 */
+	public boolean isImportSupported(Path path, ImportHeader header) {
+		return this.adapter.isImportSupported(path, header);
+	}
+	
+	/**
+	 * Adds the created items and replaces the updated items of the given import with one
+	 * change to the items.
+	 * @param result the import result
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	public CompletableFuture<Void> addImported(DataImportResult<T> result) {
+		return CompletableFuture.runAsync(() -> {
+			for (T item : result.getUpdated()) {
+				this.items.replace(item);
+			}
+			this.items.addAll(result.getCreated());
+		}, this.fxExecutor);
 	}
 	
 	public void exportData(ImportExportFormat format, ZipArchiveOutputStream stream, List<T> items) throws IOException {
@@ -166,7 +194,7 @@ public final class PersistentStore<T extends Persistable> {
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
-		});
+		}, AsyncExecutors.IO);
 	}
 	
 	public Path getFilePath(T item) {
@@ -70,6 +70,16 @@ public class PraisenterFormatProvider<T extends Persistable> implements ImportEx
 		return MimeType.JSON.is(mimeType) || MimeType.ZIP.is(mimeType);
 	}
 	
+	@Override
+	public boolean isSupported(Path path, ImportHeader header) {
+		// a zip can contain any type so it has to be read to know
+		if (MimeType.JSON.is(header.getMimeType())) {
+			PraisenterFormat format = header.getFormat();
+			return format != null && format.is(this.clazz);
+		}
+		return this.isSupported(header.getMimeType());
+	}
+	
 	@Override
 	public boolean isSupported(String name, InputStream stream) throws IOException {
 		if (!stream.markSupported()) {
@@ -8,6 +8,7 @@ import java.util.concurrent.CompletionException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.praisenter.async.AsyncExecutors;
 import org.praisenter.data.json.JsonIO;
 
 public final class SingleFileManager<T> {
@@ -56,6 +57,6 @@ public final class SingleFileManager<T> {
 			} catch (Exception e) {
 				throw new CompletionException(e);
 			}
-		});
+		}, AsyncExecutors.IO);
 	}
 }
@@ -173,6 +173,7 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	@Override
 	public List<Document> index() {
 		List<Document> documents = new ArrayList<Document>();
+		String language = this.getLanguage();
 		for (Book book : this.getBooks()) {
 			for (Chapter chapter : book.getChapters()) {
 				for (Verse verse : chapter.getVerses()) {
@@ -193,7 +194,12 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 					document.add(new StoredField(FIELD_VERSE_NUMBER, verse.getNumber()));
 					
 					if (!StringManipulator.isNullOrEmpty(verse.getText())) {
-						document.add(new TextField(FIELD_TEXT, verse.getText(), Field.Store.YES));
+						document.add(new Field(FIELD_TEXT, verse.getText(), FIELD_TEXT_TYPE));
+					}
+					
+					// analyze the text for the language of the bible
+					if (!StringManipulator.isNullOrEmpty(language)) {
+						document.add(new StringField(FIELD_LANGUAGE, language, Field.Store.NO));
 					}
 					
 					documents.add(document);
@@ -0,0 +1,172 @@
+package org.praisenter.data.bible;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Maps the verses of one bible to the same verses of another bible so that the
+ * verses of any number of translations can be shown together.
+ * <p>
+ * The mapping is computed once from the {@link VerseIndex} of each bible.  Books are
+ * matched by name then by number (like {@link ReadOnlyBible#getMatchingBook(ReadOnlyBook)})
+ * and verses by chapter and verse number within the book.  Bibles with different
+ * versifications (where a verse is numbered differently or missing in one of them)
+ * have no match for those verses, rather than showing a verse that's not the same.
+ * See {@link #getUnalignedCount()}.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class BibleAlignment {
+	/** The maximum number of alignments to keep */
+	private static final int CACHE_SIZE = 8;
+	
+	/** The recently used alignments by bible ids */
+	private static final Map<String, BibleAlignment> CACHE = new LinkedHashMap<String, BibleAlignment>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, BibleAlignment> eldest) {
+			return this.size() > CACHE_SIZE;
+		}
+	};
+	
+	/** The index of the bible being mapped from */
+	private final VerseIndex from;
+	
+	/** The index of the bible being mapped to */
+	private final VerseIndex to;
+	
+	/** The ordinal in the bible being mapped to by ordinal in the bible being mapped from; -1 if none */
+	private final int[] ordinals;
+	
+	/** The number of verses without a match */
+	private final int unaligned;
+	
+	/**
+	 * Full constructor.
+	 * @param from the index of the bible to map from
+	 * @param to the index of the bible to map to
+	 */
+	public BibleAlignment(VerseIndex from, VerseIndex to) {
+		Objects.requireNonNull(from);
+		Objects.requireNonNull(to);
+		
+		this.from = from;
+		this.to = to;
+		this.ordinals = new int[from.size()];
+		Arrays.fill(this.ordinals, -1);
+		
+		ReadOnlyBible bible = to.getBible();
+		int unaligned = 0;
+		ReadOnlyBook book = null;
+		int bookNumber = -1;
+		for (int i = 0; i < this.ordinals.length; i++) {
+			LocatedVerse verse = from.getVerse(i);
+			
+			// only match each book once
+			if (verse.getBook() != book) {
+				book = verse.getBook();
+				ReadOnlyBook match = bible.getMatchingBook(book);
+				bookNumber = match != null ? match.getNumber() : -1;
+			}
+			
+			int ordinal = bookNumber < 0 ? -1 : to.getOrdinal(bookNumber, verse.getChapter().getNumber(), verse.getVerse().getNumber());
+			this.ordinals[i] = ordinal;
+			if (ordinal < 0) {
+				unaligned++;
+			}
+		}
+		
+		this.unaligned = unaligned;
+	}
+	
+	/**
+	 * Returns the alignment of the given bibles, creating it if either bible has changed
+	 * since they were last aligned.
+	 * @param from the bible to map from
+	 * @param to the bible to map to
+	 * @return {@link BibleAlignment}
+	 */
+	public static BibleAlignment of(ReadOnlyBible from, ReadOnlyBible to) {
+		Objects.requireNonNull(from);
+		Objects.requireNonNull(to);
+		
+		VerseIndex fi = VerseIndex.of(from);
+		VerseIndex ti = VerseIndex.of(to);
+		
+		UUID fid = from.getId();
+		UUID tid = to.getId();
+		if (fid == null || tid == null) {
+			return new BibleAlignment(fi, ti);
+		}
+		
+		String key = fid + ":" + tid;
+		synchronized (CACHE) {
+			BibleAlignment alignment = CACHE.get(key);
+			// the indexes are replaced when the bibles change
+			if (alignment == null || alignment.from != fi || alignment.to != ti) {
+				alignment = new BibleAlignment(fi, ti);
+				CACHE.put(key, alignment);
+			}
+			return alignment;
+		}
+	}
+	
+	/**
+	 * Returns the matching verse for the given verse of the bible being mapped from or
+	 * null if there isn't one.
+	 * @param verse the verse
+	 * @return {@link LocatedVerse}
+	 */
+	public LocatedVerse getMatchingVerse(LocatedVerse verse) {
+		int ordinal = this.from.getOrdinal(verse);
+		if (ordinal < 0) {
+			return null;
+		}
+		return this.to.getVerse(this.ordinals[ordinal]);
+	}
+	
+	/**
+	 * Returns the same as {@link ReadOnlyBible#getMatchingTriplet(LocatedVerseTriplet)} for the
+	 * bible being mapped to.
+	 * @param triplet the triplet of the bible being mapped from
+	 * @return {@link LocatedVerseTriplet}
+	 */
+	public LocatedVerseTriplet getMatchingTriplet(LocatedVerseTriplet triplet) {
+		LocatedVerse previous = triplet.getPrevious();
+		LocatedVerse current = triplet.getCurrent();
+		LocatedVerse next = triplet.getNext();
+		
+		return new LocatedVerseTriplet(
+				previous != null ? this.getMatchingVerse(previous) : null,
+				current != null ? this.getMatchingVerse(current) : null,
+				next != null ? this.getMatchingVerse(next) : null);
+	}
+	
+	/**
+	 * Returns the number of verses of the bible being mapped from that have no match.
+	 * @return int
+	 */
+	public int getUnalignedCount() {
+		return this.unaligned;
+	}
+	
+	/**
+	 * Returns the index of the bible being mapped from.
+	 * @return {@link VerseIndex}
+	 */
+	public VerseIndex getFrom() {
+		return this.from;
+	}
+	
+	/**
+	 * Returns the index of the bible being mapped to.
+	 * @return {@link VerseIndex}
+	 */
+	public VerseIndex getTo() {
+		return this.to;
+	}
+}
@@ -0,0 +1,457 @@
+package org.praisenter.data.bible;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Parses scripture references like "1 Cor 13:4-7" or "John 3:16, 18; 4:1" into the
+ * verses of a bible.
+ * <p>
+ * The book names of the bible (and the common English abbreviations for English
+ * bibles) are put into a {@link BookNameTrie} when the parser is created so that each
+ * reference is parsed in a single pass without searching the books.  A parser is only
+ * valid for the bible it was created for; use {@link #isCurrent(ReadOnlyBible)} to check
+ * whether it needs to be created again after the bible changes.
+ * <p>
+ * The supported syntax is:
+ * <pre>
+ * book chapter[:verse][-[chapter:]verse][, ...][; [book] ...]
+ * </pre>
+ * where "." can be used in place of ":".  A chapter without a verse is the whole chapter,
+ * except for books with only one chapter, where the number is the verse.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class BibleReferenceParser {
+	/**
+	 * The common English abbreviations of the books indexed by book number.
+	 * <p>
+	 * These are only used for bibles that use the standard 66 book numbering.
+	 */
+	private static final String[] ENGLISH_ABBREVIATIONS = new String[] {
+		null,
+		"Gen|Ge|Gn", "Exod|Exo|Ex", "Lev|Le|Lv", "Num|Nu|Nm", "Deut|Dt",
+		"Josh|Jos", "Judg|Jdg", "Ruth|Ru", "1Sam|1Sa|1Sm", "2Sam|2Sa|2Sm",
+		"1Kgs|1Ki|1Kg", "2Kgs|2Ki|2Kg", "1Chr|1Ch", "2Chr|2Ch", "Ezra|Ezr",
+		"Neh|Ne", "Esth|Est", "Job|Jb", "Ps|Psa|Pss|Psalm", "Prov|Pr|Prv",
+		"Eccl|Ecc|Qoh", "Song|SS|Sos|Canticles", "Isa|Is", "Jer|Je", "Lam|La",
+		"Ezek|Eze|Ezk", "Dan|Da|Dn", "Hos|Ho", "Joel|Jl", "Amos|Am",
+		"Obad|Ob", "Jonah|Jnh", "Mic|Mi", "Nah|Na", "Hab|Hb",
+		"Zeph|Zep|Zp", "Hag|Hg", "Zech|Zec|Zc", "Mal|Ml", "Matt|Mt",
+		"Mark|Mk|Mrk", "Luke|Lk", "John|Jn|Jhn", "Acts|Ac", "Rom|Ro|Rm",
+		"1Cor|1Co", "2Cor|2Co", "Gal|Ga", "Eph|Ephes", "Phil|Php|Pp",
+		"Col|Co", "1Thess|1Th", "2Thess|2Th", "1Tim|1Ti", "2Tim|2Ti",
+		"Titus|Tit", "Phlm|Philem|Phm", "Heb|He", "Jas|Jm", "1Pet|1Pe|1Pt",
+		"2Pet|2Pe|2Pt", "1John|1Jn|1Jhn", "2John|2Jn|2Jhn", "3John|3Jn|3Jhn", "Jude|Jud",
+		"Rev|Re|Rv"
+	};
+	
+	/** The bible */
+	private final ReadOnlyBible bible;
+	
+	/** The modified date of the bible when this parser was created */
+	private final Instant modifiedDate;
+	
+	/** The number of books of the bible when this parser was created */
+	private final int bookCount;
+	
+	/** The book names and abbreviations */
+	private final BookNameTrie names;
+	
+	/** The books by number */
+	private final Map<Integer, ReadOnlyBook> books;
+	
+	/**
+	 * Full constructor.
+	 * @param bible the bible
+	 */
+	public BibleReferenceParser(ReadOnlyBible bible) {
+		Objects.requireNonNull(bible);
+		
+		this.bible = bible;
+		this.modifiedDate = bible.getModifiedDate();
+		this.names = new BookNameTrie();
+		this.books = new HashMap<Integer, ReadOnlyBook>();
+		
+		List<? extends ReadOnlyBook> books = bible.getBooksUnmodifiable();
+		this.bookCount = books.size();
+		for (ReadOnlyBook book : books) {
+			this.books.putIfAbsent(book.getNumber(), book);
+			String name = book.getName();
+			if (name != null && !name.isBlank()) {
+				this.names.add(name, book.getNumber());
+			}
+		}
+		
+		// the abbreviations are added after the names so that the names win
+		if (isEnglish(bible.getLanguage())) {
+			for (ReadOnlyBook book : books) {
+				int number = book.getNumber();
+				if (number > 0 && number < ENGLISH_ABBREVIATIONS.length) {
+					for (String abbreviation : ENGLISH_ABBREVIATIONS[number].split("\\|")) {
+						this.names.add(abbreviation, number);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns true if the given language tag is English or not set.
+	 * @param language the language tag
+	 * @return boolean
+	 */
+	private static boolean isEnglish(String language) {
+		if (language == null || language.isBlank()) {
+			return true;
+		}
+		return "en".equals(Locale.forLanguageTag(language.trim()).getLanguage());
+	}
+	
+	/**
+	 * Returns true if this parser was created for the given bible and the bible
+	 * hasn't changed since.
+	 * @param bible the bible
+	 * @return boolean
+	 */
+	public boolean isCurrent(ReadOnlyBible bible) {
+		return this.bible == bible &&
+			   Objects.equals(this.modifiedDate, bible.getModifiedDate()) &&
+			   this.bookCount == bible.getBooksUnmodifiable().size();
+	}
+	
+	/**
+	 * Returns true if the given text is the start of the name or an abbreviation of the given book.
+	 * @param text the text
+	 * @param book the book
+	 * @return boolean
+	 */
+	public boolean isMatch(String text, ReadOnlyBook book) {
+		if (text == null || book == null) {
+			return true;
+		}
+		return this.names.isPrefix(replaceRomanNumeral(text.trim(), 0), book.getNumber());
+	}
+	
+	/**
+	 * Returns the book best matching the given text or null if none match.
+	 * @param text the book name or abbreviation (or the start of one)
+	 * @return {@link ReadOnlyBook}
+	 */
+	public ReadOnlyBook findBook(String text) {
+		if (text == null || text.isBlank()) {
+			return null;
+		}
+		String name = replaceRomanNumeral(text.trim(), 0);
+		int[] end = new int[1];
+		int number = this.names.match(name, 0, end);
+		// all the text must match
+		if (number < 0 || end[0] < name.length()) {
+			return null;
+		}
+		return this.books.get(number);
+	}
+	
+	/**
+	 * Returns the verses of the given reference in order.
+	 * <p>
+	 * An empty list is returned if the reference isn't valid or any part of it doesn't
+	 * exist in the bible.
+	 * @param reference the reference
+	 * @return List&lt;{@link LocatedVerse}&gt;
+	 */
+	public List<LocatedVerse> parse(String reference) {
+		if (reference == null || reference.isBlank()) {
+			return Collections.emptyList();
+		}
+		
+		Cursor cursor = new Cursor(reference.trim());
+		List<LocatedVerse> verses = new ArrayList<LocatedVerse>();
+		
+		ReadOnlyBook book = null;
+		while (!cursor.isEnd()) {
+			// each part separated by ; can start with a book
+			cursor.text = replaceRomanNumeral(cursor.text, cursor.index);
+			if (cursor.isBookNext()) {
+				book = this.parseBook(cursor);
+			}
+			if (book == null) {
+				return Collections.emptyList();
+			}
+			
+			// the chapters and verses of the part
+			boolean single = book.getChaptersUnmodifiable().size() == 1;
+			int chapter = -1;
+			while (true) {
+				int a = cursor.readNumber();
+				if (a < 0) {
+					return Collections.emptyList();
+				}
+				
+				int startChapter;
+				int startVerse;
+				if (cursor.read(':', '.')) {
+					startChapter = a;
+					startVerse = cursor.readNumber();
+					if (startVerse < 0) {
+						return Collections.emptyList();
+					}
+				} else if (single) {
+					startChapter = book.getChaptersUnmodifiable().get(0).getNumber();
+					startVerse = a;
+				} else if (chapter < 0) {
+					// a chapter on its own
+					startChapter = a;
+					startVerse = -1;
+				} else {
+					// a verse of the previous chapter
+					startChapter = chapter;
+					startVerse = a;
+				}
+				
+				int endChapter = startChapter;
+				int endVerse = startVerse;
+				if (cursor.read('-', '–')) {
+					int b = cursor.readNumber();
+					if (b < 0) {
+						return Collections.emptyList();
+					}
+					if (cursor.read(':', '.')) {
+						endChapter = b;
+						endVerse = cursor.readNumber();
+						if (endVerse < 0 || startVerse < 0) {
+							return Collections.emptyList();
+						}
+					} else if (startVerse < 0) {
+						endChapter = b;
+					} else {
+						endVerse = b;
+					}
+				}
+				
+				if (!this.addVerses(verses, book, startChapter, startVerse, endChapter, endVerse)) {
+					return Collections.emptyList();
+				}
+				
+				// verses after a comma are in the last chapter
+				chapter = startVerse < 0 ? -1 : endChapter;
+				
+				if (!cursor.read(',')) {
+					break;
+				}
+			}
+			
+			if (!cursor.read(';') && !cursor.isEnd()) {
+				return Collections.emptyList();
+			}
+		}
+		
+		return verses;
+	}
+	
+	/**
+	 * Reads the book at the cursor or returns null if it isn't a book.
+	 * @param cursor the cursor
+	 * @return {@link ReadOnlyBook}
+	 */
+	private ReadOnlyBook parseBook(Cursor cursor) {
+		cursor.skipSpace();
+		
+		int[] end = new int[1];
+		int number = this.names.match(cursor.text, cursor.index, end);
+		if (number < 0) {
+			return null;
+		}
+		
+		// the book must be followed by a number (partial words like "Johnx" don't count)
+		cursor.index = end[0];
+		while (!cursor.isEnd() && (cursor.peek() == '.' || Character.isWhitespace(cursor.peek()))) {
+			cursor.index++;
+		}
+		if (cursor.isEnd() || !Character.isDigit(cursor.peek())) {
+			return null;
+		}
+		
+		return this.books.get(number);
+	}
+	
+	/**
+	 * Adds the verses in the given range to the given list and returns false if the range doesn't exist.
+	 * @param verses the list to add to
+	 * @param book the book
+	 * @param startChapter the first chapter
+	 * @param startVerse the first verse or -1 for the whole chapter
+	 * @param endChapter the last chapter
+	 * @param endVerse the last verse or -1 for the whole chapter
+	 * @return boolean
+	 */
+	private boolean addVerses(List<LocatedVerse> verses, ReadOnlyBook book, int startChapter, int startVerse, int endChapter, int endVerse) {
+		if (endChapter < startChapter || (endChapter == startChapter && endVerse < startVerse)) {
+			return false;
+		}
+		
+		int size = verses.size();
+		boolean started = false;
+		boolean ended = false;
+		for (ReadOnlyChapter chapter : book.getChaptersUnmodifiable()) {
+			int cn = chapter.getNumber();
+			if (cn < startChapter || cn > endChapter) {
+				continue;
+			}
+			for (ReadOnlyVerse verse : chapter.getVersesUnmodifiable()) {
+				int vn = verse.getNumber();
+				if (cn == startChapter && startVerse >= 0 && vn < startVerse) {
+					continue;
+				}
+				if (cn == endChapter && endVerse >= 0 && vn > endVerse) {
+					continue;
+				}
+				if (cn == startChapter && (startVerse < 0 || vn == startVerse)) {
+					started = true;
+				}
+				if (cn == endChapter && (endVerse < 0 || vn == endVerse)) {
+					ended = true;
+				}
+				verses.add(new LocatedVerse(this.bible, book, chapter, verse));
+			}
+		}
+		
+		// the first and last verses must exist
+		return started && ended && verses.size() > size;
+	}
+	
+	/**
+	 * Replaces a roman numeral at the given index (like the "II" of "II Kings") with its number.
+	 * @param text the text
+	 * @param index the index
+	 * @return String
+	 */
+	private static String replaceRomanNumeral(String text, int index) {
+		int i = index;
+		while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+			i++;
+		}
+		int n = 0;
+		while (i + n < text.length() && n < 3 && (text.charAt(i + n) == 'I' || text.charAt(i + n) == 'i')) {
+			n++;
+		}
+		// the numeral must be a word of its own
+		int j = i + n;
+		if (n == 0 || j >= text.length() || (text.charAt(j) != '.' && !Character.isWhitespace(text.charAt(j)))) {
+			return text;
+		}
+		return text.substring(0, i) + n + text.substring(j);
+	}
+	
+	/**
+	 * Returns the bible of this parser.
+	 * @return {@link ReadOnlyBible}
+	 */
+	public ReadOnlyBible getBible() {
+		return this.bible;
+	}
+	
+	/**
+	 * Keeps track of the position in the reference being parsed.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class Cursor {
+		/** The text */
+		private String text;
+		
+		/** The current index */
+		private int index;
+		
+		/**
+		 * Full constructor.
+		 * @param text the text
+		 */
+		public Cursor(String text) {
+			this.text = text;
+			this.index = 0;
+		}
+		
+		/**
+		 * Returns true if the whole text has been read.
+		 * @return boolean
+		 */
+		public boolean isEnd() {
+			return this.index >= this.text.length();
+		}
+		
+		/**
+		 * Returns the current character.
+		 * @return char
+		 */
+		public char peek() {
+			return this.text.charAt(this.index);
+		}
+		
+		/**
+		 * Returns true if the next thing is a book, meaning there's a letter before the next number ends.
+		 * @return boolean
+		 */
+		public boolean isBookNext() {
+			for (int i = this.index; i < this.text.length(); i++) {
+				char c = this.text.charAt(i);
+				if (Character.isLetter(c)) {
+					return true;
+				}
+				if (!Character.isDigit(c) && !Character.isWhitespace(c)) {
+					return false;
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * Skips any whitespace.
+		 */
+		public void skipSpace() {
+			while (!this.isEnd() && Character.isWhitespace(this.peek())) {
+				this.index++;
+			}
+		}
+		
+		/**
+		 * Reads the next character if it's one of the given characters and returns true.
+		 * @param characters the characters
+		 * @return boolean
+		 */
+		public boolean read(char... characters) {
+			this.skipSpace();
+			if (this.isEnd()) {
+				return false;
+			}
+			char c = this.peek();
+			for (char ch : characters) {
+				if (c == ch) {
+					this.index++;
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * Reads the next number or returns -1 if the next character isn't a digit.
+		 * @return int
+		 */
+		public int readNumber() {
+			this.skipSpace();
+			int n = -1;
+			while (!this.isEnd() && this.peek() >= '0' && this.peek() <= '9' && n < 100000) {
+				n = (n < 0 ? 0 : n * 10) + (this.peek() - '0');
+				this.index++;
+			}
+			return n;
+		}
+	}
+}
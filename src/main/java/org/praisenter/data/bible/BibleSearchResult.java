@@ -29,10 +29,20 @@ public final class BibleSearchResult implements Comparable<BibleSearchResult> {
 		this.book = book;
 		this.chapter = chapter;
 		this.verse = verse;
-		this.matches = matches;
+		this.matches = matches != null ? matches : Collections.emptyList();
 		this.score = score;
 	}
 	
+	/**
+	 * Returns a result for the given verse that wasn't found by searching the text
+	 * (a scripture reference for example) so it has no matches.
+	 * @param verse the verse
+	 * @return {@link BibleSearchResult}
+	 */
+	public static BibleSearchResult of(LocatedVerse verse) {
+		return new BibleSearchResult(verse.getBible(), verse.getBook(), verse.getChapter(), verse.getVerse(), Collections.emptyList(), 0);
+	}
+	
 	@Override
 	public int compareTo(BibleSearchResult o) {
 		if (o == null) return -1;
@@ -1,6 +1,7 @@
 package org.praisenter.data.bible;
 
 import java.io.IOException;
+import java.util.Objects;
 import java.util.UUID;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -31,11 +32,38 @@ public final class BibleTextSearchCriteria extends SearchCriteria {
 	}
 	
 	public BibleTextSearchCriteria(String terms, SearchType type, boolean fuzzy, int maxResults, UUID bibleId, int bookNumber) {
-		super(Indexable.FIELD_TEXT, terms, type, fuzzy, maxResults);
+		this(terms, type, fuzzy, false, maxResults, bibleId, bookNumber);
+	}
+	
+	public BibleTextSearchCriteria(String terms, SearchType type, boolean fuzzy, boolean prefix, int maxResults, UUID bibleId, int bookNumber) {
+		this(terms, type, fuzzy, prefix, maxResults, bibleId, bookNumber, null);
+	}
+	
+	public BibleTextSearchCriteria(String terms, SearchType type, boolean fuzzy, boolean prefix, int maxResults, UUID bibleId, int bookNumber, String language) {
+		super(Indexable.FIELD_TEXT, terms, type, fuzzy, prefix, maxResults, language);
 		this.bibleId = bibleId;
 		this.bookNumber = bookNumber;
 	}
 	
+	/* (non-Javadoc)
+	 * @see org.praisenter.data.search.SearchCriteria#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!super.equals(obj)) return false;
+		BibleTextSearchCriteria other = (BibleTextSearchCriteria)obj;
+		return Objects.equals(this.bibleId, other.bibleId) &&
+			   this.bookNumber == other.bookNumber;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.praisenter.data.search.SearchCriteria#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(super.hashCode(), this.bibleId, this.bookNumber);
+	}
+	
 	public UUID getBibleId() {
 		return this.bibleId;
 	}
@@ -0,0 +1,190 @@
+package org.praisenter.data.bible;
+
+import java.text.Normalizer;
+import java.util.BitSet;
+
+/**
+ * A prefix tree of book names and abbreviations used to find a book from what
+ * the user typed.
+ * <p>
+ * Names are matched ignoring case, accents, spaces and periods so that "1 Cor.",
+ * "1cor" and "1 Corinthians" all find the same book.  When what's typed could be
+ * more than one book, the exact name or abbreviation wins, then the first book.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class BookNameTrie {
+	/** The root node */
+	private final Node root;
+	
+	/**
+	 * Default constructor.
+	 */
+	public BookNameTrie() {
+		this.root = new Node();
+	}
+	
+	/**
+	 * A node in the tree.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class Node {
+		/** The next characters */
+		private char[] keys = new char[0];
+		
+		/** The nodes of the next characters */
+		private Node[] children = new Node[0];
+		
+		/** The number of the book whose name ends here or -1 */
+		private int book = -1;
+		
+		/** The numbers of the books whose names pass through here */
+		private final BitSet books = new BitSet();
+		
+		/**
+		 * Returns the node for the given character or null.
+		 * @param c the character
+		 * @return {@link Node}
+		 */
+		private Node get(char c) {
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] == c) {
+					return this.children[i];
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Returns the node for the given character, adding it if needed.
+		 * @param c the character
+		 * @return {@link Node}
+		 */
+		private Node add(char c) {
+			Node node = this.get(c);
+			if (node == null) {
+				int n = this.keys.length;
+				char[] keys = new char[n + 1];
+				Node[] children = new Node[n + 1];
+				System.arraycopy(this.keys, 0, keys, 0, n);
+				System.arraycopy(this.children, 0, children, 0, n);
+				node = new Node();
+				keys[n] = c;
+				children[n] = node;
+				this.keys = keys;
+				this.children = children;
+			}
+			return node;
+		}
+	}
+	
+	/**
+	 * Adds the given name or abbreviation of a book.
+	 * @param name the name
+	 * @param book the book number
+	 */
+	public void add(String name, int book) {
+		Node node = this.root;
+		node.books.set(book);
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (isIgnored(c)) {
+				continue;
+			}
+			node = node.add(fold(c));
+			node.books.set(book);
+		}
+		
+		// the first book with the name keeps it
+		if (node != this.root && node.book < 0) {
+			node.book = book;
+		}
+	}
+	
+	/**
+	 * Matches as much of the given text as possible starting at the given index and
+	 * returns the number of the book or -1 if there's no match.
+	 * @param text the text
+	 * @param start the index to start at
+	 * @param end the index after the last matched character is set at index 0; can be null
+	 * @return int
+	 */
+	public int match(CharSequence text, int start, int[] end) {
+		Node node = this.root;
+		Node matched = null;
+		int last = start;
+		for (int i = start; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (isIgnored(c)) {
+				continue;
+			}
+			Node next = node.get(fold(c));
+			if (next == null) {
+				break;
+			}
+			node = next;
+			matched = next;
+			last = i + 1;
+		}
+		
+		if (end != null) {
+			end[0] = last;
+		}
+		
+		if (matched == null) {
+			return -1;
+		}
+		return matched.book >= 0 ? matched.book : matched.books.nextSetBit(0);
+	}
+	
+	/**
+	 * Returns true if the given text is the start of a name or abbreviation of the given book.
+	 * <p>
+	 * Empty text is the start of every book.
+	 * @param text the text
+	 * @param book the book number
+	 * @return boolean
+	 */
+	public boolean isPrefix(CharSequence text, int book) {
+		if (book < 0) {
+			return false;
+		}
+		Node node = this.root;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (isIgnored(c)) {
+				continue;
+			}
+			node = node.get(fold(c));
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.books.get(book);
+	}
+	
+	/**
+	 * Returns true if the given character isn't part of the name.
+	 * @param c the character
+	 * @return boolean
+	 */
+	private static boolean isIgnored(char c) {
+		return c == ' ' || c == '.' || Character.isWhitespace(c);
+	}
+	
+	/**
+	 * Returns the lower case form of the given character without accents.
+	 * @param c the character
+	 * @return char
+	 */
+	private static char fold(char c) {
+		if (c >= 128) {
+			String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+			if (decomposed.length() > 0) {
+				c = decomposed.charAt(0);
+			}
+		}
+		return Character.toLowerCase(c);
+	}
+}
@@ -102,7 +102,7 @@ public final class Chapter implements ReadOnlyChapter, Copyable, Comparable<Chap
 	}
 	
 	@JsonProperty
-	@Watchable(name = "verses")
+	@Watchable(name = "verses", lazy = true)
 	public ObservableList<Verse> getVerses() {
 		return this.verses;
 	}
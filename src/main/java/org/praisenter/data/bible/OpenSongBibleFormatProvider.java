@@ -25,19 +25,16 @@
 package org.praisenter.data.bible;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
@@ -46,13 +43,11 @@ import org.apache.logging.log4j.Logger;
 import org.praisenter.data.DataImportResult;
 import org.praisenter.data.DataReadResult;
 import org.praisenter.data.ImportExportProvider;
+import org.praisenter.data.ImportHeader;
 import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.utility.MimeType;
-import org.praisenter.utility.Streams;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
+import org.praisenter.utility.XmlStreams;
 
 /**
  * A bible importer for the OpenSong bible format.
@@ -77,6 +72,11 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 		return MimeType.XML.is(mimeType) || mimeType.toLowerCase().startsWith("text");
 	}
 	
+	@Override
+	public boolean isSupported(Path path, ImportHeader header) {
+		return header.isRoot("bible");
+	}
+	
 	@Override
 	public boolean isSupported(String name, InputStream stream) {
 		return this.isSupported(MimeType.get(stream, name));
@@ -100,22 +100,17 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 	public DataImportResult<Bible> imp(PersistAdapter<Bible> adapter, Path path) throws IOException {
 		DataImportResult<Bible> result = new DataImportResult<>();
 		
-		if (!this.isOpenSongBible(path)) {
-			return result;
-		}
-		
 		String name = path.getFileName().toString();
 		int i = name.lastIndexOf('.');
 		if (i >= 0) {
 			name = name.substring(0, i);
 		}
 		
+		// the file is read in one pass, straight from disk
 		List<DataReadResult<Bible>> results = new ArrayList<>();
-		try (FileInputStream fis = new FileInputStream(path.toFile());
-			BufferedInputStream bis = new BufferedInputStream(fis)) {
+		try (InputStream is = Files.newInputStream(path);
+			BufferedInputStream bis = new BufferedInputStream(is)) {
 			results.add(this.parse(bis, name));
-		} catch (SAXException | ParserConfigurationException ex) {
-			throw new InvalidImportExportFormatException(ex);
 		}
 		
 		for (DataReadResult<Bible> drr : results) {
@@ -138,60 +133,50 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 		return result;
 	}
 	
-	private boolean isOpenSongBible(Path path) {
-		try (FileInputStream stream = new FileInputStream(path.toFile())) {
-			XMLInputFactory f = XMLInputFactory.newInstance();
-			// prevent XXE attacks
-			// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
-			f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-			f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-			XMLStreamReader r = f.createXMLStreamReader(stream);
-			while(r.hasNext()) {
-			    r.next();
-			    if (r.isStartElement()) {
-			    	if (r.getLocalName().equalsIgnoreCase("bible")) {
-			    		return true;
-			    	}
-			    }
-			}
-		} catch (Exception ex) {
-			LOGGER.trace("Failed to read the path as an XML document.", ex);
-		}
-		return false;
-	}
-	
 	/**
 	 * Attempts to parse the given input stream into the internal bible format.
+	 * <p>
+	 * The stream is read one element at a time and the verses are added to the bible as
+	 * they are read.  Returns null if the stream isn't an OpenSong bible.
 	 * @param stream the input stream
 	 * @param name the name
-	 * @throws IOException if an IO error occurs
-	 * @throws InvalidImportExportFormatException if the stream was not in the expected format
-	 * @return {@link Bible}
-	 * @throws SAXException 
-	 * @throws ParserConfigurationException 
+	 * @throws InvalidImportExportFormatException if the stream is an OpenSong bible but isn't well formed
+	 * @return {@link DataReadResult}
 	 */
-	private DataReadResult<Bible> parse(InputStream stream, String name) throws ParserConfigurationException, SAXException, IOException {
-		byte[] content = Streams.read(stream);
-		// read the bytes
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		// prevent XXE attacks 
-		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet
-		factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-		factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-		SAXParser parser = factory.newSAXParser();
-		OpenSongHandler handler = new OpenSongHandler(name);
-		parser.parse(new ByteArrayInputStream(content), handler);
-		return new DataReadResult<Bible>(handler.getBible(), handler.warnings);
+	private DataReadResult<Bible> parse(InputStream stream, String name) throws InvalidImportExportFormatException {
+		OpenSongReader reader = new OpenSongReader(name);
+		XMLStreamReader r = null;
+		try {
+			r = XmlStreams.createReader(stream);
+			if (!reader.read(r)) {
+				return null;
+			}
+		} catch (XMLStreamException ex) {
+			// it's only an error if we got far enough to know it's an opensong bible
+			if (!reader.root) {
+				LOGGER.trace("Failed to read the stream as an XML document.", ex);
+				return null;
+			}
+			throw new InvalidImportExportFormatException(ex);
+		} finally {
+			if (r != null) {
+				try {
+					r.close();
+				} catch (XMLStreamException ex) {
+					LOGGER.trace("Failed to close the XML reader.", ex);
+				}
+			}
+		}
+		return new DataReadResult<Bible>(reader.bible, reader.warnings);
 	}
 	
 	/**
-	 * A SAX parser handler for the OpenSong Bible format.
+	 * A streaming reader for the OpenSong Bible format.
 	 * @author William Bittle
-	 * @version 3.0.0
+	 * @version 3.1.7
 	 * @since 3.0.0
 	 */
-	private final class OpenSongHandler extends DefaultHandler {
+	private final class OpenSongReader {
 		// imported data
 		
 		/** The bible */
@@ -199,6 +184,9 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 		
 		// temp data
 		
+		/** True if the root element was an OpenSong bible */
+		private boolean root;
+		
 		/** The current book */
 		private Book book;
 		
@@ -217,16 +205,13 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 		/** The verse range */
 		private int verseTo;
 		
-		/** Buffer for tag contents */
-		private StringBuilder dataBuilder;
-		
 		private List<String> warnings;
 		
 		/**
 		 * Full constructor.
 		 * @param name the bible name
 		 */
-		public OpenSongHandler(String name) {
+		public OpenSongReader(String name) {
 			this.bible = new Bible();
 			this.bible.setName(name);
 			this.bible.setSource(SOURCE);
@@ -237,97 +222,80 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 		}
 		
 		/**
-		 * Returns the bible.
-		 * @return {@link Bible}
-		 */
-		public Bible getBible() {
-			return this.bible;
-		}
-		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
+		 * Reads the bible from the given reader.
+		 * @param reader the reader
+		 * @return boolean false if the document isn't an OpenSong bible
+		 * @throws XMLStreamException if the document isn't well formed
 		 */
-		@Override
-		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-			// inspect the tag name
-			if (qName.equalsIgnoreCase("bible")) {
-				// get the name if present
-				String name = attributes.getValue("n");
-				if (name != null) {
-					this.bible.setName(name.trim());
+		public boolean read(XMLStreamReader reader) throws XMLStreamException {
+			while (reader.hasNext()) {
+				if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+					continue;
 				}
-			} else if (qName.equalsIgnoreCase("b")) {
-				book = new Book(bookNumber, attributes.getValue("n"));
-				this.bible.getBooks().add(book);
-				bookNumber++;
-			} else if (qName.equalsIgnoreCase("c")) {
-				String number = attributes.getValue("n");
-				try {
-					this.chapterNumber = Short.parseShort(number);
-				} catch (NumberFormatException ex) {
-					LOGGER.warn("Failed to parse chapter number '" + number + "' for '" + this.book.getName() + "' in '" + this.bible.getName() + "'. Using next chapter number in sequence instead.");
-					this.chapterNumber++;
-				}
-				this.chapter = new Chapter(this.chapterNumber);
-				this.book.getChapters().add(this.chapter);
-				this.number = 0;
-			} else if (qName.equalsIgnoreCase("v")) {
-				this.verseTo = -1;
-				String number = attributes.getValue("n");
-				String to = attributes.getValue("t");
-				try {
-					this.number = Short.parseShort(number);
-				} catch (NumberFormatException ex) {
-					LOGGER.warn("Failed to parse verse number '" + number + "' for '" + this.book.getName() + "' chatper '"  + this.chapter.getNumber() + "' in '" + this.bible.getName() + "'. Using next verse number in sequence instead.");
-					this.number++;
-				}
-				if (to != null) {
+				
+				// inspect the tag name
+				String tag = reader.getLocalName();
+				if (tag.equalsIgnoreCase("bible")) {
+					this.root = true;
+					// get the name if present
+					String name = reader.getAttributeValue(null, "n");
+					if (name != null) {
+						this.bible.setName(name.trim());
+					}
+				} else if (!this.root) {
+					// the first element tells us if it's an opensong bible
+					return false;
+				} else if (tag.equalsIgnoreCase("b")) {
+					book = new Book(bookNumber, reader.getAttributeValue(null, "n"));
+					this.bible.getBooks().add(book);
+					bookNumber++;
+				} else if (tag.equalsIgnoreCase("c")) {
+					String number = reader.getAttributeValue(null, "n");
 					try {
-						this.verseTo = Short.parseShort(to);
+						this.chapterNumber = Short.parseShort(number);
 					} catch (NumberFormatException ex) {
-						LOGGER.warn("Failed to parse the to verse number '" + to + "' for '" + this.bible.getName() + "'. Skipping.");
+						LOGGER.warn("Failed to parse chapter number '" + number + "' for '" + this.book.getName() + "' in '" + this.bible.getName() + "'. Using next chapter number in sequence instead.");
+						this.chapterNumber++;
 					}
-				}
-			}
-		}
-
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
-		 */
-		@Override
-		public void characters(char[] ch, int start, int length) throws SAXException {
-			// this method can be called a number of times for the contents of a tag
-			// this is done to improve performance so we need to append the text before
-			// using it
-			String s = new String(ch, start, length);
-			if (this.dataBuilder == null) {
-				this.dataBuilder = new StringBuilder();
-			}
-			this.dataBuilder.append(s);
-		}
-		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
-		 */
-		@Override
-		public void endElement(String uri, String localName, String qName) throws SAXException {
-			if ("v".equalsIgnoreCase(qName)) {
-				// check for embedded verses (n="1" t="4") ...why oh why...
-				if (this.verseTo > 0 && this.verseTo > this.number) {
-					String warning = "The bible '" + this.bible.getName() + "' included a verse that is a collection of verses with a range of " + this.number + " to " + this.verseTo + ". These were imported as separate verses, all with the same text.";
-					this.warnings.add(warning);
-					LOGGER.warn(warning);
-					// just duplicate the verse content for each
-					for (int i = this.number; i <= this.verseTo; i++) {
-						this.chapter.getVerses().add(new Verse(i, this.dataBuilder.toString().trim()));
+					this.chapter = new Chapter(this.chapterNumber);
+					this.book.getChapters().add(this.chapter);
+					this.number = 0;
+				} else if (tag.equalsIgnoreCase("v")) {
+					this.verseTo = -1;
+					String number = reader.getAttributeValue(null, "n");
+					String to = reader.getAttributeValue(null, "t");
+					try {
+						this.number = Short.parseShort(number);
+					} catch (NumberFormatException ex) {
+						LOGGER.warn("Failed to parse verse number '" + number + "' for '" + this.book.getName() + "' chatper '"  + this.chapter.getNumber() + "' in '" + this.bible.getName() + "'. Using next verse number in sequence instead.");
+						this.number++;
+					}
+					if (to != null) {
+						try {
+							this.verseTo = Short.parseShort(to);
+						} catch (NumberFormatException ex) {
+							LOGGER.warn("Failed to parse the to verse number '" + to + "' for '" + this.bible.getName() + "'. Skipping.");
+						}
+					}
+					
+					String text = XmlStreams.readText(reader).trim();
+					
+					// check for embedded verses (n="1" t="4") ...why oh why...
+					if (this.verseTo > 0 && this.verseTo > this.number) {
+						String warning = "The bible '" + this.bible.getName() + "' included a verse that is a collection of verses with a range of " + this.number + " to " + this.verseTo + ". These were imported as separate verses, all with the same text.";
+						this.warnings.add(warning);
+						LOGGER.warn(warning);
+						// just duplicate the verse content for each
+						for (int i = this.number; i <= this.verseTo; i++) {
+							this.chapter.getVerses().add(new Verse(i, text));
+						}
+					} else {
+						// add as normal
+						this.chapter.getVerses().add(new Verse(this.number, text));
 					}
-				} else {
-					// add as normal
-					this.chapter.getVerses().add(new Verse(this.number, this.dataBuilder.toString().trim()));
 				}
-				
 			}
-			this.dataBuilder = null;
+			return this.root;
 		}
 	}
 }
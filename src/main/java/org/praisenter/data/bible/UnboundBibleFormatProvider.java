@@ -110,22 +110,23 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 		Bible bible = new Bible();
 		bible.setSource("THE UNBOUND BIBLE (www.unboundbible.org)");
 
-		// find the book first
-		Map<String, Book> bookMap = null;
+		// the zip is opened once for both the books and the verses
 		// NOTE: Native java.util.zip package can't support zips 4GB or bigger or elements 2GB or bigger
-        try (ZipFile zipFile = ZipFile.builder().setPath(path).get()) {
-        	Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
-        	while (entries.hasMoreElements()) {
-        		ZipArchiveEntry entry = entries.nextElement();
-        		
-        		if (entry.isDirectory()) 
-        			continue;
-        		
-        		if (!zipFile.canReadEntryData(entry)) {
-        			LOGGER.warn("Unable to read entry '{}'. This is usually caused by encryption or an unsupported compression algorithm.", entry.getName());
-        			continue;
-        		}
-        		
+		try (ZipFile zipFile = ZipFile.builder().setPath(path).get()) {
+			// find the book first
+			Map<String, Book> bookMap = null;
+			Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+			while (entries.hasMoreElements()) {
+				ZipArchiveEntry entry = entries.nextElement();
+				
+				if (entry.isDirectory()) 
+					continue;
+				
+				if (!zipFile.canReadEntryData(entry)) {
+					LOGGER.warn("Unable to read entry '{}'. This is usually caused by encryption or an unsupported compression algorithm.", entry.getName());
+					continue;
+				}
+				
 				if (entry.getName().equalsIgnoreCase(bookFileName)) {
 					LOGGER.debug("Reading UnboundBible .zip file contents: " + bookFileName);
 					bookMap = readBooks(bible, bookFileName, zipFile.getInputStream(entry));
@@ -133,29 +134,26 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 					break;
 				}
 			}
-		}
-		
-		// check for books
-		if (bible.getBookCount() == 0 || bookMap == null) {
-			LOGGER.error("The file did not contain any books. Import failed.");
-			throw new InvalidImportExportFormatException("A book_names.txt file was not found '" + name + "'.");
-		}
-		
-		// read the zip file for Verses
-		// NOTE: Native java.util.zip package can't support zips 4GB or bigger or elements 2GB or bigger
-        try (ZipFile zipFile = ZipFile.builder().setPath(path).get()) {
-        	Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
-        	while (entries.hasMoreElements()) {
-        		ZipArchiveEntry entry = entries.nextElement();
-        		
-        		if (entry.isDirectory()) 
-        			continue;
-        		
-        		if (!zipFile.canReadEntryData(entry)) {
-        			LOGGER.warn("Unable to read entry '{}'. This is usually caused by encryption or an unsupported compression algorithm.", entry.getName());
-        			continue;
-        		}
-        		
+			
+			// check for books
+			if (bible.getBookCount() == 0 || bookMap == null) {
+				LOGGER.error("The file did not contain any books. Import failed.");
+				throw new InvalidImportExportFormatException("A book_names.txt file was not found '" + name + "'.");
+			}
+			
+			// read the zip file for Verses
+			entries = zipFile.getEntries();
+			while (entries.hasMoreElements()) {
+				ZipArchiveEntry entry = entries.nextElement();
+				
+				if (entry.isDirectory()) 
+					continue;
+				
+				if (!zipFile.canReadEntryData(entry)) {
+					LOGGER.warn("Unable to read entry '{}'. This is usually caused by encryption or an unsupported compression algorithm.", entry.getName());
+					continue;
+				}
+				
 				if (entry.getName().equalsIgnoreCase(verseFileName) || entry.getName().toLowerCase().endsWith("_utf8.txt")) {
 					LOGGER.debug("Reading UnboundBible .zip file contents: " + verseFileName);
 					result.getWarnings().addAll(readVerses(bible, bookMap, verseFileName, zipFile.getInputStream(entry)));
@@ -234,6 +232,8 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 		int[] columnMapping = new int[6];
 		Arrays.fill(columnMapping, -1);
 		int i = 0;
+		Book lastBook = null;
+		Chapter lastChapter = null;
 		
 		while ((line = reader.readLine()) != null) {
 			i++;
@@ -282,12 +282,18 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 						
 						// get the book
 						Book book = bookMap.get(bc);
-						// get the chapter
-						Chapter chapter = book.getChapter(cn);
-						// check for chapter not exists
-						if (chapter == null) {
-							chapter = new Chapter(cn);
-							book.getChapters().add(chapter);
+						// get the chapter (the verses are normally in order so it's
+						// usually the same chapter as the last verse)
+						Chapter chapter = lastChapter;
+						if (book != lastBook || chapter == null || chapter.getNumber() != cn) {
+							chapter = book.getChapter(cn);
+							// check for chapter not exists
+							if (chapter == null) {
+								chapter = new Chapter(cn);
+								book.getChapters().add(chapter);
+							}
+							lastBook = book;
+							lastChapter = chapter;
 						}
 						
 						int verse = Integer.parseInt(data[columnMapping[2]].trim());
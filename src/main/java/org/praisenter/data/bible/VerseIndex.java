@@ -0,0 +1,233 @@
+package org.praisenter.data.bible;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An index of the verses of a bible in order so that verses, and the verses before
+ * and after them, can be found in constant time.
+ * <p>
+ * Each verse is given an ordinal (its position in the bible) and is found by its
+ * location (see {@link #getLocation(int, int, int)}).  The index is a snapshot of the
+ * bible when it was created; use {@link #of(ReadOnlyBible)} to get the index for the
+ * current state of a bible.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class VerseIndex {
+	/** The maximum number of indexes to keep */
+	private static final int CACHE_SIZE = 8;
+	
+	/** The recently used indexes by bible id */
+	private static final Map<UUID, VerseIndex> CACHE = new LinkedHashMap<UUID, VerseIndex>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<UUID, VerseIndex> eldest) {
+			return this.size() > CACHE_SIZE;
+		}
+	};
+	
+	/** The bible */
+	private final ReadOnlyBible bible;
+	
+	/** The modified date of the bible when this index was created */
+	private final Instant modifiedDate;
+	
+	/** The verses in order */
+	private final LocatedVerse[] verses;
+	
+	/** The ordinal of each verse by location */
+	private final Map<Long, Integer> ordinals;
+	
+	/**
+	 * Full constructor.
+	 * @param bible the bible
+	 */
+	public VerseIndex(ReadOnlyBible bible) {
+		Objects.requireNonNull(bible);
+		
+		this.bible = bible;
+		this.modifiedDate = bible.getModifiedDate();
+		
+		List<LocatedVerse> verses = new ArrayList<LocatedVerse>();
+		Map<Long, Integer> ordinals = new HashMap<Long, Integer>();
+		for (ReadOnlyBook book : bible.getBooksUnmodifiable()) {
+			for (ReadOnlyChapter chapter : book.getChaptersUnmodifiable()) {
+				for (ReadOnlyVerse verse : chapter.getVersesUnmodifiable()) {
+					long location = getLocation(book.getNumber(), chapter.getNumber(), verse.getNumber());
+					// the first verse wins if a location is repeated (like the linear searches)
+					ordinals.putIfAbsent(location, verses.size());
+					verses.add(new LocatedVerse(bible, book, chapter, verse));
+				}
+			}
+		}
+		
+		this.verses = verses.toArray(new LocatedVerse[0]);
+		this.ordinals = ordinals;
+	}
+	
+	/**
+	 * Returns the index of the given bible, creating it if the bible has changed since
+	 * it was last indexed.
+	 * @param bible the bible
+	 * @return {@link VerseIndex}
+	 */
+	public static VerseIndex of(ReadOnlyBible bible) {
+		Objects.requireNonNull(bible);
+		
+		UUID id = bible.getId();
+		if (id == null) {
+			return new VerseIndex(bible);
+		}
+		
+		synchronized (CACHE) {
+			VerseIndex index = CACHE.get(id);
+			if (index == null || !index.isCurrent(bible)) {
+				index = new VerseIndex(bible);
+				CACHE.put(id, index);
+			}
+			return index;
+		}
+	}
+	
+	/**
+	 * Returns a single number for the given location.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return long
+	 */
+	public static long getLocation(int bookNumber, int chapterNumber, int verseNumber) {
+		return ((long)bookNumber << 42) | (((long)chapterNumber & 0x1FFFFF) << 21) | ((long)verseNumber & 0x1FFFFF);
+	}
+	
+	/**
+	 * Returns true if this index was created for the given bible and the bible hasn't
+	 * been saved since.
+	 * @param bible the bible
+	 * @return boolean
+	 */
+	public boolean isCurrent(ReadOnlyBible bible) {
+		return this.bible == bible && Objects.equals(this.modifiedDate, bible.getModifiedDate());
+	}
+	
+	/**
+	 * Returns the ordinal of the verse at the given location or -1 if it doesn't exist.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return int
+	 */
+	public int getOrdinal(int bookNumber, int chapterNumber, int verseNumber) {
+		Integer ordinal = this.ordinals.get(getLocation(bookNumber, chapterNumber, verseNumber));
+		return ordinal != null ? ordinal : -1;
+	}
+	
+	/**
+	 * Returns the ordinal of the given verse or -1 if it isn't in this index.
+	 * @param verse the verse
+	 * @return int
+	 */
+	public int getOrdinal(LocatedVerse verse) {
+		if (verse == null) {
+			return -1;
+		}
+		return this.getOrdinal(verse.getBook().getNumber(), verse.getChapter().getNumber(), verse.getVerse().getNumber());
+	}
+	
+	/**
+	 * Returns the verse with the given ordinal or null if it doesn't exist.
+	 * @param ordinal the ordinal
+	 * @return {@link LocatedVerse}
+	 */
+	public LocatedVerse getVerse(int ordinal) {
+		if (ordinal < 0 || ordinal >= this.verses.length) {
+			return null;
+		}
+		return this.verses[ordinal];
+	}
+	
+	/**
+	 * Returns the verse at the given location or null if it doesn't exist.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return {@link LocatedVerse}
+	 */
+	public LocatedVerse getVerse(int bookNumber, int chapterNumber, int verseNumber) {
+		return this.getVerse(this.getOrdinal(bookNumber, chapterNumber, verseNumber));
+	}
+	
+	/**
+	 * Returns the verse with the given ordinal with the verses before and after it or
+	 * null if it doesn't exist.
+	 * @param ordinal the ordinal
+	 * @return {@link LocatedVerseTriplet}
+	 */
+	public LocatedVerseTriplet getTriplet(int ordinal) {
+		LocatedVerse current = this.getVerse(ordinal);
+		if (current == null) {
+			return null;
+		}
+		return new LocatedVerseTriplet(this.getVerse(ordinal - 1), current, this.getVerse(ordinal + 1));
+	}
+	
+	/**
+	 * Returns the same as {@link ReadOnlyBible#getTriplet(int, int, int)}.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return {@link LocatedVerseTriplet}
+	 */
+	public LocatedVerseTriplet getTriplet(int bookNumber, int chapterNumber, int verseNumber) {
+		int ordinal = this.getOrdinal(bookNumber, chapterNumber, verseNumber);
+		return ordinal < 0 ? null : this.getTriplet(ordinal);
+	}
+	
+	/**
+	 * Returns the same as {@link ReadOnlyBible#getNextTriplet(int, int, int)}.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return {@link LocatedVerseTriplet}
+	 */
+	public LocatedVerseTriplet getNextTriplet(int bookNumber, int chapterNumber, int verseNumber) {
+		int ordinal = this.getOrdinal(bookNumber, chapterNumber, verseNumber);
+		return ordinal < 0 ? null : this.getTriplet(ordinal + 1);
+	}
+	
+	/**
+	 * Returns the same as {@link ReadOnlyBible#getPreviousTriplet(int, int, int)}.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return {@link LocatedVerseTriplet}
+	 */
+	public LocatedVerseTriplet getPreviousTriplet(int bookNumber, int chapterNumber, int verseNumber) {
+		int ordinal = this.getOrdinal(bookNumber, chapterNumber, verseNumber);
+		return ordinal < 0 ? null : this.getTriplet(ordinal - 1);
+	}
+	
+	/**
+	 * Returns the number of verses.
+	 * @return int
+	 */
+	public int size() {
+		return this.verses.length;
+	}
+	
+	/**
+	 * Returns the bible.
+	 * @return {@link ReadOnlyBible}
+	 */
+	public ReadOnlyBible getBible() {
+		return this.bible;
+	}
+}
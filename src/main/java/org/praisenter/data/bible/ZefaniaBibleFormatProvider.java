@@ -25,19 +25,16 @@
 package org.praisenter.data.bible;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
@@ -46,13 +43,11 @@ import org.apache.logging.log4j.Logger;
 import org.praisenter.data.DataImportResult;
 import org.praisenter.data.DataReadResult;
 import org.praisenter.data.ImportExportProvider;
+import org.praisenter.data.ImportHeader;
 import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.utility.MimeType;
-import org.praisenter.utility.Streams;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
+import org.praisenter.utility.XmlStreams;
 
 /**
  * A bible importer for the Zefania XML Bible format.
@@ -79,6 +74,11 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 		return MimeType.XML.is(mimeType) || mimeType.toLowerCase().startsWith("text");
 	}
 	
+	@Override
+	public boolean isSupported(Path path, ImportHeader header) {
+		return header.isRoot("xmlbible") || header.isRoot("x");
+	}
+	
 	@Override
 	public boolean isSupported(String name, InputStream stream) {
 		return this.isSupported(MimeType.get(stream, name));
@@ -103,22 +103,17 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 	public DataImportResult<Bible> imp(PersistAdapter<Bible> adapter, Path path) throws IOException {
 		DataImportResult<Bible> result = new DataImportResult<>();
 		
-		if (!this.isZefaniaBible(path)) {
-			return result;
-		}
-		
 		String name = path.getFileName().toString();
 		int i = name.lastIndexOf('.');
 		if (i >= 0) {
 			name = name.substring(0, i);
 		}
 		
+		// the file is read in one pass, straight from disk
 		List<DataReadResult<Bible>> results = new ArrayList<>();
-		try (FileInputStream fis = new FileInputStream(path.toFile());
-			BufferedInputStream bis = new BufferedInputStream(fis)) {
+		try (InputStream is = Files.newInputStream(path);
+			BufferedInputStream bis = new BufferedInputStream(is)) {
 			results.add(this.parse(bis, name));
-		} catch (SAXException | ParserConfigurationException ex) {
-			throw new InvalidImportExportFormatException(ex);
 		}
 		
 		for (DataReadResult<Bible> drr : results) {
@@ -141,61 +136,77 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 		return result;
 	}
 	
-	private boolean isZefaniaBible(Path path) {
-		try (FileInputStream stream = new FileInputStream(path.toFile())) {
-			XMLInputFactory f = XMLInputFactory.newInstance();
-			// prevent XXE attacks
-			// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
-			f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-			f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-			XMLStreamReader r = f.createXMLStreamReader(stream);
-			while(r.hasNext()) {
-			    r.next();
-			    if (r.isStartElement()) {
-			    	if (r.getLocalName().equalsIgnoreCase("xmlbible") ||
-			    		r.getLocalName().equalsIgnoreCase("x")) {
-			    		return true;
-			    	}
-			    }
+	/**
+	 * Attempts to parse the given input stream into the internal bible format.
+	 * <p>
+	 * The stream is read one element at a time and the verses are added to the bible as
+	 * they are read.  Returns null if the stream isn't a Zefania XML bible.
+	 * @param stream the input stream
+	 * @param name the name
+	 * @return {@link DataReadResult}
+	 * @throws InvalidImportExportFormatException if the stream is a Zefania XML bible but isn't well formed
+	 */
+	private DataReadResult<Bible> parse(InputStream stream, String name) throws InvalidImportExportFormatException {
+		ZefaniaReader reader = new ZefaniaReader(name);
+		XMLStreamReader r = null;
+		try {
+			r = XmlStreams.createReader(stream);
+			if (!reader.read(r)) {
+				return null;
+			}
+		} catch (XMLStreamException ex) {
+			// it's only an error if we got far enough to know it's a zefania bible
+			if (!reader.root) {
+				LOGGER.trace("Failed to read the stream as an XML document.", ex);
+				return null;
+			}
+			throw new InvalidImportExportFormatException(ex);
+		} finally {
+			if (r != null) {
+				try {
+					r.close();
+				} catch (XMLStreamException ex) {
+					LOGGER.trace("Failed to close the XML reader.", ex);
+				}
 			}
-		} catch (Exception ex) {
-			LOGGER.trace("Failed to read the path as an XML document.", ex);
 		}
-		return false;
+		return new DataReadResult<Bible>(reader.bible, reader.warnings);
 	}
 	
 	/**
-	 * Attempts to parse the given input stream into the internal bible format.
-	 * @param stream the input stream
-	 * @param name the name
-	 * @return {@link Bible}
-	 * @throws IOException if an IO error occurs
-	 * @throws ParserConfigurationException
-	 * @throws SAXException 
+	 * Returns the given verse text without new lines, with runs of whitespace
+	 * replaced by a single space and without leading or trailing whitespace.
+	 * @param text the text
+	 * @return String
 	 */
-	private DataReadResult<Bible> parse(InputStream stream, String name) throws ParserConfigurationException, SAXException, IOException {
-		byte[] content = Streams.read(stream);
-		// read the bytes
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		// prevent XXE attacks 
-		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet
-		factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-		factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-		SAXParser parser = factory.newSAXParser();
-		ZefaniaHandler handler = new ZefaniaHandler(name);
-		parser.parse(new ByteArrayInputStream(content), handler);
-		DataReadResult<Bible> result = new DataReadResult<Bible>(handler.getBible(), handler.warnings);
-		return result;
+	private static String normalize(String text) {
+		StringBuilder sb = new StringBuilder(text.length());
+		boolean space = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || c == '\r') {
+				continue;
+			}
+			if (c == ' ' || c == '\t' || c == '\u000B' || c == '\f') {
+				space = true;
+				continue;
+			}
+			if (space && sb.length() > 0) {
+				sb.append(' ');
+			}
+			space = false;
+			sb.append(c);
+		}
+		return sb.toString();
 	}
 	
 	/**
-	 * A SAX parser for the Zefania XML Bible format.
+	 * A streaming reader for the Zefania XML Bible format.
 	 * @author William Bittle
-	 * @version 3.0.0
+	 * @version 3.1.7
 	 * @since 3.0.0
 	 */
-	private final class ZefaniaHandler extends DefaultHandler {
+	private final class ZefaniaReader {
 
 		// imported data
 		
@@ -204,6 +215,9 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 		
 		// temp data
 		
+		/** True if the root element was a Zefania XML bible */
+		private boolean root;
+		
 		/** The current book */
 		private Book book;
 		
@@ -219,15 +233,6 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 		/** The verse number */
 		private int verse;
 		
-		/** Buffer for tag contents */
-		private StringBuilder dataBuilder;
-		
-		/** True if we are reading the verse content */
-		private boolean verseContent;
-		
-		/** True if we need to ignore the current content */
-		private boolean ignoreContent;
-		
 		/** The list of warnings */
 		private List<String> warnings;
 		
@@ -235,7 +240,7 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 		 * Minimal constructor.
 		 * @param name the bible name
 		 */
-		public ZefaniaHandler(String name) {
+		public ZefaniaReader(String name) {
 			this.bible = new Bible();
 			this.bible.setName(name);
 			this.bible.setSource(SOURCE);
@@ -246,123 +251,83 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 		}
 		
 		/**
-		 * Returns the parsed bible.
-		 * @return {@link Bible}
-		 */
-		public Bible getBible() {
-			return this.bible;
-		}
-		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
-		 */
-		@Override
-		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-			// inspect the tag name
-			if (qName.equalsIgnoreCase("xmlbible") ||
-				qName.equalsIgnoreCase("x")) {
-				// get the name if present
-				String name = attributes.getValue("biblename");
-				if (name != null) {
-					this.bible.setName(name.trim());
-				}
-			} else if (qName.equalsIgnoreCase("biblebook") ||
-					   qName.equalsIgnoreCase("b")) {
-				String bnumber = attributes.getValue("bnumber");
-				String bname = attributes.getValue("bname");
-				try {
-					this.bookNumber = Short.parseShort(bnumber);
-				} catch (NumberFormatException ex) {
-					String warning = "Failed to parse book number '" + bnumber + "' for '" + bname + "' in '" + this.bible.getName() + "'. Using next book number in sequence instead.";
-					warnings.add(warning);
-					LOGGER.warn(warning);
-					this.bookNumber++;
-				}
-				this.book = new Book(bookNumber, bname);
-				this.bible.getBooks().add(book);
-				this.chapterNumber = 0;
-			} else if (qName.equalsIgnoreCase("chapter") ||
-					   qName.equalsIgnoreCase("c")) {
-				String cnumber = attributes.getValue("cnumber");
-				try {
-					this.chapterNumber = Short.parseShort(cnumber);
-				} catch (NumberFormatException ex) {
-					String warning = "Failed to parse chapter number '" + cnumber + "' for '" + this.book.getName() + "' in '" + this.bible.getName() + "'. Using next chapter number in sequence instead.";
-					warnings.add(warning);
-					LOGGER.warn(warning);
-					this.chapterNumber++;
-				}
-				this.chapter = new Chapter(this.chapterNumber);
-				this.book.getChapters().add(this.chapter);
-				this.verse = 0;
-			} else if (qName.equalsIgnoreCase("vers") ||
-					   qName.equalsIgnoreCase("v")) {
-				String v = attributes.getValue("v");
-				String vnumber = v == null || v.length() == 0 ? attributes.getValue("vnumber") : v;
-				try {
-					this.verse = Short.parseShort(vnumber);
-				} catch (NumberFormatException ex) {
-					String warning = "Failed to parse verse number '" + vnumber + "' for '" + this.book.getName() + "' chapter '" + this.chapter.getNumber() + "' in '" + this.bible.getName() + "'. Using next verse number in sequence instead.";
-					warnings.add(warning);
-					LOGGER.warn(warning);
-					this.verse++;
-				}
-				this.verseContent = true;
-			} else if (qName.equalsIgnoreCase("note") ||
-					   qName.equalsIgnoreCase("n") ||
-					   qName.equalsIgnoreCase("xref") ||
-					   qName.equalsIgnoreCase("xr")) {
-				this.ignoreContent = true;
-			}
-		}
-
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
+		 * Reads the bible from the given reader.
+		 * @param reader the reader
+		 * @return boolean false if the document isn't a Zefania XML bible
+		 * @throws XMLStreamException if the document isn't well formed
 		 */
-		@Override
-		public void characters(char[] ch, int start, int length) throws SAXException {
-			// this method can be called a number of times for the contents of a tag
-			// this is done to improve performance so we need to append the text before
-			// using it
-			String s = new String(ch, start, length);
-			if (this.dataBuilder == null) {
-				this.dataBuilder = new StringBuilder();
-			}
-			if (!this.ignoreContent) {
-				this.dataBuilder.append(s);
-			}
-		}
-		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
-		 */
-		@Override
-		public void endElement(String uri, String localName, String qName) throws SAXException {
-			if (qName.equalsIgnoreCase("vers") ||
-				qName.equalsIgnoreCase("v")) {
-				this.chapter.getVerses().add(new Verse(this.verse, this.dataBuilder.toString().replaceAll("\\n|\\r", "").replaceAll("\\s+", " ").trim()));
-				this.verseContent = false;
-			} else if (qName.equalsIgnoreCase("title")) {
-				String name = this.dataBuilder.toString();
-				if (name != null) {
-					this.bible.setName(name.trim());
+		public boolean read(XMLStreamReader reader) throws XMLStreamException {
+			while (reader.hasNext()) {
+				if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+					continue;
 				}
-			} else if (qName.equalsIgnoreCase("language")) {
-				String language = this.dataBuilder.toString();
-				if (language != null) {
-					this.bible.setLanguage(language.trim());
+				
+				// inspect the tag name
+				String tag = reader.getLocalName();
+				if (tag.equalsIgnoreCase("xmlbible") ||
+					tag.equalsIgnoreCase("x")) {
+					this.root = true;
+					// get the name if present
+					String name = reader.getAttributeValue(null, "biblename");
+					if (name != null) {
+						this.bible.setName(name.trim());
+					}
+				} else if (!this.root) {
+					// the first element tells us if it's a zefania bible
+					return false;
+				} else if (tag.equalsIgnoreCase("biblebook") ||
+						   tag.equalsIgnoreCase("b")) {
+					String bnumber = reader.getAttributeValue(null, "bnumber");
+					String bname = reader.getAttributeValue(null, "bname");
+					try {
+						this.bookNumber = Short.parseShort(bnumber);
+					} catch (NumberFormatException ex) {
+						String warning = "Failed to parse book number '" + bnumber + "' for '" + bname + "' in '" + this.bible.getName() + "'. Using next book number in sequence instead.";
+						warnings.add(warning);
+						LOGGER.warn(warning);
+						this.bookNumber++;
+					}
+					this.book = new Book(bookNumber, bname);
+					this.bible.getBooks().add(book);
+					this.chapterNumber = 0;
+				} else if (tag.equalsIgnoreCase("chapter") ||
+						   tag.equalsIgnoreCase("c")) {
+					String cnumber = reader.getAttributeValue(null, "cnumber");
+					try {
+						this.chapterNumber = Short.parseShort(cnumber);
+					} catch (NumberFormatException ex) {
+						String warning = "Failed to parse chapter number '" + cnumber + "' for '" + this.book.getName() + "' in '" + this.bible.getName() + "'. Using next chapter number in sequence instead.";
+						warnings.add(warning);
+						LOGGER.warn(warning);
+						this.chapterNumber++;
+					}
+					this.chapter = new Chapter(this.chapterNumber);
+					this.book.getChapters().add(this.chapter);
+					this.verse = 0;
+				} else if (tag.equalsIgnoreCase("vers") ||
+						   tag.equalsIgnoreCase("v")) {
+					String v = reader.getAttributeValue(null, "v");
+					String vnumber = v == null || v.length() == 0 ? reader.getAttributeValue(null, "vnumber") : v;
+					try {
+						this.verse = Short.parseShort(vnumber);
+					} catch (NumberFormatException ex) {
+						String warning = "Failed to parse verse number '" + vnumber + "' for '" + this.book.getName() + "' chapter '" + this.chapter.getNumber() + "' in '" + this.bible.getName() + "'. Using next verse number in sequence instead.";
+						warnings.add(warning);
+						LOGGER.warn(warning);
+						this.verse++;
+					}
+					// notes and cross references aren't part of the verse text
+					String text = XmlStreams.readText(reader, "note", "n", "xref", "xr");
+					this.chapter.getVerses().add(new Verse(this.verse, normalize(text)));
+				} else if (tag.equalsIgnoreCase("title")) {
+					this.bible.setName(XmlStreams.readText(reader).trim());
+				} else if (tag.equalsIgnoreCase("language")) {
+					this.bible.setLanguage(XmlStreams.readText(reader).trim());
+				} else if (tag.equalsIgnoreCase("rights")) {
+					this.bible.setCopyright(XmlStreams.readText(reader).trim());
 				}
-			} else if (qName.equalsIgnoreCase("rights")) {
-				this.bible.setCopyright(this.dataBuilder.toString().trim());
-			} else if (qName.equalsIgnoreCase("note") ||
-					   qName.equalsIgnoreCase("n") ||
-					   qName.equalsIgnoreCase("xref") ||
-					   qName.equalsIgnoreCase("xr")) {
-				this.ignoreContent = false;
-			}
-			if (!this.verseContent) {
-				this.dataBuilder = null;
 			}
+			return this.root;
 		}
 	}
 }
@@ -37,7 +37,9 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonFactoryBuilder;
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -196,6 +198,54 @@ public final class JsonIO {
 		return getPraisenterFormat(MAPPER.readTree(path.toFile()));
 	}
 	
+	/**
+	 * Returns a {@link PraisenterFormat} object for the given JSON or null if it's not a 
+	 * Praisenter file format.
+	 * <p>
+	 * Unlike {@link #getPraisenterFormat(InputStream)} the JSON isn't read into memory.  Only the
+	 * root level properties are read, stopping as soon as the type and format have been found, so
+	 * the version is only returned if it comes before them.
+	 * @param stream the stream
+	 * @return {@link PraisenterFormat}
+	 * @throws IOException if an IO error occurs or the stream isn't JSON
+	 */
+	public static final PraisenterFormat peekPraisenterFormat(InputStream stream) throws IOException {
+		try (JsonParser parser = MAPPER.getFactory().createParser(stream)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			
+			String type = null;
+			String format = null;
+			String version = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				parser.nextToken();
+				if ("@type".equals(name)) {
+					type = parser.getValueAsString();
+				} else if (Constants.FORMAT_PROPERTY_NAME.equals(name)) {
+					format = parser.getValueAsString();
+				} else if (Constants.VERSION_PROPERTY_NAME.equals(name)) {
+					version = parser.getValueAsString();
+				} else {
+					parser.skipChildren();
+				}
+				
+				if (type != null && format != null) {
+					break;
+				}
+			}
+			
+			// if we don't find @type and format then we don't think
+			// it's praisenter
+			if (type == null || format == null) {
+				return null;
+			}
+			
+			return new PraisenterFormat(type, format, version);
+		}
+	}
+	
 	/**
 	 * Returns a {@link PraisenterFormat} object for the given JSON.
 	 * @param node the JSON
@@ -212,7 +212,7 @@ public final class Media implements ReadOnlyMedia, Indexable, Persistable, Copya
 			Document document = new Document();
 			document.add(new StringField(FIELD_ID, this.getId().toString(), Field.Store.YES));
 			document.add(new StringField(FIELD_TYPE, DATA_TYPE_MEDIA, Field.Store.YES));
-			document.add(new TextField(FIELD_TEXT, name, Field.Store.YES));
+			document.add(new Field(FIELD_TEXT, name, FIELD_TEXT_TYPE));
 			documents.add(document);
 		}
 
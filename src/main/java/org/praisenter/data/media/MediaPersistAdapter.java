@@ -43,6 +43,12 @@ public final class MediaPersistAdapter extends AbstractPersistAdapter<Media, Med
 		this.tools.initialize();
 	}
 	
+	@Override
+	protected boolean isParallelExportSupported() {
+		// media files are large and already compressed, so stream them straight through
+		return false;
+	}
+	
 	@Override
 	protected Media load(Path path) throws IOException {
 		if (Files.isRegularFile(path)) {
@@ -66,12 +72,12 @@ public final class MediaPersistAdapter extends AbstractPersistAdapter<Media, Med
 	
 	@Override
 	protected void create(Path path, Media item) throws IOException {
-		JsonIO.write(path, item);
+		this.write(path, os -> JsonIO.write(os, item));
 	}
 	
 	@Override
 	protected void update(Path path, Media item) throws IOException {
-		JsonIO.write(path, item);
+		this.write(path, os -> JsonIO.write(os, item));
 	}
 	
 	@Override
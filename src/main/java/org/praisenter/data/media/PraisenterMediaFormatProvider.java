@@ -18,6 +18,7 @@ import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.praisenter.LockMap;
 import org.praisenter.data.DataImportResult;
 import org.praisenter.data.DeleteFilesShutdownHook;
 import org.praisenter.data.PersistAdapter;
@@ -219,7 +220,7 @@ final class PraisenterMediaFormatProvider extends PraisenterFormatProvider<Media
 			LOGGER.trace("All files exist for '{}', attempting import", media.getName());
 			// lock the file path since it may exist
 			LOGGER.trace("Getting lock for '{}'", media.getId());
-			synchronized(adapter.getLock(media.getId())) {
+			try (LockMap.Lease lease = adapter.acquireLock(media.getId())) {
 				LOGGER.trace("Lock for '{}' obtained", media.getId());
 				// does the media already exist?
 				boolean update = Files.exists(mpr.getPath(media));
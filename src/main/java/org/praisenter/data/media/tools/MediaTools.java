@@ -134,19 +134,19 @@ public final class MediaTools {
 	}
 	
 	/**
-	 * Returns a lock for the ffmpeg binary.
-	 * @return Object
+	 * Acquires the lock for the ffmpeg binary.
+	 * @return {@link LockMap.Lease}
 	 */
-	private Object getFFmpegLock() {
-		return this.lockMap.get("ffmpeg");
+	private LockMap.Lease lockFFmpeg() {
+		return this.lockMap.write("ffmpeg");
 	}
 	
 	/**
-	 * Returns a lock for the ffprobe binary.
-	 * @return Object
+	 * Acquires the lock for the ffprobe binary.
+	 * @return {@link LockMap.Lease}
 	 */
-	private Object getFFprobeLock() {
-		return this.lockMap.get("ffprobe");
+	private LockMap.Lease lockFFprobe() {
+		return this.lockMap.write("ffprobe");
 	}
 	
 	/**
@@ -220,7 +220,7 @@ public final class MediaTools {
 			}
 		}
 		
-		synchronized (this.getFFmpegLock()) {
+		try (LockMap.Lease lease = this.lockFFmpeg()) {
 			CommandLine.execute(this.parseCommand(template, parameters));
 		}
 	}
@@ -244,7 +244,7 @@ public final class MediaTools {
 		parameters.put("{media}", media.toAbsolutePath().toString());
 		parameters.put("{frame}", tempArea.resolve("frame%02d.jpg").toAbsolutePath().toString());
 		
-		synchronized (this.getFFmpegLock()) {
+		try (LockMap.Lease lease = this.lockFFmpeg()) {
 			try {
 				// create the temp folder for easy clean up
 				Files.createDirectories(tempArea);
@@ -309,7 +309,7 @@ public final class MediaTools {
 		parameters.put("{media}", media.toAbsolutePath().toString());
 		parameters.put("{null}", RuntimeProperties.IS_WINDOWS_OS ? "NUL" : "/dev/null");
 		
-		synchronized (this.getFFmpegLock()) {
+		try (LockMap.Lease lease = this.lockFFmpeg()) {
 			// run the command
 			String output = CommandLine.execute(this.parseCommand("{ffmpeg} -i {media} -af volumedetect -vn -sn -dn -f null {null}", parameters));
 			
@@ -375,7 +375,7 @@ public final class MediaTools {
 		parameters.put("{media}", media.toAbsolutePath().toString());
 		parameters.put("{output}", tempArea.resolve("metadata.json").toAbsolutePath().toString());
 		
-		synchronized (this.getFFprobeLock()) {
+		try (LockMap.Lease lease = this.lockFFprobe()) {
 			// read the output json to get the metadata
 			try {
 				// create the temp folder for easy clean up
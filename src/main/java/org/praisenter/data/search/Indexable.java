@@ -3,6 +3,9 @@ package org.praisenter.data.search;
 import java.util.List;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
 import org.praisenter.data.Identifiable;
 
 public interface Indexable extends Identifiable {
@@ -12,6 +15,25 @@ public interface Indexable extends Identifiable {
 	public static final String FIELD_TYPE = "docType";
 	public static final String FIELD_TAGS = "docTags";
 	
+	/** The language tag of {@link #FIELD_TEXT}; used to choose how the text is analyzed */
+	public static final String FIELD_LANGUAGE = "docLanguage";
+	
+	/** The prefixes of the words in {@link #FIELD_TEXT}; added by the {@link SearchIndex} */
+	public static final String FIELD_TEXT_PREFIX = "docTextPrefix";
+	
+	/** 
+	 * The field type for {@link #FIELD_TEXT}; tokenized and stored with offsets in the postings
+	 * so that matches can be highlighted without analyzing the text again.
+	 */
+	public static final FieldType FIELD_TEXT_TYPE = createTextFieldType();
+	
+	private static FieldType createTextFieldType() {
+		FieldType type = new FieldType(TextField.TYPE_STORED);
+		type.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+		type.freeze();
+		return type;
+	}
+	
 	public String getName();
 	public List<Document> index();
 }
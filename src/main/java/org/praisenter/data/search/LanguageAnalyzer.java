@@ -0,0 +1,134 @@
+package org.praisenter.data.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cjk.CJKBigramFilter;
+import org.apache.lucene.analysis.en.EnglishMinimalStemFilter;
+import org.apache.lucene.analysis.es.SpanishLightStemFilter;
+import org.apache.lucene.analysis.miscellaneous.KeywordRepeatFilter;
+import org.apache.lucene.analysis.miscellaneous.RemoveDuplicatesTokenFilter;
+import org.apache.lucene.analysis.pt.PortugueseLightStemFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * Analyzes the text of {@link Indexable#FIELD_TEXT} for a language.
+ * <p>
+ * The text is tokenized the same way as the {@link org.apache.lucene.analysis.standard.StandardAnalyzer}
+ * and then Chinese, Japanese and Korean characters are split into pairs and words are stemmed for
+ * languages that have a stemmer.  When indexing, the original words are kept along with the pairs
+ * and stems so that the index can be searched with or without them.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class LanguageAnalyzer extends Analyzer {
+	/** The stemmers by language */
+	private static final Map<String, Function<TokenStream, TokenStream>> STEMMERS = Map.of(
+			"en", EnglishMinimalStemFilter::new,
+			"es", SpanishLightStemFilter::new,
+			"pt", PortugueseLightStemFilter::new);
+	
+	/** The analyzers for indexing by language */
+	private static final Map<String, LanguageAnalyzer> INDEX_ANALYZERS = new ConcurrentHashMap<String, LanguageAnalyzer>();
+	
+	/** The analyzers for querying by language */
+	private static final Map<String, LanguageAnalyzer> QUERY_ANALYZERS = new ConcurrentHashMap<String, LanguageAnalyzer>();
+	
+	/** The stemmer; null if there isn't one for the language */
+	private final Function<TokenStream, TokenStream> stemmer;
+	
+	/** True if this analyzer is for queries */
+	private final boolean query;
+	
+	/**
+	 * Full constructor.
+	 * @param language the language
+	 * @param query true if this analyzer is for queries
+	 */
+	private LanguageAnalyzer(String language, boolean query) {
+		this.stemmer = STEMMERS.get(language);
+		this.query = query;
+	}
+	
+	/**
+	 * Returns the analyzer to index text of the given language.
+	 * @param language the language tag; can be null
+	 * @return {@link LanguageAnalyzer}
+	 */
+	static LanguageAnalyzer forIndex(String language) {
+		return INDEX_ANALYZERS.computeIfAbsent(getLanguage(language), l -> new LanguageAnalyzer(l, false));
+	}
+	
+	/**
+	 * Returns the analyzers to query text of the given language.
+	 * <p>
+	 * If the language isn't known, the analyzers for all languages are returned so that
+	 * text of any language can be found.
+	 * @param language the language tag; can be null
+	 * @return List&lt;{@link LanguageAnalyzer}&gt;
+	 */
+	static List<LanguageAnalyzer> forQuery(String language) {
+		String l = getLanguage(language);
+		if (!l.isEmpty()) {
+			return Collections.singletonList(QUERY_ANALYZERS.computeIfAbsent(l, k -> new LanguageAnalyzer(k, true)));
+		}
+		
+		List<LanguageAnalyzer> analyzers = new ArrayList<LanguageAnalyzer>();
+		analyzers.add(QUERY_ANALYZERS.computeIfAbsent("", k -> new LanguageAnalyzer(k, true)));
+		for (String key : new TreeSet<String>(STEMMERS.keySet())) {
+			analyzers.add(QUERY_ANALYZERS.computeIfAbsent(key, k -> new LanguageAnalyzer(k, true)));
+		}
+		return analyzers;
+	}
+	
+	/**
+	 * Returns the language of the given language tag (es-MX is es for example).
+	 * @param tag the language tag; can be null
+	 * @return String
+	 */
+	private static String getLanguage(String tag) {
+		if (tag == null || tag.isBlank()) {
+			return "";
+		}
+		return Locale.forLanguageTag(tag.trim()).getLanguage();
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.apache.lucene.analysis.Analyzer#createComponents(java.lang.String)
+	 */
+	@Override
+	protected TokenStreamComponents createComponents(String fieldName) {
+		StandardTokenizer source = new StandardTokenizer();
+		TokenStream stream = new LowerCaseFilter(source);
+		// queries only need the pairs (or a single character on its own)
+		stream = new CJKBigramFilter(stream, CJKBigramFilter.HAN | CJKBigramFilter.HIRAGANA | CJKBigramFilter.KATAKANA | CJKBigramFilter.HANGUL, !this.query);
+		if (this.stemmer != null) {
+			if (this.query) {
+				stream = this.stemmer.apply(stream);
+			} else {
+				// keep the word and its stem (when different) at the same position
+				stream = new KeywordRepeatFilter(stream);
+				stream = this.stemmer.apply(stream);
+				stream = new RemoveDuplicatesTokenFilter(stream);
+			}
+		}
+		return new TokenStreamComponents(source, stream);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.apache.lucene.analysis.Analyzer#normalize(java.lang.String, org.apache.lucene.analysis.TokenStream)
+	 */
+	@Override
+	protected TokenStream normalize(String fieldName, TokenStream in) {
+		return new LowerCaseFilter(in);
+	}
+}
@@ -0,0 +1,58 @@
+package org.praisenter.data.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.AnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+
+/**
+ * Wraps an analyzer to add the prefixes of each token for the
+ * {@link Indexable#FIELD_TEXT_PREFIX} field.  All other fields are
+ * analyzed by the wrapped analyzer as is.
+ * <p>
+ * For example, "loved" produces "lo", "lov", "love" and "loved" at the same
+ * position.  Searching the field for "lov" is then a single term lookup rather
+ * than an expansion over the terms dictionary.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class PrefixAnalyzer extends AnalyzerWrapper {
+	/** The minimum prefix length; single characters match too much to be useful */
+	static final int MINIMUM_PREFIX_LENGTH = 2;
+	
+	/** The maximum prefix length */
+	static final int MAXIMUM_PREFIX_LENGTH = 15;
+	
+	/** The wrapped analyzer */
+	private final Analyzer analyzer;
+	
+	/**
+	 * Full constructor.
+	 * @param analyzer the analyzer to wrap
+	 */
+	public PrefixAnalyzer(Analyzer analyzer) {
+		// the components differ by field
+		super(PER_FIELD_REUSE_STRATEGY);
+		this.analyzer = analyzer;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.apache.lucene.analysis.AnalyzerWrapper#getWrappedAnalyzer(java.lang.String)
+	 */
+	@Override
+	protected Analyzer getWrappedAnalyzer(String fieldName) {
+		return this.analyzer;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.apache.lucene.analysis.AnalyzerWrapper#wrapComponents(java.lang.String, org.apache.lucene.analysis.Analyzer.TokenStreamComponents)
+	 */
+	@Override
+	protected TokenStreamComponents wrapComponents(String fieldName, TokenStreamComponents components) {
+		if (Indexable.FIELD_TEXT_PREFIX.equals(fieldName)) {
+			return new TokenStreamComponents(
+					components.getSource(), 
+					new EdgeNGramTokenFilter(components.getTokenStream(), MINIMUM_PREFIX_LENGTH, MAXIMUM_PREFIX_LENGTH, true));
+		}
+		return components;
+	}
+}
@@ -2,7 +2,10 @@ package org.praisenter.data.search;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
@@ -11,26 +14,82 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.queries.spans.SpanMultiTermQueryWrapper;
 import org.apache.lucene.queries.spans.SpanNearQuery;
 import org.apache.lucene.queries.spans.SpanQuery;
+import org.apache.lucene.queries.spans.SpanTermQuery;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.MultiTermQuery;
 import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.BooleanClause.Occur;
 
 public class SearchCriteria {
+	/** The number of leading characters of a fuzzy term that must match exactly; this greatly reduces the number of terms to check */
+	private static final int FUZZY_PREFIX_LENGTH = 1;
+	
+	/** The maximum number of terms a fuzzy or prefix term can expand to */
+	private static final int MAX_EXPANSIONS = FuzzyQuery.defaultMaxExpansions;
+	
 	private final String field;
 	private final String terms;
 	private final SearchType type;
 	private final int maxResults;
 	private final boolean fuzzy;
+	private final boolean prefix;
+	private final String language;
 	
 	public SearchCriteria(String field, String terms, SearchType type, boolean fuzzy, int maxResults) {
+		this(field, terms, type, fuzzy, false, maxResults);
+	}
+	
+	public SearchCriteria(String field, String terms, SearchType type, boolean fuzzy, boolean prefix, int maxResults) {
+		this(field, terms, type, fuzzy, prefix, maxResults, null);
+	}
+	
+	/**
+	 * Full constructor.
+	 * @param field the field to search
+	 * @param terms the search terms
+	 * @param type the search type
+	 * @param fuzzy true to allow misspellings
+	 * @param prefix true if the last term is incomplete (the user is still typing)
+	 * @param maxResults the maximum number of results
+	 * @param language the language tag of the text to search; null if any
+	 */
+	public SearchCriteria(String field, String terms, SearchType type, boolean fuzzy, boolean prefix, int maxResults, String language) {
 		this.field = field;
 		this.terms = terms;
 		this.type = type;
 		this.maxResults = maxResults;
 		this.fuzzy = fuzzy;
+		this.prefix = prefix;
+		this.language = language;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (obj == null || obj.getClass() != this.getClass()) return false;
+		SearchCriteria other = (SearchCriteria)obj;
+		return Objects.equals(this.field, other.field) &&
+			   Objects.equals(this.terms, other.terms) &&
+			   this.type == other.type &&
+			   this.maxResults == other.maxResults &&
+			   this.fuzzy == other.fuzzy &&
+			   this.prefix == other.prefix &&
+			   Objects.equals(this.language, other.language);
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.getClass(), this.field, this.terms, this.type, this.maxResults, this.fuzzy, this.prefix, this.language);
 	}
 	
 	public String getField() {
@@ -49,9 +108,17 @@ public class SearchCriteria {
 		return this.fuzzy;
 	}
 	
+	public boolean isPrefix() {
+		return this.prefix;
+	}
+	
 	public int getMaxResults() {
 		return this.maxResults;
 	}
+	
+	public String getLanguage() {
+		return this.language;
+	}
 
 	/**
 	 * Uses the lucene analyzer to tokenize the given text for the given lucene field.
@@ -77,6 +144,10 @@ public class SearchCriteria {
 	}
 	
 	protected final Query createBasicQuery(Analyzer analyzer) throws IOException {
+		return this.createBasicQuery(analyzer, false);
+	}
+	
+	private Query createBasicQuery(Analyzer analyzer, boolean highlight) throws IOException {
 		// get the tokens
 		List<String> tokens = this.getTokens(analyzer);
 		
@@ -84,19 +155,32 @@ public class SearchCriteria {
 		
 		Query query = null;
 		
+		// the last token is matched as a prefix if it's long enough
+		int last = tokens.size() - 1;
+		boolean prefix = this.prefix &&
+				Indexable.FIELD_TEXT.equals(this.field) &&
+				tokens.get(last).length() >= PrefixAnalyzer.MINIMUM_PREFIX_LENGTH;
+		
 		if (tokens.size() == 0) return null;
 		if (tokens.size() == 1) {
 			// single term, just do a fuzzy query on it with a larger max edit distance
 			String token = tokens.get(0);
-			query = convertTermToQuery(token);//new FuzzyQuery(new Term(this.field, token));
+			query = prefix ? convertPrefixToQuery(token, highlight) : convertTermToQuery(token);//new FuzzyQuery(new Term(this.field, token));
 		// PHRASE
 		} else if (this.type == SearchType.PHRASE) {
-			if (this.fuzzy) {
+			if (this.fuzzy || prefix) {
 				// for phrase, do a span-near-fuzzy query since we 
 				// care if the words are close to each other
 				SpanQuery[] sqs = new SpanQuery[tokens.size()];
 				for (int i = 0; i < tokens.size(); i++) {
-					sqs[i] = new SpanMultiTermQueryWrapper<FuzzyQuery>(new FuzzyQuery(new Term(this.field, tokens.get(i))));
+					Term term = new Term(this.field, tokens.get(i));
+					if (prefix && i == last) {
+						sqs[i] = createSpanQuery(new PrefixQuery(term));
+					} else if (this.fuzzy) {
+						sqs[i] = createSpanQuery(createFuzzyQuery(term));
+					} else {
+						sqs[i] = new SpanTermQuery(term);
+					}
 				}
 				// the terms should be within 3 terms of each other
 				query = new SpanNearQuery(sqs, 3, false);
@@ -107,26 +191,118 @@ public class SearchCriteria {
 		} else {
 			// do an and/or combination of fuzzy queries
 			BooleanQuery.Builder builder = new BooleanQuery.Builder();
-			for (String token : tokens) {
-				builder.add(convertTermToQuery(token), this.type == SearchType.ALL_WORDS ? Occur.MUST : Occur.SHOULD);
+			for (int i = 0; i < tokens.size(); i++) {
+				String token = tokens.get(i);
+				Query q = prefix && i == last ? convertPrefixToQuery(token, highlight) : convertTermToQuery(token);
+				builder.add(q, this.type == SearchType.ALL_WORDS ? Occur.MUST : Occur.SHOULD);
 			}
 			query = builder.build();
 		}
 		// ALL_WILDCARD, ANY_WILDCARD (not available as an option)
 		
+		// also match the words as they're indexed for the language
+		if (Indexable.FIELD_TEXT.equals(this.field)) {
+			query = this.addLanguageQueries(query, tokens);
+		}
+		
 		return query;
 	}
 	
+	/**
+	 * Returns a query that matches the given query or the terms as they're analyzed
+	 * for the language of the text.
+	 * <p>
+	 * The stems of words and the pairs of Chinese, Japanese and Korean characters are
+	 * indexed with the text, so these are exact matches rather than slower fuzzy ones.
+	 * @param query the query
+	 * @param tokens the tokens of the query
+	 * @return Query
+	 * @throws IOException if the terms could not be analyzed
+	 */
+	private Query addLanguageQueries(Query query, List<String> tokens) throws IOException {
+		Set<List<String>> analyzed = new HashSet<List<String>>();
+		analyzed.add(tokens);
+		
+		BooleanQuery.Builder builder = null;
+		for (Analyzer analyzer : LanguageAnalyzer.forQuery(this.language)) {
+			List<String> other = this.getTokens(analyzer);
+			// skip it if there's nothing different about it
+			if (other.isEmpty() || !analyzed.add(other)) {
+				continue;
+			}
+			
+			if (builder == null) {
+				builder = new BooleanQuery.Builder();
+				builder.add(query, Occur.SHOULD);
+			}
+			
+			if (other.size() == 1) {
+				builder.add(new TermQuery(new Term(this.field, other.get(0))), Occur.SHOULD);
+			} else if (this.type == SearchType.PHRASE) {
+				builder.add(new PhraseQuery(3, this.field, other.toArray(new String[0])), Occur.SHOULD);
+			} else {
+				BooleanQuery.Builder terms = new BooleanQuery.Builder();
+				for (String token : other) {
+					terms.add(new TermQuery(new Term(this.field, token)), this.type == SearchType.ALL_WORDS ? Occur.MUST : Occur.SHOULD);
+				}
+				builder.add(terms.build(), Occur.SHOULD);
+			}
+		}
+		
+		return builder != null ? builder.build() : query;
+	}
+	
 	private Query convertTermToQuery(String token) {
 		Term term = new Term(this.field, token);
 		if (this.fuzzy) {
-			return new FuzzyQuery(term);
+			return createFuzzyQuery(term);
 		} else {
 			return new TermQuery(term);
 		}
 	}
 	
+	private Query convertPrefixToQuery(String token, boolean highlight) {
+		// the whole word scores higher than the words that start with it
+		BooleanQuery.Builder builder = new BooleanQuery.Builder();
+		builder.add(convertTermToQuery(token), Occur.SHOULD);
+		if (highlight) {
+			// the highlighter only looks at the words in the matched documents
+			builder.add(new PrefixQuery(new Term(this.field, token)), Occur.SHOULD);
+		} else {
+			// the prefixes are indexed so it's just a term lookup
+			String prefix = token.length() > PrefixAnalyzer.MAXIMUM_PREFIX_LENGTH
+					? token.substring(0, PrefixAnalyzer.MAXIMUM_PREFIX_LENGTH)
+					: token;
+			builder.add(new TermQuery(new Term(Indexable.FIELD_TEXT_PREFIX, prefix)), Occur.SHOULD);
+		}
+		return builder.build();
+	}
+	
+	private static FuzzyQuery createFuzzyQuery(Term term) {
+		return new FuzzyQuery(term, FuzzyQuery.defaultMaxEdits, FUZZY_PREFIX_LENGTH, MAX_EXPANSIONS, FuzzyQuery.defaultTranspositions);
+	}
+	
+	private static <T extends MultiTermQuery> SpanQuery createSpanQuery(T query) {
+		// by default the wrapper expands to every matching term
+		SpanMultiTermQueryWrapper<T> wrapper = new SpanMultiTermQueryWrapper<T>(query);
+		wrapper.setRewriteMethod(new SpanMultiTermQueryWrapper.TopTermsSpanBooleanQueryRewrite(MAX_EXPANSIONS));
+		return wrapper;
+	}
+	
 	public Query createQuery(Analyzer analyzer) throws IOException {
 		return this.createBasicQuery(analyzer);
 	}
+	
+	/**
+	 * Returns the query used to highlight the matches in the text of the results.
+	 * <p>
+	 * This is the basic query without any filters.  Prefixes are matched against the
+	 * words of the text rather than the indexed prefixes so they can be highlighted.
+	 * @param analyzer the analyzer
+	 * @return Query
+	 * @throws IOException if the terms could not be analyzed
+	 */
+	public Query createHighlightQuery(Analyzer analyzer) throws IOException {
+		return this.createBasicQuery(analyzer, true);
+	}
 }
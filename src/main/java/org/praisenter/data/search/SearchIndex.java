@@ -2,43 +2,146 @@ package org.praisenter.data.search;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.search.highlight.Highlighter;
-import org.apache.lucene.search.highlight.QueryScorer;
-import org.apache.lucene.search.highlight.TokenSources;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.uhighlight.Passage;
+import org.apache.lucene.search.uhighlight.PassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.lucene.store.Directory;
 
 public final class SearchIndex {
 	/** The class-level logger */
 	private static final Logger LOGGER = LogManager.getLogger();
 
+	/** The maximum number of matches to return per result */
+	private static final int MAX_MATCHES_PER_RESULT = 10;
+	
+	/** The maximum number of characters of a field to highlight */
+	private static final int MAX_HIGHLIGHT_LENGTH = 50 * 1024;
+	
+	/** The maximum number of recent searches to keep the results of */
+	private static final int MAX_CACHED_SEARCHES = 32;
+	
+	/** The key of the commit data for the version of the analysis of the text */
+	private static final String ANALYSIS_VERSION_KEY = "analysisVersion";
+	
+	/** The version of the analysis of the text; change this when the analysis changes to rebuild the index */
+	private static final String ANALYSIS_VERSION = "3";
+	
+	/** The field type for {@link Indexable#FIELD_TEXT_PREFIX}; only used for matching */
+	private static final FieldType FIELD_TEXT_PREFIX_TYPE = createPrefixFieldType();
+	
 	/** The file-system index */
 	private Directory directory;
 	
 	/** The analyzer for the index */
 	private Analyzer analyzer;
 	
+	/** The results of recent searches by criteria */
+	private final Map<SearchCriteria, SearchResults> cache;
+	
+	/** The number of times the index has changed; guarded by the cache */
+	private long generation;
+	
 	public SearchIndex(Directory directory, Analyzer analyzer) {
 		this.directory = directory;
-		this.analyzer = analyzer;
+		this.analyzer = new PrefixAnalyzer(analyzer);
+		this.cache = new LinkedHashMap<SearchCriteria, SearchResults>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<SearchCriteria, SearchResults> eldest) {
+				return this.size() > MAX_CACHED_SEARCHES;
+			}
+		};
+	}
+	
+	private static FieldType createPrefixFieldType() {
+		FieldType type = new FieldType(TextField.TYPE_NOT_STORED);
+		type.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+		type.freeze();
+		return type;
+	}
+	
+	/**
+	 * Prepares the text of each of the given documents for indexing.
+	 * <p>
+	 * The {@link Indexable#FIELD_TEXT} is analyzed for the {@link Indexable#FIELD_LANGUAGE} of
+	 * the document and the {@link Indexable#FIELD_TEXT_PREFIX} field is added for it.
+	 * @param docs the documents
+	 * @return List&lt;Document&gt;
+	 */
+	private static List<Document> addSearchFields(List<Document> docs) {
+		for (Document doc : docs) {
+			Analyzer analyzer = LanguageAnalyzer.forIndex(doc.get(Indexable.FIELD_LANGUAGE));
+			List<String> texts = new ArrayList<String>();
+			for (IndexableField field : doc.getFields(Indexable.FIELD_TEXT)) {
+				String text = field.stringValue();
+				if (text != null) {
+					texts.add(text);
+				}
+			}
+			
+			doc.removeFields(Indexable.FIELD_TEXT);
+			for (String text : texts) {
+				doc.add(new AnalyzedField(Indexable.FIELD_TEXT, text, Indexable.FIELD_TEXT_TYPE, analyzer));
+				doc.add(new Field(Indexable.FIELD_TEXT_PREFIX, text, FIELD_TEXT_PREFIX_TYPE));
+			}
+		}
+		return docs;
+	}
+	
+	/**
+	 * Records the version of the analysis in the next commit of the given writer if
+	 * the index is new.
+	 * @param writer the writer
+	 * @param create true if the index is being recreated
+	 * @throws IOException if the index could not be read
+	 */
+	private static void setAnalysisVersion(IndexWriter writer, boolean create) throws IOException {
+		if (create || writer.getDocStats().maxDoc == 0) {
+			writer.setLiveCommitData(Map.of(ANALYSIS_VERSION_KEY, ANALYSIS_VERSION).entrySet());
+		}
+	}
+	
+	/**
+	 * Throws away the results of previous searches; called after every change to the index.
+	 */
+	private void invalidate() {
+		synchronized (this.cache) {
+			this.generation++;
+			this.cache.clear();
+		}
 	}
 	
 	public synchronized void create(Indexable item) throws IOException {
@@ -47,7 +150,10 @@ public final class SearchIndex {
 		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
 		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
 		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
-			writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), docs);	
+			setAnalysisVersion(writer, false);
+			writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), addSearchFields(docs));	
+		} finally {
+			this.invalidate();
 		}
 	}
 	
@@ -57,7 +163,32 @@ public final class SearchIndex {
 		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
 		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
 		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
-			writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), docs);	
+			setAnalysisVersion(writer, false);
+			writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), addSearchFields(docs));	
+		} finally {
+			this.invalidate();
+		}
+	}
+	
+	/**
+	 * Adds or updates the given items with one write to the index rather than one per item.
+	 * @param items the items
+	 * @throws IOException if the index could not be written
+	 */
+	public synchronized void update(Iterable<? extends Indexable> items) throws IOException {
+		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
+		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
+		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
+			setAnalysisVersion(writer, false);
+			for (Indexable item : items) {
+				List<Document> docs = item.index();
+				if (docs == null || docs.isEmpty()) {
+					continue;
+				}
+				writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), addSearchFields(docs));	
+			}
+		} finally {
+			this.invalidate();
 		}
 	}
 	
@@ -66,6 +197,8 @@ public final class SearchIndex {
 		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
 		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
 			writer.deleteDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()));	
+		} finally {
+			this.invalidate();
 		}
 	}
 	
@@ -73,63 +206,318 @@ public final class SearchIndex {
 		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
 		config.setOpenMode(OpenMode.CREATE);
 		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
+			setAnalysisVersion(writer, true);
 			for (Indexable item : items) {
 				LOGGER.debug("Indexing document {} {}", item.getClass().getName(), item.getName());
 				List<Document> docs = item.index();
 				if (docs == null || docs.isEmpty()) {
 					continue;
 				}
-				writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), docs);	
+				writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), addSearchFields(docs));	
 			}
+		} finally {
+			this.invalidate();
+		}
+	}
+	
+	/**
+	 * Returns true if the index was created before {@link Indexable#FIELD_TEXT} was
+	 * indexed with offsets, before the {@link Indexable#FIELD_TEXT_PREFIX} field
+	 * was added or with a different version of the analysis of the text.
+	 * <p>
+	 * Lucene will not change how an existing field is indexed, so the index must be
+	 * rebuilt before any items can be added or updated.
+	 * @return boolean
+	 * @throws IOException if the index could not be read
+	 */
+	public synchronized boolean isReindexRequired() throws IOException {
+		if (!DirectoryReader.indexExists(this.directory)) {
+			return false;
+		}
+		
+		try (DirectoryReader reader = DirectoryReader.open(this.directory)) {
+			FieldInfos infos = FieldInfos.getMergedFieldInfos(reader);
+			FieldInfo info = infos.fieldInfo(Indexable.FIELD_TEXT);
+			return info != null && (
+					info.getIndexOptions() != Indexable.FIELD_TEXT_TYPE.indexOptions() ||
+					infos.fieldInfo(Indexable.FIELD_TEXT_PREFIX) == null ||
+					!ANALYSIS_VERSION.equals(reader.getIndexCommit().getUserData().get(ANALYSIS_VERSION_KEY)));
 		}
 	}
 	
 	public SearchResults search(SearchCriteria criteria) throws IOException {
+		return this.search(criteria, null);
+	}
+	
+	/**
+	 * Searches the index using the given criteria and returns the first page of up to
+	 * {@link SearchCriteria#getMaxResults()} results.
+	 * <p>
+	 * Only the results of the page are loaded and highlighted.  Use
+	 * {@link #searchNext(SearchResults, BooleanSupplier)} to get the next page.
+	 * <p>
+	 * The first page of recent searches is kept until the index changes, so searching
+	 * for the same thing again (when the user deletes what they typed for example)
+	 * is immediate.
+	 * @param criteria the criteria
+	 * @param cancelled returns true if the search is no longer needed; can be null
+	 * @return {@link SearchResults}
+	 * @throws IOException if the index could not be read
+	 * @throws CancellationException if the search was cancelled
+	 */
+	public SearchResults search(SearchCriteria criteria, BooleanSupplier cancelled) throws IOException {
+		final long generation;
+		synchronized (this.cache) {
+			SearchResults cached = this.cache.get(criteria);
+			if (cached != null) {
+				return cached;
+			}
+			generation = this.generation;
+		}
+		
+		SearchResults output = null;
+		
+		// NOTE: this doesn't need to be synchronized with the index, it will use a snapshot
+		// of the index at the time it's opened
+		try (DirectoryReader reader = DirectoryReader.open(this.directory)) {
+			output = this.search(reader, criteria, null, cancelled);
+		}
+		
+		synchronized (this.cache) {
+			// only keep them if the index hasn't changed since we started
+			if (this.generation == generation) {
+				this.cache.put(criteria, output);
+			}
+		}
+		
+		return output;
+	}
+	
+	/**
+	 * Returns the page of results after the given page.
+	 * <p>
+	 * A page's position is only valid for the version of the index it came from.  If
+	 * the index has changed since the given page (an import or save for example), the
+	 * search is started again and the first page is returned rather than skipping or
+	 * repeating results.  See {@link SearchResults#isFirstPage()}.
+	 * @param page the previous page
+	 * @param cancelled returns true if the search is no longer needed; can be null
+	 * @return {@link SearchResults}
+	 * @throws IOException if the index could not be read
+	 * @throws CancellationException if the search was cancelled
+	 */
+	public SearchResults searchNext(SearchResults page, BooleanSupplier cancelled) throws IOException {
+		if (page.getAfter() == null) {
+			return this.search(page.getCriteria(), cancelled);
+		}
+		
+		try (DirectoryReader reader = DirectoryReader.open(this.directory)) {
+			if (reader.getVersion() != page.getVersion()) {
+				LOGGER.debug("The index changed since the last page of results for '{}', starting the search again", page.getCriteria().getTerms());
+				return this.search(reader, page.getCriteria(), null, cancelled);
+			}
+			return this.search(reader, page.getCriteria(), page.getAfter(), cancelled);
+		}
+	}
+	
+	/**
+	 * Returns the page of results after the given result using the given reader.
+	 * @param reader the reader
+	 * @param criteria the criteria
+	 * @param after the last result of the previous page; null for the first page
+	 * @param cancelled returns true if the search is no longer needed; can be null
+	 * @return {@link SearchResults}
+	 * @throws IOException if the index could not be read
+	 * @throws CancellationException if the search was cancelled
+	 */
+	private SearchResults search(DirectoryReader reader, SearchCriteria criteria, ScoreDoc after, BooleanSupplier cancelled) throws IOException {
 		Query query = criteria.createQuery(this.analyzer);
 		if (query == null) 
 			return new SearchResults(criteria, Collections.emptyList());
 		
 		List<SearchResult> results = new ArrayList<SearchResult>();
 		
-		// NOTE: this doesn't need to be synchronized with the index, it will use a snapshot
-		// of the index at the time it's opened
-		try (IndexReader reader = DirectoryReader.open(this.directory)) {
-			IndexSearcher searcher = new IndexSearcher(reader);
-			
-			TopDocs result = searcher.search(query, criteria.getMaxResults() + 1);
-			ScoreDoc[] docs = result.scoreDocs;
+		IndexSearcher searcher = new IndexSearcher(reader);
+		if (cancelled != null) {
+			// stops collecting results when cancelled
+			searcher.setTimeout(cancelled::getAsBoolean);
+		}
+		
+		// get one more than the page size to know if there's another page
+		int max = criteria.getMaxResults();
+		TopDocs result = after == null
+				? searcher.search(query, max + 1)
+				: searcher.searchAfter(after, query, max + 1);
+		boolean hasMore = result.scoreDocs.length > max;
+		ScoreDoc[] docs = hasMore ? Arrays.copyOf(result.scoreDocs, max) : result.scoreDocs;
+		
+		if (cancelled != null && cancelled.getAsBoolean()) {
+			throw new CancellationException();
+		}
+		
+		// get the text around the matches for all the results at once
+		Object[] highlights = this.highlight(searcher, criteria.createHighlightQuery(this.analyzer), docs, criteria);
+		StoredFields storedFields = searcher.storedFields();
+		
+		for (int i = 0; i < docs.length; i++) {
+			ScoreDoc doc = docs[i];
+			Document document = storedFields.document(doc.doc);
 			
-			QueryScorer scorer = new QueryScorer(query);
-			Highlighter highlighter = new Highlighter(scorer);
-			StoredFields storedFields = searcher.storedFields();
+			List<SearchTextMatch> matches = new ArrayList<SearchTextMatch>();
+			if (highlights != null && highlights[i] != null) {
+				@SuppressWarnings("unchecked")
+				List<SearchTextMatch> formatted = (List<SearchTextMatch>)highlights[i];
+				matches.addAll(formatted);
+			}
 			
-			for (ScoreDoc doc : docs) {
-				Document document = storedFields.document(doc.doc);
-				
-				// get the text
-				String text = document.get(Indexable.FIELD_TEXT);
-				
-				// get the text around the match
-				List<SearchTextMatch> matches = new ArrayList<SearchTextMatch>();
+			results.add(new SearchResult(document, matches, doc.score));
+		}
+		
+		return new SearchResults(
+				criteria, 
+				results, 
+				hasMore, 
+				docs.length > 0 ? docs[docs.length - 1] : after, 
+				result.totalHits.value(), 
+				result.totalHits.relation() == TotalHits.Relation.EQUAL_TO,
+				reader.getVersion(),
+				after == null);
+	}
+	
+	/**
+	 * Returns the matches in {@link Indexable#FIELD_TEXT} of each of the given documents
+	 * as a List&lt;{@link SearchTextMatch}&gt; or null if there were none.
+	 * <p>
+	 * The offsets of the matches are read from the index.  If the index hasn't been
+	 * rebuilt since offsets were added, the text is analyzed again instead.
+	 * @param searcher the searcher
+	 * @param query the query
+	 * @param docs the matched documents
+	 * @param criteria the search criteria
+	 * @return Object[]
+	 */
+	private Object[] highlight(IndexSearcher searcher, Query query, ScoreDoc[] docs, SearchCriteria criteria) {
+		if (docs.length == 0) {
+			return null;
+		}
+		
+		int[] ids = new int[docs.length];
+		for (int i = 0; i < docs.length; i++) {
+			ids[i] = docs[i].doc;
+		}
+		
+		BatchHighlighter highlighter = new BatchHighlighter(UnifiedHighlighter.builder(searcher, this.analyzer)
+				.withHandleMultiTermQuery(true)
+				.withHighlightPhrasesStrictly(true)
+				.withMaxLength(MAX_HIGHLIGHT_LENGTH)
+				.withMaxNoHighlightPassages(0)
+				// best match first
+				.withPassageSortComparator(Comparator.comparingDouble(Passage::getScore).reversed())
+				.withFormatter(new MatchFormatter(Indexable.FIELD_TEXT)));
+		
+		try {
+			return highlighter.highlight(Indexable.FIELD_TEXT, query, ids, MAX_MATCHES_PER_RESULT);
+		} catch (Exception e) {
+			LOGGER.error("Failed to get matching text for terms: '" + criteria.getTerms() + "'", e);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * A field that's analyzed by its own analyzer rather than the analyzer of the index.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class AnalyzedField extends Field {
+		/** The analyzer */
+		private final Analyzer analyzer;
+		
+		public AnalyzedField(String name, String value, FieldType type, Analyzer analyzer) {
+			super(name, value, type);
+			this.analyzer = analyzer;
+		}
+		
+		/* (non-Javadoc)
+		 * @see org.apache.lucene.document.Field#tokenStream(org.apache.lucene.analysis.Analyzer, org.apache.lucene.analysis.TokenStream)
+		 */
+		@Override
+		public TokenStream tokenStream(Analyzer analyzer, TokenStream reuse) {
+			return this.analyzer.tokenStream(this.name(), this.stringValue());
+		}
+	}
+	
+	/**
+	 * A {@link UnifiedHighlighter} that returns the formatted objects rather than strings.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class BatchHighlighter extends UnifiedHighlighter {
+		public BatchHighlighter(Builder builder) {
+			super(builder);
+		}
+		
+		/**
+		 * Returns the formatted passages of the given field for each document.
+		 * @param field the field
+		 * @param query the query
+		 * @param docs the document ids
+		 * @param maxPassages the maximum number of passages per document
+		 * @return Object[]
+		 * @throws IOException if the index could not be read
+		 */
+		public Object[] highlight(String field, Query query, int[] docs, int maxPassages) throws IOException {
+			Map<String, Object[]> highlights = this.highlightFieldsAsObjects(new String[] { field }, query, docs, new int[] { maxPassages });
+			return highlights.get(field);
+		}
+	}
+	
+	/**
+	 * Formats the passages of a field as a List&lt;{@link SearchTextMatch}&gt;.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class MatchFormatter extends PassageFormatter {
+		/** The field */
+		private final String field;
+		
+		public MatchFormatter(String field) {
+			this.field = field;
+		}
+		
+		/* (non-Javadoc)
+		 * @see org.apache.lucene.search.uhighlight.PassageFormatter#format(org.apache.lucene.search.uhighlight.Passage[], java.lang.String)
+		 */
+		@Override
+		public Object format(Passage[] passages, String content) {
+			List<SearchTextMatch> matches = new ArrayList<SearchTextMatch>(passages.length);
+			for (Passage passage : passages) {
+				int[] starts = passage.getMatchStarts();
+				int[] ends = passage.getMatchEnds();
 				
-				try {
-					TokenStream tokens = TokenSources.getTokenStream(Indexable.FIELD_TEXT, null, text, this.analyzer, -1);
-					String[] fragments = highlighter.getBestFragments(tokens, text, 10);
-					
-					for (String fragment : fragments) {
-						matches.add(new SearchTextMatch(Indexable.FIELD_TEXT, text, fragment));
+				// the matches are in order, but can overlap (a term
+				// matched by more than one part of the query for example)
+				List<SearchTextHighlight> highlights = new ArrayList<SearchTextHighlight>();
+				int start = -1;
+				int end = -1;
+				for (int i = 0; i < passage.getNumMatches(); i++) {
+					if (start >= 0 && starts[i] <= end) {
+						end = Math.max(end, ends[i]);
+						continue;
 					}
-				} catch (IllegalArgumentException e) {
-					// https://github.com/apache/lucene/issues/10608
-					LOGGER.warn("Failed to get highlighted text for search '" + criteria.getTerms() + "': " + e.getMessage());
-				} catch (Exception e) {
-					LOGGER.error("Failed to get matching text for terms: '" + criteria.getTerms() + "'", e);
+					if (start >= 0) {
+						highlights.add(new SearchTextHighlight(start, end));
+					}
+					start = starts[i];
+					end = ends[i];
+				}
+				if (start >= 0) {
+					highlights.add(new SearchTextHighlight(start, end));
 				}
 				
-				results.add(new SearchResult(document, matches, doc.score));
+				matches.add(new SearchTextMatch(this.field, content, passage.getStartOffset(), passage.getEndOffset(), highlights));
 			}
+			return matches;
 		}
-		
-		return new SearchResults(criteria, results);
 	}
 }
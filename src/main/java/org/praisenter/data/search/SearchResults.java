@@ -2,12 +2,29 @@ package org.praisenter.data.search;
 
 import java.util.List;
 
+import org.apache.lucene.search.ScoreDoc;
+
 public final class SearchResults {
 	private final SearchCriteria criteria;
 	private final List<SearchResult> results;
 	private final boolean hasMore;
 	private final int numberOfResults;
 	
+	/** The last result; used to get the next page */
+	private final ScoreDoc after;
+	
+	/** The total number of matches */
+	private final long totalHits;
+	
+	/** True if the total is exact, false if it's a lower bound */
+	private final boolean totalHitsExact;
+	
+	/** The version of the index the results came from; -1 if not from an index */
+	private final long version;
+	
+	/** True if this is the first page of results */
+	private final boolean firstPage;
+	
 	public SearchResults(SearchCriteria criteria, List<SearchResult> results) {
 		this.criteria = criteria;
 		this.results = results;
@@ -22,6 +39,34 @@ public final class SearchResults {
 		}
 		
 		this.numberOfResults = size;
+		this.after = null;
+		this.totalHits = size;
+		this.totalHitsExact = !this.hasMore;
+		this.version = -1;
+		this.firstPage = true;
+	}
+	
+	/**
+	 * Creates a page of results.
+	 * @param criteria the criteria
+	 * @param results the results of this page
+	 * @param hasMore true if there's another page
+	 * @param after the last result of this page
+	 * @param totalHits the total number of matches for all pages
+	 * @param totalHitsExact true if the total is exact, false if it's a lower bound
+	 * @param version the version of the index the results came from
+	 * @param firstPage true if this is the first page of results
+	 */
+	public SearchResults(SearchCriteria criteria, List<SearchResult> results, boolean hasMore, ScoreDoc after, long totalHits, boolean totalHitsExact, long version, boolean firstPage) {
+		this.criteria = criteria;
+		this.results = results;
+		this.hasMore = hasMore;
+		this.numberOfResults = results.size();
+		this.after = after;
+		this.totalHits = totalHits;
+		this.totalHitsExact = totalHitsExact;
+		this.version = version;
+		this.firstPage = firstPage;
 	}
 
 	public SearchCriteria getCriteria() {
@@ -39,4 +84,50 @@ public final class SearchResults {
 	public int getNumberOfResults() {
 		return this.numberOfResults;
 	}
+	
+	/**
+	 * Returns the last result of this page.
+	 * @return ScoreDoc
+	 * @see SearchIndex#searchNext(SearchResults, java.util.function.BooleanSupplier)
+	 */
+	public ScoreDoc getAfter() {
+		return this.after;
+	}
+	
+	/**
+	 * Returns the total number of matches across all pages.
+	 * @return long
+	 * @see #isTotalHitsExact()
+	 */
+	public long getTotalHits() {
+		return this.totalHits;
+	}
+	
+	/**
+	 * Returns true if {@link #getTotalHits()} is exact.  Lucene stops counting
+	 * after a while so large totals are a lower bound.
+	 * @return boolean
+	 */
+	public boolean isTotalHitsExact() {
+		return this.totalHitsExact;
+	}
+	
+	/**
+	 * Returns the version of the index these results came from or -1 if they
+	 * didn't come from an index.
+	 * @return long
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+	
+	/**
+	 * Returns true if this is the first page of results.
+	 * <p>
+	 * The next page is the first page again when the index changed between pages.
+	 * @return boolean
+	 */
+	public boolean isFirstPage() {
+		return this.firstPage;
+	}
 }
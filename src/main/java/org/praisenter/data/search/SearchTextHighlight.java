@@ -0,0 +1,48 @@
+package org.praisenter.data.search;
+
+/**
+ * The location of a matched term within the value of a {@link SearchTextMatch}.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class SearchTextHighlight {
+	/** The start offset (inclusive) */
+	final int start;
+	
+	/** The end offset (exclusive) */
+	final int end;
+	
+	/**
+	 * Full constructor.
+	 * @param start the start offset (inclusive)
+	 * @param end the end offset (exclusive)
+	 */
+	public SearchTextHighlight(int start, int end) {
+		this.start = start;
+		this.end = end;
+	}
+	
+	/**
+	 * Returns the start offset of the matched term in the field value (inclusive).
+	 * @return int
+	 */
+	public int getStart() {
+		return this.start;
+	}
+	
+	/**
+	 * Returns the end offset of the matched term in the field value (exclusive).
+	 * @return int
+	 */
+	public int getEnd() {
+		return this.end;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "[" + this.start + ", " + this.end + ")";
+	}
+}
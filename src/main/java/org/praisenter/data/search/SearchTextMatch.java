@@ -1,5 +1,8 @@
 package org.praisenter.data.search;
 
+import java.util.Collections;
+import java.util.List;
+
 public final class SearchTextMatch {
 	/** The field */
 	final String field;
@@ -7,19 +10,29 @@ public final class SearchTextMatch {
 	/** The field value */
 	final String value;
 	
-	/** The matched part of the value with highlight indicators */
-	final String matchedText;
+	/** The start offset of the text around the match (inclusive) */
+	final int start;
+	
+	/** The end offset of the text around the match (exclusive) */
+	final int end;
+	
+	/** The matched terms in order */
+	final List<SearchTextHighlight> highlights;
 	
 	/**
 	 * Full constructor.
 	 * @param field the lucene field
 	 * @param value the value of the field
-	 * @param matchedText the matched text and surrounding text
+	 * @param start the start offset of the text around the match
+	 * @param end the end offset of the text around the match
+	 * @param highlights the matched terms in order; offsets are into the value
 	 */
-	public SearchTextMatch(String field, String value, String matchedText) {
+	public SearchTextMatch(String field, String value, int start, int end, List<SearchTextHighlight> highlights) {
 		this.field = field;
 		this.value = value;
-		this.matchedText = matchedText;
+		this.start = start;
+		this.end = end;
+		this.highlights = Collections.unmodifiableList(highlights);
 	}
 	
 	/**
@@ -38,12 +51,47 @@ public final class SearchTextMatch {
 		return value;
 	}
 	
+	/**
+	 * Returns the start offset of the text around the match in the value (inclusive).
+	 * @return int
+	 */
+	public int getStart() {
+		return start;
+	}
+	
+	/**
+	 * Returns the end offset of the text around the match in the value (exclusive).
+	 * @return int
+	 */
+	public int getEnd() {
+		return end;
+	}
+	
+	/**
+	 * Returns the matched terms within the text around the match.  The
+	 * highlights are in order and don't overlap.
+	 * @return List&lt;{@link SearchTextHighlight}&gt;
+	 */
+	public List<SearchTextHighlight> getHighlights() {
+		return highlights;
+	}
+	
 	/**
 	 * Returns the text around a match with the matched text
 	 * highlighted using &lt;b&gt; tags.
 	 * @return String
 	 */
 	public String getMatchedText() {
-		return matchedText;
+		StringBuilder sb = new StringBuilder();
+		int position = this.start;
+		for (SearchTextHighlight highlight : this.highlights) {
+			sb.append(this.value, position, highlight.start)
+			  .append("<B>")
+			  .append(this.value, highlight.start, highlight.end)
+			  .append("</B>");
+			position = highlight.end;
+		}
+		sb.append(this.value, position, this.end);
+		return sb.toString();
 	}
 }
@@ -171,7 +171,7 @@ public final class Slide extends SlideRegion implements ReadOnlySlide, ReadOnlyS
 			Document document = new Document();
 			document.add(new StringField(FIELD_ID, this.getId().toString(), Field.Store.YES));
 			document.add(new StringField(FIELD_TYPE, DATA_TYPE_SLIDE, Field.Store.YES));
-			document.add(new TextField(FIELD_TEXT, name, Field.Store.YES));
+			document.add(new Field(FIELD_TEXT, name, FIELD_TEXT_TYPE));
 			documents.add(document);
 		}
 
@@ -8,6 +8,7 @@ import java.nio.file.Path;
 import javax.imageio.ImageIO;
 
 import org.praisenter.data.AbstractPersistAdapter;
+import org.praisenter.data.AtomicFileWriter;
 import org.praisenter.data.ImportExportFormat;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.PraisenterFormatProvider;
@@ -30,6 +31,12 @@ public final class SlidePersistAdapter extends AbstractPersistAdapter<Slide, Sli
 		this.importExportProviders.put(ImportExportFormat.RAW, new RawExportFormatProvider<Slide>());
 	}
 	
+	@Override
+	public void initialize() throws IOException {
+		super.initialize();
+		AtomicFileWriter.cleanUp(this.pathResolver.getThumbPath());
+	}
+	
 	@Override
 	protected Slide load(Path path) throws IOException {
 		if (Files.isRegularFile(path)) {
@@ -47,22 +54,22 @@ public final class SlidePersistAdapter extends AbstractPersistAdapter<Slide, Sli
 	protected void create(Path path, Slide item) throws IOException {
 		Path thumbnailPath = this.pathResolver.getThumbPath(item);
 		BufferedImage image = this.renderer.renderThumbnail(item, this.configuration.getThumbnailWidth(), this.configuration.getThumbnailHeight());
-		ImageIO.write(image, this.pathResolver.getThumbExtension(), thumbnailPath.toFile());
+		this.write(thumbnailPath, os -> ImageIO.write(image, this.pathResolver.getThumbExtension(), os));
 		// NOTE: need to set the thumbnail path because it won't be set
 		item.setThumbnailPath(thumbnailPath);
-		JsonIO.write(path, item);
+		this.write(path, os -> JsonIO.write(os, item));
 	}
 	
 	@Override
 	protected void update(Path path, Slide item) throws IOException {
 		Path thumbnailPath = this.pathResolver.getThumbPath(item);
 		BufferedImage image = this.renderer.renderThumbnail(item, this.configuration.getThumbnailWidth(), this.configuration.getThumbnailHeight());
-		ImageIO.write(image, this.pathResolver.getThumbExtension(), thumbnailPath.toFile());
+		this.write(thumbnailPath, os -> ImageIO.write(image, this.pathResolver.getThumbExtension(), os));
 		// NOTE: need to set the thumbnail path every time 
 		// in the case of the slide being new where the field
 		// will stay null until the editor is closed and re-opened
 		item.setThumbnailPath(thumbnailPath);
-		JsonIO.write(path, item);
+		this.write(path, os -> JsonIO.write(os, item));
 	}
 	
 	@Override
@@ -26,6 +26,7 @@ import org.apache.logging.log4j.Logger;
 import org.praisenter.data.DataImportResult;
 import org.praisenter.data.DataReadResult;
 import org.praisenter.data.ImportExportProvider;
+import org.praisenter.data.ImportHeader;
 import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.bible.Verse;
@@ -57,6 +58,12 @@ final class ChurchViewSongFormatProvider implements ImportExportProvider<Song> {
 		return MimeType.XML.is(mimeType) || mimeType.toLowerCase().startsWith("text");
 	}
 	
+	@Override
+	public boolean isSupported(Path path, ImportHeader header) {
+		String root = header.getRootName();
+		return root != null && root.matches("_(CV).+(_SongsDataSet)");
+	}
+	
 	@Override
 	public boolean isSupported(String name, InputStream stream) {
 		if (!stream.markSupported()) {
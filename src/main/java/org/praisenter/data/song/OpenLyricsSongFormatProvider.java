@@ -2,25 +2,25 @@ package org.praisenter.data.song;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
-import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
@@ -38,13 +38,14 @@ import org.praisenter.Constants;
 import org.praisenter.data.DataImportResult;
 import org.praisenter.data.DataReadResult;
 import org.praisenter.data.ImportExportProvider;
+import org.praisenter.data.ImportHeader;
 import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PathResolver;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.Tag;
 import org.praisenter.utility.MimeType;
-import org.praisenter.utility.Streams;
 import org.praisenter.utility.StringManipulator;
+import org.praisenter.utility.XmlStreams;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Text;
@@ -55,6 +56,15 @@ import org.xml.sax.helpers.DefaultHandler;
 final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** Line breaks and the whitespace around them */
+	private static final Pattern LINE_BREAKS = Pattern.compile("\\s*\\n+\\s*");
+	
+	/** Runs of whitespace */
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	
+	/** The temporary line break marker */
+	private static final Pattern LINE_BREAK_MARKER = Pattern.compile("<br>", Pattern.LITERAL);
+	
 	@Override
 	public boolean isSupported(Path path) {
 		return this.isSupported(MimeType.get(path));
@@ -65,6 +75,12 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 		return MimeType.XML.is(mimeType) || mimeType.toLowerCase().startsWith("text");
 	}
 	
+	@Override
+	public boolean isSupported(Path path, ImportHeader header) {
+		String ns = header.getRootNamespace();
+		return header.isRoot("song") && ns != null && ns.toLowerCase().startsWith("http://openlyrics.info/");
+	}
+	
 	@Override
 	public boolean isSupported(String name, InputStream stream) {
 		if (!stream.markSupported()) {
@@ -117,9 +133,10 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 			name = name.substring(0, i);
 		}
 		
+		// read straight from the file rather than buffering it in memory first
 		List<DataReadResult<Song>> results = new ArrayList<>();
-		try (FileInputStream fis = new FileInputStream(path.toFile());
-			BufferedInputStream bis = new BufferedInputStream(fis)) {
+		try (InputStream is = Files.newInputStream(path);
+			BufferedInputStream bis = new BufferedInputStream(is)) {
 			results.add(this.parse(bis, name));
 		} catch (SAXException | ParserConfigurationException ex) {
 			throw new InvalidImportExportFormatException(ex);
@@ -146,23 +163,15 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 	}
 	
 	private boolean isOpenLyricsSong(Path path) {
-		try (FileInputStream stream = new FileInputStream(path.toFile())) {
-			XMLInputFactory f = XMLInputFactory.newInstance();
-			// prevent XXE attacks
-			// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
-			f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-			f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-			XMLStreamReader r = f.createXMLStreamReader(stream);
-			while(r.hasNext()) {
-			    r.next();
-			    if (r.isStartElement()) {
-			    	if (r.getLocalName().equalsIgnoreCase("song")) {
-			    		String ns = r.getNamespaceURI();
-			    		if (ns != null && ns.toLowerCase().startsWith("http://openlyrics.info/")) {
-			    			return true;
-			    		}
-			    	}
-			    }
+		try (InputStream stream = Files.newInputStream(path)) {
+			XMLStreamReader r = XmlStreams.createReader(stream);
+			// only the root element needs to be read
+			while (r.hasNext()) {
+				if (r.next() == XMLStreamConstants.START_ELEMENT) {
+					String ns = r.getNamespaceURI();
+					return r.getLocalName().equalsIgnoreCase("song") &&
+						   ns != null && ns.toLowerCase().startsWith("http://openlyrics.info/");
+				}
 			}
 		} catch (Exception ex) {
 			LOGGER.trace("Failed to read the path as an XML document.", ex);
@@ -181,8 +190,6 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 	 * @throws ParserConfigurationException 
 	 */
 	private DataReadResult<Song> parse(InputStream stream, String name) throws ParserConfigurationException, SAXException, IOException {
-		byte[] content = Streams.read(stream);
-		// read the bytes
 		SAXParserFactory factory = SAXParserFactory.newInstance();
 		// prevent XXE attacks 
 		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet
@@ -191,15 +198,15 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
 		SAXParser parser = factory.newSAXParser();
 		OpenSongReader handler = new OpenSongReader();
-		parser.parse(new ByteArrayInputStream(content), handler);
+		parser.parse(stream, handler);
 		
 		// clean up
 		for (Lyrics lyrics : handler.song.getLyrics()) {
 			for (Section section : lyrics.getSections()) {
-				String cleansed = section.getText()
-				.replaceAll("\\s*\\n+\\s*", "<br>")
-				.replaceAll("\\s+", " ")
-				.replaceAll("<br>", Constants.NEW_LINE);
+				String cleansed = section.getText();
+				cleansed = LINE_BREAKS.matcher(cleansed).replaceAll("<br>");
+				cleansed = WHITESPACE.matcher(cleansed).replaceAll(" ");
+				cleansed = LINE_BREAK_MARKER.matcher(cleansed).replaceAll(Constants.NEW_LINE);
 				section.setText(cleansed.trim());
 			}
 		}
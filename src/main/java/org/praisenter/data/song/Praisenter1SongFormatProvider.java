@@ -24,6 +24,7 @@ import org.apache.logging.log4j.Logger;
 import org.praisenter.data.DataImportResult;
 import org.praisenter.data.DataReadResult;
 import org.praisenter.data.ImportExportProvider;
+import org.praisenter.data.ImportHeader;
 import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.utility.MimeType;
@@ -45,6 +46,11 @@ final class Praisenter1SongFormatProvider implements ImportExportProvider<Song>
 		return MimeType.XML.is(mimeType) || mimeType.toLowerCase().startsWith("text");
 	}
 	
+	@Override
+	public boolean isSupported(Path path, ImportHeader header) {
+		return header.isRoot("songs");
+	}
+	
 	@Override
 	public boolean isSupported(String name, InputStream stream) {
 		if (!stream.markSupported()) {
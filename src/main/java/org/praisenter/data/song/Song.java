@@ -299,7 +299,13 @@ public final class Song implements ReadOnlySong, Indexable, Persistable, Copyabl
 			// check the text
 			String alltext = text.toString();
 			if (!StringManipulator.isNullOrEmpty(alltext)) {
-				document.add(new TextField(FIELD_TEXT, alltext, Field.Store.YES));
+				document.add(new Field(FIELD_TEXT, alltext, FIELD_TEXT_TYPE));
+			}
+			
+			// analyze the text for the language of the default lyrics
+			Lyrics lyrics = this.getDefaultLyrics();
+			if (lyrics != null && !StringManipulator.isNullOrEmpty(lyrics.getLanguage())) {
+				document.add(new StringField(FIELD_LANGUAGE, lyrics.getLanguage(), Field.Store.NO));
 			}
 			
 			documents.add(document);
@@ -322,7 +328,12 @@ public final class Song implements ReadOnlySong, Indexable, Persistable, Copyabl
 					// stored data so we can look up the verse
 					document.add(new StoredField(FIELD_LYRICS_ID, lyrics.getId().toString()));
 					document.add(new StoredField(FIELD_SECTION_ID, section.getId().toString()));
-					document.add(new TextField(FIELD_TEXT, section.getText(), Field.Store.YES));
+					document.add(new Field(FIELD_TEXT, section.getText(), FIELD_TEXT_TYPE));
+					
+					// analyze the text for the language of the lyrics
+					if (!StringManipulator.isNullOrEmpty(lyrics.getLanguage())) {
+						document.add(new StringField(FIELD_LANGUAGE, lyrics.getLanguage(), Field.Store.NO));
+					}
 					
 					documents.add(document);
 				}
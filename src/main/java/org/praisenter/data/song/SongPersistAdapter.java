@@ -52,12 +52,12 @@ public final class SongPersistAdapter extends AbstractPersistAdapter<Song, Basic
 	
 	@Override
 	protected void create(Path path, Song item) throws IOException {
-		JsonIO.write(path, item);
+		this.write(path, os -> JsonIO.write(os, item));
 	}
 	
 	@Override
 	protected void update(Path path, Song item) throws IOException {
-		JsonIO.write(path, item);
+		this.write(path, os -> JsonIO.write(os, item));
 	}
 	
 	@Override
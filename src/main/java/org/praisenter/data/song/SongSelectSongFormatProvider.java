@@ -43,6 +43,11 @@ final class SongSelectSongFormatProvider implements ImportExportProvider<Song> {
 		return this.isSupportedFileExtension(path.getFileName().toString()) || this.isSupported(MimeType.get(path));
 	}
 	
+	@Override
+	public boolean isSupported(Path path, String mimeType) {
+		return this.isSupportedFileExtension(path.getFileName().toString()) || this.isSupported(mimeType);
+	}
+	
 	@Override
 	public boolean isSupported(String mimeType) {
 		return mimeType.toLowerCase().equals("text/plain");
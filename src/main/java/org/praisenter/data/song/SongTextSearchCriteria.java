@@ -14,7 +14,11 @@ import org.praisenter.data.search.SearchType;
 
 public final class SongTextSearchCriteria extends SearchCriteria {
 	public SongTextSearchCriteria(String terms, SearchType type, boolean fuzzy, int maxResults) {
-		super(Indexable.FIELD_TEXT, terms, type, fuzzy, maxResults);
+		this(terms, type, fuzzy, false, maxResults);
+	}
+	
+	public SongTextSearchCriteria(String terms, SearchType type, boolean fuzzy, boolean prefix, int maxResults) {
+		super(Indexable.FIELD_TEXT, terms, type, fuzzy, prefix, maxResults);
 	}
 	
 	@Override
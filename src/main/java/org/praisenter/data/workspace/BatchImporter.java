@@ -0,0 +1,241 @@
+package org.praisenter.data.workspace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.async.AsyncExecutors;
+import org.praisenter.data.DataImportResult;
+import org.praisenter.data.ImportHeader;
+import org.praisenter.data.Persistable;
+import org.praisenter.data.media.Media;
+import org.praisenter.data.slide.Slide;
+
+/**
+ * Imports a number of files as any of a number of types, indexing and adding the
+ * imported items in batches rather than once per item.
+ * <p>
+ * The header of each file is read once and the file is only imported as the types that
+ * support it.  The files are imported concurrently, a few at a time, and each file is
+ * imported as each type in the given order.  Media imported from a file is added before
+ * the file is imported as slides so that the slides can find it.
+ * <p>
+ * A file that can't be imported doesn't stop the rest from being imported, instead an
+ * error for the file is added to the result.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class BatchImporter {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/**
+	 * One of the types to import the files as.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	interface Target {
+		/**
+		 * Returns the type of the items this target imports.
+		 * @return Class&lt;?&gt;
+		 */
+		public Class<?> getType();
+		
+		/**
+		 * Returns true if the given file can be imported as this type.
+		 * @param path the file
+		 * @param header the header of the file
+		 * @return boolean
+		 */
+		public boolean isSupported(Path path, ImportHeader header);
+		
+		/**
+		 * Imports the given file on the calling thread.
+		 * @param path the file
+		 * @param header the header of the file
+		 * @return {@link DataImportResult}
+		 * @throws IOException if an IO error occurs
+		 */
+		public DataImportResult<Persistable> importFile(Path path, ImportHeader header) throws IOException;
+		
+		/**
+		 * Adds the items of the given import to the items of this type.
+		 * @param result the import result
+		 * @return CompletableFuture&lt;Void&gt;
+		 */
+		public CompletableFuture<Void> addImported(DataImportResult<Persistable> result);
+	}
+	
+	/** The types to import the files as, in order */
+	private final List<Target> targets;
+	
+	/** The number of imported items to index and add at a time */
+	private final int batchSize;
+	
+	/** Indexes and adds the items of a batch to the items of all types */
+	private final Function<List<DataImportResult<Persistable>>, CompletableFuture<Void>> added;
+	
+	/** The result of all the files */
+	private final DataImportResult<Persistable> result;
+	
+	/** The imported items that haven't been added by target */
+	private final Map<Target, DataImportResult<Persistable>> batch;
+	
+	/** The batches that are being added */
+	private final List<CompletableFuture<Void>> updates;
+	
+	/**
+	 * Full constructor.
+	 * @param targets the types to import the files as, in order
+	 * @param batchSize the number of imported items to index and add at a time
+	 * @param added indexes and adds the items of a batch to the items of all types
+	 */
+	public BatchImporter(List<Target> targets, int batchSize, Function<List<DataImportResult<Persistable>>, CompletableFuture<Void>> added) {
+		this.targets = targets;
+		this.batchSize = batchSize;
+		this.added = added;
+		this.result = new DataImportResult<>();
+		this.batch = new LinkedHashMap<>();
+		this.updates = new ArrayList<>();
+	}
+	
+	/**
+	 * Imports all the given files.
+	 * @param paths the files
+	 * @param progress called with each file after it's been imported; can be null
+	 * @return CompletableFuture&lt;DataImportResult&lt;{@link Persistable}&gt;&gt;
+	 */
+	public CompletableFuture<DataImportResult<Persistable>> importData(List<Path> paths, Consumer<Path> progress) {
+		final List<CompletableFuture<Void>> imports = AsyncExecutors.throttle(paths, AsyncExecutors.DEFAULT_THROTTLE, (path) -> CompletableFuture.runAsync(() -> {
+			this.importFile(path);
+			this.addImported(false);
+			if (progress != null) {
+				progress.accept(path);
+			}
+		}, AsyncExecutors.IO));
+		
+		return CompletableFuture.allOf(imports.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+			this.addImported(true);
+		}, AsyncExecutors.IO).thenRunAsync(() -> {
+			this.awaitImported();
+		}, AsyncExecutors.IO).thenApply((v) -> {
+			return this.result;
+		});
+	}
+	
+	/**
+	 * Imports the given file as each of the types that support it.
+	 * @param path the file
+	 */
+	private void importFile(Path path) {
+		// read the header once for all the types
+		final ImportHeader header = ImportHeader.read(path);
+		
+		int numberImported = 0;
+		boolean mediaImported = false;
+		List<Exception> errors = new ArrayList<>();
+		for (Target target : this.targets) {
+			if (!target.isSupported(path, header)) {
+				LOGGER.trace("Skipping import of '{}' ({}) as '{}'", path, header, target.getType().getSimpleName());
+				continue;
+			}
+			
+			// slides look up their media in the items to generate thumbnails
+			// so make sure the media from this file has been added first
+			if (mediaImported && target.getType() == Slide.class) {
+				this.addImported(true);
+				try {
+					this.awaitImported();
+				} catch (Exception ex) {
+					LOGGER.warn("Failed to add the media imported from '" + path + "' before importing it as slides: " + ex.getMessage(), ex);
+				}
+			}
+			
+			try {
+				DataImportResult<Persistable> r = target.importFile(path, header);
+				numberImported += r.getCreated().size() + r.getUpdated().size();
+				if (target.getType() == Media.class && !r.isEmpty()) {
+					mediaImported = true;
+				}
+				synchronized (this.batch) {
+					this.batch.computeIfAbsent(target, (t) -> new DataImportResult<>()).add(r);
+				}
+				synchronized (this.result) {
+					this.result.add(r);
+				}
+			} catch (Exception ex) {
+				errors.add(ex);
+			}
+		}
+		
+		if (numberImported == 0) {
+			Exception ex = new Exception("Failed to import path '" + path + "' it does not match any supported format of media, bible, song, or slide.");
+			for (Exception error : errors) {
+				ex.addSuppressed(error);
+			}
+			LOGGER.warn(ex.getMessage());
+			synchronized (this.result) {
+				this.result.getErrors().add(ex);
+			}
+		}
+	}
+	
+	/**
+	 * Indexes and adds the imported items in the batch if it's full.
+	 * @param all true to add the items even if the batch isn't full
+	 */
+	private void addImported(boolean all) {
+		final Map<Target, DataImportResult<Persistable>> ready;
+		final CompletableFuture<Void> added = new CompletableFuture<>();
+		synchronized (this.batch) {
+			int n = 0;
+			for (DataImportResult<Persistable> r : this.batch.values()) {
+				n += r.getCreated().size() + r.getUpdated().size();
+			}
+			if (n == 0 || (!all && n < this.batchSize)) {
+				return;
+			}
+			ready = new LinkedHashMap<>(this.batch);
+			this.batch.clear();
+			
+			// register the change while holding the batch so that waiting for
+			// the changes always includes the items that were taken from it
+			synchronized (this.updates) {
+				this.updates.add(added);
+			}
+		}
+		
+		// one change to each type and one for all the items
+		final List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Map.Entry<Target, DataImportResult<Persistable>> entry : ready.entrySet()) {
+			futures.add(entry.getKey().addImported(entry.getValue()));
+		}
+		futures.add(this.added.apply(new ArrayList<>(ready.values())));
+		
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, t) -> {
+			if (t != null) {
+				added.completeExceptionally(t);
+			} else {
+				added.complete(null);
+			}
+		});
+	}
+	
+	/**
+	 * Waits for the changes to the items that have been started so far.
+	 */
+	private void awaitImported() {
+		final CompletableFuture<?>[] futures;
+		synchronized (this.updates) {
+			futures = this.updates.toArray(new CompletableFuture[0]);
+		}
+		CompletableFuture.allOf(futures).join();
+	}
+}
@@ -31,6 +31,7 @@ public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, Slid
 
 	public boolean isWaitForTransitionsToCompleteEnabled();
 	public PlaceholderTransitionBehavior getPlaceholderTransitionBehavior();
+	public boolean isTransitionCachingEnabled();
 	
 	public int getNDIFramesPerSecond();
 	public boolean isNDIRenderOptimizationsEnabled();
@@ -66,6 +67,7 @@ public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, Slid
 
 	public ReadOnlyBooleanProperty waitForTransitionsToCompleteEnabledProperty();
 	public ReadOnlyObjectProperty<PlaceholderTransitionBehavior> placeholderTransitionBehaviorProperty();
+	public ReadOnlyBooleanProperty transitionCachingEnabledProperty();
 	
 	public ReadOnlyIntegerProperty ndiFramesPerSecondProperty();
 	public ReadOnlyBooleanProperty ndiRenderOptimizationsEnabledProperty();
@@ -69,6 +69,7 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 
 	private final BooleanProperty waitForTransitionsToCompleteEnabled;
 	private final ObjectProperty<PlaceholderTransitionBehavior> placeholderTransitionBehavior;
+	private final BooleanProperty transitionCachingEnabled;
 	
 	private final IntegerProperty ndiFramesPerSecond;
 	private final BooleanProperty ndiRenderOptimizationsEnabled;
@@ -111,6 +112,7 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 
 		this.waitForTransitionsToCompleteEnabled = new SimpleBooleanProperty();
 		this.placeholderTransitionBehavior = new SimpleObjectProperty<>(PlaceholderTransitionBehavior.PLACEHOLDERS);
+		this.transitionCachingEnabled = new SimpleBooleanProperty(false);
 		
 		this.ndiFramesPerSecond = new SimpleIntegerProperty(60);
 		this.ndiRenderOptimizationsEnabled = new SimpleBooleanProperty(true);
@@ -610,6 +612,22 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 		return this.placeholderTransitionBehavior;
 	}
 	
+	@Override
+	@JsonProperty
+	public boolean isTransitionCachingEnabled() {
+		return this.transitionCachingEnabled.get();
+	}
+	
+	@JsonProperty
+	public void setTransitionCachingEnabled(boolean enabled) {
+		this.transitionCachingEnabled.set(enabled);
+	}
+	
+	@Override
+	public BooleanProperty transitionCachingEnabledProperty() {
+		return this.transitionCachingEnabled;
+	}
+	
 	@Override
 	@JsonProperty
 	public int getNDIFramesPerSecond() {
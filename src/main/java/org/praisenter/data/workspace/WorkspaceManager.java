@@ -15,6 +15,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.logging.log4j.LogManager;
@@ -23,10 +25,13 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.store.FSDirectory;
-import org.praisenter.async.AsyncHelper;
+import org.praisenter.async.AsyncExecutors;
+import org.praisenter.async.JavaFXBatchExecutor;
 import org.praisenter.data.DataImportResult;
 import org.praisenter.data.ImportExportFormat;
+import org.praisenter.data.ImportHeader;
 import org.praisenter.data.PersistAdapter;
+import org.praisenter.data.PersistableList;
 import org.praisenter.data.Persistable;
 import org.praisenter.data.PersistentStore;
 import org.praisenter.data.Tag;
@@ -53,6 +58,9 @@ import javafx.collections.ObservableSet;
 public final class WorkspaceManager {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** The number of imported items to index and add at a time */
+	private static final int IMPORT_BATCH_SIZE = 100;
+	
 	private final WorkspacePathResolver pathResolver;
 	private final WorkspaceConfiguration workspaceConfiguration;
 	private final SearchIndex searchIndex;
@@ -61,11 +69,12 @@ public final class WorkspaceManager {
 	
 	private final ConcurrentMap<Class<?>, PersistentStore<?>> adapters;
 	
-	private final Map<UUID, Persistable> itemLookup;
-	
-	private final ObservableList<Persistable> items;
+	private final PersistableList<Persistable> items;
 	private final ObservableList<Persistable> itemsReadOnly;
 	
+	/** Applies list changes on the Java FX thread, one batch per pulse */
+	private final JavaFXBatchExecutor fxExecutor;
+	
 	private final ObservableSet<Tag> tags;
 	private final ObservableSet<Tag> tagsReadOnly;
 	
@@ -83,10 +92,9 @@ public final class WorkspaceManager {
 		
 		this.adapters = new ConcurrentHashMap<>();
 		
-		this.itemLookup = new HashMap<>();
-		
-		this.items = FXCollections.observableArrayList();
+		this.items = new PersistableList<>();
 		this.itemsReadOnly = FXCollections.unmodifiableObservableList(this.items);
+		this.fxExecutor = new JavaFXBatchExecutor(this.items::batch);
 		
 		this.tags = FXCollections.observableSet(new HashSet<>());
 		this.tagsReadOnly = FXCollections.unmodifiableObservableSet(this.tags);
@@ -176,7 +184,7 @@ public final class WorkspaceManager {
 			} catch (Exception e) {
 				throw new CompletionException(e);
 			}
-		});
+		}, AsyncExecutors.IO);
 	}
 	
 	public Set<Path> getOtherWorkspaces() {
@@ -208,11 +216,9 @@ public final class WorkspaceManager {
 		return store.initialize().thenApply((items) -> {
 			this.adapters.put(clazz, store);
 			return items;
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((items) -> {
-			// add all items to the lookup and
+		}).thenAcceptAsync((items) -> {
 			// initialize the set of all saved tags
 			for (T item : items) {
-				this.itemLookup.put(item.getId(), item);
 				Set<Tag> tags = item.getTagsUnmodifiable();
 				if (tags != null && !tags.isEmpty()) {
 					this.tags.addAll(tags);
@@ -221,7 +227,7 @@ public final class WorkspaceManager {
 			
 			// add all items to the full list
 			this.items.addAll(items);
-		}));
+		}, this.fxExecutor);
 	}
 
 	public ObservableList<Persistable> getItemsUnmodifiable() {
@@ -257,16 +263,13 @@ public final class WorkspaceManager {
 		Class<?> clazz = item.getClass();
 		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(clazz);
 		if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + clazz + "'.");
-		return store.create(item).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			// add to lookup
-			this.itemLookup.put(item.getId(), item);
-			
+		return store.create(item).thenRunAsync(() -> {
 			// add to the main list
 			this.items.add(item);
 			
 			// make sure any new tags are added to the main set
 			this.addItemTags(item);
-		}));
+		}, this.fxExecutor);
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -274,12 +277,12 @@ public final class WorkspaceManager {
 		Class<?> clazz = item.getClass();
 		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(clazz);
 		if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + clazz + "'.");
-		return store.update(item).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
+		return store.update(item).thenRunAsync(() -> {
 			// update the main list
 			this.updateListItem(item);
 			// make sure any new tags are added to the main set
 			this.addItemTags(item);
-		}));
+		}, this.fxExecutor);
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -287,13 +290,10 @@ public final class WorkspaceManager {
 		Class<?> clazz = item.getClass();
 		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(clazz);
 		if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + clazz + "'.");
-		return store.delete(item).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			// remove from the lookup
-			this.itemLookup.remove(item.getId());
-			
+		return store.delete(item).thenRunAsync(() -> {
 			// remove from the main list
-			this.items.removeIf(i -> i.getId().equals(item.getId()));
-		}));
+			this.items.removeById(item.getId());
+		}, this.fxExecutor);
 	}
 	
 //	@SuppressWarnings("unchecked")
@@ -330,21 +330,19 @@ public final class WorkspaceManager {
 		}
 		
 		List<Persistable> results = new ArrayList<>();
-		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
 			// process the results
 			int numberImported = 0;
 			
 			for (CompletableFuture<DataImportResult<? extends Persistable>> future : futures) {
-				DataImportResult<? extends Persistable> result = future.get();
+				DataImportResult<? extends Persistable> result = future.join();
 
 				// check for null result (couldn't interpret it)
 				if (result == null) {
 					continue;
 				}
 				
-				// add created lookups
 				for (Persistable item : result.getCreated()) {
-					this.itemLookup.put(item.getId(), item);
 					results.add(item);
 					numberImported++;
 				}
@@ -366,22 +364,75 @@ public final class WorkspaceManager {
 			if (numberImported == 0) {
 				throw new CompletionException(new Exception("Failed to import path '" + path + "' it does not match any supported format of media, bible, song, or slide."));
 			}
-		})).thenApply((v) -> {
+		}, this.fxExecutor).thenApply((v) -> {
 			return results;
 		});
 	}
 	
-	private void updateListItem(Persistable item) {
-		this.itemLookup.put(item.getId(), item);
+	/**
+	 * Imports all the given files as any of the given types.
+	 * <p>
+	 * The header of each file is read once for all the types and each file is only imported
+	 * as the types that support it.  The files are imported concurrently, a few at a time.
+	 * Each file is imported as each of the types in the given order so that slides can be
+	 * imported after the media they use.  The search index and the items are updated in
+	 * batches rather than once per item, except that media imported from a file is added
+	 * before the file is imported as slides so that the slides can find it.
+	 * <p>
+	 * A file that can't be imported doesn't stop the rest from being imported, instead
+	 * an error for the file is added to the result.
+	 * @param paths the files
+	 * @param progress called with each file after it's been imported; can be null
+	 * @param classes the types to import the files as
+	 * @return CompletableFuture&lt;DataImportResult&lt;{@link Persistable}&gt;&gt;
+	 * @see BatchImporter
+	 */
+	@SuppressWarnings("unchecked")
+	public CompletableFuture<DataImportResult<Persistable>> importData(List<Path> paths, Consumer<Path> progress, Class<?>... classes) {
+		final List<BatchImporter.Target> targets = new ArrayList<>();
+		for (Class<?> clazz : classes) {
+			PersistentStore<Persistable> store = (PersistentStore<Persistable>)this.adapters.get(clazz);
+			if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + clazz + "'.");
+			targets.add(new StoreTarget(clazz, store));
+		}
 		
-		int index = -1;
-		for (int i = 0; i < this.items.size(); i++) {
-			Persistable test = this.items.get(i);
-			if (test.getId().equals(item.getId())) {
-				index = i;
-			}
+		return new BatchImporter(targets, IMPORT_BATCH_SIZE, this::addImported).importData(paths, progress);
+	}
+	
+	/**
+	 * Indexes and adds the given imported items.
+	 * @param results the imported items
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	private CompletableFuture<Void> addImported(List<DataImportResult<Persistable>> results) {
+		final List<Persistable> items = new ArrayList<>();
+		for (DataImportResult<Persistable> r : results) {
+			items.addAll(r.getCreated());
+			items.addAll(r.getUpdated());
 		}
-		if (index >= 0 && index < this.items.size()) {
+		
+		// one write to the search index for the whole batch
+		try {
+			this.searchIndex.update(items);
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to index " + items.size() + " imported item(s): " + ex.getMessage(), ex);
+		}
+		
+		// and one change to the list
+		return CompletableFuture.runAsync(() -> {
+			for (DataImportResult<Persistable> r : results) {
+				this.items.addAll(r.getCreated());
+				for (Persistable item : r.getUpdated()) {
+					this.updateListItem(item);
+				}
+				this.addDataImportResultTags(r);
+			}
+		}, this.fxExecutor);
+	}
+	
+	private void updateListItem(Persistable item) {
+		int index = this.items.indexOfId(item.getId());
+		if (index >= 0) {
 			this.items.set(index, item);
 		}
 	}
@@ -439,13 +490,47 @@ public final class WorkspaceManager {
 	}
 	
 	public CompletableFuture<SearchResults> search(SearchCriteria criteria) {
+		return this.search(criteria, null);
+	}
+	
+	/**
+	 * Returns the first page of results for the given criteria.
+	 * <p>
+	 * The returned future completes exceptionally with a {@link java.util.concurrent.CancellationException}
+	 * if the search is cancelled before it's done.
+	 * @param criteria the criteria
+	 * @param cancelled returns true when the search is no longer needed; can be null
+	 * @return CompletableFuture&lt;{@link SearchResults}&gt;
+	 */
+	public CompletableFuture<SearchResults> search(SearchCriteria criteria, BooleanSupplier cancelled) {
 		return CompletableFuture.supplyAsync(() -> {
 			try {
-				return this.searchIndex.search(criteria);
+				return this.searchIndex.search(criteria, cancelled);
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
-		});
+		}, AsyncExecutors.CPU);
+	}
+	
+	/**
+	 * Returns the page of results after the given page.
+	 * <p>
+	 * If the index changed since the given page, the first page is returned instead
+	 * (see {@link SearchResults#isFirstPage()}).  The returned future completes exceptionally
+	 * with a {@link java.util.concurrent.CancellationException} if the search is cancelled
+	 * before it's done.
+	 * @param page the previous page
+	 * @param cancelled returns true when the search is no longer needed; can be null
+	 * @return CompletableFuture&lt;{@link SearchResults}&gt;
+	 */
+	public CompletableFuture<SearchResults> searchNext(SearchResults page, BooleanSupplier cancelled) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return this.searchIndex.searchNext(page, cancelled);
+			} catch (Exception ex) {
+				throw new CompletionException(ex);
+			}
+		}, AsyncExecutors.CPU);
 	}
 	
 	public CompletableFuture<Void> reindex() {
@@ -456,6 +541,28 @@ public final class WorkspaceManager {
 			} catch (IOException e) {
 				throw new CompletionException(e);
 			}	
+		}, AsyncExecutors.IO);
+	}
+	
+	/**
+	 * Rebuilds the search index if it was created in a way that's no longer
+	 * compatible with how items are indexed.
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	public CompletableFuture<Void> reindexIfRequired() {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return this.searchIndex.isReindexRequired();
+			} catch (Exception ex) {
+				LOGGER.warn("Failed to check the search index: " + ex.getMessage(), ex);
+				return false;
+			}
+		}, AsyncExecutors.IO).thenCompose(required -> {
+			if (required) {
+				LOGGER.info("The search index is out of date, re-indexing");
+				return this.reindex();
+			}
+			return CompletableFuture.completedFuture(null);
 		});
 	}
 	
@@ -468,7 +575,7 @@ public final class WorkspaceManager {
 	
 	public Persistable getPersistableById(UUID id) {
 		this.throwIfNotJavaFXThread();
-		return this.itemLookup.get(id);
+		return this.items.getById(id);
 	}
 	
 	public ObservableSet<Tag> getTagsUmodifiable() {
@@ -480,4 +587,39 @@ public final class WorkspaceManager {
 			throw new IllegalStateException("The getItem method must be called on the Java FX UI thread.");
 		}
 	}
+	
+	/**
+	 * Imports files as one of the types of items in the workspace.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class StoreTarget implements BatchImporter.Target {
+		private final Class<?> type;
+		private final PersistentStore<Persistable> store;
+		
+		public StoreTarget(Class<?> type, PersistentStore<Persistable> store) {
+			this.type = type;
+			this.store = store;
+		}
+		
+		@Override
+		public Class<?> getType() {
+			return this.type;
+		}
+		
+		@Override
+		public boolean isSupported(Path path, ImportHeader header) {
+			return this.store.isImportSupported(path, header);
+		}
+		
+		@Override
+		public DataImportResult<Persistable> importFile(Path path, ImportHeader header) throws IOException {
+			return this.store.importFile(path, header);
+		}
+		
+		@Override
+		public CompletableFuture<Void> addImported(DataImportResult<Persistable> result) {
+			return this.store.addImported(result);
+		}
+	}
 }
@@ -0,0 +1,94 @@
+package org.praisenter.ui;
+
+import java.util.function.DoublePredicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Finds the largest font size that fits.
+ * <p>
+ * Sizes are searched in steps of {@link #STEP} and the search only narrows its bounds
+ * with sizes it has measured, so where it starts only changes how many measurements it
+ * takes and not the result (as long as text that fits at a size also fits at any smaller
+ * size).  This lets a search start from an estimate, like the last fit for the same text,
+ * and still return the same size as a search that starts from the font's size.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class FitSearch {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The difference between the sizes that are searched */
+	static final double STEP = 0.1;
+	
+	/** The smallest size searched (1.0) in steps */
+	private static final long MINIMUM = 10;
+	
+	/** The maximum number of measurements to widen the search by */
+	private static final int MAXIMUM_ITERATIONS = 100;
+	
+	private FitSearch() {}
+	
+	/**
+	 * Returns the largest size that fits or the smallest size (1.0) if none do.
+	 * <p>
+	 * The search moves away from the start size in growing steps until it finds a size
+	 * that fits and one that doesn't and then bisects between them.
+	 * @param fits returns true if the text fits at the given size
+	 * @param start the size to start from
+	 * @return double
+	 */
+	static double largest(DoublePredicate fits, double start) {
+		long k = Math.max(MINIMUM, Math.round(start / STEP));
+		// a close estimate should only need a few steps to find the bounds
+		long d = Math.max(1, k / 32);
+		long lo, hi;
+		
+		if (fits.test(k * STEP)) {
+			// grow until it doesn't fit
+			lo = k;
+			hi = k + d;
+			int i = 0;
+			while (fits.test(hi * STEP)) {
+				lo = hi;
+				d *= 2;
+				hi = lo + d;
+				if (++i >= MAXIMUM_ITERATIONS) {
+					LOGGER.warn("Hit maximum number of iterations before finding a size that doesn't fit. Current: {}", lo * STEP);
+					return lo * STEP;
+				}
+			}
+		} else {
+			// shrink until it fits
+			hi = k;
+			lo = k - d;
+			while (true) {
+				if (lo <= MINIMUM) {
+					lo = MINIMUM;
+					if (!fits.test(lo * STEP)) {
+						return lo * STEP;
+					}
+					break;
+				}
+				if (fits.test(lo * STEP)) {
+					break;
+				}
+				hi = lo;
+				d *= 2;
+				lo = hi - d;
+			}
+		}
+		
+		// lo fits and hi doesn't, so bisect between them
+		while (hi - lo > 1) {
+			long mid = (lo + hi) >>> 1;
+			if (fits.test(mid * STEP)) {
+				lo = mid;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo * STEP;
+	}
+}
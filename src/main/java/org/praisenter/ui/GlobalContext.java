@@ -23,6 +23,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
@@ -31,6 +32,7 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.Version;
+import org.praisenter.async.AsyncExecutors;
 import org.praisenter.async.AsyncHelper;
 import org.praisenter.async.BackgroundTask;
 import org.praisenter.async.ReadOnlyBackgroundTask;
@@ -100,6 +102,7 @@ public final class GlobalContext {
 	final Stage stage;
 	final WorkspaceManager workspaceManager;
 	final ImageCache imageCache;
+	final ThumbnailLoader thumbnailLoader;
 	final DisplayManager displayManager;
 	
 	// track focus, selection, location, available actions, etc.
@@ -156,6 +159,7 @@ public final class GlobalContext {
 		this.stage = stage;
 		this.workspaceManager = workspaceManager;
 		this.imageCache = new ImageCache();
+		this.thumbnailLoader = new ThumbnailLoader(this.imageCache);
 		this.displayManager = new DisplayManager(this);
 		
 		this.scene = new SimpleObjectProperty<>();
@@ -391,6 +395,7 @@ public final class GlobalContext {
 		this.displayManager.dispose();
 		// NOTE: dispose of images AFTER we've disposed of the display targets
 		// otherwise, the images will get loaded again before cleanup
+		this.thumbnailLoader.shutdown();
 		this.imageCache.clear();
 	}
 	
@@ -814,6 +819,10 @@ public final class GlobalContext {
 	}
 	
 	public CompletableFuture<List<Throwable>> saveAll(Action action, Collection<Persistable> items) {
+		// only allow a few saves in flight at a time so that mass operations (like
+		// pasting hundreds of slides) don't flood the executors and Java FX thread
+		final List<CompletableFuture<Void>> saves = AsyncExecutors.throttle(items, AsyncExecutors.DEFAULT_THROTTLE, this.workspaceManager::create);
+		
 		int i = 0;
 		final CompletableFuture<?>[] futures = new CompletableFuture<?>[items.size()];
 		for (Persistable item : items) {
@@ -833,13 +842,14 @@ public final class GlobalContext {
 			task.setType(this.getFriendlyItemType(item));
 			this.addBackgroundTask(task);
 			
-			futures[i++] = this.workspaceManager.create(item).thenRun(() -> {
+			futures[i] = saves.get(i).thenRun(() -> {
 				task.setProgress(1.0);
 			}).exceptionally(t -> {
 				LOGGER.error("Failed to paste item '" + item.getName() + "' due to: " + t.getMessage(), t);
 				task.setException(t);
 				throw new CompletionException(t);
 			});
+			i++;
 		}
 		
 		return CompletableFuture.allOf(futures).thenApply((a) -> {
@@ -887,6 +897,8 @@ public final class GlobalContext {
 	public CompletableFuture<List<Throwable>> delete(Collection<Persistable> items) {
 		int n = items.size();
 		
+		final List<CompletableFuture<Void>> deletes = AsyncExecutors.throttle(items, AsyncExecutors.DEFAULT_THROTTLE, this.workspaceManager::delete);
+		
 		CompletableFuture<?>[] futures = new CompletableFuture<?>[n];
 		int i = 0;
 		for (Persistable item : items) {
@@ -897,7 +909,7 @@ public final class GlobalContext {
 			task.setType(this.getFriendlyItemType(item));
 			this.addBackgroundTask(task);
 			
-			futures[i++] = this.workspaceManager.delete(item).thenRun(() -> {
+			futures[i] = deletes.get(i++).thenRun(() -> {
 				task.setProgress(1.0);
 			}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
 				// close the document if its open
@@ -925,50 +937,85 @@ public final class GlobalContext {
 			return CompletableFuture.completedFuture(null);
 		}
 		
-		List<CompletableFuture<Void>> futures = new ArrayList<>();
-		List<Persistable> results = new ArrayList<>();
-		
+		final int n = files.size();
+		final List<Path> paths = new ArrayList<>();
 		for (File file : files) {
-			final BackgroundTask bt = new BackgroundTask();
+			paths.add(file.toPath());
+		}
+		
+		// one task for all the files
+		final BackgroundTask bt = new BackgroundTask();
+		if (n == 1) {
+			File file = files.get(0);
 			bt.setName(file.getAbsolutePath());
 			bt.setMessage(Translations.get("action.import.task", file.getName()));
-			bt.setOperation(Translations.get("action.import"));
 			bt.setType(MimeType.get(file.toPath()));
-			this.addBackgroundTask(bt);
+		} else {
+			bt.setName(Translations.get("action.import.task.multiple", n));
+			bt.setMessage(Translations.get("action.import.task.multiple", n));
+		}
+		bt.setOperation(Translations.get("action.import"));
+		this.addBackgroundTask(bt);
+		
+		final long start = System.nanoTime();
+		final AtomicInteger done = new AtomicInteger();
+		
+		// NOTE: we have to import Slides AFTER media so that when it generates a new thumbnail
+		// the media is available.  The WorkspaceManager.importData method imports each file as
+		// each type in order and adds the media from the file before importing it as slides,
+		// so Slide must be after Media.
+		LOGGER.info("Beginning import of {} file(s)", n);
+		return this.workspaceManager.importData(paths, (path) -> {
+			int i = done.incrementAndGet();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			// leave the last bit for adding the last batch of items
+			bt.setProgress((double)i / (n + 1));
+			if (n > 1) {
+				bt.setMessage(Translations.get("action.import.task.progress", i, n, seconds > 0 ? i / seconds : 0));
+			}
+		}, Bible.class, Media.class, Song.class, Slide.class).thenApply((result) -> {
+			List<Persistable> imported = new ArrayList<>();
+			imported.addAll(result.getCreated());
+			imported.addAll(result.getUpdated());
+			
+			int failed = result.getErrors().size();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			LOGGER.info("Imported {} item(s) from {} file(s) in {}s with {} error(s)", imported.size(), n, seconds, failed);
 			
-			// NOTE: we have to sequence the import of Slides AFTER media so that when it generates a new thumbnail
-			// the media is available.  The WorkspaceManager.importData method imports the content in parallel, so we
-			// just call it twice, once to pull out non-dependent things, and second to pull out the slides.
-			LOGGER.info("Beginning import of '{}'", file.toPath().toAbsolutePath().toString());
-			CompletableFuture<Void> future = this.workspaceManager.importData(file.toPath(), Bible.class, Media.class, Song.class).thenAccept((r) -> {
-				bt.setProgress(0.5);
-				results.addAll(r);
-			}).thenCompose((v) -> {
-				return this.workspaceManager.importData(file.toPath(), Slide.class);
-			}).thenAccept((r) -> {
+			if (failed == 0) {
+				if (n > 1) {
+					bt.setMessage(Translations.get("action.import.task.complete", imported.size(), n, seconds, seconds > 0 ? n / seconds : 0));
+				}
 				bt.setProgress(1.0);
-				results.addAll(r);
-			}).exceptionally(t -> {
-				// NOTE: since we have to import in two stages, make sure that the total imported
-				// was zero before showing an error message
-				if (results.size() > 0) {
-					bt.setProgress(1.0);
-					return null;
+				return imported;
+			}
+			
+			// report the files that failed with the task
+			Exception ex = result.getErrors().get(0);
+			if (failed > 1) {
+				ex = new Exception(Translations.get("action.import.task.failed", failed, n));
+				for (Exception error : result.getErrors()) {
+					ex.addSuppressed(error);
 				}
-				
-				LOGGER.error("Failed to import file '" + file.toPath().toAbsolutePath().toString() + "' due to: " + t.getMessage(), t);
+			}
+			LOGGER.error("Failed to import " + failed + " of " + n + " file(s)", ex);
+			bt.setException(ex);
+			
+			// only an error if nothing was imported
+			if (imported.isEmpty()) {
+				throw new CompletionException(ex);
+			}
+			return imported;
+		}).exceptionally(t -> {
+			if (bt.getException() == null) {
+				LOGGER.error("Failed to import " + n + " file(s) due to: " + t.getMessage(), t);
 				bt.setException(t);
-				
-				if (t instanceof CompletionException) 
-					throw (CompletionException)t;
-				
-				throw new CompletionException(t);
-			});
-			futures.add(future);
-		}
-		
-		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply((v) -> {
-			return results;
+			}
+			
+			if (t instanceof CompletionException) 
+				throw (CompletionException)t;
+			
+			throw new CompletionException(t);
 		});
 	}
 	
@@ -1075,7 +1122,7 @@ public final class GlobalContext {
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
-		}).thenRun(() -> {
+		}, AsyncExecutors.IO).thenRun(() -> {
 			LOGGER.info("Export of {} selected items and {} dependent items completed successfully", items.size(), dependentItems.size());
 			task.setProgress(1.0);
 		}).exceptionally(t -> {
@@ -1255,6 +1302,10 @@ public final class GlobalContext {
 		return this.imageCache;
 	}
 	
+	public ThumbnailLoader getThumbnailLoader() {
+		return this.thumbnailLoader;
+	}
+	
 	public DisplayManager getDisplayManager() {
 		return this.displayManager;
 	}
@@ -1,10 +1,12 @@
 package org.praisenter.ui;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Supplier;
@@ -20,40 +22,66 @@ import javafx.scene.image.Image;
 public final class ImageCache {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
-	private final Map<ImageCacheKey, SoftReference<Image>> images;
+	private final Map<ImageCacheKey, ImageReference> images;
+	
+	/** The references whose images have been collected */
+	private final ReferenceQueue<Image> collected;
 
 	public ImageCache() {
-		this.images = new HashMap<ImageCacheKey, SoftReference<Image>>();
+		this.images = new HashMap<ImageCacheKey, ImageReference>();
+		this.collected = new ReferenceQueue<Image>();
 	}
 	
 	/**
 	 * Returns the image for the given path, loading it if necessary.
 	 * <p>
 	 * Returns null in the event that an error occurs.
+	 * <p>
+	 * The cache is not locked while the image is loaded so that loading one image
+	 * doesn't block other threads (the Java FX thread for example) from getting
+	 * images that are already cached.  Two threads could load the same image at
+	 * the same time, in which case the last one wins.
 	 * @param key the image cache key
 	 * @param supplier the function to load the image if it doesn't exist
 	 * @return Image
 	 */
-	private synchronized Image getOrLoad(ImageCacheKey key, Supplier<Image> supplier) {
-		this.evict();
-		if (this.images.containsKey(key)) {
-			Image image = this.images.get(key).get();
-			if (image != null) {
-				LOGGER.trace("Image for key: {} found in cache.", key);
-				return image;
-			}
+	private Image getOrLoad(ImageCacheKey key, Supplier<Image> supplier) {
+		Image image = this.get(key);
+		if (image != null) {
+			LOGGER.trace("Image for key: {} found in cache.", key);
+			return image;
 		}
 		LOGGER.debug("Image for key: {} was not found in the cache. Loading...", key);
-		Image image = supplier.get();
+		image = supplier.get();
 		if (image != null) {
 			LOGGER.debug("Image loaded for key: {}", key);
-			this.images.put(key, new SoftReference<Image>(image));
+			this.put(key, image);
 		} else {
 			LOGGER.warn("Image was loaded but was null.", key);
 		}
 		return image;
 	}
 	
+	/**
+	 * Returns the cached image for the given key or null if it's not cached.
+	 * @param key the image cache key
+	 * @return Image
+	 */
+	private synchronized Image get(ImageCacheKey key) {
+		this.evict();
+		ImageReference ref = this.images.get(key);
+		return ref != null ? ref.get() : null;
+	}
+	
+	/**
+	 * Adds the given image to the cache.
+	 * @param key the image cache key
+	 * @param image the image
+	 */
+	private synchronized void put(ImageCacheKey key, Image image) {
+		this.images.put(key, new ImageReference(key, image, this.collected));
+	}
+	
 	// helpers
 	
 	/**
@@ -63,7 +91,7 @@ public final class ImageCache {
 	 * @param thumbnail the image
 	 * @return Image
 	 */
-	public synchronized Image getOrLoadThumbnail(UUID id, Path path) {
+	public Image getOrLoadThumbnail(UUID id, Path path) {
 		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.THUMBNAIL, id.toString());
 		return getOrLoad(key, () -> {
 			try {
@@ -76,6 +104,41 @@ public final class ImageCache {
 		});
 	}
 	
+	/**
+	 * Returns the cached thumbnail for the given version of an item or loads it from the
+	 * given path if it's not in the cache.
+	 * <p>
+	 * Thumbnails are regenerated in place when an item is saved, so the version (the 
+	 * modified date for example) is part of the key to avoid showing a stale thumbnail.
+	 * @param id the id
+	 * @param version the version of the item; can be null
+	 * @param path the path to the thumbnail
+	 * @return Image
+	 */
+	public Image getOrLoadThumbnail(UUID id, Instant version, Path path) {
+		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.THUMBNAIL, id.toString() + "@" + version);
+		return getOrLoad(key, () -> {
+			try {
+				return this.load(path);
+			} catch (Exception ex) {
+				LOGGER.error("Failed to load thumbnail from path '" + path.toAbsolutePath().toString() + "'", ex);
+			}
+			return null;
+		});
+	}
+	
+	/**
+	 * Returns the cached thumbnail for the given version of an item or null if it's
+	 * not in the cache.
+	 * @param id the id
+	 * @param version the version of the item; can be null
+	 * @return Image
+	 * @see #getOrLoadThumbnail(UUID, Instant, Path)
+	 */
+	public Image getCachedThumbnail(UUID id, Instant version) {
+		return this.get(new ImageCacheKey(ImageCacheKeyType.THUMBNAIL, id.toString() + "@" + version));
+	}
+	
 	/**
 	 * Returns the cached image for the given image media or loads the image given the path
 	 * if the image is not in the cache.
@@ -83,7 +146,7 @@ public final class ImageCache {
 	 * @param path the path to the image
 	 * @return Image
 	 */
-	public synchronized Image getOrLoadImage(UUID id, Path path) {
+	public Image getOrLoadImage(UUID id, Path path) {
 		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.MEDIA_IMAGE, id.toString());
 		return getOrLoad(key, () -> {
 			try {
@@ -100,15 +163,9 @@ public final class ImageCache {
 	 * @param id the id
 	 * @return true if the id exists, and it's image is non-null
 	 */
-	public synchronized boolean isImageCached(UUID id) {
+	public boolean isImageCached(UUID id) {
 		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.MEDIA_IMAGE, id.toString());
-		if (this.images.containsKey(key)) {
-			Image image = this.images.get(key).get();
-			if (image != null) {
-				return true;
-			}
-		}
-		return false;
+		return this.get(key) != null;
 	}
 	
 	/**
@@ -119,7 +176,7 @@ public final class ImageCache {
 	 * @param classpath the classpath path to the image
 	 * @return Image
 	 */
-	public synchronized Image getOrLoadClasspathImage(String classpath) {
+	public Image getOrLoadClasspathImage(String classpath) {
 		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.APPLICATION_IMAGE, classpath);
 		return getOrLoad(key, () -> {
 			try {
@@ -134,14 +191,16 @@ public final class ImageCache {
 	
 	/**
 	 * Removes keys from the cache whose soft references have been collected.
+	 * <p>
+	 * Only the collected references are visited rather than the whole cache.
 	 */
 	private void evict() {
-		Iterator<SoftReference<Image>> it = this.images.values().iterator();
-		while (it.hasNext()) {
-			SoftReference<Image> ref = it.next();
-			if (ref.get() == null) {
-				it.remove();
-				LOGGER.debug("Image with key '{}' has been evicted from the image cache.");
+		Reference<? extends Image> ref;
+		while ((ref = this.collected.poll()) != null) {
+			ImageReference ir = (ImageReference)ref;
+			// don't remove it if it was replaced already
+			if (this.images.remove(ir.key, ir)) {
+				LOGGER.debug("Image with key '{}' has been evicted from the image cache.", ir.key);
 			}
 		}
 	}
@@ -149,7 +208,7 @@ public final class ImageCache {
 	/**
 	 * Removes everything from the cache.
 	 */
-	public void clear() {
+	public synchronized void clear() {
 		this.images.clear();
 	}
 	
@@ -164,4 +223,16 @@ public final class ImageCache {
 		// using ImageIO and twelvemonkeys lib allows for more supported formats
 		return SwingFXUtils.toFXImage(ImageIO.read(path.toFile()), null);
 	}
+	
+	/**
+	 * A soft reference to an image that remembers its key so it can be evicted.
+	 */
+	private static final class ImageReference extends SoftReference<Image> {
+		private final ImageCacheKey key;
+		
+		public ImageReference(ImageCacheKey key, Image image, ReferenceQueue<Image> queue) {
+			super(image, queue);
+			this.key = key;
+		}
+	}
 }
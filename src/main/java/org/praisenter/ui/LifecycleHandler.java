@@ -20,6 +20,7 @@ import org.apache.logging.log4j.core.config.LoggerConfig;
 import org.apache.logging.log4j.core.config.xml.XmlConfigurationFactory;
 import org.praisenter.Constants;
 import org.praisenter.Version;
+import org.praisenter.async.AsyncExecutors;
 import org.praisenter.async.AsyncHelper;
 import org.praisenter.data.SingleFileManager;
 import org.praisenter.data.workspace.WorkspaceConfiguration;
@@ -557,9 +558,10 @@ public final class LifecycleHandler {
     private CompletableFuture<Boolean> waitForAsyncTaskCompletion(Logger LOGGER) {
     	LOGGER.info("Waiting for any pending async tasks to complete");
     	// wait for any pending async tasks
-    	// NOTE: the assumption here is that all asynchronous processing is being performed on the ForkJoinPool commonPool
-    	// (the default for CompletableFuture)
-    	if (!ForkJoinPool.commonPool().awaitQuiescence(60, TimeUnit.SECONDS)) {
+    	// NOTE: the assumption here is that all asynchronous processing is being performed on the shared
+    	// executors or the ForkJoinPool commonPool (the default for CompletableFuture)
+    	if (!AsyncExecutors.awaitQuiescence(60, TimeUnit.SECONDS) || 
+    		!ForkJoinPool.commonPool().awaitQuiescence(60, TimeUnit.SECONDS)) {
     		LOGGER.warn("Waited 60 seconds for tasks to complete, but they didn't.");
     		// TODO need to prompt user to wait longer or just exit
     	}
@@ -266,6 +266,9 @@ final class LoadingPane extends Pane {
 		}).apply(null).thenCompose((v) -> {
 			LOGGER.info("Performing any post-load upgrade steps");
 			return this.upgradeHandler.performWorkspacePostLoadUpgradeSteps(LOGGER, this.context.workspaceManager, workspaceVersion);
+		}).thenCompose((v) -> {
+			// the upgrade may have already done this
+			return this.context.workspaceManager.reindexIfRequired();
 		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
 			LOGGER.info("Post-load upgrade steps complete");
 			this.progress.set(0.825);
@@ -1,8 +1,11 @@
 package org.praisenter.ui;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
 
+import javafx.application.Platform;
 import javafx.geometry.Bounds;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
@@ -10,11 +13,44 @@ import javafx.scene.text.TextBoundsType;
 
 // JAVABUG (M) 07/01/16 If the text wraps a (whole) word by breaking it up, then the font sizing code won't know what size to look for.  There doesn't seem to be a way to control the word wrapping beyond setting a target width.
 
+/**
+ * Measures text and finds the font size that fits text in a given area.
+ * <p>
+ * Measurement is done with a single Java FX {@link Text} node so that the results
+ * match what's rendered exactly.  The node is shared, so all measurement must be
+ * done on the Java FX UI thread.
+ * @author William Bittle
+ * @version 3.1.7
+ */
 public final class TextMeasurer {
-	private static final Logger LOGGER = LogManager.getLogger();
-	
     private static final Text JAVAFX_TEXT_NODE = new Text();
-    private static final int MAXIMUM_ITERATIONS = 100;
+    
+    // caching
+    
+    /** The maximum number of fitting results to keep */
+    private static final int MAXIMUM_CACHE_SIZE = 1000;
+    
+    /** The fitting font size by everything that determines it */
+    private static final Map<FitKey, Double> FIT_CACHE = new LinkedHashMap<FitKey, Double>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+    	protected boolean removeEldestEntry(Map.Entry<FitKey, Double> eldest) {
+    		return this.size() > MAXIMUM_CACHE_SIZE;
+    	}
+    };
+    
+    /** The last fit for a text, font, and fit type regardless of the target size; used as the starting point for the next search */
+    private static final Map<FitKey, LastFit> LAST_FIT = new LinkedHashMap<FitKey, LastFit>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+    	protected boolean removeEldestEntry(Map.Entry<FitKey, LastFit> eldest) {
+    		return this.size() > MAXIMUM_CACHE_SIZE;
+    	}
+    };
+    
+    private static final int FIT_PARAGRAPH = 0;
+    private static final int FIT_LINE_WIDTH = 1;
+    private static final int FIT_LINE = 2;
 
     // defaults 
 
@@ -32,6 +68,12 @@ public final class TextMeasurer {
         JAVAFX_TEXT_NODE.setBoundsType(DEFAULT_BOUNDS_TYPE);
     }
     
+    private static final void checkThread() {
+    	if (!Platform.isFxApplicationThread()) {
+			throw new IllegalStateException("Text must be measured on the Java FX UI thread.");
+		}
+    }
+    
     /**
      * Returns the bounds of a paragraph for the given text, font, target width, line spacing
      * and bounds type. 
@@ -44,6 +86,7 @@ public final class TextMeasurer {
      */
     public static final Bounds getParagraphBounds(String text, Font font, double targetWidth, double lineSpacing, TextBoundsType boundsType) {
         // setup the node
+    	checkThread();
     	JAVAFX_TEXT_NODE.setText(text);
         JAVAFX_TEXT_NODE.setFont(font);
         JAVAFX_TEXT_NODE.setWrappingWidth(targetWidth);
@@ -69,56 +112,24 @@ public final class TextMeasurer {
      * @return Bounds
      */
     public static final Font getFittingFontForParagraph(String text, Font font, double maxFontSize, double targetWidth, double targetHeight, double lineSpacing, TextBoundsType boundsType) {
-    	Bounds bounds = TextMeasurer.getParagraphBounds(text, font, targetWidth, lineSpacing, boundsType);
-		double max = maxFontSize;
-		double min = (bounds.getHeight() <= targetHeight && max != Double.MAX_VALUE) ? max : 1.0;
-		double cur = font.getSize();
-		
-		if (cur < 1.0) {
-			cur = 1.0;
-		}
-		
-		Font nf = font;
-		int i = 0;
-		while (bounds.getHeight() > targetHeight || Math.abs(max - min) > 0.1) {
-			// check the paragraph height against the maximum height
-			if (bounds.getHeight() < targetHeight) {
-				// we need to binary search up
-				min = cur;
-				// compute an estimated next size if the maximum begins with Float.MAX_VALUE
-				// this is to help convergence to a safe maximum
-				double rmax = (max == Double.MAX_VALUE ? targetHeight * (cur / bounds.getHeight()) : max);
-				cur = (cur + rmax) * 0.5;
-				nf = new Font(font.getName(), cur);
-			} else {
-				// we need to binary search down
-				max = cur;
-				// get the next test font size
-				double temp = (min + cur) * 0.5;
-				// do a check for minimum font size
-				if (temp <= 1.0f) break;
-				// its not the minimum so continue
-				cur = temp;
-				nf = new Font(font.getName(), cur);
-			}
-			// get the new paragraph height for the new font size
-			bounds = TextMeasurer.getParagraphBounds(text, nf, targetWidth, lineSpacing, boundsType);
-			// don't run forever
-			if (i >= MAXIMUM_ITERATIONS) {
-				LOGGER.warn("Hit maximum number of iterations before determining optimal font size. Current: {} Minimum: {} Maximum: {} Target Width: {} Target Height: {} Maximum Size: {} Text: {}",
-						cur, min, max, targetWidth, targetHeight, maxFontSize, text);
-				break;
-			}
-			i++;
-		}
-		if (i > 0) {
-			LOGGER.trace("Font fitting iterations: " + i);
-		}
-		// the Math.min(min, cur) ensures we choose the lower bound
-		// the - 1.0 is further insurance that its small enough
-		// the Math.min(1.0, x) ensures the minimum font we return is 1
-		double size = Math.max(1.0, Math.min(min, cur) - 1.0);
-		return new Font(font.getName(), size);
+    	FitKey key = new FitKey(FIT_PARAGRAPH, text, font, maxFontSize, targetWidth, targetHeight, lineSpacing, boundsType);
+    	Font cached = getCachedFit(key, font);
+    	if (cached != null) {
+    		return cached;
+    	}
+    	
+    	// for best fit, start from the last size for this text scaled by the change in area
+    	Font start = getEstimate(key, font, (last) -> Math.sqrt((targetWidth * targetHeight) / (last.width * last.height)));
+    	Font result = computeFittingFontForParagraph(text, start, maxFontSize, targetWidth, targetHeight, lineSpacing, boundsType);
+    	setCachedFit(key, result);
+    	return result;
+    }
+    
+    private static final Font computeFittingFontForParagraph(String text, Font font, double maxFontSize, double targetWidth, double targetHeight, double lineSpacing, TextBoundsType boundsType) {
+    	final String name = font.getName();
+    	double size = FitSearch.largest((s) -> s <= maxFontSize && 
+    			TextMeasurer.getParagraphBounds(text, new Font(name, s), targetWidth, lineSpacing, boundsType).getHeight() <= targetHeight, font.getSize());
+    	return getFittingFont(name, size);
     }
     
     /**
@@ -130,6 +141,7 @@ public final class TextMeasurer {
      */
     public static final Bounds getLineBounds(String text, Font font, TextBoundsType boundsType) {
     	// setup the node
+    	checkThread();
     	JAVAFX_TEXT_NODE.setText(text);
         JAVAFX_TEXT_NODE.setFont(font);
         JAVAFX_TEXT_NODE.setWrappingWidth(0);
@@ -153,56 +165,24 @@ public final class TextMeasurer {
      * @return Bounds
      */
     public static final Font getFittingFontForLine(String text, Font font, double maxFontSize, double targetWidth, TextBoundsType boundsType) {
-    	Bounds bounds = TextMeasurer.getLineBounds(text, font, boundsType);
-		double max = maxFontSize;
-		double min = (bounds.getWidth() < targetWidth && max != Double.MAX_VALUE) ? max : 1.0;
-		double cur = font.getSize();
-		
-		if (cur < 1.0) {
-			cur = 1.0;
-		}
-		
-		Font nf = font;
-		int i = 0;
-		while (bounds.getWidth() > targetWidth || Math.abs(max - min) > 0.1) {
-			// check the paragraph height against the maximum height
-			if (bounds.getWidth() < targetWidth) {
-				// we need to binary search up
-				min = cur;
-				// compute an estimated next size if the maximum begins with Float.MAX_VALUE
-				// this is to help convergence to a safe maximum
-				double rmax = (max == Double.MAX_VALUE ? targetWidth * (cur / bounds.getWidth()) : max);
-				cur = (cur + rmax) * 0.5;
-				nf = new Font(font.getName(), cur);
-			} else {
-				// we need to binary search down
-				max = cur;
-				// get the next test font size
-				double temp = (min + cur) * 0.5;
-				// do a check for minimum font size
-				if (temp <= 1.0f) break;
-				// its not the minimum so continue
-				cur = temp;
-				nf = new Font(font.getName(), cur);
-			}
-			// get the new paragraph height for the new font size
-			bounds = TextMeasurer.getLineBounds(text, nf, boundsType);
-			// don't run forever
-			if (i >= MAXIMUM_ITERATIONS) {
-				LOGGER.warn("Hit maximum number of iterations before determining optimal font size. Current: {} Minimum: {} Maximum: {} Target Width: {} Maximum Size: {} Text: {}",
-						cur, min, max, targetWidth, maxFontSize, text);
-				break;
-			}
-			i++;
-		}
-		if (i > 0) {
-			LOGGER.trace("Font fitting iterations: " + i);
-		}
-		// the Math.min(min, cur) ensures we choose the lower bound
-		// the - 1.0 is further insurance that its small enough
-		// the Math.max(1.0, x) ensures the minimum font we return is 1
-		double size = Math.max(1.0, Math.min(min, cur) - 1.0);
-		return new Font(font.getName(), size);
+    	FitKey key = new FitKey(FIT_LINE_WIDTH, text, font, maxFontSize, targetWidth, 0, 0, boundsType);
+    	Font cached = getCachedFit(key, font);
+    	if (cached != null) {
+    		return cached;
+    	}
+    	
+    	// for best fit, start from the last size for this text scaled by the change in width
+    	Font start = getEstimate(key, font, (last) -> targetWidth / last.width);
+    	Font result = computeFittingFontForLine(text, start, maxFontSize, targetWidth, boundsType);
+    	setCachedFit(key, result);
+    	return result;
+    }
+    
+    private static final Font computeFittingFontForLine(String text, Font font, double maxFontSize, double targetWidth, TextBoundsType boundsType) {
+    	final String name = font.getName();
+    	double size = FitSearch.largest((s) -> s <= maxFontSize && 
+    			TextMeasurer.getLineBounds(text, new Font(name, s), boundsType).getWidth() <= targetWidth, font.getSize());
+    	return getFittingFont(name, size);
     }
     
     /**
@@ -216,56 +196,193 @@ public final class TextMeasurer {
      * @return Bounds
      */
     public static final Font getFittingFontForLine(String text, Font font, double maxFontSize, double targetWidth, double targetHeight, TextBoundsType boundsType) {
-    	Bounds bounds = TextMeasurer.getLineBounds(text, font, boundsType);
-		double max = maxFontSize;
-		double min = (bounds.getWidth() < targetWidth && bounds.getHeight() < targetHeight && max != Double.MAX_VALUE) ? max : 1.0;
-		double cur = font.getSize();
-		
-		if (cur < 1.0) {
-			cur = 1.0;
-		}
-		
-		Font nf = font;
-		int i = 0;
-		while (bounds.getWidth() > targetWidth || bounds.getHeight() > targetHeight || Math.abs(max - min) > 0.1) {
-			// check the paragraph height against the maximum height
-			if (bounds.getWidth() < targetWidth && bounds.getHeight() < targetHeight) {
-				// we need to binary search up
-				min = cur;
-				// compute an estimated next size if the maximum begins with Float.MAX_VALUE
-				// this is to help convergence to a safe maximum
-				double rmax = (max == Double.MAX_VALUE ? targetWidth * (cur / bounds.getWidth()) : max);
-				cur = (cur + rmax) * 0.5;
-				nf = new Font(font.getName(), cur);
-			} else {
-				// we need to binary search down
-				max = cur;
-				// get the next test font size
-				double temp = (min + cur) * 0.5;
-				// do a check for minimum font size
-				if (temp <= 1.0f) break;
-				// its not the minimum so continue
-				cur = temp;
-				nf = new Font(font.getName(), cur);
-			}
-			// get the new paragraph height for the new font size
-			bounds = TextMeasurer.getLineBounds(text, nf, boundsType);
-			// don't run forever
-			if (i >= MAXIMUM_ITERATIONS) {
-				LOGGER.warn("Hit maximum number of iterations before determining optimal font size. Current: {} Minimum: {} Maximum: {} Target Width: {} Maximum Size: {} Text: {}",
-						cur, min, max, targetWidth, maxFontSize, text);
-				break;
-			}
-			i++;
-		}
-		if (i > 0) {
-			LOGGER.trace("Font fitting iterations: " + i);
-		}
-		// the Math.min(min, cur) ensures we choose the lower bound
+    	FitKey key = new FitKey(FIT_LINE, text, font, maxFontSize, targetWidth, targetHeight, 0, boundsType);
+    	Font cached = getCachedFit(key, font);
+    	if (cached != null) {
+    		return cached;
+    	}
+    	
+    	// for best fit, start from the last size for this text scaled by the change in the limiting dimension
+    	Font start = getEstimate(key, font, (last) -> Math.min(targetWidth / last.width, targetHeight / last.height));
+    	Font result = computeFittingFontForLine(text, start, maxFontSize, targetWidth, targetHeight, boundsType);
+    	setCachedFit(key, result);
+    	return result;
+    }
+    
+    private static final Font computeFittingFontForLine(String text, Font font, double maxFontSize, double targetWidth, double targetHeight, TextBoundsType boundsType) {
+    	final String name = font.getName();
+    	double size = FitSearch.largest((s) -> {
+    		if (s > maxFontSize) return false;
+    		Bounds bounds = TextMeasurer.getLineBounds(text, new Font(name, s), boundsType);
+    		return bounds.getWidth() <= targetWidth && bounds.getHeight() <= targetHeight;
+    	}, font.getSize());
+    	return getFittingFont(name, size);
+    }
+    
+    /**
+     * Returns the font for the largest size that fits.
+     * @param name the font name
+     * @param size the largest size that fits
+     * @return Font
+     */
+    private static final Font getFittingFont(String name, double size) {
 		// the - 1.0 is further insurance that its small enough
 		// the Math.max(1.0, x) ensures the minimum font we return is 1
-		double size = Math.max(1.0, Math.min(min, cur) - 1.0);
-		return new Font(font.getName(), size);
+    	return new Font(name, Math.max(1.0, size - 1.0));
+    }
+    
+    // caching
+    
+    /**
+     * Returns the cached fitting font for the given key or null.
+     * @param key the key
+     * @param font the requested font
+     * @return Font
+     */
+    private static final Font getCachedFit(FitKey key, Font font) {
+    	Double size;
+    	synchronized (FIT_CACHE) {
+    		size = FIT_CACHE.get(key);
+    	}
+    	if (size == null) {
+    		return null;
+    	}
+    	return new Font(font.getName(), size);
+    }
+    
+    /**
+     * Caches the given fitting font.
+     * @param key the key
+     * @param font the fitting font
+     */
+    private static final void setCachedFit(FitKey key, Font font) {
+    	synchronized (FIT_CACHE) {
+    		FIT_CACHE.put(key, font.getSize());
+    	}
+    	synchronized (LAST_FIT) {
+    		LAST_FIT.put(key.withoutTarget(), new LastFit(key.width, key.height, font.getSize()));
+    	}
+    }
+    
+    /**
+     * Returns the font to start the search from.
+     * <p>
+     * When searching for the best fit (no maximum) the last result for the same text scaled
+     * by the change in the target size is a much better place to start than the base font
+     * size.  The start only changes how long the search takes and not its result (see
+     * {@link FitSearch}).  When there's a maximum, the search starts from it.
+     * @param key the key
+     * @param font the requested font
+     * @param scale returns the scale factor from the last result
+     * @return Font
+     */
+    private static final Font getEstimate(FitKey key, Font font, ToDoubleFunction<LastFit> scale) {
+    	if (key.max != Double.MAX_VALUE) {
+    		return font;
+    	}
+    	
+    	LastFit last;
+    	synchronized (LAST_FIT) {
+    		last = LAST_FIT.get(key.withoutTarget());
+    	}
+    	if (last == null || last.width <= 0 || (key.type != FIT_LINE_WIDTH && last.height <= 0)) {
+    		return font;
+    	}
+    	
+    	double size = last.size * scale.applyAsDouble(last);
+    	if (!Double.isFinite(size) || size < 1.0) {
+    		return font;
+    	}
+    	return new Font(font.getName(), size);
+    }
+    
+    /**
+     * Clears the fitting caches.
+     */
+    public static final void clearCache() {
+    	synchronized (FIT_CACHE) {
+    		FIT_CACHE.clear();
+    	}
+    	synchronized (LAST_FIT) {
+    		LAST_FIT.clear();
+    	}
+    }
+    
+    /**
+     * The inputs of a fitting search.
+     */
+    private static final class FitKey {
+    	private final int type;
+    	private final String text;
+    	private final String fontName;
+    	private final double fontSize;
+    	private final double max;
+    	private final double width;
+    	private final double height;
+    	private final double lineSpacing;
+    	private final TextBoundsType boundsType;
+    	private final int hash;
+    	
+    	public FitKey(int type, String text, Font font, double max, double width, double height, double lineSpacing, TextBoundsType boundsType) {
+    		this(type, text, font.getName(), font.getSize(), max, width, height, lineSpacing, boundsType);
+    	}
+    	
+    	private FitKey(int type, String text, String fontName, double fontSize, double max, double width, double height, double lineSpacing, TextBoundsType boundsType) {
+    		this.type = type;
+    		this.text = text;
+    		this.fontName = fontName;
+    		this.fontSize = fontSize;
+    		this.max = max;
+    		this.width = width;
+    		this.height = height;
+    		this.lineSpacing = lineSpacing;
+    		this.boundsType = boundsType;
+    		this.hash = Objects.hash(type, text, fontName, fontSize, max, width, height, lineSpacing, boundsType);
+    	}
+    	
+    	/**
+    	 * Returns a key for the same search with any target size.
+    	 * @return {@link FitKey}
+    	 */
+    	public FitKey withoutTarget() {
+    		return new FitKey(this.type, this.text, this.fontName, this.fontSize, this.max, 0, 0, this.lineSpacing, this.boundsType);
+    	}
+    	
+    	@Override
+    	public int hashCode() {
+    		return this.hash;
+    	}
+    	
+    	@Override
+    	public boolean equals(Object obj) {
+    		if (obj == this) return true;
+    		if (!(obj instanceof FitKey)) return false;
+    		FitKey key = (FitKey)obj;
+    		return key.type == this.type &&
+    			   key.hash == this.hash &&
+    			   Double.compare(key.fontSize, this.fontSize) == 0 &&
+    			   Double.compare(key.max, this.max) == 0 &&
+    			   Double.compare(key.width, this.width) == 0 &&
+    			   Double.compare(key.height, this.height) == 0 &&
+    			   Double.compare(key.lineSpacing, this.lineSpacing) == 0 &&
+    			   key.boundsType == this.boundsType &&
+    			   Objects.equals(key.fontName, this.fontName) &&
+    			   Objects.equals(key.text, this.text);
+    	}
+    }
+    
+    /**
+     * The result of the last search for a text, font, and fit type.
+     */
+    private static final class LastFit {
+    	private final double width;
+    	private final double height;
+    	private final double size;
+    	
+    	public LastFit(double width, double height, double size) {
+    		this.width = width;
+    		this.height = height;
+    		this.size = size;
+    	}
     }
 }
-
@@ -0,0 +1,264 @@
+package org.praisenter.ui;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.async.AsyncExecutors;
+import org.praisenter.async.JavaFXBatchExecutor;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+/**
+ * Loads thumbnails in the background for lists that show many of them (the library).
+ * <p>
+ * Thumbnails that are already in the {@link ImageCache} are returned immediately.
+ * Others are decoded on a few background threads and the returned future is
+ * completed on the Java FX thread.  Requests are served newest first: the cells
+ * the user just scrolled to are the ones they are looking at, where older requests
+ * are likely for cells that have been scrolled past.  Cancelling the returned
+ * future (when a cell is reused for another item for example) removes the request
+ * if it hasn't started.
+ * <p>
+ * The loader tracks how long the first thumbnail took to show from the first
+ * request, which is the main thing a user notices when opening a library with
+ * nothing cached.  See {@link #getMetricsReport()}.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class ThumbnailLoader {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/** The number of decoding threads; it's mostly disk access, so a few is enough */
+	private static final int THREADS = 2;
+
+	/** The image cache */
+	private final ImageCache cache;
+
+	/** The decoding threads */
+	private final ThreadPoolExecutor executor;
+
+	/** Completes the requests on the Java FX thread */
+	private final JavaFXBatchExecutor fxExecutor;
+
+	/** The request order */
+	private final AtomicLong sequence;
+
+	/** The current frame; requests in later frames are served first */
+	private final AtomicLong frame;
+
+	/** True if the frame will be advanced */
+	private final AtomicBoolean frameScheduled;
+
+	// metrics
+
+	/** The time of the first request that wasn't cached */
+	private final AtomicLong firstRequestTime;
+
+	/** The time to the first thumbnail that wasn't cached */
+	private final AtomicLong firstThumbnailTime;
+
+	private final AtomicLong requested;
+	private final AtomicLong cached;
+	private final AtomicLong loaded;
+	private final AtomicLong cancelled;
+	private final AtomicLong failed;
+	private final AtomicLong loadTime;
+
+	/**
+	 * Minimal constructor.
+	 * @param cache the image cache
+	 */
+	public ThumbnailLoader(ImageCache cache) {
+		this.cache = cache;
+		this.executor = AsyncExecutors.createPriorityExecutor("praisenter-thumbnail", THREADS);
+		this.fxExecutor = new JavaFXBatchExecutor(Runnable::run);
+		this.sequence = new AtomicLong();
+		this.frame = new AtomicLong();
+		this.frameScheduled = new AtomicBoolean(false);
+
+		this.firstRequestTime = new AtomicLong(-1);
+		this.firstThumbnailTime = new AtomicLong(-1);
+		this.requested = new AtomicLong();
+		this.cached = new AtomicLong();
+		this.loaded = new AtomicLong();
+		this.cancelled = new AtomicLong();
+		this.failed = new AtomicLong();
+		this.loadTime = new AtomicLong();
+	}
+
+	/**
+	 * Returns the thumbnail for the given version of an item.
+	 * <p>
+	 * The future is already complete if the thumbnail is cached, otherwise it's
+	 * completed on the Java FX thread once loaded.  It completes with null if the
+	 * thumbnail couldn't be loaded.  Cancel the future if it's no longer needed.
+	 * @param id the item id
+	 * @param version the version of the item; can be null
+	 * @param path the path to the thumbnail
+	 * @return CompletableFuture&lt;Image&gt;
+	 * @see ImageCache#getOrLoadThumbnail(UUID, Instant, Path)
+	 */
+	public CompletableFuture<Image> load(UUID id, Instant version, Path path) {
+		this.requested.incrementAndGet();
+		if (id == null || path == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		Image image = this.cache.getCachedThumbnail(id, version);
+		if (image != null) {
+			this.cached.incrementAndGet();
+			return CompletableFuture.completedFuture(image);
+		}
+
+		this.firstRequestTime.compareAndSet(-1, System.nanoTime());
+
+		final CompletableFuture<Image> future = new CompletableFuture<>();
+		final Request request = new Request(id, version, path, future, this.nextFrame(), this.sequence.incrementAndGet());
+		future.whenComplete((img, ex) -> {
+			if (future.isCancelled()) {
+				this.cancelled.incrementAndGet();
+				this.executor.remove(request);
+			}
+		});
+
+		try {
+			this.executor.execute(request);
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to queue thumbnail for '" + id + "': " + ex.getMessage());
+			future.complete(null);
+		}
+
+		return future;
+	}
+
+	/**
+	 * Returns the frame for a new request.
+	 * <p>
+	 * All the requests made during one pass on the Java FX thread (one layout of a
+	 * list for example) are in the same frame, so they are served in the order they
+	 * were made.
+	 * @return long
+	 */
+	private long nextFrame() {
+		if (Platform.isFxApplicationThread() && this.frameScheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				this.frame.incrementAndGet();
+				this.frameScheduled.set(false);
+			});
+		}
+		return this.frame.get();
+	}
+
+	/**
+	 * Stops any queued requests.
+	 */
+	public void shutdown() {
+		LOGGER.debug(this.getMetricsReport());
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Returns a human readable summary of the loader's performance.
+	 * @return String
+	 */
+	public String getMetricsReport() {
+		long loaded = this.loaded.get();
+		long first = this.firstThumbnailTime.get();
+		StringBuilder sb = new StringBuilder();
+		sb.append("Thumbnails: ")
+		  .append(this.requested.get()).append(" requested, ")
+		  .append(this.cached.get()).append(" cached, ")
+		  .append(loaded).append(" loaded, ")
+		  .append(this.cancelled.get()).append(" cancelled, ")
+		  .append(this.failed.get()).append(" failed; ")
+		  .append("first thumbnail ").append(first < 0 ? "n/a" : (first / 1000000) + "ms").append(", ")
+		  .append("average load ").append(loaded == 0 ? 0 : this.loadTime.get() / loaded / 1000).append("us");
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the time from the first request for a thumbnail that wasn't cached
+	 * to it being shown, in nanoseconds, or -1 if that hasn't happened yet.
+	 * @return long
+	 */
+	public long getTimeToFirstThumbnail() {
+		return this.firstThumbnailTime.get();
+	}
+
+	/**
+	 * Represents a request for a thumbnail.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private final class Request implements Runnable, Comparable<Request> {
+		private final UUID id;
+		private final Instant version;
+		private final Path path;
+		private final CompletableFuture<Image> future;
+		private final long frame;
+		private final long sequence;
+
+		public Request(UUID id, Instant version, Path path, CompletableFuture<Image> future, long frame, long sequence) {
+			this.id = id;
+			this.version = version;
+			this.path = path;
+			this.future = future;
+			this.frame = frame;
+			this.sequence = sequence;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		@Override
+		public int compareTo(Request o) {
+			// newest frame first, then in the order requested
+			int diff = Long.compare(o.frame, this.frame);
+			if (diff == 0) {
+				diff = Long.compare(this.sequence, o.sequence);
+			}
+			return diff;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			if (this.future.isDone()) {
+				return;
+			}
+
+			long start = System.nanoTime();
+			Image image = null;
+			try {
+				image = cache.getOrLoadThumbnail(this.id, this.version, this.path);
+			} catch (Exception ex) {
+				LOGGER.warn("Failed to load thumbnail for '" + this.id + "': " + ex.getMessage(), ex);
+			}
+
+			if (image != null) {
+				loaded.incrementAndGet();
+				loadTime.addAndGet(System.nanoTime() - start);
+			} else {
+				failed.incrementAndGet();
+			}
+
+			final Image result = image;
+			fxExecutor.execute(() -> {
+				if (result != null && firstThumbnailTime.compareAndSet(-1, System.nanoTime() - firstRequestTime.get())) {
+					LOGGER.info("First thumbnail loaded {}ms after it was requested", firstThumbnailTime.get() / 1000000);
+				}
+				this.future.complete(result);
+			});
+		}
+	}
+}
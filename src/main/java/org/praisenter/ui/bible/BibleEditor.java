@@ -125,13 +125,21 @@ public final class BibleEditor extends BorderPane implements DocumentEditor<Bibl
 		});
 		
 		this.treeView.getSelectionModel().getSelectedItems().addListener((ListChangeListener.Change<? extends TreeItem<Object>> change) -> {
-			// set the selected items
-			document.getSelectedItems().setAll(this.treeView
+			List<Object> selected = this.treeView
 					.getSelectionModel()
 					.getSelectedItems()
 					.stream().filter(i -> i != null && i.getValue() != null)
 					.map(i -> i.getValue())
-					.collect(Collectors.toList()));
+					.collect(Collectors.toList());
+			
+			// verses are only watched for undo/redo when needed, so make
+			// sure anything that could be edited is watched
+			for (Object item : selected) {
+				this.undoManager.watch(item);
+			}
+			
+			// set the selected items
+			document.getSelectedItems().setAll(selected);
 		});
 
 		ContextMenu menu = new ContextMenu();
@@ -476,6 +484,7 @@ public final class BibleEditor extends BorderPane implements DocumentEditor<Bibl
 	private void renumber(boolean accepted, Object selected) {		
 		this.treeView.requestFocus();
 		if (accepted && selected != null) {
+			this.undoManager.watch(selected);
 			this.undoManager.beginBatch("Renumber");
 			try {
 				if (selected instanceof Bible) {
@@ -532,6 +541,7 @@ public final class BibleEditor extends BorderPane implements DocumentEditor<Bibl
 	private void reorder(boolean accepted, Object selected) {		
 		this.treeView.requestFocus();
 		if (accepted && selected != null) {
+			this.undoManager.watch(selected);
 			this.undoManager.beginBatch("Renumber");
 			try {
 				if (selected instanceof Bible) {
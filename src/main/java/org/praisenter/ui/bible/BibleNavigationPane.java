@@ -2,7 +2,6 @@ package org.praisenter.ui.bible;
 
 import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,7 +10,9 @@ import org.praisenter.data.TextItem;
 import org.praisenter.data.TextType;
 import org.praisenter.data.TextVariant;
 import org.praisenter.data.bible.Bible;
+import org.praisenter.data.bible.BibleAlignment;
 import org.praisenter.data.bible.BibleConfiguration;
+import org.praisenter.data.bible.BibleReferenceParser;
 import org.praisenter.data.bible.BibleReferenceSet;
 import org.praisenter.data.bible.BibleReferenceTextStore;
 import org.praisenter.data.bible.BibleReferenceVerse;
@@ -21,6 +22,7 @@ import org.praisenter.data.bible.LocatedVerseTriplet;
 import org.praisenter.data.bible.ReadOnlyBible;
 import org.praisenter.data.bible.ReadOnlyBook;
 import org.praisenter.data.bible.Verse;
+import org.praisenter.data.bible.VerseIndex;
 import org.praisenter.ui.GlobalContext;
 import org.praisenter.ui.Icons;
 import org.praisenter.ui.bind.EmptyItemList;
@@ -97,6 +99,9 @@ public final class BibleNavigationPane extends GridPane {
 	
 	private boolean mutating = false;
 	
+	/** The parser of book names and references for the primary bible */
+	private BibleReferenceParser parser;
+	
 	public BibleNavigationPane(GlobalContext context, BibleConfiguration configuration) {
 		this.getStyleClass().add(BIBLE_NAV_CSS);
 		
@@ -195,11 +200,11 @@ public final class BibleNavigationPane extends GridPane {
 		cmbSecondary.valueProperty().bindBidirectional(this.secondary);
 		
 		ComboBox<ReadOnlyBook> cmbBook = new AutoCompleteComboBox<ReadOnlyBook>(this.books, (typedText, book) -> {
-			Pattern pattern = Pattern.compile("^" + Pattern.quote(typedText) + ".*", Pattern.CASE_INSENSITIVE);
-			if (pattern.matcher(book.getName()).matches()) {
+			ReadOnlyBible bible = this.primary.get();
+			if (bible == null) {
 				return true;
 			}
-			return false;
+			return this.getReferenceParser(bible).isMatch(typedText, book);
 		});
 		cmbBook.valueProperty().bindBidirectional(this.book);
 		cmbBook.setPromptText(Translations.get("bible.book.placeholder"));
@@ -321,7 +326,7 @@ public final class BibleNavigationPane extends GridPane {
 				BibleSearchPane pneSearch = new BibleSearchPane(context, configuration);
 				pneSearch.valueProperty().addListener((obs, ov, nv) -> {
 					if (nv != null) {
-						LocatedVerseTriplet triplet = nv.getBible().getTriplet(
+						LocatedVerseTriplet triplet = VerseIndex.of(nv.getBible()).getTriplet(
 								nv.getBook().getNumber(), 
 								nv.getChapter().getNumber(), 
 								nv.getVerse().getNumber());
@@ -564,21 +569,21 @@ public final class BibleNavigationPane extends GridPane {
 			switch(type) {
 				case FIND:
 					try {
-						return bible.getTriplet(bn, cn, vn);
+						return VerseIndex.of(bible).getTriplet(bn, cn, vn);
 					} catch (Exception ex) {
 						LOGGER.warn("Failed to get verse: " + book.getName() + " " + cn + ":" + vn, ex);
 					}
 					break;
 				case NEXT:
 					try {
-						return bible.getNextTriplet(bn, cn, vn);
+						return VerseIndex.of(bible).getNextTriplet(bn, cn, vn);
 					} catch (Exception ex) {
 						LOGGER.warn("Failed to get next verse for: " + book.getName() + " " + cn + ":" + vn, ex);
 					}
 					break;
 				case PREVIOUS:
 					try {
-						return bible.getPreviousTriplet(bn, cn, vn);
+						return VerseIndex.of(bible).getPreviousTriplet(bn, cn, vn);
 					} catch (Exception ex) {
 						LOGGER.warn("Failed to get previous verse for: " + book.getName() + " " + cn + ":" + vn, ex);
 					}
@@ -634,7 +639,8 @@ public final class BibleNavigationPane extends GridPane {
 		ReadOnlyBible bible2 = this.secondary.getValue();
 		// only show the secondary if a different bible is chosen
 		if (bible2 != null && bible2.getId() != triplet.getCurrent().getBible().getId()) {
-			LocatedVerseTriplet matchingTriplet = bible2.getMatchingTriplet(triplet);
+			// the verses of the bibles are mapped once so each move is a lookup
+			LocatedVerseTriplet matchingTriplet = BibleAlignment.of(triplet.getCurrent().getBible(), bible2).getMatchingTriplet(triplet);
 			if (matchingTriplet != null) {
 				if (matchingTriplet.getCurrent() != null) {
 					value.getVariant(TextVariant.SECONDARY).getReferenceVerses().add(toReference(matchingTriplet.getCurrent()));
@@ -696,7 +702,8 @@ public final class BibleNavigationPane extends GridPane {
 		ReadOnlyBible bible2 = this.secondary.getValue();
 		// only show the secondary if a different bible is chosen
 		if (bible2 != null && bible2.getId() != triplet.getCurrent().getBible().getId()) {
-			LocatedVerseTriplet matchingTriplet = bible2.getMatchingTriplet(triplet);
+			// the verses of the bibles are mapped once so each move is a lookup
+			LocatedVerseTriplet matchingTriplet = BibleAlignment.of(triplet.getCurrent().getBible(), bible2).getMatchingTriplet(triplet);
 			if (matchingTriplet != null) {
 //				if (matchingTriplet.getCurrent() != null) {
 //					value.getVariant(TextVariant.SECONDARY).getReferenceVerses().add(toReference(matchingTriplet.getCurrent()));
@@ -717,6 +724,20 @@ public final class BibleNavigationPane extends GridPane {
 		this.mutating = false;
 	}
 	
+	/**
+	 * Returns the reference parser for the given bible, creating it again if the bible changed.
+	 * @param bible the bible
+	 * @return {@link BibleReferenceParser}
+	 */
+	private BibleReferenceParser getReferenceParser(ReadOnlyBible bible) {
+		BibleReferenceParser parser = this.parser;
+		if (parser == null || !parser.isCurrent(bible)) {
+			parser = new BibleReferenceParser(bible);
+			this.parser = parser;
+		}
+		return parser;
+	}
+	
 	private BibleReferenceVerse toReference(LocatedVerse verse) {
 		return new BibleReferenceVerse(
 				verse.getBible().getId(), 
@@ -5,7 +5,11 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,13 +19,17 @@ import org.praisenter.async.AsyncHelper;
 import org.praisenter.data.PersistableComparator;
 import org.praisenter.data.bible.Bible;
 import org.praisenter.data.bible.BibleConfiguration;
+import org.praisenter.data.bible.BibleReferenceParser;
 import org.praisenter.data.bible.BibleSearchResult;
 import org.praisenter.data.bible.BibleTextSearchCriteria;
 import org.praisenter.data.bible.LocatedVerse;
+import org.praisenter.data.bible.ReadOnlyBible;
 import org.praisenter.data.bible.ReadOnlyBook;
 import org.praisenter.data.bible.ReadOnlyVerse;
 import org.praisenter.data.json.JsonIO;
 import org.praisenter.data.search.SearchResult;
+import org.praisenter.data.search.SearchResults;
+import org.praisenter.data.search.SearchTextHighlight;
 import org.praisenter.data.search.SearchTextMatch;
 import org.praisenter.data.search.SearchType;
 import org.praisenter.ui.DataFormats;
@@ -39,7 +47,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import atlantafx.base.controls.CustomTextField;
 import atlantafx.base.theme.Styles;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
@@ -83,6 +93,7 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
 
 // FEATURE (M-M) add searching to the bible editor for finding and editing easily
 
@@ -94,6 +105,15 @@ public final class BibleSearchPane extends VBox {
 	
 	private static final Logger LOGGER = LogManager.getLogger();
 	private static final DecimalFormat SCORE_FORMAT = new DecimalFormat(Translations.get("search.score.format"));
+	
+	/** The time to wait after the user stops typing to search */
+	private static final Duration SEARCH_AS_YOU_TYPE_DELAY = Duration.millis(250);
+	
+	/** The number of characters to type before searching */
+	private static final int SEARCH_AS_YOU_TYPE_MINIMUM_LENGTH = 2;
+	
+	/** The number of results to get at a time; the next page is fetched when the user scrolls to the end */
+	private static final int SEARCH_PAGE_SIZE = 50;
 
 	private final GlobalContext context;
 	
@@ -116,6 +136,11 @@ public final class BibleSearchPane extends VBox {
 	
 	private final CustomTextField txtSearch;
 	
+	private final Runnable loadMore;
+	
+	/** The parser of references like "John 3:16" for the current bible */
+	private BibleReferenceParser parser;
+	
 	public BibleSearchPane(GlobalContext context, BibleConfiguration configuration) {
 		this.getStyleClass().add(BIBLE_SEARCH_CSS);
 		
@@ -186,11 +211,11 @@ public final class BibleSearchPane extends VBox {
 		cmbBible.valueProperty().bindBidirectional(this.bible);
 		
 		ComboBox<ReadOnlyBook> cmbBook = new AutoCompleteComboBox<ReadOnlyBook>(this.books, (typedText, book) -> {
-			Pattern pattern = Pattern.compile("^" + Pattern.quote(typedText) + ".*", Pattern.CASE_INSENSITIVE);
-			if (pattern.matcher(book.getName()).matches()) {
+			Bible bible = this.bible.get();
+			if (bible == null) {
 				return true;
 			}
-			return false;
+			return this.getReferenceParser(bible).isMatch(typedText, book);
 		});
 		cmbBook.valueProperty().bindBidirectional(this.book);
 		cmbBook.setPromptText(Translations.get("bible.book.placeholder"));
@@ -305,28 +330,24 @@ public final class BibleSearchPane extends VBox {
 					}
 					
 					// get the matched text
-					String highlighted = match.getMatchedText();
+					String value = match.getValue();
 					HBox text = new HBox();
 					text.setAlignment(Pos.CENTER_LEFT);
 //					text.setBorder(new Border(new BorderStroke(Color.RED, BorderStrokeStyle.SOLID, new CornerRadii(0), new BorderWidths(1))));
 					
-					// format the match text from Lucene to show what we matched on
-					String[] mparts = highlighted.replaceAll("\n\r?", " ").split("<B>");
-					for (String mpart : mparts) {
-						if (mpart.contains("</B>")) {
-							String[] nparts = mpart.split("</B>");
-							Text temp = new Text(nparts[0]);
-							temp.getStyleClass().add("p-search-highlight");
-							text.getChildren().add(temp);
-							// it's possible mpart could be "blah</B>" which would only give us one part
-							if (nparts.length > 1) {
-								Text part = new Text(nparts[1]);
-								text.getChildren().add(part);
-							}
-						} else {
-							Text part = new Text(mpart);
-							text.getChildren().add(part);
+					// show what we matched on using the offsets from Lucene
+					int position = match.getStart();
+					for (SearchTextHighlight highlight : match.getHighlights()) {
+						if (highlight.getStart() > position) {
+							text.getChildren().add(new Text(value.substring(position, highlight.getStart()).replaceAll("\n\r?", " ")));
 						}
+						Text temp = new Text(value.substring(highlight.getStart(), highlight.getEnd()).replaceAll("\n\r?", " "));
+						temp.getStyleClass().add("p-search-highlight");
+						text.getChildren().add(temp);
+						position = highlight.getEnd();
+					}
+					if (match.getEnd() > position) {
+						text.getChildren().add(new Text(value.substring(position, match.getEnd()).replaceAll("\n\r?", " ")));
 					}
 					
 					setGraphic(text);
@@ -356,6 +377,12 @@ public final class BibleSearchPane extends VBox {
 			        }
 		    	}
 		    });
+		    row.itemProperty().addListener((obs, ov, nv) -> {
+		    	// get the next page when the last result is shown
+		    	if (nv != null && row.getIndex() >= tv.getItems().size() - 1) {
+		    		this.loadMore();
+		    	}
+		    });
 		    return row ;
 		});
 		
@@ -470,7 +497,14 @@ public final class BibleSearchPane extends VBox {
 		
 		this.getChildren().addAll(lblSearch, sepTitle, grid, layoutSearch, splt, lblResults);
 		
-		EventHandler<ActionEvent> handler = e -> {
+		// the number of the last search; searches are cancelled when a new one starts
+		final AtomicLong searchNumber = new AtomicLong();
+		
+		// the last page of results and whether the next page is being fetched
+		final AtomicReference<SearchResults> page = new AtomicReference<SearchResults>();
+		final AtomicBoolean loading = new AtomicBoolean();
+		
+		Consumer<Boolean> search = live -> {
 			Bible bible = this.bible.get();
 			ReadOnlyBook book = this.book.get();
 			String text = this.terms.get();
@@ -478,22 +512,62 @@ public final class BibleSearchPane extends VBox {
 			Option<Boolean> matchType = this.matchType.get();
 			
 			if (text != null && text.length() != 0 && searchType != null) {
-				overlay.setVisible(true);
+				// show the verses straight away if the text is a reference like "John 3:16"
+				Bible target = bible != null ? bible : (this.bibles.size() > 0 ? this.bibles.get(0) : null);
+				if (target != null) {
+					List<LocatedVerse> verses = this.getReferenceParser(target).parse(text);
+					if (!verses.isEmpty()) {
+						// stop any search in progress
+						searchNumber.incrementAndGet();
+						List<BibleSearchResult> results = new ArrayList<BibleSearchResult>();
+						for (LocatedVerse verse : verses) {
+							results.add(BibleSearchResult.of(verse));
+						}
+						page.set(null);
+						table.setItems(FXCollections.observableArrayList(results));
+						loading.set(false);
+						lblResults.setText(MessageFormat.format(Translations.get("bible.search.results.output"), results.size()));
+						overlay.setVisible(false);
+						return;
+					}
+				}
 				
-				final int maxResults = 100;
+				// wait for a few characters when searching as the user types
+				if (live && text.trim().length() < SEARCH_AS_YOU_TYPE_MINIMUM_LENGTH) {
+					return;
+				}
+				
+				if (!live) {
+					overlay.setVisible(true);
+				}
+				
+				final long number = searchNumber.incrementAndGet();
 				BibleTextSearchCriteria criteria = new BibleTextSearchCriteria(
 						text,
 						searchType.getValue(),
 						matchType != null ? !matchType.getValue() : true,
-						maxResults,
+						// the last word is incomplete if the user is still typing it
+						live && !Character.isWhitespace(text.charAt(text.length() - 1)),
+						SEARCH_PAGE_SIZE,
 						bible != null ? bible.getId() : null, 
-						book != null ? book.getNumber() : -1);
+						book != null ? book.getNumber() : -1,
+						// analyze the terms like the text of the bible
+						bible != null ? bible.getLanguage() : null);
 				
-				context.getWorkspaceManager().search(criteria).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
+				context.getWorkspaceManager().search(criteria, () -> searchNumber.get() != number).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
+					// ignore the results if another search has started
+					if (searchNumber.get() != number) {
+						return;
+					}
+					page.set(result);
 					table.setItems(FXCollections.observableArrayList(this.getSearchResults(result.getResults())));
-					lblResults.setText(MessageFormat.format(Translations.get("bible.search.results.output"), result.hasMore() ? maxResults + "+" : result.getNumberOfResults()));
+					loading.set(false);
+					lblResults.setText(MessageFormat.format(Translations.get("bible.search.results.output"), getTotalHits(result)));
 					overlay.setVisible(false);
 				})).exceptionally(t -> {
+					if (t instanceof CancellationException || t.getCause() instanceof CancellationException) {
+						return null;
+					}
 					LOGGER.error("Failed to search bibles using terms '" + text + "' due to: " + t.getMessage(), t);
 					Platform.runLater(() -> {
 						Alert alert = Dialogs.exception(this.context.getStage(), t);
@@ -504,6 +578,53 @@ public final class BibleSearchPane extends VBox {
 			}
 		};
 		
+		// search as the user types (or changes the filters) after they pause
+		PauseTransition typing = new PauseTransition(SEARCH_AS_YOU_TYPE_DELAY);
+		typing.setOnFinished(e -> search.accept(true));
+		InvalidationListener changed = obs -> typing.playFromStart();
+		this.terms.addListener(changed);
+		this.bible.addListener(changed);
+		this.book.addListener(changed);
+		this.searchType.addListener(changed);
+		this.matchType.addListener(changed);
+		
+		this.loadMore = () -> {
+			SearchResults last = page.get();
+			// only one page at a time
+			if (last == null || !last.hasMore() || !loading.compareAndSet(false, true)) {
+				return;
+			}
+			
+			final long number = searchNumber.get();
+			context.getWorkspaceManager().searchNext(last, () -> searchNumber.get() != number).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
+				// ignore the page if another search has started
+				if (searchNumber.get() != number) {
+					return;
+				}
+				page.set(result);
+				loading.set(false);
+				if (result.isFirstPage()) {
+					// the index changed so the search started again
+					table.setItems(FXCollections.observableArrayList(this.getSearchResults(result.getResults())));
+					lblResults.setText(MessageFormat.format(Translations.get("bible.search.results.output"), getTotalHits(result)));
+				} else {
+					table.getItems().addAll(this.getSearchResults(result.getResults()));
+				}
+			})).exceptionally(t -> {
+				if (t instanceof CancellationException || t.getCause() instanceof CancellationException) {
+					return null;
+				}
+				// leave it as loading so that scrolling doesn't try again
+				LOGGER.error("Failed to get the next page of bible search results due to: " + t.getMessage(), t);
+				return null;
+			});
+		};
+		
+		EventHandler<ActionEvent> handler = e -> {
+			typing.stop();
+			search.accept(false);
+		};
+		
 		// update the search results when things are changed, removed, added, etc.
 		context.getWorkspaceManager().getItemsUnmodifiable(Bible.class).addListener((Change<? extends Bible> c) -> {
 			handler.handle(null);
@@ -546,6 +667,33 @@ public final class BibleSearchPane extends VBox {
 		return output;
 	}
 	
+	/**
+	 * Returns the total number of matches for display.
+	 * @param results the results
+	 * @return String
+	 */
+	private static String getTotalHits(SearchResults results) {
+		return results.isTotalHitsExact() ? String.valueOf(results.getTotalHits()) : results.getTotalHits() + "+";
+	}
+	
+	/**
+	 * Returns the reference parser for the given bible, creating it again if the bible changed.
+	 * @param bible the bible
+	 * @return {@link BibleReferenceParser}
+	 */
+	private BibleReferenceParser getReferenceParser(ReadOnlyBible bible) {
+		BibleReferenceParser parser = this.parser;
+		if (parser == null || !parser.isCurrent(bible)) {
+			parser = new BibleReferenceParser(bible);
+			this.parser = parser;
+		}
+		return parser;
+	}
+	
+	private void loadMore() {
+		this.loadMore.run();
+	}
+	
 	public void requestSearchFocus() {
 		this.txtSearch.requestFocus();
 	}
@@ -1,20 +1,45 @@
 package org.praisenter.ui.controls;
 
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.event.EventTarget;
 import javafx.scene.layout.VBox;
 
+/**
+ * A cell in a {@link FlowListView}.
+ * <p>
+ * Cells are reused as the view is scrolled so sub classes should listen to
+ * the {@link #dataProperty()} and update themselves when it changes rather
+ * than building everything from the data given in the constructor.
+ * @author William Bittle
+ * @version 3.1.7
+ * @param <T> the item type
+ */
 public class FlowListCell<T> extends VBox implements EventTarget {
 	private static final String FLOW_LIST_CELL_CSS = "p-flow-list-view-cell";
 	
-	private final T data;
+	private final ObjectProperty<T> data;
 
 	public FlowListCell(T data) {
-		this.data = data;
+		this.data = new SimpleObjectProperty<>(data);
 		this.getStyleClass().add(FLOW_LIST_CELL_CSS);
 		this.setFocusTraversable(false);
 	}
 
 	public T getData() {
+		return this.data.get();
+	}
+	
+	/**
+	 * Sets the item this cell is showing.
+	 * @param data the item
+	 */
+	void setData(T data) {
+		this.data.set(data);
+	}
+	
+	public ReadOnlyObjectProperty<T> dataProperty() {
 		return this.data;
 	}
 }
@@ -26,15 +26,17 @@ package org.praisenter.ui.controls;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.function.BiFunction;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
-import org.praisenter.ui.bind.MappedList2;
 import org.praisenter.ui.events.FlowListViewSelectionEvent;
 
 import javafx.application.Platform;
+import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
@@ -42,17 +44,20 @@ import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.css.PseudoClass;
-import javafx.scene.Node;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 
 /**
  * A selection model specifically for the {@link FlowListView}.
+ * <p>
+ * The selection is tracked by item, not by cell, since the view only creates
+ * cells for the items that are visible and reuses them as it's scrolled.  Items
+ * are identified by the key given by the {@link #setKeyProvider(Function)} so
+ * that lookups are constant time.
  * @author William Bittle
- * @version 3.0.0
+ * @version 3.1.7
  * @since 3.0.0
  * @param <T> the item type
  */
@@ -70,9 +75,6 @@ public final class FlowListSelectionModel<T> {
 	/** The current selection when only one item is selected */
 	private final ObjectProperty<T> selection = new SimpleObjectProperty<T>();
 	
-	/** The mapping for the selected data from the selected cells */
-	private final MappedList2<T, FlowListCell<T>> mapping;
-	
 	/** The list of selected items */
 	private final ObservableList<T> selections = FXCollections.observableArrayList();
 	
@@ -82,18 +84,28 @@ public final class FlowListSelectionModel<T> {
 	/** True if multi-selection is enabled */
 	private final BooleanProperty multiselect = new SimpleBooleanProperty(true);
 	
-	private BiFunction<T, T, Boolean> identityProvider = (a, b) -> Objects.equals(a, b);
+	/** Returns the value used to identify an item */
+	private Function<T, ?> keyProvider = Function.identity();
 	
 	// internal state
 	
-	/** The selected nodes */
-	private final ObservableList<FlowListCell<T>> selected = FXCollections.observableArrayList();
+	/** The keys of the selected items */
+	private final Set<Object> selectedKeys = new HashSet<>();
+	
+	/** The view's items by key; rebuilt on demand after the items change */
+	private final Map<Object, T> itemsByKey = new HashMap<>();
+	
+	/** True if the items by key map needs to be rebuilt */
+	private boolean itemsByKeyDirty = true;
 	
-	/** The last selected node */
-	private FlowListCell<T> last = null;
+	/** True if the selection has to be checked against the items */
+	private boolean reconcilePending = false;
 	
-	/** The first selected node in a shift select */
-	private FlowListCell<T> first = null;
+	/** The last selected item */
+	private T last = null;
+	
+	/** The first selected item in a shift select */
+	private T first = null;
 	
 	/**
 	 * Minimal constructor.
@@ -102,36 +114,29 @@ public final class FlowListSelectionModel<T> {
 	public FlowListSelectionModel(FlowListView<T> view) {
 		this.view = view;
 		
-		// remove selections when the children are removed or replaced
-		this.view.getLayoutChildren().addListener(new ListChangeListener<Node>() {
-			@Override
-			public void onChanged(ListChangeListener.Change<? extends Node> changes) {
-				// record what was selected before
-				List<T> old = selected.stream().map(n -> ((FlowListCell<T>)n).getData()).collect(Collectors.toList());
-				
-				boolean reselect = false;
-				while (changes.next()) {
-					reselect |= changes.wasAdded() || changes.wasReplaced() || changes.wasUpdated();
-				}
-				// now reselect what we can
-				if (old.size() > 0 && reselect) {
-					// NOTE: we need to do this later so that the change to the source can
-					// be applied
-					Platform.runLater(() -> {
-						selectOnly(old);
-					});
-				}
+		// when the items change we need to drop selected items that are
+		// no longer in the list and swap in new instances of the ones
+		// that are
+		this.view.itemsProperty().addListener((Observable obs) -> {
+			this.itemsByKeyDirty = true;
+			if (!this.selections.isEmpty() && !this.reconcilePending) {
+				this.reconcilePending = true;
+				// NOTE: we need to do this later so that all the changes
+				// to the source can be applied (a replace is often a
+				// remove followed by an add)
+				Platform.runLater(this::reconcile);
 			}
- 		});
-		
-		// make sure we update the publicly facing selections when the 
-		// internal selections are changed
-		this.mapping = new MappedList2<>(this.selected, (item) -> {
-			return item.getData();
 		});
 		
-		// bind the selections to the mapping
-		Bindings.bindContent(this.selections, this.mapping);
+		// keep the keys in sync with the selection and update the
+		// state of the visible cells
+		this.selections.addListener((Observable obs) -> {
+			this.selectedKeys.clear();
+			for (T item : this.selections) {
+				this.selectedKeys.add(this.getKey(item));
+			}
+			this.view.updateCellStates();
+		});
 		
 		// make sure the single selection property is updated when the
 		// multi-selection property is changed
@@ -152,12 +157,7 @@ public final class FlowListSelectionModel<T> {
 	 */
 	public boolean isSelected(T item) {
 		if (item != null) {
-			for (FlowListCell<T> cell : this.selected) {
-				//item.equals(cell.getData())
-				if (this.identityProvider.apply(item, cell.getData())) {
-					return true;
-				}
-			}
+			return this.selectedKeys.contains(this.getKey(item));
 		}
 		return false;
 	}
@@ -166,24 +166,18 @@ public final class FlowListSelectionModel<T> {
 	 * Selects the given item. Other selections are retained.
 	 * @param item the item to select
 	 */
-	@SuppressWarnings("unchecked")
 	public void select(T item) {
 		if (!this.multiselect.get() ) {
 			this.selectOnly(item);
 			return;
 		}
 		
-		if (item != null) {
-			List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
-			for (Node node : this.view.getLayoutChildren()) {
-				FlowListCell<T> cell = (FlowListCell<T>)node;
-				if (this.identityProvider.apply(item, cell.getData())) {
-					cells.add(cell);
-				}
-			}
-			if (cells.size() > 0) {
-				this.selectCells(cells);
+		T found = this.find(item);
+		if (found != null) {
+			if (!this.isSelected(found)) {
+				this.selections.add(found);
 			}
+			this.last = found;
 		}
 	}
 	
@@ -191,20 +185,16 @@ public final class FlowListSelectionModel<T> {
 	 * Clears all selections and selects the given item only.
 	 * @param item the item to select
 	 */
-	@SuppressWarnings("unchecked")
 	public void selectOnly(T item) {
-		if (item != null) {
-			List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
-			for (Node node : this.view.getLayoutChildren()) {
-				FlowListCell<T> cell = (FlowListCell<T>)node;
-				if (this.identityProvider.apply(item, cell.getData())) {
-					cells.add(cell);
-				}
-			}
-			if (cells.size() > 0) {
-				this.selectCellsOnly(cells);
+		T found = this.find(item);
+		if (found != null) {
+			this.last = found;
+			// avoid clear+select by checking if it's already selected first
+			if (this.selections.size() == 1 && this.selections.get(0) == found) {
 				return;
 			}
+			this.selections.setAll(found);
+			return;
 		}
 		this.clear();
 	}
@@ -214,15 +204,17 @@ public final class FlowListSelectionModel<T> {
 	 * @param item the item to deselect
 	 */
 	public void deselect(T item) {
-		if (item != null) {
-			List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
-			for (FlowListCell<T> cell : this.selected) {
-				if (this.identityProvider.apply(item, cell.getData())) {
-					cells.add(cell);
+		if (this.isSelected(item)) {
+			Object key = this.getKey(item);
+			List<T> items = new ArrayList<T>();
+			for (T selected : this.selections) {
+				if (key.equals(this.getKey(selected))) {
+					items.add(selected);
 				}
 			}
-			if (cells.size() > 0) {
-				this.deselectCells(cells);
+			this.selections.removeAll(items);
+			if (this.last != null && key.equals(this.getKey(this.last))) {
+				this.last = null;
 			}
 		}
 	}
@@ -231,48 +223,43 @@ public final class FlowListSelectionModel<T> {
 	 * Selects all the given items. Other selections are retained.
 	 * @param items the items to select
 	 */
-	@SuppressWarnings("unchecked")
 	public void select(Collection<T> items) {
 		if (items != null && !items.isEmpty()) {
 			if (!this.multiselect.get()) {
 				this.selectOnly(items.stream().findFirst().get());
 				return;
 			}
-			List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
+			Set<Object> keys = new HashSet<Object>();
+			List<T> toAdd = new ArrayList<T>();
 			for (T item : items) {
-				for (Node node : this.view.getLayoutChildren()) {
-					FlowListCell<T> cell = (FlowListCell<T>)node;
-					if (this.identityProvider.apply(item, cell.getData())) {
-						cells.add(cell);
-					}
+				T found = this.find(item);
+				if (found != null && !this.isSelected(found) && keys.add(this.getKey(found))) {
+					toAdd.add(found);
 				}
 			}
-			this.selectCells(cells);
+			this.selections.addAll(toAdd);
 		}
 	}
 
 	/**
-	 * Selects the given items in the list of nodes only.
+	 * Selects the given items only.
 	 * @param items the items
 	 */
-	@SuppressWarnings("unchecked")
 	public void selectOnly(Collection<T> items) {
 		if (items != null && !items.isEmpty()) {
 			if (!this.multiselect.get()) {
 				this.selectOnly(items.stream().findFirst().get());
 				return;
 			}
-			List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
+			Set<Object> keys = new HashSet<Object>();
+			List<T> found = new ArrayList<T>();
 			for (T item : items) {
-				for (Node node : this.view.getLayoutChildren()) {
-					FlowListCell<T> cell = (FlowListCell<T>)node;
-					if (this.identityProvider.apply(item, cell.getData())) {
-						cells.add(cell);
-						break;
-					}
+				T f = this.find(item);
+				if (f != null && keys.add(this.getKey(f))) {
+					found.add(f);
 				}
 			}
-			this.selectCellsOnly(cells);
+			this.setSelections(found);
 		} else {
 			this.clear();
 		}
@@ -281,153 +268,113 @@ public final class FlowListSelectionModel<T> {
 	/**
 	 * Selects all items.
 	 */
-	@SuppressWarnings("unchecked")
 	public void selectAll() {
 		if (!this.multiselect.get()) {
 			return;
 		}
-		List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
-		for (Node node : this.view.getLayoutChildren()) {
-			FlowListCell<T> cell = (FlowListCell<T>)node;
-			cells.add(cell);
-		}
-		this.selectCells(cells);
+		this.setSelections(this.view.getItems());
 	}
 	
 	/**
 	 * Inverts the selection.
 	 */
-	@SuppressWarnings("unchecked")
 	public void invert() {
 		if (!this.multiselect.get()) {
 			return;
 		}
-		List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
-		for (Node node : this.view.getLayoutChildren()) {
-			FlowListCell<T> cell = (FlowListCell<T>)node;
-			if (!this.selected.contains(cell)) {
-				cells.add(cell);
+		List<T> items = new ArrayList<T>();
+		for (T item : this.view.getItems()) {
+			if (!this.isSelected(item)) {
+				items.add(item);
 			}
 		}
-		this.selectCellsOnly(cells);
+		this.setSelections(items);
 	}
 
 	/**
 	 * Clears all selections.
 	 */
 	public void clear() {
-		for (Node node : this.selected) {
-			node.pseudoClassStateChanged(SELECTED, false);
-		}
-		this.selected.clear();
+		this.selections.clear();
 		this.last = null;
 	}
 	
 	// INTERNAL
 	
 	/**
-	 * Returns true if the given cell is selected.
-	 * @param cell the cell to test
-	 * @return boolean
+	 * Returns the key for the given item.
+	 * @param item the item
+	 * @return Object
 	 */
-	boolean isCellSelected(FlowListCell<T> cell) {
-		return this.selected.contains(cell);
+	private Object getKey(T item) {
+		return this.keyProvider.apply(item);
 	}
 	
 	/**
-	 * Selects the given cell.
-	 * @param cell the cell to select
+	 * Returns the instance in the view's items that has the same key as the
+	 * given item or null if it's not in the view.
+	 * @param item the item
+	 * @return T
 	 */
-	void selectCell(FlowListCell<T> cell) {
-		if (!this.multiselect.get()) {
-			this.selectCellOnly(cell);
-			return;
+	private T find(T item) {
+		if (item == null) {
+			return null;
 		}
-		if (cell != null) {
-			cell.pseudoClassStateChanged(SELECTED, true);
-			this.selected.add(cell);
-			this.last = cell;
+		if (this.itemsByKeyDirty) {
+			this.itemsByKey.clear();
+			for (T i : this.view.getItems()) {
+				this.itemsByKey.put(this.getKey(i), i);
+			}
+			this.itemsByKeyDirty = false;
 		}
+		return this.itemsByKey.get(this.getKey(item));
 	}
 	
 	/**
-	 * Selects the given cell.
-	 * @param cell the cell to select
+	 * Removes any selected items that are no longer in the view and updates
+	 * the others to the instances in the view.
 	 */
-	@SuppressWarnings("unchecked")
-	void selectCellOnly(FlowListCell<T> cell) {
-		// avoid clear+select by checking if it's already selected first
-		if (this.selected.size() == 1 && this.selected.contains(cell)) return;
+	private void reconcile() {
+		this.reconcilePending = false;
 		
-		for (FlowListCell<T> c : this.selected) {
-			c.pseudoClassStateChanged(SELECTED, false);
-		}
-		if (cell != null) {
-			cell.pseudoClassStateChanged(SELECTED, true);
-			this.selected.setAll(cell);
-			this.last = cell;
-		} else {
-			this.selected.clear();
-			this.last = null;
-		}
-	}
-	
-	/**
-	 * Selects all the given cells.
-	 * @param cells the cells to select
-	 */
-	void selectCells(Collection<FlowListCell<T>> cells) {
-		if (cells != null && !cells.isEmpty()) {
-			if (!this.multiselect.get()) {
-				this.selectCellOnly(cells.stream().findFirst().get());
-				return;
+		boolean changed = false;
+		List<T> items = new ArrayList<T>();
+		for (T item : this.selections) {
+			T found = this.find(item);
+			if (found != null) {
+				items.add(found);
 			}
-			List<FlowListCell<T>> toAdd = new ArrayList<FlowListCell<T>>();
-			for (FlowListCell<T> cell : cells) {
-				cell.pseudoClassStateChanged(SELECTED, true);
-				if (!this.selected.contains(cell)) {
-					toAdd.add(cell);
-				}
-			}
-			this.selected.addAll(toAdd);
+			changed |= found != item;
+		}
+		
+		if (changed) {
+			this.selections.setAll(items);
+			this.last = this.find(this.last);
+			this.first = this.find(this.first);
 		}
 	}
 	
 	/**
-	 * Selects only the given cells.
-	 * @param cells the cells to select
+	 * Sets the selected items if they are different than the current selection.
+	 * @param items the new selection
 	 */
-	void selectCellsOnly(Collection<FlowListCell<T>> cells) {
-		if (cells != null && !cells.isEmpty()) {
-			if (!this.multiselect.get()) {
-				this.selectCellOnly(cells.stream().findFirst().get());
-				return;
-			}
-			for (FlowListCell<T> cell : this.selected) {
-				cell.pseudoClassStateChanged(SELECTED, false);
-			}
-			for (FlowListCell<T> cell : cells) {
-				cell.pseudoClassStateChanged(SELECTED, true);
-			}
-			if (this.hasMultiSelectionChanged(cells)) {
-				this.selected.setAll(cells);
-			}
-		} else {
+	private void setSelections(List<T> items) {
+		if (items.isEmpty()) {
 			this.clear();
+		} else if (this.hasMultiSelectionChanged(items)) {
+			this.selections.setAll(items);
 		}
 	}
 	
 	/**
-	 * Returns true if the given cells are different than the selected cells.
-	 * @param cells the new set of selected cells
+	 * Returns true if the given items are different than the selected items.
+	 * @param items the new set of selected items
 	 * @return boolean
 	 */
-	private boolean hasMultiSelectionChanged(Collection<FlowListCell<T>> cells) {
-		int ss = this.selected.size();
-		int ns = cells.size();
-		if (ss != ns) return true;
-		for (FlowListCell<T> cell : cells) {
-			if (!this.selected.contains(cell)) {
+	private boolean hasMultiSelectionChanged(List<T> items) {
+		if (this.selections.size() != items.size()) return true;
+		for (T item : items) {
+			if (!this.isSelected(item)) {
 				return true;
 			}
 		}
@@ -435,30 +382,30 @@ public final class FlowListSelectionModel<T> {
 	}
 	
 	/**
-	 * Deselects the given cell.
-	 * @param cell the cell to deselect
+	 * Selects the items between the given indices (inclusive) only.
+	 * @param i index a
+	 * @param j index b
 	 */
-	void deselectCell(FlowListCell<T> cell) {
-		if (cell != null) {
-			cell.pseudoClassStateChanged(SELECTED, false);
-			this.selected.remove(cell);
-			if (this.last == cell) {
-				this.last = null;
-			}
+	void selectRange(int i, int j) {
+		List<T> items = this.view.getItems();
+		int start = Math.max(0, Math.min(i, j));
+		int end = Math.min(items.size() - 1, Math.max(i, j));
+		if (end < start) {
+			return;
 		}
+		if (!this.multiselect.get()) {
+			this.selectOnly(items.get(end));
+			return;
+		}
+		this.setSelections(new ArrayList<T>(items.subList(start, end + 1)));
 	}
-
+	
 	/**
-	 * Deselects the given cells.
-	 * @param cells the cells to deselect
+	 * Updates the style of the given cell based on whether its item is selected.
+	 * @param cell the cell
 	 */
-	void deselectCells(Collection<FlowListCell<T>> cells) {
-		if (cells != null && !cells.isEmpty()) {
-			for (FlowListCell<T> cell : this.selected) {
-				cell.pseudoClassStateChanged(SELECTED, false);
-			}
-			this.selected.removeAll(cells);
-		}
+	void updateCellState(FlowListCell<T> cell) {
+		cell.pseudoClassStateChanged(SELECTED, this.isSelected(cell.getData()));
 	}
 	
 	/**
@@ -466,7 +413,6 @@ public final class FlowListSelectionModel<T> {
 	 * @param cell the cell that was clicked
 	 * @param event the mouse event
 	 */
-	@SuppressWarnings("unchecked")
 	final void handle(FlowListCell<T> cell, MouseEvent event) {
 		boolean isPrimary = event.getButton() == MouseButton.PRIMARY;
 		boolean isSecondary = event.getButton() == MouseButton.SECONDARY;
@@ -476,8 +422,10 @@ public final class FlowListSelectionModel<T> {
 			// clicks off of an item
 			event.consume();
 
+			T item = cell.getData();
+			
 			// are we being selected?
-			boolean selected = this.isCellSelected(cell);
+			boolean selected = this.isSelected(item);
 			boolean select = !selected;
 			
 			// check for double click
@@ -502,7 +450,7 @@ public final class FlowListSelectionModel<T> {
 			
 			// if the short cut is no longer down but the last time we selected something
 			// it was, then select this regardless if it was selected already
-			if (!event.isShortcutDown() && this.selected.size() > 1) {
+			if (!event.isShortcutDown() && this.selections.size() > 1) {
 				select = true;
 			}
 			
@@ -520,38 +468,30 @@ public final class FlowListSelectionModel<T> {
 			if (this.multiselect.get() && isPrimary && event.isShortcutDown()) {
 				// then its a multi-(de)select
 				if (select) {
-					selectCell(cell);
+					this.select(item);
 				} else {
-					deselectCell(cell);
+					this.deselect(item);
 				}
 			// SHIFT + click
 			} else if (this.multiselect.get() && isPrimary && event.isShiftDown()) {
+				List<T> items = this.view.getItems();
 				int start = 0;
-				int end = this.view.getLayoutChildren().indexOf(cell);
-				// select from the currently selected cell to the this cell
+				int end = items.indexOf(item);
+				// select from the first selected item to this item
 				if (this.first != null) {
-					// select from last to this cell
-					int first = this.view.getLayoutChildren().indexOf(this.first);
-					// if first is null or an element no longer in the list
+					// if first is an item no longer in the list
+					// then we start from the beginning
+					int first = items.indexOf(this.first);
 					if (first >= 0) {
 						start = first;
 					}
 				}
-				if (end < start) {
-					int temp = end;
-					end = start;
-					start = temp;
-				}
-				List<FlowListCell<T>> cells = new ArrayList<FlowListCell<T>>();
-				for (Node node : this.view.getLayoutChildren().subList(start, end + 1)) {
-					cells.add((FlowListCell<T>)node);
-				}
-				this.selectCellsOnly(cells);
+				this.selectRange(start, end);
 			// just click
 			} else {
 				// then its a single select
 				if (select) {
-					this.selectCellOnly(cell);
+					this.selectOnly(item);
 				}
 			}
 		}
@@ -600,11 +540,27 @@ public final class FlowListSelectionModel<T> {
 		return this.multiselect;
 	}
 	
-	public BiFunction<T, T, Boolean> getIdentityProvider() {
-		return this.identityProvider;
+	/**
+	 * Returns the function used to identify items.
+	 * @return Function&lt;T, ?&gt;
+	 */
+	public Function<T, ?> getKeyProvider() {
+		return this.keyProvider;
 	}
 	
-	public void setIdentityProvider(BiFunction<T, T, Boolean> identityProvider) {
-		this.identityProvider = identityProvider;
+	/**
+	 * Sets the function used to identify items.
+	 * <p>
+	 * Two items with equal keys are considered the same item.  The default
+	 * uses the item itself.
+	 * @param keyProvider the key provider
+	 */
+	public void setKeyProvider(Function<T, ?> keyProvider) {
+		this.keyProvider = keyProvider == null ? Function.identity() : keyProvider;
+		this.itemsByKeyDirty = true;
+		this.selectedKeys.clear();
+		for (T item : this.selections) {
+			this.selectedKeys.add(this.getKey(item));
+		}
 	}
 }
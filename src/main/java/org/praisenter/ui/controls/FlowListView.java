@@ -24,13 +24,14 @@
  */
 package org.praisenter.ui.controls;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
-import org.praisenter.ui.bind.MappedList2;
-
-import javafx.beans.binding.Bindings;
+import javafx.beans.Observable;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -39,9 +40,11 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.css.PseudoClass;
 import javafx.event.EventHandler;
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
-import javafx.scene.Node;
+import javafx.geometry.Pos;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -56,10 +59,13 @@ import javafx.util.Callback;
  * Represents a list view whose items are laid out vertically or horizontally
  * and wrap to a new row below when out of space.
  * <p>
- * This implementation does not use virtual items so performance can suffer with
- * many items in the list.
+ * Cells are only created for the items in the viewport (plus a few rows on either
+ * side) and are reused as the view is scrolled, so the number of nodes doesn't
+ * grow with the number of items.  All tiles are assumed to be the same size as
+ * the largest cell that's been created.  For this reason, selection is tracked
+ * by item rather than by cell.
  * @author William Bittle
- * @version 3.0.0
+ * @version 3.1.7
  * @param <T> the item type
  */
 public class FlowListView<T> extends FastScrollPane {
@@ -70,6 +76,12 @@ public class FlowListView<T> extends FastScrollPane {
     /** The :hover CSS pseudo class for styling */
     private static final PseudoClass HOVER = PseudoClass.getPseudoClass("hover");
     
+    /** The number of rows (or columns) to create cells for outside the viewport */
+    private static final int BUFFER_LINES = 2;
+    
+    /** The minimum number of unused cells to keep around for reuse */
+    private static final int MINIMUM_POOL_SIZE = 10;
+    
     // state
     
     /** The cell factory */
@@ -81,10 +93,7 @@ public class FlowListView<T> extends FastScrollPane {
 	// nodes
 	
 	/** The layout pane */
-	private final TilePane layout;
-	
-	/** The item nodes */
-	private final MappedList2<FlowListCell<T>, T> mapping;
+	private final VirtualTilePane layout;
 	
 	/** The drag selection node */
 	private final Rectangle dragRect;
@@ -100,10 +109,10 @@ public class FlowListView<T> extends FastScrollPane {
 	// focus
 	
 	/** Keyboard shift-select */
-	private FlowListCell<T> startCell = null;
+	private T startItem = null;
 	
-	/** The current focused cell */
-	private FlowListCell<T> currentCell = null;
+	/** The current focused item */
+	private T currentItem = null;
 	
 	// properties
 	
@@ -125,7 +134,7 @@ public class FlowListView<T> extends FastScrollPane {
 		
 		this.cellFactory = cellFactory;
 
-		this.layout = new TilePane();
+		this.layout = new VirtualTilePane();
 		
 		this.dragRect = new Rectangle();
 		this.dragRect.getStyleClass().add(FLOW_LIST_VIEW_DRAG_SELECTION_AREA_CSS);
@@ -152,15 +161,12 @@ public class FlowListView<T> extends FastScrollPane {
         this.layout.getStyleClass().add(FLOW_LIST_VIEW_TILES_CSS);
         this.layout.setOrientation(orientation);
         
-        // make the min height of the listing pane the height of the split pane 
- 		//this.layout.minHeightProperty().bind(this.heightProperty().subtract(20));
-        
- 		this.mapping = new MappedList2<>(this.items, (T item) -> {
- 			return createCell(item);
- 		});
- 		
-        // bind the children of this view to the tagNode list
- 		Bindings.bindContent(this.layout.getChildren(), this.mapping);
+        // the cells that are shown depend on the items and the
+        // scroll position so update them when either changes
+        this.items.addListener((Observable obs) -> this.layout.requestLayout());
+        this.vvalueProperty().addListener((obs, ov, nv) -> this.layout.requestLayout());
+        this.hvalueProperty().addListener((obs, ov, nv) -> this.layout.requestLayout());
+        this.viewportBoundsProperty().addListener((obs, ov, nv) -> this.layout.requestLayout());
         
  		this.layout.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
  			if (!e.isConsumed() && (e.getButton() == MouseButton.PRIMARY || e.getButton() == MouseButton.SECONDARY) && e.isStillSincePress()) {
@@ -216,21 +222,10 @@ public class FlowListView<T> extends FastScrollPane {
 	 				this.dragRect.setHeight(h);
 	 				this.dragRect.setVisible(true);
 	 				
-	 				// select anything under the rect
-	 				List<FlowListCell<T>> nodes = new ArrayList<FlowListCell<T>>();
-	 				for (FlowListCell<T> node : this.mapping) {
-	 					if (node.getBoundsInParent().intersects(x, y, w, h)) {
-	 						nodes.add(node);
-	 					}
-	 				}
-	 				
-					// make sure the items selected have actually changed
-	 				// so we don't flood the listeners
-	 				List<T> items = nodes.stream().map(n -> n.getData()).collect(Collectors.toList());
-	 				if (!items.containsAll(this.selection.getSelectedItems()) || 
-	 					!this.selection.getSelectedItems().containsAll(items)) {
-						this.selection.selectCellsOnly(nodes);
-	 				}
+	 				// select anything under the rect (the selection model
+	 				// checks if it's actually changed so we don't flood
+	 				// the listeners)
+	 				this.selection.selectOnly(this.layout.getItemsInArea(x, y, w, h));
 	 			}
  			}
  		});
@@ -277,6 +272,9 @@ public class FlowListView<T> extends FastScrollPane {
 	
 	/**
 	 * Creates a cell using the given cell factory and wires up events.
+	 * <p>
+	 * The events use the cell's current item since the cell will be reused
+	 * for other items.
 	 * @param item the item
 	 * @return {@link FlowListCell}
 	 */
@@ -289,14 +287,14 @@ public class FlowListView<T> extends FastScrollPane {
     		public void handle(MouseEvent event) {
     			if (!event.isConsumed() && (event.getButton() == MouseButton.PRIMARY || event.getButton() == MouseButton.SECONDARY) && event.isStillSincePress()) {
     				selection.handle(cell, event);
-    				currentCell = cell;
+    				currentItem = cell.getData();
     			}
     		}
     	});
     	cell.addEventHandler(MouseEvent.MOUSE_ENTERED, new EventHandler<MouseEvent>() {
 			@Override
 			public void handle(MouseEvent event) {
-				if (!selection.isCellSelected(cell)) {
+				if (!selection.isSelected(cell.getData())) {
 					cell.pseudoClassStateChanged(HOVER, true);
 				}
 			}
@@ -304,7 +302,7 @@ public class FlowListView<T> extends FastScrollPane {
     	cell.addEventHandler(MouseEvent.MOUSE_EXITED, new EventHandler<MouseEvent>() {
 			@Override
 			public void handle(MouseEvent event) {
-				if (!selection.isCellSelected(cell)) {
+				if (!selection.isSelected(cell.getData())) {
 					cell.pseudoClassStateChanged(HOVER, false);
 				}
 			}
@@ -314,11 +312,12 @@ public class FlowListView<T> extends FastScrollPane {
 	}
 	
 	/**
-	 * Returns the children of this view's content.
-	 * @return ObservableList&lt;Node&gt;
+	 * Updates the selected state of the cells currently in use.
 	 */
-	protected ObservableList<Node> getLayoutChildren() {
-		return this.layout.getChildren();
+	void updateCellStates() {
+		for (FlowListCell<T> cell : this.layout.active.values()) {
+			this.selection.updateCellState(cell);
+		}
 	}
 	
 	/**
@@ -328,7 +327,6 @@ public class FlowListView<T> extends FastScrollPane {
 	 * down keys along with the shift modifier.
 	 * @param event the event
 	 */
-	@SuppressWarnings("unchecked")
 	private void handleKeyEvent(KeyEvent event) {
 		KeyCode code = event.getCode();
 		Orientation orientation = this.layout.getOrientation();
@@ -349,92 +347,67 @@ public class FlowListView<T> extends FastScrollPane {
 		if (code != KeyCode.RIGHT && code != KeyCode.LEFT && code != KeyCode.UP && code != KeyCode.DOWN) {
 			return;
 		}
+		
+		List<T> items = this.getItems();
 
 		// check for shift down, which indicates a range selection
 		boolean rangeSelect = false;
 		int startIndex = -1;
 		if (event.isShiftDown()) {
 			rangeSelect = true;
-			if (this.startCell == null && this.currentCell != null) {
-				this.startCell = this.currentCell;
+			if (this.startItem == null && this.currentItem != null) {
+				this.startItem = this.currentItem;
 			}
-			if (this.startCell != null) {
-				startIndex = this.getLayoutChildren().indexOf(this.startCell);
+			if (this.startItem != null) {
+				startIndex = items.indexOf(this.startItem);
 			}
 		} else {
-			this.startCell = null;
+			this.startItem = null;
 		}
 		
 		// get the number of items
-		int size = this.getLayoutChildren().size();
-		if (this.currentCell == null) {
-			// no cell has been focused by the key events yet
+		int size = items.size();
+		int index = this.currentItem != null ? items.indexOf(this.currentItem) : -1;
+		if (index < 0) {
+			// no item has been focused by the key events yet
 			if (size > 0) {
-				// there are cells to select, so select the first
-				this.currentCell = (FlowListCell<T>) this.getLayoutChildren().get(0);
-				this.selection.selectCell(this.currentCell);
+				// there are items to select, so select the first
+				index = 0;
+				this.currentItem = items.get(index);
+				this.selection.select(this.currentItem);
 			}
 		} else {
-			// otherwise, start from the last focused cell
-			int index = this.getLayoutChildren().indexOf(this.currentCell);
+			// otherwise, start from the last focused item
+			int next = -1;
 			if ((orientation == Orientation.HORIZONTAL && code == KeyCode.RIGHT) || 
 				(orientation == Orientation.VERTICAL && code == KeyCode.DOWN)) {
 				// in either of these cases we just need to select the next item in the list
-				index++;
-				if (index < size) {
-					this.currentCell = (FlowListCell<T>) this.getLayoutChildren().get(index);
-					if (rangeSelect && startIndex >= 0) {
-						this.selection.selectCellsOnly(this.getRange(startIndex, index));
-					} else {
-						this.selection.selectCellOnly(this.currentCell);
-					}
-				}
+				next = index + 1;
 			} else if ((orientation == Orientation.HORIZONTAL && code == KeyCode.LEFT) || 
 					   (orientation == Orientation.VERTICAL && code == KeyCode.UP)) {
 				// in either of these case we just need to select the previous item in the list
-				index--;
-				if (index >= 0) {
-					this.currentCell = (FlowListCell<T>) this.getLayoutChildren().get(index);
-					if (rangeSelect && startIndex >= 0) {
-						this.selection.selectCellsOnly(this.getRange(startIndex, index));
-					} else {
-						this.selection.selectCellOnly(this.currentCell);
-					}
-				}
+				next = index - 1;
 			} else {
 				// in this case we are jumping rows or columns
-				int ind = this.getNextCellIndex(index, code);
-				int tn = this.items.size();
-				if (ind >= 0 && ind < tn) {
-					this.currentCell = (FlowListCell<T>) this.getLayoutChildren().get(ind);
-					if (rangeSelect && startIndex >= 0) {
-						this.selection.selectCellsOnly(this.getRange(startIndex, ind));
-					} else {
-						this.selection.selectCellOnly(this.currentCell);
-					}
+				next = this.getNextItemIndex(index, code);
+			}
+			
+			if (next >= 0 && next < size) {
+				index = next;
+				this.currentItem = items.get(index);
+				if (rangeSelect && startIndex >= 0) {
+					this.selection.selectRange(startIndex, index);
+				} else {
+					this.selection.selectOnly(this.currentItem);
 				}
 			}
 		}
 
-		if (this.currentCell != null) {
-			this.scrollToCell(this.currentCell);
+		if (index >= 0 && index < size) {
+			this.scrollToIndex(index);
 		}
 	}
 	
-	/**
-	 * Returns a sublist of this list's nodes.
-	 * @param i index a
-	 * @param j index b
-	 * @return List&lt;{@link FlowListCell}&lt;T&gt;&gt;
-	 */
-	@SuppressWarnings("unchecked")
-	private List<FlowListCell<T>> getRange(int i, int j) {
-		return this.getLayoutChildren().subList(i < j ? i : j, (i < j ? j : i) + 1)
-			.stream()
-			.map(n -> (FlowListCell<T>)n)
-			.collect(Collectors.toList());
-	}
-	
 	// UI related helpers
 	
 	/**
@@ -468,45 +441,41 @@ public class FlowListView<T> extends FastScrollPane {
 	}
 	
 	/**
-	 * Returns the index of the next cell based on the given key code.
+	 * Returns the index of the next item based on the given key code.
 	 * <p>
 	 * The key code should be one of DOWN, LEFT, RIGHT, or UP.
 	 * @param index the current item index
 	 * @param code the key code representing the direction
 	 * @return int
 	 */
-	private int getNextCellIndex(int index, KeyCode code) {
+	private int getNextItemIndex(int index, KeyCode code) {
 		Orientation orientation = this.layout.getOrientation();
 		
-		// determine the tile layout and compute the index of the desired item
-		double th = this.layout.getTileHeight() + this.layout.getVgap();
-		double tw = this.layout.getTileWidth() + this.layout.getHgap();
-		double h = this.layout.getHeight() - this.layout.getPadding().getTop() - this.layout.getPadding().getBottom();
-		double w = this.layout.getWidth() - this.layout.getPadding().getLeft() - this.layout.getPadding().getRight();
-
-		int npr = (int) Math.floor(w / tw);
-		int npc = (int) Math.floor(h / th);
+		// the number of items per row (or column)
+		int n = this.layout.getItemsPerLine();
 
 		int ind = -1;
 		if (orientation == Orientation.HORIZONTAL && code == KeyCode.DOWN) {
-			ind = index + npr;
+			ind = index + n;
 		} else if (orientation == Orientation.HORIZONTAL && code == KeyCode.UP) {
-			ind = index - npr;
+			ind = index - n;
 		} else if (orientation == Orientation.VERTICAL && code == KeyCode.RIGHT) {
-			ind = index + npc;
-		} else if (orientation == Orientation.VERTICAL && code == KeyCode.UP) {
-			ind = index - npc;
+			ind = index + n;
+		} else if (orientation == Orientation.VERTICAL && code == KeyCode.LEFT) {
+			ind = index - n;
 		}
 
 		return ind;
 	}
 	
 	/**
-	 * Scrolls the scrollpane to the given cell such that it is fully within the
-	 * viewport.
-	 * @param cell the cell to scroll to
+	 * Scrolls the scrollpane to the item at the given index such that it is 
+	 * fully within the viewport.
+	 * <p>
+	 * The item may not have a cell yet so this is done using the tile bounds.
+	 * @param index the index of the item to scroll to
 	 */
-	private void scrollToCell(FlowListCell<T> cell) {
+	private void scrollToIndex(int index) {
 		Bounds vb = this.getViewportBounds();
 		double sx = this.getHvalue();
 		double sy = this.getVvalue();
@@ -517,7 +486,7 @@ public class FlowListView<T> extends FastScrollPane {
 		double dx = (w - vb.getWidth()) * sx;
 		double dy = (h - vb.getHeight()) * sy;
 		
-		Bounds cb = this.layout.getLocalToParentTransform().transform(cell.getBoundsInParent());
+		Bounds cb = this.layout.getLocalToParentTransform().transform(this.layout.getTileBounds(index));
 
 		// if the view bounds is smaller than the tile size, then we want to scroll to the top/left of the tile
 		// otherwise we want to scroll to the bottom/right of the tile
@@ -548,6 +517,305 @@ public class FlowListView<T> extends FastScrollPane {
 		}
 	}
 	
+	/**
+	 * A {@link TilePane} that only has children for the items that are visible.
+	 * <p>
+	 * The tile pane is used for its CSS properties (padding, gaps, tile alignment)
+	 * and its tile size computation (the largest managed child).  The layout and
+	 * preferred size along the scroll direction are computed from the number of
+	 * items instead of the children.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private final class VirtualTilePane extends TilePane {
+		/** The cells in use by item */
+		private final Map<T, FlowListCell<T>> active = new IdentityHashMap<>();
+		
+		/** The cells that aren't in use (they are hidden, but still children) */
+		private final Deque<FlowListCell<T>> pool = new ArrayDeque<>();
+		
+		/* (non-Javadoc)
+		 * @see javafx.scene.layout.TilePane#layoutChildren()
+		 */
+		@Override
+		protected void layoutChildren() {
+			List<T> items = getItems();
+			int n = items != null ? items.size() : 0;
+			
+			// we need at least one cell to know the tile size
+			if (n > 0 && this.getChildren().isEmpty()) {
+				this.release(this.acquire(items.get(0)));
+			}
+			
+			// figure out what items are (nearly) visible
+			int from = 0;
+			int to = 0;
+			int visibleFrom = 0;
+			int visibleTo = 0;
+			double line = this.getLineSize();
+			if (n > 0 && line > 0) {
+				boolean horizontal = this.getOrientation() == Orientation.HORIZONTAL;
+				Insets insets = this.getInsets();
+				Bounds vb = getViewportBounds();
+				
+				double extent, offset, start;
+				if (horizontal) {
+					extent = vb.getHeight();
+					offset = Math.max(0, this.getHeight() - extent) * getVvalue();
+					start = insets.getTop();
+				} else {
+					extent = vb.getWidth();
+					offset = Math.max(0, this.getWidth() - extent) * getHvalue();
+					start = insets.getLeft();
+				}
+				
+				int perLine = this.getItemsPerLine();
+				int first = Math.max(0, (int)Math.floor((offset - start) / line));
+				int last = Math.max(0, (int)Math.floor((offset + extent - start) / line));
+				visibleFrom = (int)Math.min(n, (long)first * perLine);
+				visibleTo = (int)Math.min(n, ((long)last + 1) * perLine);
+				from = (int)Math.min(n, (long)Math.max(0, first - BUFFER_LINES) * perLine);
+				to = (int)Math.min(n, ((long)last + BUFFER_LINES + 1) * perLine);
+			}
+			
+			// keep the cells that are already showing an item in the range
+			Map<T, FlowListCell<T>> previous = new IdentityHashMap<>(this.active);
+			this.active.clear();
+			List<T> missing = new ArrayList<>();
+			List<T> missingBuffer = new ArrayList<>();
+			for (int i = from; i < to; i++) {
+				T item = items.get(i);
+				FlowListCell<T> cell = previous.remove(item);
+				if (cell != null) {
+					this.active.put(item, cell);
+				} else if (i >= visibleFrom && i < visibleTo) {
+					missing.add(item);
+				} else {
+					missingBuffer.add(item);
+				}
+			}
+			
+			// release the others so they can be reused for the missing ones
+			for (FlowListCell<T> cell : previous.values()) {
+				this.release(cell);
+			}
+			
+			// fill the visible ones first so that any work the cells 
+			// start (like loading images) is done for them first
+			missing.addAll(missingBuffer);
+			for (T item : missing) {
+				this.active.put(item, this.acquire(item));
+			}
+			
+			// drop any extra cells we are holding on to
+			int max = Math.max(MINIMUM_POOL_SIZE, this.active.size());
+			if (this.pool.size() > max) {
+				List<FlowListCell<T>> remove = new ArrayList<>();
+				while (this.pool.size() > max) {
+					remove.add(this.pool.pop());
+				}
+				this.getChildren().removeAll(remove);
+			}
+			
+			// position the cells
+			double tw = this.getTileWidth();
+			double th = this.getTileHeight();
+			Pos alignment = this.getTileAlignment();
+			for (int i = from; i < to; i++) {
+				FlowListCell<T> cell = this.active.get(items.get(i));
+				if (cell != null) {
+					Bounds b = this.getTileBounds(i);
+					this.layoutInArea(cell, b.getMinX(), b.getMinY(), tw, th, 0, alignment.getHpos(), alignment.getVpos());
+				}
+			}
+		}
+		
+		/**
+		 * Returns a cell for the given item, reusing one if possible.
+		 * @param item the item
+		 * @return {@link FlowListCell}
+		 */
+		private FlowListCell<T> acquire(T item) {
+			FlowListCell<T> cell = this.pool.poll();
+			if (cell == null) {
+				cell = createCell(item);
+				this.getChildren().add(cell);
+				cell.applyCss();
+			} else {
+				cell.setData(item);
+				cell.setVisible(true);
+			}
+			cell.pseudoClassStateChanged(HOVER, false);
+			selection.updateCellState(cell);
+			return cell;
+		}
+		
+		/**
+		 * Hides the given cell and makes it available for reuse.
+		 * @param cell the cell
+		 */
+		private void release(FlowListCell<T> cell) {
+			cell.setVisible(false);
+			this.pool.push(cell);
+		}
+		
+		/**
+		 * Returns the size of a row (or column) of tiles including the gap.
+		 * @return double
+		 */
+		private double getLineSize() {
+			if (this.getOrientation() == Orientation.HORIZONTAL) {
+				return this.getTileHeight() + this.getVgap();
+			}
+			return this.getTileWidth() + this.getHgap();
+		}
+		
+		/**
+		 * Returns the number of items in each row (or column) for the given available space.
+		 * @param length the width (or height) of the pane
+		 * @return int
+		 */
+		private int getItemsPerLine(double length) {
+			Insets insets = this.getInsets();
+			double space, tile, gap;
+			if (this.getOrientation() == Orientation.HORIZONTAL) {
+				space = length - insets.getLeft() - insets.getRight();
+				tile = this.getTileWidth();
+				gap = this.getHgap();
+			} else {
+				space = length - insets.getTop() - insets.getBottom();
+				tile = this.getTileHeight();
+				gap = this.getVgap();
+			}
+			if (tile + gap <= 0) {
+				return 1;
+			}
+			return Math.max(1, (int)Math.floor((space + gap) / (tile + gap)));
+		}
+		
+		/**
+		 * Returns the number of items in each row (or column).
+		 * @return int
+		 */
+		public int getItemsPerLine() {
+			return this.getItemsPerLine(this.getOrientation() == Orientation.HORIZONTAL ? this.getWidth() : this.getHeight());
+		}
+		
+		/**
+		 * Returns the bounds of the tile for the item at the given index.
+		 * @param index the index
+		 * @return Bounds
+		 */
+		public Bounds getTileBounds(int index) {
+			Insets insets = this.getInsets();
+			double tw = this.getTileWidth();
+			double th = this.getTileHeight();
+			int perLine = this.getItemsPerLine();
+			int line = index / perLine;
+			int position = index % perLine;
+			if (this.getOrientation() == Orientation.HORIZONTAL) {
+				return new BoundingBox(
+						insets.getLeft() + position * (tw + this.getHgap()),
+						insets.getTop() + line * (th + this.getVgap()),
+						tw, th);
+			}
+			return new BoundingBox(
+					insets.getLeft() + line * (tw + this.getHgap()),
+					insets.getTop() + position * (th + this.getVgap()),
+					tw, th);
+		}
+		
+		/**
+		 * Returns the items whose tiles intersect the given area.
+		 * @param x the x coordinate
+		 * @param y the y coordinate
+		 * @param w the width
+		 * @param h the height
+		 * @return List&lt;T&gt;
+		 */
+		public List<T> getItemsInArea(double x, double y, double w, double h) {
+			List<T> result = new ArrayList<>();
+			List<T> items = getItems();
+			int n = items != null ? items.size() : 0;
+			double tw = this.getTileWidth() + this.getHgap();
+			double th = this.getTileHeight() + this.getVgap();
+			if (n == 0 || tw <= 0 || th <= 0) {
+				return result;
+			}
+			
+			boolean horizontal = this.getOrientation() == Orientation.HORIZONTAL;
+			int perLine = this.getItemsPerLine();
+			Insets insets = this.getInsets();
+			
+			// the range of columns and rows under the area
+			int c0 = Math.max(0, (int)Math.floor((x - insets.getLeft()) / tw));
+			int c1 = (int)Math.floor((x + w - insets.getLeft()) / tw);
+			int r0 = Math.max(0, (int)Math.floor((y - insets.getTop()) / th));
+			int r1 = (int)Math.floor((y + h - insets.getTop()) / th);
+			if (horizontal) {
+				c1 = Math.min(c1, perLine - 1);
+			} else {
+				r1 = Math.min(r1, perLine - 1);
+			}
+			
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					long index = horizontal ? (long)r * perLine + c : (long)c * perLine + r;
+					if (index >= n) {
+						continue;
+					}
+					// exclude the gaps between the tiles
+					if (this.getTileBounds((int)index).intersects(x, y, w, h)) {
+						result.add(items.get((int)index));
+					}
+				}
+			}
+			
+			return result;
+		}
+		
+		/* (non-Javadoc)
+		 * @see javafx.scene.layout.TilePane#computePrefHeight(double)
+		 */
+		@Override
+		protected double computePrefHeight(double width) {
+			if (this.getOrientation() == Orientation.HORIZONTAL) {
+				Insets insets = this.getInsets();
+				return insets.getTop() + insets.getBottom() + this.getLength(width >= 0 ? width : this.getWidth(), this.getTileHeight(), this.getVgap());
+			}
+			return super.computePrefHeight(width);
+		}
+		
+		/* (non-Javadoc)
+		 * @see javafx.scene.layout.TilePane#computePrefWidth(double)
+		 */
+		@Override
+		protected double computePrefWidth(double height) {
+			if (this.getOrientation() == Orientation.VERTICAL) {
+				Insets insets = this.getInsets();
+				return insets.getLeft() + insets.getRight() + this.getLength(height >= 0 ? height : this.getHeight(), this.getTileWidth(), this.getHgap());
+			}
+			return super.computePrefWidth(height);
+		}
+		
+		/**
+		 * Returns the length along the scroll direction of all the tiles.
+		 * @param length the length across the scroll direction
+		 * @param tile the tile size along the scroll direction
+		 * @param gap the gap along the scroll direction
+		 * @return double
+		 */
+		private double getLength(double length, double tile, double gap) {
+			List<T> items = getItems();
+			int n = items != null ? items.size() : 0;
+			if (n == 0 || tile <= 0) {
+				return 0;
+			}
+			int lines = (n + this.getItemsPerLine(length) - 1) / this.getItemsPerLine(length);
+			return lines * tile + (lines - 1) * gap;
+		}
+	}
+	
 	// properties
 	
 	/**
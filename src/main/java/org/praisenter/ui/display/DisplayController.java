@@ -773,6 +773,33 @@ public final class DisplayController extends BorderPane implements ActionPane {
 			}
 		});
 		
+		// build the slides for every section of the song ahead of time so that
+		// moving between sections doesn't have to lay them out
+		final Runnable prepareSongSlides = () -> {
+			Slide slide = cmbSongSlideTemplate.getValue();
+			List<SongReferenceTextStore> data = songNavigationPane.getSectionValuesUnmodifiable();
+			
+			prepareSlidesOnTarget(slide, data);
+			
+			List<Slide> slides = new ArrayList<>();
+			if (slide != null) {
+				for (SongReferenceTextStore item : data) {
+					Slide slideCopy = slide.copy();
+					slideCopy.setPlaceholderData(item.copy());
+					slideCopy.fit(configuration.getWidth(), configuration.getHeight());
+					slides.add(slideCopy);
+				}
+			}
+			slideView.prepareAll(slides);
+		};
+		
+		songNavigationPane.getSectionValuesUnmodifiable().addListener((Change<? extends SongReferenceTextStore> c) -> {
+			prepareSongSlides.run();
+		});
+		cmbSongSlideTemplate.valueProperty().addListener((obs, ov, nv) -> {
+			prepareSongSlides.run();
+		});
+		
 		cmbNotificationTemplate.valueProperty().addListener((obs, ov, nv) -> {
 			if (nv != null) {
 				configuration.setNotificationTemplateId(nv.getId());
@@ -975,6 +1002,13 @@ public final class DisplayController extends BorderPane implements ActionPane {
 		}
 	}
 	
+	private void prepareSlidesOnTarget(final Slide slide, final List<? extends TextStore> data) {
+		this.target.prepareSlides(slide, data);
+		for (DisplayTarget target : this.controlledDisplays) {
+			target.prepareSlides(slide, data);
+		}
+	}
+	
 	private void clearTarget() {
 		this.target.clear();
 		for (DisplayTarget target : this.controlledDisplays) {
@@ -1,5 +1,7 @@
 package org.praisenter.ui.display;
 
+import java.util.List;
+
 import org.praisenter.data.TextStore;
 import org.praisenter.data.slide.Slide;
 import org.praisenter.data.workspace.DisplayConfiguration;
@@ -10,6 +12,7 @@ public interface DisplayTarget extends Comparable<DisplayTarget> {
 	public void displaySlide(final Slide slide, final TextStore data, boolean transtion);
 	public void displayNotification(final Slide slide, final TextStore data);
 	public void displayNotification(final Slide slide, final TextStore data, boolean transtion);
+	public void prepareSlides(final Slide slide, final List<? extends TextStore> data);
 	public void clear();
 	public void clear(boolean transition);
 	
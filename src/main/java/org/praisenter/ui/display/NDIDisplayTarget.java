@@ -2,7 +2,9 @@ package org.praisenter.ui.display;
 
 import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.PriorityBlockingQueue;
@@ -18,6 +20,7 @@ import org.praisenter.data.slide.media.MediaComponent;
 import org.praisenter.data.slide.media.MediaObject;
 import org.praisenter.data.workspace.DisplayConfiguration;
 import org.praisenter.ui.GlobalContext;
+import org.praisenter.ui.TimeKeeper;
 import org.praisenter.ui.slide.SlideMode;
 import org.praisenter.ui.slide.SlideView;
 
@@ -57,6 +60,7 @@ public final class NDIDisplayTarget implements DisplayTarget {
 	private final PriorityBlockingQueue<NDIVideoFrame> frameQueue;
 	private final Thread frameConsumer;
 	private final ChangeListener<Boolean> activeListener;
+	private final ChangeListener<LocalDateTime> tickListener;
 	
     private final int width;
     private final int height;
@@ -84,6 +88,7 @@ public final class NDIDisplayTarget implements DisplayTarget {
     private Instant lastSlide;
     private Instant lastNotification;
     private long transitionCooldownCounter;
+    private boolean tickPending;
     
 	public NDIDisplayTarget(GlobalContext context, DisplayConfiguration configuration) {
 		this.context = context;
@@ -163,6 +168,13 @@ public final class NDIDisplayTarget implements DisplayTarget {
 		};
 		configuration.activeProperty().addListener(this.activeListener);
 		
+		// content like countdowns and clocks only changes when the time
+		// keeper ticks (once a second) so we only need to render then
+		this.tickListener = (obs, ov, nv) -> {
+			this.tickPending = true;
+		};
+		TimeKeeper.currentTimeProperty().addListener(this.tickListener);
+		
 		final SnapshotParameters params = new SnapshotParameters();
 		params.setViewport(new Rectangle2D(0, 0, this.width, this.height));
 		params.setFill(Color.TRANSPARENT);
@@ -198,7 +210,15 @@ public final class NDIDisplayTarget implements DisplayTarget {
 		}
 		
 		// if either have video, we have to keep rendering
-		if (this.slideView.hasAnimatedContent() || this.notificationView.hasAnimatedContent()) {
+		if (this.slideView.hasVideoMedia() || this.notificationView.hasVideoMedia()) {
+			return true;
+		}
+		
+		// any other animated content (countdowns, date/time) only changes
+		// when the time keeper ticks, so render once per tick
+		boolean tick = this.tickPending;
+		this.tickPending = false;
+		if (tick && (this.slideView.hasAnimatedContent() || this.notificationView.hasAnimatedContent())) {
 			return true;
 		}
 		
@@ -356,6 +376,7 @@ public final class NDIDisplayTarget implements DisplayTarget {
 		this.slideView.dispose();
 		this.container.getChildren().clear();
 		this.configuration.activeProperty().removeListener(this.activeListener);
+		TimeKeeper.currentTimeProperty().removeListener(this.tickListener);
 		
 		// stop the frame producer
 		this.frameProducer.stop();
@@ -413,6 +434,29 @@ public final class NDIDisplayTarget implements DisplayTarget {
 		this.slideView.render(copy, copy.getPlaceholderData(), transtion);
 	}
 	
+	@Override
+	public void prepareSlides(final Slide slide, final List<? extends TextStore> data) {
+		if (slide == null) {
+			this.slideView.clearPrepared();
+			return;
+		}
+		
+		double w = this.configuration.getWidth();
+		double h = this.configuration.getHeight();
+		
+		// set up each slide the same way as displaySlide so they can be matched
+		List<Slide> slides = new ArrayList<>();
+		for (TextStore item : data) {
+			Slide copy = slide.copy();
+			copy.setPlaceholderData(item.copy());
+			copy.fit(w, h);
+			this.muteAllAudio(copy);
+			slides.add(copy);
+		}
+		
+		this.slideView.prepareAll(slides);
+	}
+	
 	@Override
 	public void displayNotification(Slide slide, TextStore data) {
 		this.displayNotification(slide, data, true);
@@ -1,6 +1,7 @@
 package org.praisenter.ui.display;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.praisenter.data.TextStore;
 import org.praisenter.data.slide.Slide;
@@ -175,6 +176,28 @@ public final class ScreenDisplayTarget extends Stage implements DisplayTarget {
 		this.toFront();
 	}
 	
+	@Override
+	public void prepareSlides(final Slide slide, final List<? extends TextStore> data) {
+		if (slide == null) {
+			this.slideView.clearPrepared();
+			return;
+		}
+		
+		double w = this.configuration.getWidth();
+		double h = this.configuration.getHeight();
+		
+		// set up each slide the same way as displaySlide so they can be matched
+		List<Slide> slides = new ArrayList<>();
+		for (TextStore item : data) {
+			Slide copy = slide.copy();
+			copy.setPlaceholderData(item.copy());
+			copy.fit(w, h);
+			slides.add(copy);
+		}
+		
+		this.slideView.prepareAll(slides);
+	}
+	
 	@Override
 	public void displayNotification(Slide slide, TextStore data) {
 		this.displayNotification(slide, data, true);
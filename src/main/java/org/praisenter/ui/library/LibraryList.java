@@ -3,7 +3,6 @@ package org.praisenter.ui.library;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.Collator;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -49,9 +48,9 @@ import org.praisenter.ui.controls.WindowHelper;
 import org.praisenter.ui.events.ActionStateChangedEvent;
 import org.praisenter.ui.events.FlowListViewSelectionEvent;
 import org.praisenter.ui.translations.Translations;
-import org.praisenter.utility.StringManipulator;
 
 import atlantafx.base.controls.CustomTextField;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
@@ -92,6 +91,7 @@ import javafx.scene.layout.BorderPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.Duration;
 
 public final class LibraryList extends BorderPane implements ActionPane {
 	private static final String LIBRARY_LIST_CSS = "p-library-list";
@@ -101,7 +101,9 @@ public final class LibraryList extends BorderPane implements ActionPane {
 	private static final String LIBRARY_LIST_SEARCH_CSS = "p-library-list-search";
 	
 	private static final Logger LOGGER = LogManager.getLogger();
-	private static final Collator COLLATOR = Collator.getInstance();
+	
+	/** The time to wait after the last keystroke before filtering, in milliseconds */
+	private static final double FILTER_DELAY = 150;
 	
 	private final GlobalContext context;
 	private final Node sortAsc = Icons.getIcon(Icons.SORT_ASCENDING);
@@ -147,7 +149,7 @@ public final class LibraryList extends BorderPane implements ActionPane {
 		this.sortVisible = new SimpleBooleanProperty(true);
 		
 		this.view = new FlowListView<>(orientation, (item) -> {
-			LibraryListCell cell = new LibraryListCell(item);
+			LibraryListCell cell = new LibraryListCell(context.getThumbnailLoader(), item);
 			
 			// support drag n drop with library items
 			// in particular the slide editor
@@ -185,96 +187,38 @@ public final class LibraryList extends BorderPane implements ActionPane {
 		});
 		this.view.getStyleClass().add(LIBRARY_LIST_ITEMS_CSS);
 		
-		// override the selection model's identity provider to check the 
+		// override the selection model's key provider to use the 
 		// ids instead of object equality.  This is because of the way the
 		// library is managed -> we always create a copy of an item, update
 		// it, then overwrite the item in the library - so object equality
 		// is not preserved.  To ensure the selected item stays selected
 		// under these conditions we need to use the identity of the object
 		// instead of it's object reference
-		this.view.getSelectionModel().setIdentityProvider((a, b) -> {
-			if (a == b) return true;
-			if (a == null) return false;
-			if (b == null) return false;
-			if (a.getId().equals(b.getId())) return true;
-			return false;
-		});
+		this.view.getSelectionModel().setKeyProvider(Persistable::getId);
 		
 		this.source = FXCollections.observableArrayList();
+		// NOTE: the index has to see changes to the source before the filtered list
+		final LibraryListIndex index = new LibraryListIndex(this.source);
 		final FilteredList<Persistable> filtered = new FilteredList<Persistable>(this.source, (p) -> true);
 		final SortedList<Persistable> sorted = new SortedList<>(filtered, (a, b) -> 0);
 		
 		final Runnable filterListener = () -> {
-			final String search = this.textFilter.get();
-			final String term = !StringManipulator.isNullOrEmpty(search) ? search.trim().toLowerCase() : null;
 			final Option<LibraryListType> optTypeFilter = this.typeFilter.get();
 			final LibraryListType typeFilter = optTypeFilter != null ? optTypeFilter.getValue() : null;
-			filtered.setPredicate((i) -> {
-				if (i == null) return false;
-				if (typeFilter != null) {
-					if (typeFilter != LibraryListType.from(i)) {
-						return false;
-					}
-				}
-				
-				// single name search (more complex searching will be handled elsewhere)
-				if (!StringManipulator.isNullOrEmpty(search)) {
-					boolean matchesName = i.getName().toLowerCase().contains(term);
-					boolean matchesAnyTag = i.getTags().stream().anyMatch(t -> t.getName().toLowerCase().contains(term));
-					if (!matchesAnyTag && !matchesName) {
-						return false;
-					}
-				}
-				
-				return true;
-			});
+			filtered.setPredicate(index.filter(this.textFilter.get(), typeFilter));
 		};
 		
 		final Runnable sortListner = () -> {
 			final LibraryListSortField sortField = this.sortField.get().getValue();
 			final boolean sortAscending = this.sortAscending.get();
-			sorted.setComparator((a, b) -> {
-				if (a == b) return 0;
-				if (a == null) return 1;
-				if (b == null) return -1;
-				
-				String an = a.getName();
-				String bn = b.getName();
-				
-				if (an == null) an = "";
-				if (bn == null) bn = "";
-				
-				int value = 0;
-				if (sortField == null || sortField == LibraryListSortField.NAME) {
-					// sort by name
-					value = COLLATOR.compare(an, bn);
-				} else if (sortField == LibraryListSortField.TYPE) {
-					// sort by type, then name
-					LibraryListType at = LibraryListType.from(a);
-					LibraryListType bt = LibraryListType.from(b);
-					value = at.getOrder() - bt.getOrder();
-					if (value == 0) {
-						value = COLLATOR.compare(an, bn);
-					}
-				} else if (sortField == LibraryListSortField.CREATED_ON) {
-					// sort by created
-					Instant at = a.getCreatedDate();
-					Instant bt = b.getCreatedDate();
-					value = at.compareTo(bt);
-				} else if (sortField == LibraryListSortField.MODIFIED_ON) {
-					// sort by created
-					Instant at = a.getModifiedDate();
-					Instant bt = b.getModifiedDate();
-					value = at.compareTo(bt);
-				} else {
-					throw new RuntimeException("The sort field '" + sortField + "' is not supported.");
-				}
-				
-				return value * (sortAscending ? 1 : -1);
-			});
+			sorted.setComparator(index.comparator(sortField, sortAscending));
 		};
 		
-		this.textFilter.addListener((obs, ov, nv) -> filterListener.run());
+		// wait for the user to stop typing before filtering
+		final PauseTransition filterDelay = new PauseTransition(Duration.millis(FILTER_DELAY));
+		filterDelay.setOnFinished(e -> filterListener.run());
+		
+		this.textFilter.addListener((obs, ov, nv) -> filterDelay.playFromStart());
 		this.typeFilter.addListener((obs, ov, nv) -> filterListener.run());
 		this.sortField.addListener((obs, ov, nv) -> sortListner.run());
 		this.sortAscending.addListener((obs, ov, nv) -> sortListner.run());
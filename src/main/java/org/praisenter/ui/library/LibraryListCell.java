@@ -1,5 +1,8 @@
 package org.praisenter.ui.library;
 
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.data.Persistable;
@@ -8,9 +11,9 @@ import org.praisenter.data.media.MediaType;
 import org.praisenter.data.media.ReadOnlyMedia;
 import org.praisenter.data.slide.ReadOnlySlide;
 import org.praisenter.data.song.ReadOnlySong;
+import org.praisenter.ui.ThumbnailLoader;
 import org.praisenter.ui.controls.FlowListCell;
 
-import javafx.beans.binding.Bindings;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -29,61 +32,120 @@ final class LibraryListCell extends FlowListCell<Persistable> {
 	private static final String LIBRARY_LIST_CELL_SONG_CSS = "p-library-list-cell-song";
 	private static final String LIBRARY_LIST_CELL_SLIDE_CSS = "p-library-list-cell-slide";
 	private static final String LIBRARY_LIST_CELL_LABEL_CSS = "p-library-list-cell-label";
+	private static final String LIBRARY_LIST_CELL_LOADING_CSS = "p-library-list-cell-loading";
+	
+	private final ThumbnailLoader loader;
+	
+	private final ImageView thumb;
+	private final VBox underlay;
+	private final Label label;
+	
+	/** The pending thumbnail request */
+	private CompletableFuture<Image> thumbnail;
 	
-	public LibraryListCell(Persistable data) {
+	public LibraryListCell(ThumbnailLoader loader, Persistable data) {
 		super(data);
 		
+		this.loader = loader;
+		
 		this.getStyleClass().add(LIBRARY_LIST_CELL_CSS);
 		
     	// setup the thumbnail image
-    	final ImageView thumb = new ImageView();
-    	final VBox underlay = new VBox(thumb);
-    	final VBox graphic = new VBox(underlay);
-    	final Label label = new Label();
+    	this.thumb = new ImageView();
+    	this.underlay = new VBox(this.thumb);
+    	final VBox graphic = new VBox(this.underlay);
+    	this.label = new Label();
     	
-    	thumb.getStyleClass().add(LIBRARY_LIST_CELL_THUMBNAIL_CSS);
+    	this.thumb.getStyleClass().add(LIBRARY_LIST_CELL_THUMBNAIL_CSS);
     	graphic.getStyleClass().add(LIBRARY_LIST_CELL_GRAPHIC_CSS);
-    	label.getStyleClass().add(LIBRARY_LIST_CELL_LABEL_CSS);
+    	this.label.getStyleClass().add(LIBRARY_LIST_CELL_LABEL_CSS);
+    	
+    	this.thumb.setPreserveRatio(true);
+    	this.underlay.maxWidthProperty().bind(this.thumb.fitWidthProperty());
+    	this.underlay.maxHeightProperty().bind(this.thumb.fitHeightProperty());
     	
-    	thumb.setPreserveRatio(true);
-    	underlay.maxWidthProperty().bind(thumb.fitWidthProperty());
-    	underlay.maxHeightProperty().bind(thumb.fitHeightProperty());
+    	// the cell is reused for other items as the list is scrolled
+    	this.dataProperty().addListener((obs, ov, nv) -> {
+    		this.update(nv);
+    	});
+    	this.update(data);
     	
+    	// add the image and label to the cell
+    	this.getChildren().addAll(graphic, this.label);
+	}
+	
+	private void update(Persistable data) {
+		// we don't need the last item's thumbnail anymore
+		if (this.thumbnail != null) {
+			this.thumbnail.cancel(true);
+			this.thumbnail = null;
+		}
+		this.thumb.setImage(null);
+		this.label.textProperty().unbind();
+		this.label.setText(null);
+		this.underlay.getStyleClass().removeAll(
+				LIBRARY_LIST_CELL_IMAGE_CSS,
+				LIBRARY_LIST_CELL_AUDIO_CSS,
+				LIBRARY_LIST_CELL_VIDEO_CSS,
+				LIBRARY_LIST_CELL_BIBLE_CSS,
+				LIBRARY_LIST_CELL_SONG_CSS,
+				LIBRARY_LIST_CELL_SLIDE_CSS,
+				LIBRARY_LIST_CELL_LOADING_CSS);
+		
     	if (data instanceof ReadOnlyMedia) {
     		final ReadOnlyMedia media = (ReadOnlyMedia)data;
-    		thumb.imageProperty().bind(Bindings.createObjectBinding(() -> {
-    			return new Image(media.getMediaThumbnailPath().toUri().toURL().toExternalForm());
-    		}, media.mediaThumbnailPathProperty()));
+    		this.loadThumbnail(data, media.getMediaThumbnailPath());
     		
     		if (media.getMediaType() != MediaType.VIDEO) {
-    			underlay.getStyleClass().add(LIBRARY_LIST_CELL_VIDEO_CSS);
+    			this.underlay.getStyleClass().add(LIBRARY_LIST_CELL_VIDEO_CSS);
     		} else if (media.getMediaType() != MediaType.AUDIO) {
-    			underlay.getStyleClass().add(LIBRARY_LIST_CELL_AUDIO_CSS);
+    			this.underlay.getStyleClass().add(LIBRARY_LIST_CELL_AUDIO_CSS);
     		} else if (media.getMediaType() != MediaType.IMAGE) {
-    			underlay.getStyleClass().add(LIBRARY_LIST_CELL_IMAGE_CSS);
+    			this.underlay.getStyleClass().add(LIBRARY_LIST_CELL_IMAGE_CSS);
     		}
-    		label.textProperty().bind(media.nameProperty());
+    		this.label.textProperty().bind(media.nameProperty());
     	} else if (data instanceof ReadOnlySlide) {
     		final ReadOnlySlide slide = (ReadOnlySlide)data;
-    		underlay.getStyleClass().add(LIBRARY_LIST_CELL_SLIDE_CSS);
-    		thumb.imageProperty().bind(Bindings.createObjectBinding(() -> {
-    			return new Image(slide.getThumbnailPath().toUri().toURL().toExternalForm());
-    		}, slide.thumbnailPathProperty()));
-    		label.textProperty().bind(slide.nameProperty());
+    		this.underlay.getStyleClass().add(LIBRARY_LIST_CELL_SLIDE_CSS);
+    		this.loadThumbnail(data, slide.getThumbnailPath());
+    		this.label.textProperty().bind(slide.nameProperty());
     	} else if (data instanceof ReadOnlyBible) {
     		final ReadOnlyBible bible = (ReadOnlyBible)data;
-    		underlay.getStyleClass().add(LIBRARY_LIST_CELL_BIBLE_CSS);
-    		label.textProperty().bind(bible.nameProperty());
+    		this.underlay.getStyleClass().add(LIBRARY_LIST_CELL_BIBLE_CSS);
+    		this.label.textProperty().bind(bible.nameProperty());
     	} else if (data instanceof ReadOnlySong) {
     		final ReadOnlySong song = (ReadOnlySong)data;
-    		underlay.getStyleClass().add(LIBRARY_LIST_CELL_SONG_CSS);
-    		label.textProperty().bind(song.nameProperty());
-    	} else {
+    		this.underlay.getStyleClass().add(LIBRARY_LIST_CELL_SONG_CSS);
+    		this.label.textProperty().bind(song.nameProperty());
+    	} else if (data != null) {
     		LOGGER.warn("Unknown data type: '" + data.getClass() + "'.");
     	}
-    	
-    	// add the image and label to the cell
-    	this.getChildren().addAll(graphic, label);
 	}
 	
+	/**
+	 * Shows the thumbnail at the given path for the given item.
+	 * <p>
+	 * A placeholder is shown until the thumbnail is loaded in the background.
+	 * @param data the item
+	 * @param path the thumbnail path
+	 */
+	private void loadThumbnail(Persistable data, Path path) {
+		final CompletableFuture<Image> future = this.loader.load(data.getId(), data.getModifiedDate(), path);
+		if (future.isDone()) {
+			// it was cached
+			this.thumb.setImage(future.getNow(null));
+			return;
+		}
+		
+		this.thumbnail = future;
+		this.underlay.getStyleClass().add(LIBRARY_LIST_CELL_LOADING_CSS);
+		future.thenAccept(image -> {
+			// make sure the cell hasn't moved on to another item
+			if (this.thumbnail == future) {
+				this.thumbnail = null;
+				this.underlay.getStyleClass().remove(LIBRARY_LIST_CELL_LOADING_CSS);
+				this.thumb.setImage(image);
+			}
+		});
+	}
 }
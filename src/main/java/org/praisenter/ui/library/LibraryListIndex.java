@@ -0,0 +1,344 @@
+package org.praisenter.ui.library;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.praisenter.data.Persistable;
+import org.praisenter.data.Tag;
+import org.praisenter.utility.StringManipulator;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Precomputed filter and sort keys for the items in a {@link LibraryList}.
+ * <p>
+ * The keys for an item (its lower cased name and tags, type, collation key, etc.)
+ * are computed once when it's added to the source list rather than on every
+ * keystroke or comparison.  Items in the library are replaced rather than modified
+ * so it's enough to watch the source list for changes.
+ * <p>
+ * The search text of each item is also indexed by trigram so that a new search
+ * only has to check the items that contain the least common trigram of the term.
+ * When the user keeps typing (the new term contains the last one) only the last
+ * matches are checked.
+ * <p>
+ * This class must be created before any transformation lists (filtered, sorted) of
+ * the source so that it sees changes to the source first.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class LibraryListIndex {
+	/** The length of the indexed substrings */
+	private static final int GRAM = 3;
+
+	/** Separates the name and tags in the search text so that a term can't span them */
+	private static final char SEPARATOR = '\u0000';
+
+	/** The collator used for sorting names */
+	private final Collator collator;
+
+	/** The entries by item */
+	private final Map<Persistable, Entry> entries;
+
+	/** The entries by trigram */
+	private final Map<String, Set<Entry>> grams;
+
+	// the current filter
+
+	/** The normalized search term or null */
+	private String term;
+
+	/** The type or null */
+	private LibraryListType type;
+
+	/** The entries matching the current filter */
+	private Set<Entry> matches;
+
+	/**
+	 * Creates a new index of the given list.
+	 * @param source the list
+	 */
+	public LibraryListIndex(ObservableList<Persistable> source) {
+		this.collator = Collator.getInstance();
+		this.entries = new IdentityHashMap<>();
+		this.grams = new HashMap<>();
+		this.matches = new HashSet<>();
+
+		for (Persistable item : source) {
+			this.add(item);
+		}
+
+		source.addListener((ListChangeListener.Change<? extends Persistable> c) -> {
+			while (c.next()) {
+				if (c.wasPermutated() || c.wasUpdated()) {
+					continue;
+				}
+				for (Persistable item : c.getRemoved()) {
+					this.remove(item);
+				}
+				for (Persistable item : c.getAddedSubList()) {
+					this.add(item);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Normalizes the given text for searching.
+	 * @param text the text
+	 * @return String
+	 */
+	static String normalize(String text) {
+		if (StringManipulator.isNullOrEmpty(text)) {
+			return null;
+		}
+		String normalized = text.trim().toLowerCase(Locale.ROOT);
+		return normalized.isEmpty() ? null : normalized;
+	}
+
+	private void add(Persistable item) {
+		if (item == null || this.entries.containsKey(item)) {
+			return;
+		}
+
+		Entry entry = new Entry(item, this.collator);
+		this.entries.put(item, entry);
+
+		for (String gram : grams(entry.text)) {
+			this.grams.computeIfAbsent(gram, g -> new HashSet<>()).add(entry);
+		}
+
+		if (entry.matches(this.term, this.type)) {
+			this.matches.add(entry);
+		}
+	}
+
+	private void remove(Persistable item) {
+		Entry entry = this.entries.remove(item);
+		if (entry == null) {
+			return;
+		}
+
+		for (String gram : grams(entry.text)) {
+			Set<Entry> set = this.grams.get(gram);
+			if (set != null) {
+				set.remove(entry);
+				if (set.isEmpty()) {
+					this.grams.remove(gram);
+				}
+			}
+		}
+
+		this.matches.remove(entry);
+	}
+
+	/**
+	 * Returns the unique trigrams in the given text.
+	 * @param text the text
+	 * @return Set&lt;String&gt;
+	 */
+	private static Set<String> grams(String text) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			grams.add(text.substring(i, i + GRAM));
+		}
+		return grams;
+	}
+
+	/**
+	 * Sets the filter and returns a new predicate for it.
+	 * <p>
+	 * The predicate reflects items added after this call, so it only needs to
+	 * be set again when the filter changes.
+	 * @param search the search text; null or empty for no search
+	 * @param type the type; null for all types
+	 * @return Predicate&lt;Persistable&gt;
+	 */
+	public Predicate<Persistable> filter(String search, LibraryListType type) {
+		String term = normalize(search);
+
+		if (term == null && type == null) {
+			this.matches = new HashSet<>(this.entries.values());
+		} else {
+			// find the smallest set of items to check
+			Collection<Entry> candidates = this.entries.values();
+
+			// typing more characters can only narrow the results
+			if (type == this.type && term != null && this.term != null && term.contains(this.term)) {
+				candidates = this.matches;
+			}
+
+			// the items containing the rarest trigram of the term
+			if (term != null && term.length() >= GRAM) {
+				for (String gram : grams(term)) {
+					Set<Entry> set = this.grams.get(gram);
+					if (set == null) {
+						candidates = List.of();
+						break;
+					}
+					if (set.size() < candidates.size()) {
+						candidates = set;
+					}
+				}
+			}
+
+			Set<Entry> matches = new HashSet<>();
+			for (Entry entry : candidates) {
+				if (entry.matches(term, type)) {
+					matches.add(entry);
+				}
+			}
+			this.matches = matches;
+		}
+
+		this.term = term;
+		this.type = type;
+
+		// NOTE: this needs to be a new instance every time so that
+		// filtered lists know to apply it again
+		return new Predicate<Persistable>() {
+			@Override
+			public boolean test(Persistable item) {
+				return isMatch(item);
+			}
+		};
+	}
+
+	/**
+	 * Returns true if the given item matches the current filter.
+	 * @param item the item
+	 * @return boolean
+	 */
+	public boolean isMatch(Persistable item) {
+		if (item == null) {
+			return false;
+		}
+		Entry entry = this.entries.get(item);
+		return entry != null && this.matches.contains(entry);
+	}
+
+	/**
+	 * Returns a comparator for the given sort field that uses the precomputed keys.
+	 * @param field the field; null to sort by name
+	 * @param ascending true to sort in ascending order
+	 * @return Comparator&lt;Persistable&gt;
+	 */
+	public Comparator<Persistable> comparator(LibraryListSortField field, boolean ascending) {
+		final Comparator<Entry> comparator;
+		if (field == null || field == LibraryListSortField.NAME) {
+			comparator = (a, b) -> a.name.compareTo(b.name);
+		} else if (field == LibraryListSortField.TYPE) {
+			// sort by type, then name
+			comparator = (a, b) -> {
+				int value = a.type.getOrder() - b.type.getOrder();
+				if (value == 0) {
+					value = a.name.compareTo(b.name);
+				}
+				return value;
+			};
+		} else if (field == LibraryListSortField.CREATED_ON) {
+			comparator = (a, b) -> compare(a.created, b.created);
+		} else if (field == LibraryListSortField.MODIFIED_ON) {
+			comparator = (a, b) -> compare(a.modified, b.modified);
+		} else {
+			throw new RuntimeException("The sort field '" + field + "' is not supported.");
+		}
+
+		final int direction = ascending ? 1 : -1;
+		return (a, b) -> {
+			if (a == b) return 0;
+			if (a == null) return 1;
+			if (b == null) return -1;
+			return comparator.compare(this.getEntry(a), this.getEntry(b)) * direction;
+		};
+	}
+
+	private static int compare(Instant a, Instant b) {
+		if (a == b) return 0;
+		if (a == null) return -1;
+		if (b == null) return 1;
+		return a.compareTo(b);
+	}
+
+	private Entry getEntry(Persistable item) {
+		Entry entry = this.entries.get(item);
+		if (entry == null) {
+			// it's not in the source list, but we can still compare it
+			entry = new Entry(item, this.collator);
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the number of indexed items.
+	 * @return int
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * The precomputed keys for an item.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	private static final class Entry {
+		/** The lower cased name and tag names */
+		private final String text;
+
+		/** The item type */
+		private final LibraryListType type;
+
+		/** The name sort key */
+		private final CollationKey name;
+
+		private final Instant created;
+		private final Instant modified;
+
+		public Entry(Persistable item, Collator collator) {
+			String name = item.getName();
+			if (name == null) name = "";
+
+			List<String> parts = new ArrayList<>();
+			parts.add(name.toLowerCase(Locale.ROOT));
+			for (Tag tag : item.getTags()) {
+				if (tag.getName() != null) {
+					parts.add(tag.getName().toLowerCase(Locale.ROOT));
+				}
+			}
+
+			this.text = String.join(String.valueOf(SEPARATOR), parts);
+			this.type = LibraryListType.from(item);
+			this.name = collator.getCollationKey(name);
+			this.created = item.getCreatedDate();
+			this.modified = item.getModifiedDate();
+		}
+
+		/**
+		 * Returns true if this entry matches the given normalized term and type.
+		 * @param term the term; can be null
+		 * @param type the type; can be null
+		 * @return boolean
+		 */
+		public boolean matches(String term, LibraryListType type) {
+			if (type != null && type != this.type) {
+				return false;
+			}
+			// single name search (more complex searching will be handled elsewhere)
+			return term == null || this.text.contains(term);
+		}
+	}
+}
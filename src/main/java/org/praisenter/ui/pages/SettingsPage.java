@@ -196,6 +196,13 @@ public final class SettingsPage extends BorderPane implements Page {
 			configuration.setWaitForTransitionsToCompleteEnabled(nv);
 		});
 		
+		// transition caching flag
+		ToggleSwitch tglTransitionCaching = new ToggleSwitch();
+		tglTransitionCaching.setSelected(configuration.isTransitionCachingEnabled());
+		tglTransitionCaching.selectedProperty().addListener((obs, ov, nv) -> {
+			configuration.setTransitionCachingEnabled(nv);
+		});
+		
 		// audio transcode enabled
 		ToggleSwitch tglTranscodeAudio = new ToggleSwitch();
 		tglTranscodeAudio.setSelected(configuration.isAudioTranscodingEnabled());
@@ -334,7 +341,10 @@ public final class SettingsPage extends BorderPane implements Page {
 		Tile tlePlaceholderTransitionBehavior = new Tile(Translations.get("settings.slide.placeholderTransitionBehavior"), Translations.get("settings.slide.placeholderTransitionBehavior.description"));
 		tlePlaceholderTransitionBehavior.setAction(cmbPlaceholderTransitionBehavior);
 		tlePlaceholderTransitionBehavior.setActionHandler(cmbPlaceholderTransitionBehavior::requestFocus);
-		VBox boxSlide = new VBox(lblSlide, new Separator(Orientation.HORIZONTAL), tleWaitForTransition, tlePlaceholderTransitionBehavior);
+		Tile tleTransitionCaching = new Tile(Translations.get("settings.slide.transitionCaching"), Translations.get("settings.slide.transitionCaching.description"));
+		tleTransitionCaching.setAction(tglTransitionCaching);
+		tleTransitionCaching.setActionHandler(tglTransitionCaching::fire);
+		VBox boxSlide = new VBox(lblSlide, new Separator(Orientation.HORIZONTAL), tleWaitForTransition, tlePlaceholderTransitionBehavior, tleTransitionCaching);
 		
 		Label lblBible = new Label(Translations.get("settings.bible"));
 		lblBible.getStyleClass().add(Styles.TITLE_3);
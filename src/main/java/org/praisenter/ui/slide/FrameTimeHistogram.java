@@ -0,0 +1,129 @@
+package org.praisenter.ui.slide;
+
+/**
+ * A histogram of the time between frames (pulses) used to judge how smooth an
+ * animation was.
+ * <p>
+ * The buckets are based on the refresh rates of common displays: a frame taking
+ * longer than 16.7ms misses a 60Hz refresh for example.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class FrameTimeHistogram {
+	/** The upper bound of each bucket in milliseconds; the last bucket is everything longer */
+	private static final double[] BUCKETS = new double[] { 8.4, 16.7, 33.4, 50.0 };
+
+	/** The number of frames in each bucket */
+	private final int[] counts;
+
+	/** The total number of frames */
+	private int frames;
+
+	/** The total time in nanoseconds */
+	private long total;
+
+	/** The longest frame in nanoseconds */
+	private long longest;
+
+	/** The time of the last frame or -1 */
+	private long last;
+
+	/**
+	 * Default constructor.
+	 */
+	public FrameTimeHistogram() {
+		this.counts = new int[BUCKETS.length + 1];
+		this.last = -1;
+	}
+
+	/**
+	 * Records a frame at the given time.
+	 * <p>
+	 * The first frame only marks the start.
+	 * @param now the time in nanoseconds
+	 */
+	public void frame(long now) {
+		if (this.last >= 0) {
+			this.add(now - this.last);
+		}
+		this.last = now;
+	}
+
+	/**
+	 * Adds a frame of the given duration.
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void add(long nanos) {
+		double ms = nanos / 1000000.0;
+		int i = 0;
+		while (i < BUCKETS.length && ms > BUCKETS[i]) {
+			i++;
+		}
+		this.counts[i]++;
+		this.frames++;
+		this.total += nanos;
+		this.longest = Math.max(this.longest, nanos);
+	}
+
+	/**
+	 * Returns the number of frames recorded.
+	 * @return int
+	 */
+	public int getFrameCount() {
+		return this.frames;
+	}
+
+	/**
+	 * Returns the number of frames that took longer than the given time.
+	 * @param ms the time in milliseconds; should be one of the bucket bounds
+	 * @return int
+	 */
+	public int getFrameCountOver(double ms) {
+		int count = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			if (i == BUCKETS.length || BUCKETS[i] > ms) {
+				count += this.counts[i];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the average frame time in milliseconds.
+	 * @return double
+	 */
+	public double getAverage() {
+		if (this.frames == 0) return 0;
+		return this.total / 1000000.0 / this.frames;
+	}
+
+	/**
+	 * Returns the longest frame time in milliseconds.
+	 * @return double
+	 */
+	public double getLongest() {
+		return this.longest / 1000000.0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(this.frames).append(" frames, ")
+		  .append(String.format("%.1f", this.getAverage())).append("ms average, ")
+		  .append(String.format("%.1f", this.getLongest())).append("ms longest [");
+		for (int i = 0; i < this.counts.length; i++) {
+			if (i > 0) sb.append(", ");
+			if (i < BUCKETS.length) {
+				sb.append("<=").append(BUCKETS[i]);
+			} else {
+				sb.append(">").append(BUCKETS[BUCKETS.length - 1]);
+			}
+			sb.append("ms: ").append(this.counts[i]);
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+}
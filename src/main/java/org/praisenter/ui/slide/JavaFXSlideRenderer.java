@@ -26,11 +26,10 @@ package org.praisenter.ui.slide;
 
 import java.awt.image.BufferedImage;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CountDownLatch;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.praisenter.Reference;
+import org.praisenter.async.AsyncExecutors;
 import org.praisenter.data.slide.Slide;
 import org.praisenter.data.slide.SlideRenderer;
 import org.praisenter.ui.GlobalContext;
@@ -39,7 +38,6 @@ import org.praisenter.utility.ImageManipulator;
 import com.twelvemonkeys.image.ImageUtil;
 import com.twelvemonkeys.image.ResampleOp;
 
-import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.CacheHint;
@@ -96,40 +94,13 @@ public final class JavaFXSlideRenderer implements SlideRenderer {
 		};
 		
 		// since we are using Java FX to render the slides, we need to make sure
-		// we render them on the Java FX thread
-		if (Platform.isFxApplicationThread()) {
-			try {
-				// if we are already on the Java FX thread then just generate the thumbnail
-				return snapshot.call();
-			} catch (Exception ex) {
-				LOGGER.warn("Failed to generate snapshot of slide '" + slide.getName() + "'", ex);
-				return null;
-			} 
-		}
-		
-		// if we are not on the Java FX thread, we need to execute the generation
-		// code on it and then wait for it to complete
-		final Reference<Image> imageRef = new Reference<Image>();
-		final CountDownLatch latch = new CountDownLatch(1);
-		Platform.runLater(() -> {
-			try {
-				imageRef.set(snapshot.call());
-			} catch (Exception ex) {
-				LOGGER.warn("Failed to generate snapshot of slide '" + slide.getName() + "'", ex);
-			} finally {
-				// regardless of it working or not, we need to coundDown
-				// so we don't wait forever
-				latch.countDown();
-			}
-		});
-		
+		// we render them on the Java FX thread; if we are not on the Java FX thread
+		// this will wait for a turn so that rendering many slides at once (paste,
+		// import, etc.) doesn't starve user input
 		try {
-			// wait until the Java FX thread generates the thumbnail
-			latch.await();
-			// then convert it to an BufferedImage and return
-			return imageRef.get();
+			return AsyncExecutors.callOnJavaFXThreadAndWait(snapshot);
 		} catch (Exception ex) {
-			LOGGER.warn("Failed to convert snapshot of slide '" + slide.getName() + "' to a buffered image.", ex);
+			LOGGER.warn("Failed to generate snapshot of slide '" + slide.getName() + "'", ex);
 		}
 		
 		return null;
@@ -10,13 +10,19 @@ final class PreparedSlide implements Comparable<PreparedSlide> {
 	private final TextStore data;
 	private final SlideNode node;
 	private final Instant time;
+	private final boolean preparedAhead;
 	
 	public PreparedSlide(Slide slide, TextStore data, SlideNode node, Instant time) {
+		this(slide, data, node, time, false);
+	}
+	
+	public PreparedSlide(Slide slide, TextStore data, SlideNode node, Instant time, boolean preparedAhead) {
 		super();
 		this.slide = slide;
 		this.data = data;
 		this.node = node;
 		this.time = time;
+		this.preparedAhead = preparedAhead;
 	}
 	
 	@Override
@@ -42,4 +48,8 @@ final class PreparedSlide implements Comparable<PreparedSlide> {
 	public Instant getTime() {
 		return this.time;
 	}
+	
+	public boolean isPreparedAhead() {
+		return this.preparedAhead;
+	}
 }
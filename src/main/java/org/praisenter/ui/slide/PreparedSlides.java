@@ -0,0 +1,185 @@
+package org.praisenter.ui.slide;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.praisenter.data.TextStore;
+import org.praisenter.data.slide.Slide;
+import org.praisenter.data.TextItem;
+import org.praisenter.data.TextType;
+import org.praisenter.data.TextVariant;
+
+/**
+ * The slides prepared ahead of time by a {@link SlideView}.
+ * <p>
+ * Slides are kept by a key that's the same for slides that render the same (see
+ * {@link #getKey(Slide)}) and only while they are part of the current generation of
+ * slides to prepare.  This class isn't thread safe and should only be used from the
+ * Java FX thread.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class PreparedSlides {
+	/** The maximum number of slides to keep prepared ahead of time */
+	private static final int MAXIMUM_PREPARED_SLIDES = 32;
+	
+	/** The slides prepared ahead of time by key */
+	private final Map<String, PreparedSlide> prepared;
+	
+	/** The keys of the slides to keep prepared ahead of time */
+	private final Set<String> keys;
+	
+	/** Incremented each time the slides to prepare ahead of time change */
+	private final AtomicLong generation;
+	
+	public PreparedSlides() {
+		this.prepared = new LinkedHashMap<String, PreparedSlide>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedSlide> eldest) {
+				if (this.size() > MAXIMUM_PREPARED_SLIDES) {
+					dispose(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+		this.keys = new HashSet<>();
+		this.generation = new AtomicLong();
+	}
+	
+	/**
+	 * Discards all the prepared slides and starts a new generation.
+	 * @return long the new generation
+	 */
+	public long clear() {
+		long generation = this.generation.incrementAndGet();
+		for (PreparedSlide ps : this.prepared.values()) {
+			dispose(ps);
+		}
+		this.prepared.clear();
+		this.keys.clear();
+		return generation;
+	}
+	
+	/**
+	 * Returns the current generation.
+	 * @return long
+	 */
+	public long getGeneration() {
+		return this.generation.get();
+	}
+	
+	/**
+	 * Marks the given slide as one to keep prepared ahead of time.
+	 * @param slide the slide
+	 */
+	public void want(Slide slide) {
+		this.keys.add(getKey(slide));
+	}
+	
+	/**
+	 * Returns true if the given slide should be prepared for the given generation.
+	 * @param slide the slide
+	 * @param generation the generation of slides it's part of
+	 * @return boolean
+	 */
+	public boolean isWanted(Slide slide, long generation) {
+		final String key = getKey(slide);
+		return generation == this.generation.get() && this.keys.contains(key) && !this.prepared.containsKey(key);
+	}
+	
+	/**
+	 * Keeps the given prepared slide if it's still wanted, otherwise it's disposed.
+	 * @param ps the prepared slide
+	 * @param generation the generation of slides it's part of
+	 * @return boolean true if it was kept
+	 */
+	public boolean put(PreparedSlide ps, long generation) {
+		// the slides may have changed while this one was being prepared
+		if (this.isWanted(ps.getSlide(), generation)) {
+			this.prepared.put(getKey(ps.getSlide()), ps);
+			return true;
+		}
+		dispose(ps);
+		return false;
+	}
+	
+	/**
+	 * Removes and returns the slide prepared ahead of time for the given slide or null
+	 * if there isn't one.
+	 * @param slide the slide
+	 * @return {@link PreparedSlide}
+	 */
+	public PreparedSlide take(Slide slide) {
+		if (this.prepared.isEmpty()) {
+			return null;
+		}
+		
+		PreparedSlide ps = this.prepared.remove(getKey(slide));
+		if (ps == null) {
+			return null;
+		}
+		
+		// it's being displayed now
+		return new PreparedSlide(ps.getSlide(), ps.getData(), ps.getNode(), Instant.now(), true);
+	}
+	
+	/**
+	 * Returns a copy of the given slide to prepare ahead of time.
+	 * <p>
+	 * The copy has its own placeholder data so that changes to the slide being displayed
+	 * (like placeholder swaps) don't change the prepared one.
+	 * @param slide the slide
+	 * @return {@link Slide}
+	 */
+	public static Slide copy(Slide slide) {
+		Slide copy = slide.copy();
+		TextStore data = slide.getPlaceholderData();
+		copy.setPlaceholderData(data != null ? data.copy() : null);
+		return copy;
+	}
+	
+	/**
+	 * Returns a key that's the same for slides that render the same.
+	 * <p>
+	 * Slides are the same if they are copies of the same slide, fit to the same size and
+	 * have the same placeholder text.
+	 * @param slide the slide
+	 * @return String
+	 */
+	public static String getKey(Slide slide) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(slide.getId()).append('|')
+		  .append(slide.getModifiedDate()).append('|')
+		  .append(slide.getWidth()).append('x').append(slide.getHeight());
+		
+		TextStore data = slide.getPlaceholderData();
+		if (data != null) {
+			for (TextVariant variant : TextVariant.values()) {
+				for (TextType type : TextType.values()) {
+					TextItem item = data.get(variant, type);
+					if (item != null) {
+						sb.append('|').append(variant.ordinal()).append(':').append(type.ordinal()).append('=').append(item.getText());
+					}
+				}
+			}
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Disposes the node of the given prepared slide.
+	 * @param ps the prepared slide
+	 */
+	private static void dispose(PreparedSlide ps) {
+		SlideNode node = ps.getNode();
+		if (node != null) {
+			node.dispose();
+		}
+	}
+}
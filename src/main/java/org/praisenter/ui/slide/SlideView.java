@@ -11,6 +11,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import org.apache.logging.log4j.LogManager;
@@ -30,6 +31,7 @@ import org.praisenter.ui.slide.convert.TransitionConverter;
 import org.praisenter.utility.Scaling;
 
 import javafx.animation.Animation.Status;
+import javafx.animation.AnimationTimer;
 import javafx.animation.ParallelTransition;
 import javafx.animation.PauseTransition;
 import javafx.animation.SequentialTransition;
@@ -46,14 +48,21 @@ import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundImage;
 import javafx.scene.layout.BackgroundRepeat;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Scale;
+import javafx.scene.transform.Transform;
 import javafx.util.Duration;
 
 public class SlideView extends Region implements Playable {
@@ -84,6 +93,9 @@ public class SlideView extends Region implements Playable {
 	
 	private final Queue<PendingPreparedSlide> requests;
 	
+	/** The slides prepared ahead of time */
+	private final PreparedSlides prepared;
+	
 	private Transition currentTransition;
 	
 	public SlideView(GlobalContext context) {
@@ -115,6 +127,8 @@ public class SlideView extends Region implements Playable {
 		this.surface = scaleContainer;
 		this.requests = new PriorityQueue<>();
 		
+		this.prepared = new PreparedSlides();
+		
 		this.slide.addListener((obs, ov, nv) -> {
 			this.slideHeight.unbind();
 			this.slideWidth.unbind();
@@ -283,6 +297,8 @@ public class SlideView extends Region implements Playable {
 		
 		this.slide.set(null);
 		this.requests.clear();
+		
+		this.clearPrepared();
 	}
 	
 	/**
@@ -311,11 +327,77 @@ public class SlideView extends Region implements Playable {
 			this.renderPreparedSlide(clear, transition);
 			return CompletableFuture.completedFuture(null);
 		} else {
+			// use the slide prepared ahead of time if there is one
+			PreparedSlide ready = this.prepared.take(slide);
+			if (ready != null) {
+				LOGGER.trace("Using slide '{}' prepared ahead of time", slide);
+				this.renderPreparedSlide(ready, transition);
+				
+				// prepare it again in case it's shown again, but from a copy so that
+				// placeholder changes to the displayed slide don't change the prepared one
+				final long generation = this.prepared.getGeneration();
+				final Slide copy = PreparedSlides.copy(slide);
+				Platform.runLater(() -> this.prepareAhead(copy, generation));
+				return CompletableFuture.completedFuture(null);
+			}
+			
 			// we're presenting something new
 			return this.prepareThenRender(slide, data, transition);
 		}
 	}
 	
+	/**
+	 * Prepares the given slides in the background so that rendering any of them later
+	 * is only a swap of the prepared nodes.
+	 * <p>
+	 * Each slide should be set up exactly as it will be passed to {@link #render(Slide, TextStore, boolean)}
+	 * (copied, fit to the target and with its placeholder data set).  The slides are prepared
+	 * one at a time on the Java FX thread so that it stays responsive.  Slides with video or
+	 * audio are skipped since each copy would need its own media player.
+	 * <p>
+	 * Any slides prepared before are discarded.
+	 * @param slides the slides
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	public CompletableFuture<Void> prepareAll(List<Slide> slides) {
+		final long generation = this.prepared.clear();
+		CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+		for (Slide slide : slides) {
+			if (slide == null || slide.hasPlayableMedia()) {
+				continue;
+			}
+			this.prepared.want(slide);
+			future = future.thenComposeAsync(v -> this.prepareAhead(slide, generation), Platform::runLater);
+		}
+		return future;
+	}
+	
+	/**
+	 * Discards all the slides prepared ahead of time.
+	 */
+	public void clearPrepared() {
+		this.prepared.clear();
+	}
+	
+	/**
+	 * Prepares the given slide and keeps it for later if it's still wanted.
+	 * @param slide the slide
+	 * @param generation the generation of slides it's part of
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	private CompletableFuture<Void> prepareAhead(Slide slide, long generation) {
+		if (!this.prepared.isWanted(slide, generation)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		LOGGER.trace("Preparing slide '{}' ahead of time", slide);
+		return this.prepare(slide, slide.getPlaceholderData()).thenAccept((ps) -> {
+			if (ps != null) {
+				this.prepared.put(ps, generation);
+			}
+		});
+	}
+	
 	/**
 	 * Asynchronously prepares the slide and then attempts to render it when done.
 	 * <p>
@@ -477,7 +559,8 @@ public class SlideView extends Region implements Playable {
 		}
 		
 		// figure out what to do with it
-		if (this.isPlaceholderTransitionOnly(oldSlide, newSlide)) {
+		// a slide prepared ahead of time already has the new placeholder data
+		if (this.isPlaceholderTransitionOnly(oldSlide, newSlide) && !prepared.isPreparedAhead()) {
 			PreparedSlide oldPrepared = new PreparedSlide(oldSlide, oldData, oldNode, prepared.getTime());
 			this.swapPlaceholders(newData);
 			this.slide.set(oldPrepared);
@@ -546,7 +629,10 @@ public class SlideView extends Region implements Playable {
 		if (this.isPlaceholderTransitionOnly(oldSlide, newSlide)) {
 			PreparedSlide oldPrepared = new PreparedSlide(oldSlide, newData, oldNode, prepared.getTime());
 			// do placeholders only
-			if (behavior == null || behavior == PlaceholderTransitionBehavior.PLACEHOLDERS) {
+			if (prepared.isPreparedAhead() && behavior != PlaceholderTransitionBehavior.SLIDE) {
+				this.transitionPrepared(oldSlide, oldNode, newSlide, newNode, behavior == PlaceholderTransitionBehavior.CONTENT);
+				this.slide.set(prepared);
+			} else if (behavior == null || behavior == PlaceholderTransitionBehavior.PLACEHOLDERS) {
 				this.transitionPlaceholders(newData);
 				this.slide.set(oldPrepared);
 			} else if (behavior == PlaceholderTransitionBehavior.CONTENT) {
@@ -569,15 +655,28 @@ public class SlideView extends Region implements Playable {
 		ParallelTransition inOutTransition = new ParallelTransition();
 		SequentialTransition tx = new SequentialTransition(inOutTransition);
 		
+		// when enabled, animate images of the slides rather than the slides themselves so that
+		// effects, text, etc. aren't rendered every frame; slides whose content changes on its
+		// own (video, countdowns, etc.) are always animated live
+		boolean cache = this.context.getWorkspaceConfiguration().isTransitionCachingEnabled() &&
+				(oldSlide == null || !oldSlide.hasAnimatedContent()) &&
+				(newSlide == null || !newSlide.hasAnimatedContent());
+		
+		ImageView oldImage = null;
 		if (oldNode != null) {
 			Slide basis = newSlide != null ? newSlide : oldSlide;
-			inOutTransition.getChildren().add(TransitionConverter.toJavaFX(basis.getTransition(), basis, null, oldNode, false));
+			oldImage = cache ? this.rasterize(oldSlide, oldNode) : null;
+			Node target = oldImage != null ? oldImage : oldNode;
+			inOutTransition.getChildren().add(TransitionConverter.toJavaFX(basis.getTransition(), basis, null, target, false));
 		}
 
+		ImageView newImage = null;
 		if (newSlide != null) {
 			newNode.mode.bind(this.mode);
 			this.surface.getChildren().add(newNode);
-			inOutTransition.getChildren().add(TransitionConverter.toJavaFX(newSlide.getTransition(), newSlide, null, newNode, true));
+			newImage = cache ? this.rasterize(newSlide, newNode) : null;
+			Node target = newImage != null ? newImage : newNode;
+			inOutTransition.getChildren().add(TransitionConverter.toJavaFX(newSlide.getTransition(), newSlide, null, target, true));
 			
 			if (this.mode.get() == SlideMode.PRESENT) {
 				newNode.play();
@@ -589,7 +688,45 @@ public class SlideView extends Region implements Playable {
 			}
 		}
 		
+		// record the frame times when debugging
+		FrameTimeHistogram histogram = new FrameTimeHistogram();
+		AnimationTimer timer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				histogram.frame(now);
+			}
+		};
+		if (LOGGER.isDebugEnabled()) {
+			timer.start();
+		}
+		
+		// replace the images with the live slide when the transition ends
+		// NOTE: this can be called when the in/out transition finishes or, if it's stopped
+		// early, when the whole transition finishes
+		final ImageView oi = oldImage;
+		final ImageView ni = newImage;
+		final AtomicBoolean finished = new AtomicBoolean(false);
+		Runnable finish = () -> {
+			if (!finished.compareAndSet(false, true)) {
+				return;
+			}
+			
+			timer.stop();
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Transition frame times ({}): {}", (oi != null || ni != null) ? "cached" : "live", histogram);
+			}
+			
+			if (oi != null) {
+				this.surface.getChildren().remove(oi);
+			}
+			if (ni != null) {
+				this.surface.getChildren().remove(ni);
+				newNode.setVisible(true);
+			}
+		};
+		
 		inOutTransition.setOnFinished(e -> {
+			finish.run();
 			if (oldNode != null) {
 				this.surface.getChildren().remove(oldNode);
 				oldNode.mode.unbind();
@@ -602,10 +739,128 @@ public class SlideView extends Region implements Playable {
 		// no matter what, we always want to run something after the
 		// transition ends - this gives us the ability to queue transitions
 		// or do clean up after the transition finishes
-		tx.setOnFinished(this::runLastPendingTransition);
+		tx.setOnFinished(e -> {
+			finish.run();
+			this.runLastPendingTransition(e);
+		});
 		tx.play();
 	}
+	
+	/**
+	 * Replaces the given slide node with an image of it for the duration of a transition.
+	 * <p>
+	 * The image is taken at the size the slide is shown so that it's no larger
+	 * than needed.  The slide node is hidden, but remains in the scene so that it
+	 * can be shown again when the transition completes.
+	 * @param slide the slide
+	 * @param node the slide node
+	 * @return ImageView the image or null if it couldn't be taken
+	 */
+	private ImageView rasterize(Slide slide, SlideNode node) {
+		double w = slide.getWidth();
+		double h = slide.getHeight();
+		if (w <= 0 || h <= 0) {
+			return null;
+		}
+		
+		double scale = this.viewScaleFactor.get();
+		if (this.getScene() != null && this.getScene().getWindow() != null) {
+			scale *= this.getScene().getWindow().getRenderScaleX();
+		}
+		if (scale <= 0) {
+			scale = 1;
+		}
+		
+		try {
+			// the snapshot is taken in the parent's coordinates (so the layout
+			// offset is already in it) and the viewport is in the scaled space
+			Bounds bounds = node.getBoundsInParent();
+			SnapshotParameters sp = new SnapshotParameters();
+			sp.setFill(Color.TRANSPARENT);
+			sp.setTransform(Transform.scale(scale, scale));
+			sp.setViewport(new Rectangle2D(bounds.getMinX() * scale, bounds.getMinY() * scale, Math.ceil(bounds.getWidth() * scale), Math.ceil(bounds.getHeight() * scale)));
+			Image image = node.snapshot(sp, null);
+			
+			// the image starts at the viewport's origin
+			ImageView view = new ImageView(image);
+			view.setFitWidth(bounds.getWidth());
+			view.setFitHeight(bounds.getHeight());
+			view.setSmooth(true);
+			view.setLayoutX(bounds.getMinX());
+			view.setLayoutY(bounds.getMinY());
+			
+			int index = this.surface.getChildren().indexOf(node);
+			this.surface.getChildren().add(index + 1, view);
+			node.setVisible(false);
+			return view;
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to cache slide '" + slide.getName() + "' for transition, using the slide instead: " + ex.getMessage(), ex);
+			return null;
+		}
+	}
 
+	/**
+	 * Transitions the placeholders (or all the components) of the current slide to the
+	 * same slide prepared ahead of time with different placeholder data.
+	 * <p>
+	 * The prepared node is shown over the current node with only the components being
+	 * transitioned visible so that it looks the same as {@link #transitionPlaceholders(TextStore)}
+	 * or {@link #transitionContent(TextStore)}, but without laying out the new text.
+	 * @param oldSlide the current slide
+	 * @param oldNode the current slide node
+	 * @param newSlide the prepared slide
+	 * @param newNode the prepared slide node
+	 * @param content true to transition all the components rather than just the placeholders
+	 */
+	private void transitionPrepared(Slide oldSlide, SlideNode oldNode, Slide newSlide, SlideNode newNode, boolean content) {
+		LOGGER.debug("Transitioning {} of '{}' to the slide prepared ahead of time", content ? "content" : "placeholders", newSlide);
+		
+		SlideAnimation source = newSlide.getTransition();
+		ParallelTransition tx = new ParallelTransition();
+		
+		// hide what's the same on both so that the current node shows through
+		List<Node> hidden = new ArrayList<Node>();
+		hidden.add(newNode.background);
+		hidden.add(newNode.borderPane);
+		for (SlideComponentNode<?> node : newNode.getSlideComponentNodesUnmodifiable()) {
+			if (content || node.region instanceof TextPlaceholderComponent) {
+				tx.getChildren().add(TransitionConverter.toJavaFX(source, newSlide, node.region, node, true));
+			} else {
+				hidden.add(node);
+			}
+		}
+		for (SlideComponentNode<?> node : oldNode.getSlideComponentNodesUnmodifiable()) {
+			if (content || node.region instanceof TextPlaceholderComponent) {
+				tx.getChildren().add(TransitionConverter.toJavaFX(source, oldSlide, node.region, node, false));
+			}
+		}
+		for (Node node : hidden) {
+			node.setVisible(false);
+		}
+		
+		newNode.mode.bind(this.mode);
+		this.surface.getChildren().add(newNode);
+		if (this.mode.get() == SlideMode.PRESENT) {
+			newNode.play();
+		}
+		
+		// no matter what, we always want to run something after the
+		// transition ends - this gives us the ability to queue transitions
+		// or do clean up after the transition finishes
+		tx.setOnFinished(e -> {
+			for (Node node : hidden) {
+				node.setVisible(true);
+			}
+			this.surface.getChildren().remove(oldNode);
+			oldNode.mode.unbind();
+			oldNode.dispose();
+			this.runLastPendingTransition(e);
+		});
+		
+		this.currentTransition = tx;
+		tx.play();
+	}
+	
 	private void transitionPlaceholders(TextStore data) {
 		PreparedSlide ps = this.slide.get();
 		if (ps == null)
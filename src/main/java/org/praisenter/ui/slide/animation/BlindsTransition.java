@@ -8,8 +8,6 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Bounds;
 import javafx.scene.Node;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Shape;
 import javafx.util.Duration;
 
 public final class BlindsTransition extends CustomTransition {
@@ -17,12 +15,17 @@ public final class BlindsTransition extends CustomTransition {
 	private final ObjectProperty<AnimationOrientation> orientation;
 	private final IntegerProperty blindCount;
 	private final ObjectProperty<Bounds> bounds;
+	
+	/** The clip; updated in place every frame */
+	private final ClipPath clip;
 
 	public BlindsTransition() {
 		this.duration = new SimpleObjectProperty<Duration>();
 		this.orientation = new SimpleObjectProperty<AnimationOrientation>();
 		this.blindCount = new SimpleIntegerProperty();
 		this.bounds = new SimpleObjectProperty<Bounds>();
+		this.clip = new ClipPath(0, 0);
+		this.clip.setSubtract(false);
 
 		this.duration.addListener((obs, ov, nv) -> {
 			this.setCycleDuration(nv);
@@ -39,19 +42,20 @@ public final class BlindsTransition extends CustomTransition {
 		
 		int blindCount = this.blindCount.get();
 		
-		Shape clip = null;
 		switch(orientation) {
 			case HORIZONTAL:
-				clip = getHorizontalBlinds(blindCount, frac);
+				this.setHorizontalBlinds(blindCount, frac);
 				break;
 			case VERTICAL:
-				clip = getVerticalBlinds(blindCount, frac);
+				this.setVerticalBlinds(blindCount, frac);
 				break;
 			default:
-				break;
+				return;
 		}
 		
-		node.setClip(clip);
+		if (node.getClip() != this.clip) {
+			node.setClip(this.clip);
+		}
 	}
 
 	@Override
@@ -62,68 +66,78 @@ public final class BlindsTransition extends CustomTransition {
 		node.setClip(null);
 	}
 
-	private Shape getHorizontalBlinds(int blinds, double frac) {
+	private void setHorizontalBlinds(int blinds, double frac) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
 		double w = bounds.getWidth();
 		double h = bounds.getHeight();
 		
-		Shape clip = null;
-		if (this.isInTransition()) {
-			clip = new Rectangle(x, y, w, h);
-		} else {
-			clip = new Rectangle();
+		if (blinds <= 0) {
+			this.setNoBlinds(x, y, w, h);
+			return;
+		}
+		
+		if (this.clip.getRectangleCount() != blinds) {
+			this.clip.setElements(blinds, 0);
 		}
 		
 		double dy = y;
 		// compute the blind width
 		double bh = h / blinds;
-		// compute the area that needs to be painted by either removing
-		// vertical bars or adding vertical bars
+		// compute the area that needs to be painted; when transitioning in
+		// it's the part of each blind that's open, otherwise the rest
 		for (int i = 0; i < blinds; i++) {
-			Rectangle blind = new Rectangle(x, dy + bh * frac, w, bh * (1.0 - frac));
 			if (this.isInTransition()) {
-				clip = Shape.subtract(clip, blind);
+				this.clip.setRectangle(i, x, dy, w, bh * frac);
 			} else {
-				clip = Shape.union(clip, blind);
+				this.clip.setRectangle(i, x, dy + bh * frac, w, bh * (1.0 - frac));
 			}
 			dy += bh;
 		}
-		
-		return clip;
 	}
 	
-	private Shape getVerticalBlinds(int blinds, double frac) {
+	private void setVerticalBlinds(int blinds, double frac) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
 		double w = bounds.getWidth();
 		double h = bounds.getHeight();
 		
-		Shape clip = null;
-		if (this.isInTransition()) {
-			clip = new Rectangle(x, y, w, h);
-		} else {
-			clip = new Rectangle();
+		if (blinds <= 0) {
+			this.setNoBlinds(x, y, w, h);
+			return;
+		}
+		
+		if (this.clip.getRectangleCount() != blinds) {
+			this.clip.setElements(blinds, 0);
 		}
 		
 		double dx = x;
 		// compute the blind width
 		double bw = w / blinds;
-		// compute the area that needs to be painted by either removing
-		// vertical bars or adding vertical bars
+		// compute the area that needs to be painted; when transitioning in
+		// it's the part of each blind that's open, otherwise the rest
 		for (int i = 0; i < blinds; i++) {
-			Rectangle blind = new Rectangle(dx + bw * frac, y, bw * (1.0 - frac), h);
 			if (this.isInTransition()) {
-				clip = Shape.subtract(clip, blind);
+				this.clip.setRectangle(i, dx, y, bw * frac, h);
 			} else {
-				clip = Shape.union(clip, blind);
+				this.clip.setRectangle(i, dx + bw * frac, y, bw * (1.0 - frac), h);
 			}
 			dx += bw;
 		}
-		
-		return clip;
+	}
+	
+	private void setNoBlinds(double x, double y, double w, double h) {
+		// without blinds the node is either shown or not
+		if (this.clip.getRectangleCount() != 1) {
+			this.clip.setElements(1, 0);
+		}
+		if (this.isInTransition()) {
+			this.clip.setRectangle(0, x, y, w, h);
+		} else {
+			this.clip.setRectangle(0, x, y, 0, 0);
+		}
 	}
 
 	public Duration getDuration() {
@@ -0,0 +1,200 @@
+package org.praisenter.ui.slide.animation;
+
+import javafx.geometry.Bounds;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ArcTo;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.FillRule;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+
+/**
+ * A clip shape for the transitions that's built once and updated in place every frame.
+ * <p>
+ * Creating new shapes and combining them with {@link javafx.scene.shape.Shape#subtract(javafx.scene.shape.Shape, javafx.scene.shape.Shape)}
+ * or {@link javafx.scene.shape.Shape#union(javafx.scene.shape.Shape, javafx.scene.shape.Shape)}
+ * every pulse is expensive, especially for transitions with many parts like the blinds.
+ * Instead, the clip is a single path made of rectangles and wedges whose elements are
+ * moved each frame.  Subtracting a shape from the bounds is done with the even-odd
+ * fill rule by adding the bounds as a rectangle.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class ClipPath extends Path {
+	/** The rectangles */
+	private Rectangle[] rectangles;
+
+	/** The wedges */
+	private Wedge[] wedges;
+
+	/**
+	 * Creates a new clip with the given number of rectangles and wedges.
+	 * @param rectangles the number of rectangles
+	 * @param wedges the number of wedges
+	 */
+	public ClipPath(int rectangles, int wedges) {
+		// a clip is defined by the fill of the shape
+		this.setFill(Color.BLACK);
+		this.setStroke(null);
+		this.setElements(rectangles, wedges);
+	}
+
+	/**
+	 * Rebuilds the path with the given number of rectangles and wedges.
+	 * <p>
+	 * This should only be called when the number of parts changes.
+	 * @param rectangles the number of rectangles
+	 * @param wedges the number of wedges
+	 */
+	public void setElements(int rectangles, int wedges) {
+		this.getElements().clear();
+
+		this.rectangles = new Rectangle[rectangles];
+		for (int i = 0; i < rectangles; i++) {
+			this.rectangles[i] = new Rectangle();
+			this.getElements().addAll(this.rectangles[i].elements());
+		}
+
+		this.wedges = new Wedge[wedges];
+		for (int i = 0; i < wedges; i++) {
+			this.wedges[i] = new Wedge();
+			this.getElements().addAll(this.wedges[i].elements());
+		}
+	}
+
+	/**
+	 * Returns the number of rectangles in this path.
+	 * @return int
+	 */
+	public int getRectangleCount() {
+		return this.rectangles.length;
+	}
+
+	/**
+	 * Sets the given rectangle.  Negative sizes are treated as zero.
+	 * @param index the rectangle index
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param w the width
+	 * @param h the height
+	 */
+	public void setRectangle(int index, double x, double y, double w, double h) {
+		this.rectangles[index].set(x, y, Math.max(0, w), Math.max(0, h));
+	}
+
+	/**
+	 * Sets the given rectangle to the given bounds expanded to contain a circle.
+	 * <p>
+	 * Used to subtract a wedge of the circle from the bounds with the even-odd
+	 * fill rule.  The clip extends past the bounds where the circle does, but
+	 * there's nothing to show there.
+	 * @param index the rectangle index
+	 * @param bounds the bounds
+	 * @param cx the circle center x coordinate
+	 * @param cy the circle center y coordinate
+	 * @param r the circle radius
+	 */
+	public void setRectangle(int index, Bounds bounds, double cx, double cy, double r) {
+		double minX = Math.min(bounds.getMinX(), cx - r);
+		double minY = Math.min(bounds.getMinY(), cy - r);
+		double maxX = Math.max(bounds.getMaxX(), cx + r);
+		double maxY = Math.max(bounds.getMaxY(), cy + r);
+		this.setRectangle(index, minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/**
+	 * Sets the given wedge using the same conventions as {@link javafx.scene.shape.Arc}
+	 * with {@link javafx.scene.shape.ArcType#ROUND}.  A length of 360 degrees (or more)
+	 * is a full circle.
+	 * @param index the wedge index
+	 * @param cx the center x coordinate
+	 * @param cy the center y coordinate
+	 * @param r the radius
+	 * @param start the start angle in degrees
+	 * @param length the angular extent in degrees
+	 */
+	public void setWedge(int index, double cx, double cy, double r, double start, double length) {
+		this.wedges[index].set(cx, cy, Math.max(0, r), start, Math.max(-360.0, Math.min(360.0, length)));
+	}
+
+	/**
+	 * Sets the fill rule to use for subtraction or not.
+	 * @param subtract true if the parts are subtracted from the first rectangle
+	 */
+	public void setSubtract(boolean subtract) {
+		this.setFillRule(subtract ? FillRule.EVEN_ODD : FillRule.NON_ZERO);
+	}
+
+	/**
+	 * A rectangle in the path.
+	 */
+	private static final class Rectangle {
+		private final MoveTo p0 = new MoveTo();
+		private final LineTo p1 = new LineTo();
+		private final LineTo p2 = new LineTo();
+		private final LineTo p3 = new LineTo();
+		private final ClosePath close = new ClosePath();
+
+		public void set(double x, double y, double w, double h) {
+			this.p0.setX(x);
+			this.p0.setY(y);
+			this.p1.setX(x + w);
+			this.p1.setY(y);
+			this.p2.setX(x + w);
+			this.p2.setY(y + h);
+			this.p3.setX(x);
+			this.p3.setY(y + h);
+		}
+
+		public PathElement[] elements() {
+			return new PathElement[] { this.p0, this.p1, this.p2, this.p3, this.close };
+		}
+	}
+
+	/**
+	 * A wedge (pie slice) of a circle in the path.
+	 * <p>
+	 * The arc is split in two so that neither half is more than 180 degrees, which
+	 * avoids the ambiguity of a 360 degree arc whose start and end are the same point.
+	 */
+	private static final class Wedge {
+		private final MoveTo center = new MoveTo();
+		private final LineTo p0 = new LineTo();
+		private final ArcTo a1 = new ArcTo();
+		private final ArcTo a2 = new ArcTo();
+		private final ClosePath close = new ClosePath();
+
+		public void set(double cx, double cy, double r, double start, double length) {
+			double half = length * 0.5;
+			double t0 = Math.toRadians(start);
+			double t1 = Math.toRadians(start + half);
+			double t2 = Math.toRadians(start + length);
+
+			// arc angles are counter-clockwise with y pointing down
+			boolean sweep = length < 0;
+
+			this.center.setX(cx);
+			this.center.setY(cy);
+			this.p0.setX(cx + r * Math.cos(t0));
+			this.p0.setY(cy - r * Math.sin(t0));
+
+			this.a1.setRadiusX(r);
+			this.a1.setRadiusY(r);
+			this.a1.setSweepFlag(sweep);
+			this.a1.setX(cx + r * Math.cos(t1));
+			this.a1.setY(cy - r * Math.sin(t1));
+
+			this.a2.setRadiusX(r);
+			this.a2.setRadiusY(r);
+			this.a2.setSweepFlag(sweep);
+			this.a2.setX(cx + r * Math.cos(t2));
+			this.a2.setY(cy - r * Math.sin(t2));
+		}
+
+		public PathElement[] elements() {
+			return new PathElement[] { this.center, this.p0, this.a1, this.a2, this.close };
+		}
+	}
+}
@@ -7,9 +7,6 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Bounds;
 import javafx.scene.Node;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Shape;
 import javafx.util.Duration;
 
 public final class ShapedTransition extends CustomTransition {
@@ -18,11 +15,15 @@ public final class ShapedTransition extends CustomTransition {
 	private final ObjectProperty<AnimationOperation> operation;
 	private final ObjectProperty<Bounds> bounds;
 	
+	/** The clip; updated in place every frame */
+	private final ClipPath clip;
+	
 	public ShapedTransition() {
 		this.duration = new SimpleObjectProperty<Duration>();
 		this.shapeType = new SimpleObjectProperty<AnimationShapeType>();
 		this.operation = new SimpleObjectProperty<AnimationOperation>();
 		this.bounds = new SimpleObjectProperty<Bounds>();
+		this.clip = new ClipPath(1, 1);
 
 		this.duration.addListener((obs, ov, nv) -> {
 			this.setCycleDuration(nv);
@@ -40,18 +41,18 @@ public final class ShapedTransition extends CustomTransition {
 		AnimationOperation operation = this.operation.get();
 		if (operation == null) return;
 		
-		Shape clip = null;		
 		switch (shapeType) {
 			case CIRCLE:
-				clip = operation == AnimationOperation.COLLAPSE 
-					? this.getCollapsingCircleClip(frac)
-					: this.getExpandingCircleClip(frac);
+				this.setCircleClip(operation == AnimationOperation.COLLAPSE ? 1.0 - frac : frac, operation == AnimationOperation.COLLAPSE);
 				break;
 			default:
-				break;
+				node.setClip(null);
+				return;
 		}
 		
-		node.setClip(clip);
+		if (node.getClip() != this.clip) {
+			node.setClip(this.clip);
+		}
 	}
 
 	@Override
@@ -62,7 +63,7 @@ public final class ShapedTransition extends CustomTransition {
 		node.setClip(null);
 	}
 	
-	private Shape getCollapsingCircleClip(double frac) {
+	private void setCircleClip(double scale, boolean collapse) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
@@ -71,36 +72,20 @@ public final class ShapedTransition extends CustomTransition {
 		
 		double hw = w * 0.5;
 		double hh = h * 0.5;
-		double r = Math.sqrt(hw * hw + hh * hh) * (1.0 - frac);
-		Rectangle all = new Rectangle(x, y, w, h);
-		Circle circle = new Circle(x + hw, y + hh, r);
+		double cx = x + hw;
+		double cy = y + hh;
+		double r = Math.sqrt(hw * hw + hh * hh) * scale;
 		
-		// create the clip shape
-		if (this.isInTransition()) {
-			return Shape.subtract(all, circle);
-		} else {
-			return circle;
-		}
-	}
-	
-	private Shape getExpandingCircleClip(double frac) {
-		Bounds bounds = this.bounds.get();
-		double x = bounds.getMinX();
-		double y = bounds.getMinY();
-		double w = bounds.getWidth();
-		double h = bounds.getHeight();
-		
-		double hw = w * 0.5;
-		double hh = h * 0.5;
-		double r = Math.sqrt(hw * hw + hh * hh) * frac;
-		Rectangle all = new Rectangle(x, y, w, h);
-		Circle circle = new Circle(x + hw, y + hh, r);
+		this.clip.setWedge(0, cx, cy, r, 0, 360);
 		
-		// create the clip shape
-		if (this.isInTransition()) {
-			return circle;
+		// the circle is shown when expanding in or collapsing out, otherwise
+		// the rest of the bounds
+		boolean subtract = collapse == this.isInTransition();
+		this.clip.setSubtract(subtract);
+		if (subtract) {
+			this.clip.setRectangle(0, bounds, cx, cy, r);
 		} else {
-			return Shape.subtract(all, circle);
+			this.clip.setRectangle(0, cx, cy, 0, 0);
 		}
 	}
 
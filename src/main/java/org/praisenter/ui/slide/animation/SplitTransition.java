@@ -7,8 +7,6 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Bounds;
 import javafx.scene.Node;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Shape;
 import javafx.util.Duration;
 
 public final class SplitTransition extends CustomTransition {
@@ -17,11 +15,16 @@ public final class SplitTransition extends CustomTransition {
 	private final ObjectProperty<AnimationOperation> operation;
 	private final ObjectProperty<Bounds> bounds;
 	
+	/** The clip; updated in place every frame */
+	private final ClipPath clip;
+	
 	public SplitTransition() {
 		this.duration = new SimpleObjectProperty<Duration>();
 		this.orientation = new SimpleObjectProperty<AnimationOrientation>();
 		this.operation = new SimpleObjectProperty<AnimationOperation>();
 		this.bounds = new SimpleObjectProperty<Bounds>();
+		this.clip = new ClipPath(2, 0);
+		this.clip.setSubtract(false);
 		
 		this.duration.addListener((obs, ov, nv) -> {
 			this.setCycleDuration(nv);
@@ -39,37 +42,44 @@ public final class SplitTransition extends CustomTransition {
 		AnimationOperation operation = this.operation.get();
 		if (operation == null) return;
 		
-		Shape clip = null;
+		boolean horizontal;
 		switch(orientation) {
 			case HORIZONTAL:
-				switch(operation) {
-					case COLLAPSE:
-						clip = getHorizontalCollapse(frac);
-						break;
-					case EXPAND:
-						clip = getHorizontalExpand(frac);
-						break;
-					default:
-						break;
-				}
+				horizontal = true;
 				break;
 			case VERTICAL:
-				switch(operation) {
-					case COLLAPSE:
-						clip = getVerticalCollapse(frac);
-						break;
-					case EXPAND:
-						clip = getVerticalExpand(frac);
-						break;
-					default:
-						break;
-				}
+				horizontal = false;
 				break;
 			default:
+				node.setClip(null);
+				return;
+		}
+		
+		// the fraction of the bounds the split covers
+		double split;
+		switch(operation) {
+			case COLLAPSE:
+				split = 1.0 - frac;
 				break;
+			case EXPAND:
+				split = frac;
+				break;
+			default:
+				node.setClip(null);
+				return;
 		}
 		
-		node.setClip(clip);
+		// the split is shown when expanding in or collapsing out, otherwise
+		// the rest of the bounds
+		if ((operation == AnimationOperation.EXPAND) == this.isInTransition()) {
+			this.setSplit(horizontal, split);
+		} else {
+			this.setEdges(horizontal, split);
+		}
+		
+		if (node.getClip() != this.clip) {
+			node.setClip(this.clip);
+		}
 	}
 
 	@Override
@@ -80,79 +90,38 @@ public final class SplitTransition extends CustomTransition {
 		node.setClip(null);
 	}
 	
-	private Shape getHorizontalCollapse(double frac) {
+	private void setSplit(boolean horizontal, double split) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
 		double w = bounds.getWidth();
 		double h = bounds.getHeight();
 		
-		double hh = h * 0.5;
-		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Rectangle cut = new Rectangle(x, y + hh * frac, w, h * (1.0 - frac));
-		
-		if (this.isInTransition()) {
-			return Shape.subtract(all, cut);
+		// the centered band
+		if (horizontal) {
+			this.clip.setRectangle(0, x, y + h * 0.5 * (1.0 - split), w, h * split);
 		} else {
-			return cut;
+			this.clip.setRectangle(0, x + w * 0.5 * (1.0 - split), y, w * split, h);
 		}
+		this.clip.setRectangle(1, x, y, 0, 0);
 	}
 	
-	private Shape getHorizontalExpand(double frac) {
+	private void setEdges(boolean horizontal, double split) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
 		double w = bounds.getWidth();
 		double h = bounds.getHeight();
 		
-		double hh = h * 0.5;
-		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Rectangle cut = new Rectangle(x, y + hh * (1.0 - frac), w, h * frac);
-		
-		if (this.isInTransition()) {
-			return cut;
-		} else {
-			return Shape.subtract(all, cut);
-		}
-	}
-	
-	private Shape getVerticalCollapse(double frac) {
-		Bounds bounds = this.bounds.get();
-		double x = bounds.getMinX();
-		double y = bounds.getMinY();
-		double w = bounds.getWidth();
-		double h = bounds.getHeight();
-		
-		double hw = w * 0.5;
-		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Rectangle cut = new Rectangle(x + hw * frac, y, w * (1.0 - frac), h);
-		
-		if (this.isInTransition()) {
-			return Shape.subtract(all, cut);
-		} else {
-			return cut;
-		}
-	}
-	
-	private Shape getVerticalExpand(double frac) {
-		Bounds bounds = this.bounds.get();
-		double x = bounds.getMinX();
-		double y = bounds.getMinY();
-		double w = bounds.getWidth();
-		double h = bounds.getHeight();
-		
-		double hw = w * 0.5;
-		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Rectangle cut = new Rectangle(x + hw * (1.0 - frac), y, w * frac, h);
-		
-		if (this.isInTransition()) {
-			return cut;
+		// everything outside the centered band
+		if (horizontal) {
+			double eh = h * 0.5 * (1.0 - split);
+			this.clip.setRectangle(0, x, y, w, eh);
+			this.clip.setRectangle(1, x, y + h - eh, w, eh);
 		} else {
-			return Shape.subtract(all, cut);
+			double ew = w * 0.5 * (1.0 - split);
+			this.clip.setRectangle(0, x, y, ew, h);
+			this.clip.setRectangle(1, x + w - ew, y, ew, h);
 		}
 	}
 	
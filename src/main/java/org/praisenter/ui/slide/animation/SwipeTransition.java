@@ -6,10 +6,6 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Bounds;
 import javafx.scene.Node;
-import javafx.scene.shape.Arc;
-import javafx.scene.shape.ArcType;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Shape;
 import javafx.util.Duration;
 
 public final class SwipeTransition extends CustomTransition {
@@ -17,10 +13,14 @@ public final class SwipeTransition extends CustomTransition {
 	private final ObjectProperty<AnimationDirection> direction;
 	private final ObjectProperty<Bounds> bounds;
 	
+	/** The clip; updated in place every frame */
+	private final ClipPath clip;
+	
 	public SwipeTransition() {
 		this.duration = new SimpleObjectProperty<Duration>();
 		this.direction = new SimpleObjectProperty<AnimationDirection>();
 		this.bounds = new SimpleObjectProperty<Bounds>();
+		this.clip = new ClipPath(1, 1);
 
 		this.duration.addListener((obs, ov, nv) -> {
 			this.setCycleDuration(nv);
@@ -35,37 +35,39 @@ public final class SwipeTransition extends CustomTransition {
 		AnimationDirection direction = this.direction.get();
 		if (direction == null) return;
 		
-		Shape clip = null;
 		switch(direction) {
 			case UP:
-				clip = getUpClip(frac);
+				this.setUpClip(frac);
 				break;
 			case RIGHT:
-				clip = getRightClip(frac);
+				this.setRightClip(frac);
 				break;
 			case DOWN:
-				clip = getDownClip(frac);
+				this.setDownClip(frac);
 				break;
 			case LEFT:
-				clip = getLeftClip(frac);
+				this.setLeftClip(frac);
 				break;
 			case CLOCKWISE:
-				clip = getClockwiseClip(frac);
+				this.setWedgeClip(90.0, -360 * frac);
 				break;
 			case COUNTER_CLOCKWISE:
-				clip = getCounterClockwiseClip(frac);
+				this.setWedgeClip(90.0, 360 * frac);
 				break;
 			case WEDGE_DOWN:
-				clip = getWedgeDownClip(frac);
+				this.setWedgeClip(90 - 180 * frac, 360 * frac);
 				break;
 			case WEDGE_UP:
-				clip = getWedgeUpClip(frac);
+				this.setWedgeClip(-90 - 180 * frac, 360 * frac);
 				break;
 			default:
-				break;
+				node.setClip(null);
+				return;
 		}
 		
-		node.setClip(clip);
+		if (node.getClip() != this.clip) {
+			node.setClip(this.clip);
+		}
 	}
 
 	@Override
@@ -76,7 +78,13 @@ public final class SwipeTransition extends CustomTransition {
 		node.setClip(null);
 	}
 	
-	private Shape getUpClip(double frac) {
+	private void setRectangleClip(double x, double y, double w, double h) {
+		this.clip.setSubtract(false);
+		this.clip.setRectangle(0, x, y, w, h);
+		this.clip.setWedge(0, x, y, 0, 0, 0);
+	}
+	
+	private void setUpClip(double frac) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
@@ -85,13 +93,13 @@ public final class SwipeTransition extends CustomTransition {
 		
 		double p = Math.ceil(h * (1.0 - frac));
 		if (this.isInTransition()) {
-			return new Rectangle(x, y + p, w, h);
+			this.setRectangleClip(x, y + p, w, h);
 		} else {
-			return new Rectangle(x, y, w, p);
+			this.setRectangleClip(x, y, w, p);
 		}
 	}
 
-	private Shape getRightClip(double frac) {
+	private void setRightClip(double frac) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
@@ -100,13 +108,13 @@ public final class SwipeTransition extends CustomTransition {
 		
 		double p = Math.ceil(w * frac);
 		if (this.isInTransition()) {
-			return new Rectangle(x, y, p, h);
+			this.setRectangleClip(x, y, p, h);
 		} else {
-			return new Rectangle(x + p, y, w, h);
+			this.setRectangleClip(x + p, y, w, h);
 		}
 	}
 
-	private Shape getDownClip(double frac) {
+	private void setDownClip(double frac) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
@@ -115,13 +123,13 @@ public final class SwipeTransition extends CustomTransition {
 		
 		double p = Math.ceil(h * frac);
 		if (this.isInTransition()) {
-			return new Rectangle(x, y, w, p);
+			this.setRectangleClip(x, y, w, p);
 		} else {
-			return new Rectangle(x, y + p, w, h * Math.ceil(1.0 - frac));
+			this.setRectangleClip(x, y + p, w, h * Math.ceil(1.0 - frac));
 		}
 	}
 
-	private Shape getLeftClip(double frac) {
+	private void setLeftClip(double frac) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
@@ -130,79 +138,13 @@ public final class SwipeTransition extends CustomTransition {
 		
 		double p = Math.ceil(w * (1.0 - frac));
 		if (this.isInTransition()) {
-			return new Rectangle(x + p, y, w, h);
-		} else {
-			return new Rectangle(x, y, p, h);
-		}
-	}
-
-	private Shape getClockwiseClip(double frac) {
-		Bounds bounds = this.bounds.get();
-		double x = bounds.getMinX();
-		double y = bounds.getMinY();
-		double w = bounds.getWidth();
-		double h = bounds.getHeight();
-		
-		double hw = w * 0.5;
-		double hh = h * 0.5;
-		double r = Math.sqrt(hw * hw + hh * hh);
-		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Arc arc = new Arc(x + hw, y + hh, r, r, 90.0, -360 * frac);
-		arc.setType(ArcType.ROUND);
-		
-		if (this.isInTransition()) {
-			return arc;
-		} else {
-			return Shape.subtract(all, arc);
-		}
-	}
-
-	private Shape getCounterClockwiseClip(double frac) {
-		Bounds bounds = this.bounds.get();
-		double x = bounds.getMinX();
-		double y = bounds.getMinY();
-		double w = bounds.getWidth();
-		double h = bounds.getHeight();
-		
-		double hw = w * 0.5;
-		double hh = h * 0.5;
-		double r = Math.sqrt(hw * hw + hh * hh);
-		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Arc arc = new Arc(x + hw, y + hh, r, r, 90.0, 360 * frac);
-		arc.setType(ArcType.ROUND);
-		
-		if (this.isInTransition()) {
-			return arc;
-		} else {
-			return Shape.subtract(all, arc);
-		}
-	}
-
-	private Shape getWedgeDownClip(double frac) {
-		Bounds bounds = this.bounds.get();
-		double x = bounds.getMinX();
-		double y = bounds.getMinY();
-		double w = bounds.getWidth();
-		double h = bounds.getHeight();
-		
-		double hw = w * 0.5;
-		double hh = h * 0.5;
-		double r = Math.sqrt(hw * hw + hh * hh);
-		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Arc arc = new Arc(x + hw, y + hh, r, r, 90 - 180 * frac, 360 * frac);
-		arc.setType(ArcType.ROUND);
-
-		if (this.isInTransition()) {
-			return arc;
+			this.setRectangleClip(x + p, y, w, h);
 		} else {
-			return Shape.subtract(all, arc);
+			this.setRectangleClip(x, y, p, h);
 		}
 	}
 
-	private Shape getWedgeUpClip(double frac) {
+	private void setWedgeClip(double start, double length) {
 		Bounds bounds = this.bounds.get();
 		double x = bounds.getMinX();
 		double y = bounds.getMinY();
@@ -211,16 +153,19 @@ public final class SwipeTransition extends CustomTransition {
 		
 		double hw = w * 0.5;
 		double hh = h * 0.5;
+		double cx = x + hw;
+		double cy = y + hh;
 		double r = Math.sqrt(hw * hw + hh * hh);
 		
-		Rectangle all = new Rectangle(x, y, w, h);
-		Arc arc = new Arc(x + hw, y + hh, r, r, -90 - 180 * frac, 360 * frac);
-		arc.setType(ArcType.ROUND);
+		this.clip.setWedge(0, cx, cy, r, start, length);
 		
+		// the wedge is shown when transitioning in, otherwise the rest of the bounds
 		if (this.isInTransition()) {
-			return arc;
+			this.clip.setSubtract(false);
+			this.clip.setRectangle(0, cx, cy, 0, 0);
 		} else {
-			return Shape.subtract(all, arc);
+			this.clip.setSubtract(true);
+			this.clip.setRectangle(0, bounds, cx, cy, r);
 		}
 	}
 
@@ -1,5 +1,8 @@
 package org.praisenter.ui.song;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.praisenter.data.Persistable;
 import org.praisenter.data.TextVariant;
 import org.praisenter.data.song.Lyrics;
@@ -19,6 +22,7 @@ import org.praisenter.ui.translations.Translations;
 
 import atlantafx.base.controls.CustomTextField;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -58,6 +62,9 @@ public final class SongNavigationPane extends VBox {
 
 	private final ObjectProperty<SongReferenceTextStore> value;
 	
+	/** The value of each section so that their slides can be prepared ahead of time */
+	private final ObservableList<SongReferenceTextStore> sectionValues;
+	
 	private final ObservableList<Node> sectionsToNodesMapping;
 	
 	private final StringProperty searchTerms;
@@ -72,6 +79,7 @@ public final class SongNavigationPane extends VBox {
 		this.lyrics = FXCollections.observableArrayList();
 		this.sections = FXCollections.observableArrayList();
 		this.value = new SimpleObjectProperty<SongReferenceTextStore>(new SongReferenceTextStore());
+		this.sectionValues = FXCollections.observableArrayList();
 
 		this.lyricsWithEmptyOption = new EmptyItemList<ReadOnlyLyrics>(this.lyrics, EMPTY_LYRICS);
 		
@@ -122,33 +130,26 @@ public final class SongNavigationPane extends VBox {
 			btnSection.setTooltip(tooltip);
 			btnSection.setOnAction((e) -> {
 				this.mutating = true;
-				SongReferenceTextStore text = new SongReferenceTextStore();
-				text.setVariant(TextVariant.PRIMARY, new SongReferenceVerse(
-						this.song.get().getId(), 
-						cmbPrimaryLyrics.getValue().getId(),
-						section.getId(),
-						cmbPrimaryLyrics.getValue().getTitle(),
-						section.getName(),
-						section.getText()));
-				ReadOnlyLyrics secondary = cmbSecondaryLyrics.getValue();
-				if (secondary != null) {
-					// try to find the secondary section based on the first
-					ReadOnlySection secondarySection = secondary.getSectionByName(section.getName());
-					if (secondarySection != null) {
-						text.setVariant(TextVariant.SECONDARY, new SongReferenceVerse(
-								this.song.get().getId(), 
-								secondary.getId(), 
-								secondarySection.getId(),
-								secondary.getTitle(),
-								secondarySection.getName(),
-								secondarySection.getText()));
-					}
-				}
-				this.value.set(text);
+				this.value.set(this.createValue(cmbPrimaryLyrics.getValue(), section, cmbSecondaryLyrics.getValue()));
 				this.mutating = false;
 			});
 			return btnSection;
 		});
+		
+		// keep the value of every section so the slides for the whole song
+		// can be built before the sections are shown
+		InvalidationListener sectionsChanged = (obs) -> {
+			List<SongReferenceTextStore> values = new ArrayList<>();
+			ReadOnlyLyrics primary = cmbPrimaryLyrics.getValue();
+			if (this.song.get() != null && primary != null) {
+				for (ReadOnlySection section : this.sections) {
+					values.add(this.createValue(primary, section, cmbSecondaryLyrics.getValue()));
+				}
+			}
+			this.sectionValues.setAll(values);
+		};
+		this.sections.addListener(sectionsChanged);
+		cmbSecondaryLyrics.valueProperty().addListener(sectionsChanged);
 
 		TextArea txtDescription = new TextArea();
 		txtDescription.setEditable(false);
@@ -338,6 +339,31 @@ public final class SongNavigationPane extends VBox {
 		VBox.setVgrow(sectionButtons, Priority.ALWAYS);
 	}
 	
+	private SongReferenceTextStore createValue(ReadOnlyLyrics primary, ReadOnlySection section, ReadOnlyLyrics secondary) {
+		SongReferenceTextStore text = new SongReferenceTextStore();
+		text.setVariant(TextVariant.PRIMARY, new SongReferenceVerse(
+				this.song.get().getId(), 
+				primary.getId(),
+				section.getId(),
+				primary.getTitle(),
+				section.getName(),
+				section.getText()));
+		if (secondary != null) {
+			// try to find the secondary section based on the first
+			ReadOnlySection secondarySection = secondary.getSectionByName(section.getName());
+			if (secondarySection != null) {
+				text.setVariant(TextVariant.SECONDARY, new SongReferenceVerse(
+						this.song.get().getId(), 
+						secondary.getId(), 
+						secondarySection.getId(),
+						secondary.getTitle(),
+						secondarySection.getName(),
+						secondarySection.getText()));
+			}
+		}
+		return text;
+	}
+	
 	public SongReferenceTextStore getValue() {
 		return this.value.get();
 	}
@@ -349,4 +375,12 @@ public final class SongNavigationPane extends VBox {
 	public ObjectProperty<SongReferenceTextStore> valueProperty() {
 		return this.value;
 	}
+	
+	/**
+	 * Returns the value of each section of the selected lyrics, in order.
+	 * @return ObservableList&lt;{@link SongReferenceTextStore}&gt;
+	 */
+	public ObservableList<SongReferenceTextStore> getSectionValuesUnmodifiable() {
+		return FXCollections.unmodifiableObservableList(this.sectionValues);
+	}
 }
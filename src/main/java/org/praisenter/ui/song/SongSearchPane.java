@@ -5,6 +5,11 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -13,6 +18,8 @@ import org.praisenter.Constants;
 import org.praisenter.async.AsyncHelper;
 import org.praisenter.data.json.JsonIO;
 import org.praisenter.data.search.SearchResult;
+import org.praisenter.data.search.SearchResults;
+import org.praisenter.data.search.SearchTextHighlight;
 import org.praisenter.data.search.SearchTextMatch;
 import org.praisenter.data.search.SearchType;
 import org.praisenter.data.song.ReadOnlyLyrics;
@@ -35,7 +42,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import atlantafx.base.controls.CustomTextField;
 import atlantafx.base.theme.Styles;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyFloatWrapper;
@@ -74,6 +83,7 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
 
 // FEATURE (M-M) add searching to the song editor for finding and editing easily
 
@@ -86,6 +96,15 @@ public final class SongSearchPane extends VBox {
 	private static final Logger LOGGER = LogManager.getLogger();
 
 	private static final DecimalFormat SCORE_FORMAT = new DecimalFormat(Translations.get("search.score.format"));
+	
+	/** The time to wait after the user stops typing to search */
+	private static final Duration SEARCH_AS_YOU_TYPE_DELAY = Duration.millis(250);
+	
+	/** The number of characters to type before searching */
+	private static final int SEARCH_AS_YOU_TYPE_MINIMUM_LENGTH = 2;
+	
+	/** The number of results to get at a time; the next page is fetched when the user scrolls to the end */
+	private static final int SEARCH_PAGE_SIZE = 50;
 
 	private final GlobalContext context;
 	
@@ -97,6 +116,7 @@ public final class SongSearchPane extends VBox {
 	private final ObservableList<SongSearchResult> results;
 	
 	private final Runnable search;
+	private final Runnable loadMore;
 	
 	// value
 	
@@ -229,25 +249,23 @@ public final class SongSearchPane extends VBox {
 					}
 					
 					// get the matched text
-					String highlighted = match.getMatchedText();
+					String value = match.getValue();
 					HBox text = new HBox();
 					text.setAlignment(Pos.CENTER_LEFT);
 					
-					// format the match text from Lucene to show what we matched on
-					String[] mparts = highlighted.replaceAll("\n\r?", " ").split("<B>");
-					for (String mpart : mparts) {
-						if (mpart.contains("</B>")) {
-							String[] nparts = mpart.split("</B>");
-							Text temp = new Text(nparts[0]);
-							temp.getStyleClass().add("p-search-highlight");
-							text.getChildren().add(temp);
-							// it's possible mpart could be "blah</B>" which would only give us one part
-							if (nparts.length > 1) {
-								text.getChildren().add(new Text(nparts[1]));
-							}
-						} else {
-							text.getChildren().add(new Text(mpart));
+					// show what we matched on using the offsets from Lucene
+					int position = match.getStart();
+					for (SearchTextHighlight highlight : match.getHighlights()) {
+						if (highlight.getStart() > position) {
+							text.getChildren().add(new Text(value.substring(position, highlight.getStart()).replaceAll("\n\r?", " ")));
 						}
+						Text temp = new Text(value.substring(highlight.getStart(), highlight.getEnd()).replaceAll("\n\r?", " "));
+						temp.getStyleClass().add("p-search-highlight");
+						text.getChildren().add(temp);
+						position = highlight.getEnd();
+					}
+					if (match.getEnd() > position) {
+						text.getChildren().add(new Text(value.substring(position, match.getEnd()).replaceAll("\n\r?", " ")));
 					}
 					
 					setGraphic(text);
@@ -273,6 +291,12 @@ public final class SongSearchPane extends VBox {
 		        	this.value.set(rowData);
 		        }
 		    });
+		    row.itemProperty().addListener((obs, ov, nv) -> {
+		    	// get the next page when the last result is shown
+		    	if (nv != null && row.getIndex() >= tv.getItems().size() - 1) {
+		    		this.loadMore();
+		    	}
+		    });
 		    return row ;
 		});
 
@@ -386,26 +410,51 @@ public final class SongSearchPane extends VBox {
 		
 		this.getChildren().addAll(lblSearch, sepTitle, top, splt, lblResults);
 		
-		this.search = () -> {
+		// the number of the last search; searches are cancelled when a new one starts
+		final AtomicLong searchNumber = new AtomicLong();
+		
+		// the last page of results and whether the next page is being fetched
+		final AtomicReference<SearchResults> page = new AtomicReference<SearchResults>();
+		final AtomicBoolean loading = new AtomicBoolean();
+		
+		Consumer<Boolean> search = live -> {
 			String text = this.terms.get();
 			Option<SearchType> searchType = this.searchType.get();
 			Option<Boolean> matchType = this.matchType.getValue();
 			
 			if (text != null && text.length() != 0 && searchType != null) {
-				overlay.setVisible(true);
+				// wait for a few characters when searching as the user types
+				if (live && text.trim().length() < SEARCH_AS_YOU_TYPE_MINIMUM_LENGTH) {
+					return;
+				}
+				
+				if (!live) {
+					overlay.setVisible(true);
+				}
 				
-				final int maxResults = 100;
+				final long number = searchNumber.incrementAndGet();
 				SongTextSearchCriteria criteria = new SongTextSearchCriteria(
 						text,
 						searchType.getValue(),
 						matchType != null ? !matchType.getValue() : true,
-						maxResults);
+						// the last word is incomplete if the user is still typing it
+						live && !Character.isWhitespace(text.charAt(text.length() - 1)),
+						SEARCH_PAGE_SIZE);
 				
-				context.getWorkspaceManager().search(criteria).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
+				context.getWorkspaceManager().search(criteria, () -> searchNumber.get() != number).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
+					// ignore the results if another search has started
+					if (searchNumber.get() != number) {
+						return;
+					}
+					page.set(result);
+					loading.set(false);
 					this.results.setAll(this.getSearchResults(result.getResults()));
-					lblResults.setText(MessageFormat.format(Translations.get("song.search.results.output"), result.hasMore() ? maxResults + "+" : result.getNumberOfResults()));
+					lblResults.setText(MessageFormat.format(Translations.get("song.search.results.output"), getTotalHits(result)));
 					overlay.setVisible(false);
 				})).exceptionally(t -> {
+					if (t instanceof CancellationException || t.getCause() instanceof CancellationException) {
+						return null;
+					}
 					LOGGER.error("Failed to search songs using terms '" + text + "' due to: " + t.getMessage(), t);
 					Platform.runLater(() -> {
 						Alert alert = Dialogs.exception(this.context.getStage(), t);
@@ -416,6 +465,51 @@ public final class SongSearchPane extends VBox {
 			}
 		};
 		
+		// search as the user types (or changes the options) after they pause
+		PauseTransition typing = new PauseTransition(SEARCH_AS_YOU_TYPE_DELAY);
+		typing.setOnFinished(e -> search.accept(true));
+		InvalidationListener changed = obs -> typing.playFromStart();
+		this.terms.addListener(changed);
+		this.searchType.addListener(changed);
+		this.matchType.addListener(changed);
+		
+		this.loadMore = () -> {
+			SearchResults last = page.get();
+			// only one page at a time
+			if (last == null || !last.hasMore() || !loading.compareAndSet(false, true)) {
+				return;
+			}
+			
+			final long number = searchNumber.get();
+			context.getWorkspaceManager().searchNext(last, () -> searchNumber.get() != number).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
+				// ignore the page if another search has started
+				if (searchNumber.get() != number) {
+					return;
+				}
+				page.set(result);
+				loading.set(false);
+				if (result.isFirstPage()) {
+					// the index changed so the search started again
+					this.results.setAll(this.getSearchResults(result.getResults()));
+					lblResults.setText(MessageFormat.format(Translations.get("song.search.results.output"), getTotalHits(result)));
+				} else {
+					this.results.addAll(this.getSearchResults(result.getResults()));
+				}
+			})).exceptionally(t -> {
+				if (t instanceof CancellationException || t.getCause() instanceof CancellationException) {
+					return null;
+				}
+				// leave it as loading so that scrolling doesn't try again
+				LOGGER.error("Failed to get the next page of song search results due to: " + t.getMessage(), t);
+				return null;
+			});
+		};
+		
+		this.search = () -> {
+			typing.stop();
+			search.accept(false);
+		};
+		
 		EventHandler<ActionEvent> handler = e -> {
 			this.search.run();
 		};
@@ -485,6 +579,19 @@ public final class SongSearchPane extends VBox {
 		return output;
 	}
 	
+	/**
+	 * Returns the total number of matches for display.
+	 * @param results the results
+	 * @return String
+	 */
+	private static String getTotalHits(SearchResults results) {
+		return results.isTotalHitsExact() ? String.valueOf(results.getTotalHits()) : results.getTotalHits() + "+";
+	}
+	
+	private void loadMore() {
+		this.loadMore.run();
+	}
+	
 	public void clear() {
 		this.terms.set(null);
 		this.results.clear();
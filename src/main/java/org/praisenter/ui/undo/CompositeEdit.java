@@ -35,6 +35,15 @@ final class CompositeEdit implements Edit {
 		}
 	}
 	
+	@Override
+	public long getEstimatedSize() {
+		long size = 64;
+		for (Edit edit : this.edits) {
+			size += edit.getEstimatedSize();
+		}
+		return size;
+	}
+	
 	@Override
 	public boolean isMergeSupported(Edit edit) {
 		return false;
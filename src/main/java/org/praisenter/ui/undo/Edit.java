@@ -7,6 +7,17 @@ public interface Edit {
 	public boolean isMergeSupported(Edit previous);
 	public Edit merge(Edit previous);
 	
+	/**
+	 * Returns a rough estimate of the memory retained by this edit in bytes.
+	 * <p>
+	 * This is used to bound the size of the undo history so it doesn't need to be
+	 * exact.  Objects that are still part of the document don't need to be counted.
+	 * @return long
+	 */
+	public default long getEstimatedSize() {
+		return 64;
+	}
+	
 	public static final Edit MARK = new Edit() {
 		@Override
 		public String toString() {
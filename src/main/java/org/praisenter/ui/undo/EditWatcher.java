@@ -1,7 +1,6 @@
 package org.praisenter.ui.undo;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -9,9 +8,7 @@ import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.praisenter.Watchable;
 
-import javafx.beans.Observable;
 import javafx.beans.property.Property;
 import javafx.beans.property.ReadOnlyProperty;
 import javafx.beans.value.ChangeListener;
@@ -59,58 +56,72 @@ final class EditWatcher implements Watcher {
 		this.registerObjectProperties(target);
 	}
 	
+	/**
+	 * Makes sure the given object and everything below it is watched, including
+	 * the items of any lazy lists or sets.
+	 * <p>
+	 * This is cheap for objects that are already fully watched.
+	 * @param target the object to watch
+	 */
+	public void watch(Object target) {
+		if (target == null) return;
+		
+		List<Registration> registrations = this.map.get(new Key(target));
+		if (registrations == null) {
+			this.registerObjectProperties(target, true);
+			return;
+		}
+		
+		for (Registration registration : registrations) {
+			// property values are only watched once they change
+			if (registration instanceof PropertyRegistration) continue;
+			
+			for (Object dependent : registration.getDependents()) {
+				this.watch(dependent);
+			}
+		}
+	}
+	
 	private void registerObjectProperties(Object target) {
+		this.registerObjectProperties(target, false);
+	}
+	
+	private void registerObjectProperties(Object target, boolean deep) {
 		if (target == null) return;
 		
 		Class<?> clazz = target.getClass();
-		if (clazz.isEnum() || clazz.isPrimitive()) {
+		WatchMetadata metadata = WatchMetadata.forClass(clazz);
+		if (metadata.isEmpty()) {
 			return;
 		}
 		
-		List<Method> propertyMethods = this.getPropertyMethodsToWatch(clazz);
-		for (Method method : propertyMethods) {
+		for (WatchMetadata.WatchedMethod method : metadata.getMethods()) {
 			try {
-				String name = method.getAnnotation(Watchable.class).name();
-				Object returnValue = method.invoke(target);
+				String name = method.getName();
+				boolean lazy = method.isLazy() && !deep;
+				Object returnValue = method.get(target);
 				if (returnValue != null) {
 					if (returnValue instanceof Property) {
 						Property<?> prop = ((Property<?>)returnValue);
 						this.register(name, target, prop);
 					} else if (returnValue instanceof ObservableList) {
 						ObservableList<?> list = ((ObservableList<?>)returnValue);
-						this.register(name, target, list);
+						this.register(name, target, list, lazy, deep);
 					} else if (returnValue instanceof ObservableSet) {
 						ObservableSet<?> set = ((ObservableSet<?>)returnValue);
-						this.register(name, target, set);
+						this.register(name, target, set, lazy, deep);
 					} else if (returnValue instanceof ReadOnlyProperty) {
 						// ignore this
 					} else {
-						LOGGER.warn("Unknown return value type '" + returnValue.getClass().getName() + "' from '" + method.getName() + "' on '" + clazz.getName() + "'. Skipping.");
+						LOGGER.warn("Unknown return value type '" + returnValue.getClass().getName() + "' from '" + method.getMethodName() + "' on '" + clazz.getName() + "'. Skipping.");
 					}
 				}
-			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+			} catch (InvocationTargetException e) {
 				LOGGER.warn(e.getMessage(), e);
 			}
 		}
 	}
 	
-	private List<Method> getPropertyMethodsToWatch(Class<?> objectClass) {
-		List<Method> propertyMethods = new ArrayList<>();
-		
-		// we have to inspect all super classes for all the methods
-		for (Class<?> c = objectClass; c != null; c = c.getSuperclass()) {
-            for (Method method : c.getDeclaredMethods()) {
-            	// has to have the annotation
-            	if (method.isAnnotationPresent(Watchable.class) &&
-            		Observable.class.isAssignableFrom(method.getReturnType())) {
-            		propertyMethods.add(method);
-            	}
-            }
-        }
-		
-		return propertyMethods;
-	}
-	
 	/**
 	 * Registers a property on the given target to be watched.
 	 * <p>
@@ -145,6 +156,16 @@ final class EditWatcher implements Watcher {
 	}
 	
 	public <E, T> void register(String name, E target, ObservableList<T> list) {
+		this.register(name, target, list, false, false);
+	}
+	
+	/**
+	 * Registers a list on the given target to be watched.
+	 * <p>
+	 * When lazy is true, the current items are not watched until {@link #watch(Object)}
+	 * is called for them (or an object above them).  Items added later are always watched.
+	 */
+	private <E, T> void register(String name, E target, ObservableList<T> list, boolean lazy, boolean deep) {
 		ListChangeListener<T> listener = (change) -> {
 			Edit edit = new ListEdit<T>(name, list, change);
 			this.onEdit.accept(edit);
@@ -183,13 +204,26 @@ final class EditWatcher implements Watcher {
 		registrations.add(registration);
 		list.addListener(listener);
 		
+		// the items of lazy lists are watched by watch(Object)
+		if (lazy) {
+			return;
+		}
+		
 		// listen to all dependents
 		for (T item : list) {
-			this.registerObjectProperties(item);
+			this.registerObjectProperties(item, deep);
 		}
 	}
 	
 	public <E, T> void register(String name, E target, ObservableSet<T> set) {
+		this.register(name, target, set, false, false);
+	}
+	
+	/**
+	 * Registers a set on the given target to be watched.
+	 * @see #register(String, Object, ObservableList, boolean, boolean)
+	 */
+	private <E, T> void register(String name, E target, ObservableSet<T> set, boolean lazy, boolean deep) {
 		SetChangeListener<T> listener = (change) -> {
 			Edit edit = new SetEdit<T>(name, set, change);
 			this.onEdit.accept(edit);
@@ -215,9 +249,13 @@ final class EditWatcher implements Watcher {
 		
 		set.addListener(listener);
 		
+		if (lazy) {
+			return;
+		}
+		
 		// listen to all dependents
 		for (T item : set) {
-			this.registerObjectProperties(item);
+			this.registerObjectProperties(item, deep);
 		}
 	}
 	
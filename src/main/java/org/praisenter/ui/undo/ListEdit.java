@@ -10,11 +10,28 @@ final class ListEdit<T> implements Edit {
 	private final String name;
 	private final ObservableList<T> list;
 	private final Changes change;
+	private final long size;
 	
 	public ListEdit(String name, ObservableList<T> list, ListChangeListener.Change<? extends T> change) {
 		this.name = name;
 		this.list = list;
 		this.change = this.process(change);
+		this.size = this.estimateSize();
+	}
+	
+	private long estimateSize() {
+		long size = 64;
+		for (Change c : this.change.changes) {
+			size += 64;
+			for (Added added : c.added) {
+				size += 16 + 8L * added.items.size();
+			}
+			size += 24L * c.removed.size();
+			if (c.permutation != null) {
+				size += 16L * (c.permutation.end - c.permutation.start);
+			}
+		}
+		return size;
 	}
 
 	@Override
@@ -27,6 +44,11 @@ final class ListEdit<T> implements Edit {
 		return this.name;
 	}
 	
+	@Override
+	public long getEstimatedSize() {
+		return this.size;
+	}
+	
 	@Override
 	public boolean isMergeSupported(Edit previous) {
 		return false;
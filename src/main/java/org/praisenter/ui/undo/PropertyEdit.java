@@ -34,6 +34,25 @@ class PropertyEdit<T> implements Edit {
 		return this.timestamp;
 	}
 	
+	@Override
+	public long getEstimatedSize() {
+		return 64 + estimateSize(this.oldValue) + estimateSize(this.newValue);
+	}
+	
+	/**
+	 * Returns a rough estimate of the memory retained by the given value.
+	 * @param value the value
+	 * @return long
+	 */
+	static long estimateSize(Object value) {
+		if (value == null) return 0;
+		if (value instanceof CharSequence) {
+			return 40 + 2L * ((CharSequence)value).length();
+		}
+		// numbers, enums, colors, fonts, other document objects, etc.
+		return 16;
+	}
+	
 	@Override
 	public String toString() {
 		return name + "[" + this.oldValue + " => " + this.newValue + "]";
@@ -6,7 +6,6 @@ import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
@@ -15,18 +14,22 @@ import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 
 public final class UndoManager {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
-	private final ObservableList<Edit> undos;
-	private final ObservableList<Edit> redos;
-
+	/** The default maximum number of edits to keep */
+	private static final int DEFAULT_MAX_EDITS = 500;
+	
+	/** The default maximum (estimated) size of the edits to keep */
+	private static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+	
+	private final List<Edit> undos;
+	private final List<Edit> redos;
+	
 	private final BooleanProperty redoAvailable;
 	private final BooleanProperty undoAvailable;
-
+	
 	private final IntegerProperty undoCount;
 	private final IntegerProperty redoCount;
 	
@@ -39,14 +42,37 @@ public final class UndoManager {
 	private String batchName;
 	private List<Edit> batch;
 	
-	// for watching 
+	// for bounding the history
+	
+	private int maxEdits;
+	private long maxSize;
+	
+	/** The number of MARK and MarkPosition edits in the undo stack */
+	private int undoMarkers;
+	
+	/** The number of MARK edits in the undo stack (0 or 1) */
+	private int undoMarks;
+	
+	/** The number of MARK edits in the redo stack (0 or 1) */
+	private int redoMarks;
+	
+	/** The estimated size of the undo stack */
+	private long undoSize;
+	
+	/** The estimated size of the redo stack */
+	private long redoSize;
+	
+	/** True if edits have been dropped from the bottom of the undo stack */
+	private boolean truncated;
+	
+	// for watching
 	
 	private final ObjectProperty<Object> target;
 	private final EditWatcher watcher;
 	
 	public UndoManager() {
-		this.undos = FXCollections.observableArrayList();
-		this.redos = FXCollections.observableArrayList();
+		this.undos = new ArrayList<>();
+		this.redos = new ArrayList<>();
 		
 		this.undoAvailable = new SimpleBooleanProperty();
 		this.redoAvailable = new SimpleBooleanProperty();
@@ -57,11 +83,20 @@ public final class UndoManager {
 		this.notTopMarked = new SimpleBooleanProperty();
 		
 		this.isOperating = false;
-
+		
 		this.isBatching = false;
 		this.batchName = null;
 		this.batch = null;
 		
+		this.maxEdits = DEFAULT_MAX_EDITS;
+		this.maxSize = DEFAULT_MAX_SIZE;
+		this.undoMarkers = 0;
+		this.undoMarks = 0;
+		this.redoMarks = 0;
+		this.undoSize = 0;
+		this.redoSize = 0;
+		this.truncated = false;
+		
 		this.target = new SimpleObjectProperty<>();
 		this.watcher = new EditWatcher((edit) -> {
 			if (!this.isOperating) {
@@ -73,51 +108,7 @@ public final class UndoManager {
 			}
 		});
 		
-		this.marked.bind(Bindings.createBooleanBinding(() -> {
-			return this.undos.contains(Edit.MARK);
-		}, this.undos));
-		
-		this.topMarked.bind(Bindings.createBooleanBinding(() -> {
-			int usize = this.undos.size();
-			boolean redoHasMark = this.redos.stream().anyMatch(r -> r == Edit.MARK);
-			// if there's nothing to undo, and the redos do not contain
-			// the MARK, then we are back to the original state
-			if (usize <= 0 && !redoHasMark) return true;
-			// if the MARK is in the redo stack, then that means that the
-			// save has occurred since it was opened and if you undo past
-			// the MARK, it's now considered changed again
-			
-			// or if the top item on the undo stack is MARK
-			if (usize > 0) {
-				Edit edit = this.undos.get(usize - 1);
-				return edit == Edit.MARK;
-			}
-			return false;
-		}, this.undos, this.redos));
-		
-		this.notTopMarked.bind(Bindings.createBooleanBinding(() -> {
-			return !this.topMarked.get();
-		}, this.topMarked));
-
-		// these bindings are after the ones above since we need them updated
-		// before these are updated since its more likely that these will be
-		// listened to
-		
-		this.undoAvailable.bind(Bindings.createBooleanBinding(() -> {
-			return this.undos.stream().filter(u -> u != Edit.MARK && !(u instanceof MarkPosition)).count() > 0;
-		}, this.undos));
-		
-		this.redoAvailable.bind(Bindings.createBooleanBinding(() -> {
-			return !this.redos.isEmpty();
-		}, this.redos));
-		
-		this.undoCount.bind(Bindings.createIntegerBinding(() -> {
-			return this.undos.size();
-		}, this.undos));
-		
-		this.redoCount.bind(Bindings.createIntegerBinding(() -> {
-			return this.redos.size();
-		}, this.redos));
+		this.updateState();
 		
 		this.target.addListener((obs, ov, nv) -> {
 			if (ov != null) {
@@ -129,7 +120,128 @@ public final class UndoManager {
 			}
 		});
 	}
-
+	
+	// stack maintenance
+	
+	private static boolean isMarker(Edit edit) {
+		return edit == Edit.MARK || edit instanceof MarkPosition;
+	}
+	
+	private void pushUndo(Edit edit) {
+		this.undos.add(edit);
+		this.undoSize += edit.getEstimatedSize();
+		if (isMarker(edit)) this.undoMarkers++;
+		if (edit == Edit.MARK) this.undoMarks++;
+	}
+	
+	private Edit removeUndo(int index) {
+		Edit edit = this.undos.remove(index);
+		this.undoSize -= edit.getEstimatedSize();
+		if (isMarker(edit)) this.undoMarkers--;
+		if (edit == Edit.MARK) this.undoMarks--;
+		return edit;
+	}
+	
+	private void setUndo(int index, Edit edit) {
+		Edit old = this.undos.set(index, edit);
+		this.undoSize += edit.getEstimatedSize() - old.getEstimatedSize();
+		if (isMarker(old)) this.undoMarkers--;
+		if (old == Edit.MARK) this.undoMarks--;
+		if (isMarker(edit)) this.undoMarkers++;
+		if (edit == Edit.MARK) this.undoMarks++;
+	}
+	
+	private void pushRedo(Edit edit) {
+		this.redos.add(edit);
+		this.redoSize += edit.getEstimatedSize();
+		if (edit == Edit.MARK) this.redoMarks++;
+	}
+	
+	private Edit removeRedo(int index) {
+		Edit edit = this.redos.remove(index);
+		this.redoSize -= edit.getEstimatedSize();
+		if (edit == Edit.MARK) this.redoMarks--;
+		return edit;
+	}
+	
+	private void clearRedos() {
+		this.redos.clear();
+		this.redoSize = 0;
+		this.redoMarks = 0;
+	}
+	
+	/**
+	 * Recomputes the book keeping for the stacks after a bulk change.
+	 */
+	private void recount() {
+		this.undoMarkers = 0;
+		this.undoMarks = 0;
+		this.undoSize = 0;
+		for (Edit edit : this.undos) {
+			this.undoSize += edit.getEstimatedSize();
+			if (isMarker(edit)) this.undoMarkers++;
+			if (edit == Edit.MARK) this.undoMarks++;
+		}
+		this.redoMarks = 0;
+		this.redoSize = 0;
+		for (Edit edit : this.redos) {
+			this.redoSize += edit.getEstimatedSize();
+			if (edit == Edit.MARK) this.redoMarks++;
+		}
+	}
+	
+	/**
+	 * Drops the oldest edits until the history is within the limits.  The
+	 * newest edit is always kept.
+	 */
+	private void trim() {
+		while (this.undos.size() > 1 &&
+			  (this.undos.size() - this.undoMarkers > this.maxEdits || this.undoSize + this.redoSize > this.maxSize)) {
+			Edit edit = this.removeUndo(0);
+			// the bottom of the stack is no longer the original state
+			this.truncated = true;
+			LOGGER.trace(() -> "Dropped edit '" + edit + "' from the undo history");
+		}
+	}
+	
+	/**
+	 * Updates the observable state from the stacks.
+	 * <p>
+	 * This is called once at the end of each operation and only inspects the
+	 * top of the stacks and the counts maintained as they change.
+	 */
+	private void updateState() {
+		int usize = this.undos.size();
+		int rsize = this.redos.size();
+		
+		this.marked.set(this.undoMarks > 0);
+		
+		// if there's nothing to undo, and the redos do not contain
+		// the MARK, then we are back to the original state (unless
+		// the original state has been dropped from the history)
+		// if the MARK is in the redo stack, then that means that the
+		// save has occurred since it was opened and if you undo past
+		// the MARK, it's now considered changed again
+		// or if the top item on the undo stack is MARK
+		boolean top = false;
+		if (usize > 0) {
+			top = this.undos.get(usize - 1) == Edit.MARK;
+		} else if (this.redoMarks == 0) {
+			top = !this.truncated;
+		}
+		this.topMarked.set(top);
+		this.notTopMarked.set(!top);
+		
+		// these are after the ones above since we need them updated
+		// before these are updated since its more likely that these will be
+		// listened to
+		
+		this.undoAvailable.set(usize - this.undoMarkers > 0);
+		this.redoAvailable.set(rsize > 0);
+		this.undoCount.set(usize);
+		this.redoCount.set(rsize);
+	}
+	
 	public void undo() {
 		if (this.isOperating) return;
 		this.isOperating = true;
@@ -137,23 +249,24 @@ public final class UndoManager {
 		try {
 			int size = this.undos.size();
 			
-			if (size == 0) { 
+			if (size == 0) {
 				return;
 			}
 			
-			Edit undo = this.undos.remove(size - 1);
+			Edit undo = this.removeUndo(size - 1);
 			undo.undo();
-			this.redos.add(undo);
+			this.pushRedo(undo);
 			size--;
 			
-			while ((undo == Edit.MARK || undo instanceof MarkPosition) && size > 0) {
-				undo = this.undos.remove(size - 1);
+			while (isMarker(undo) && size > 0) {
+				undo = this.removeUndo(size - 1);
 				undo.undo();
-				this.redos.add(undo);
+				this.pushRedo(undo);
 				size--;
 			}
 		} finally {
 			this.isOperating = false;
+			this.updateState();
 		}
 	}
 	
@@ -168,9 +281,9 @@ public final class UndoManager {
 				return;
 			}
 			
-			Edit redo = this.redos.remove(size - 1);
+			Edit redo = this.removeRedo(size - 1);
 			redo.redo();
-			this.undos.add(redo);
+			this.pushUndo(redo);
 			size--;
 			
 			// there may be marks after the one we just un-did
@@ -178,11 +291,11 @@ public final class UndoManager {
 				// peek at the next item
 				redo = this.redos.get(size - 1);
 				// is it a mark?
-				if (redo == Edit.MARK || redo instanceof MarkPosition) {
+				if (isMarker(redo)) {
 					// if so, remove it and "redo" it
-					this.redos.remove(size - 1);					
+					this.removeRedo(size - 1);
 					redo.redo();
-					this.undos.add(redo);
+					this.pushUndo(redo);
 					size--;
 				} else {
 					// if it's not a mark then exit
@@ -191,6 +304,7 @@ public final class UndoManager {
 			}
 		} finally {
 			this.isOperating = false;
+			this.updateState();
 		}
 	}
 	
@@ -202,16 +316,21 @@ public final class UndoManager {
 				if (top.isMergeSupported(edit)) {
 					Edit merged = edit.merge(top);
 					LOGGER.trace(() -> "Merged edit '" + edit + "' with '" + top + "' to produce '" + merged + "'");
-					this.undos.set(size - 1, merged);
+					this.setUndo(size - 1, merged);
+					this.clearRedos();
+					this.updateState();
 					return;
 				}
 			}
-			this.undos.add(edit);
-			this.redos.clear();
+			this.pushUndo(edit);
+			this.clearRedos();
+			this.trim();
+			this.updateState();
 		}
 	}
 	
 	public void print() {
+		LOGGER.debug(this.getMemoryReport());
 		LOGGER.debug("====== Undos ======");
 		for (Edit edit : this.undos) {
 			LOGGER.debug(edit);
@@ -222,17 +341,36 @@ public final class UndoManager {
 		}
 	}
 	
+	/**
+	 * Returns a summary of the size of the undo/redo history.
+	 * @return String
+	 */
+	public String getMemoryReport() {
+		return String.format("Undo: %d edit(s) ~%d KB, Redo: %d edit(s) ~%d KB, Limit: %d edit(s) %d KB%s",
+				this.undos.size() - this.undoMarkers,
+				this.undoSize / 1024,
+				this.redos.size(),
+				this.redoSize / 1024,
+				this.maxEdits,
+				this.maxSize / 1024,
+				this.truncated ? " (truncated)" : "");
+	}
+	
 	public void mark() {
 		// remove any prior marks
 		this.undos.removeIf(c -> c == Edit.MARK);
 		this.redos.removeIf(c -> c == Edit.MARK);
 		// add a mark at this location
 		this.undos.add(Edit.MARK);
+		this.recount();
+		this.updateState();
 	}
 	
 	public void unmark() {
 		this.undos.removeIf(c -> c == Edit.MARK);
 		this.redos.removeIf(c -> c == Edit.MARK);
+		this.recount();
+		this.updateState();
 	}
 	
 	public void reset() {
@@ -242,6 +380,9 @@ public final class UndoManager {
 		this.batch = null;
 		this.isBatching = false;
 		this.isOperating = false;
+		this.truncated = false;
+		this.recount();
+		this.updateState();
 	}
 	
 	public void beginBatch(String name) {
@@ -252,12 +393,14 @@ public final class UndoManager {
 	
 	public void completeBatch() {
 		if (this.batch != null && this.batch.size() > 0) {
-			this.undos.add(new CompositeEdit(this.batchName, this.batch));
+			this.pushUndo(new CompositeEdit(this.batchName, this.batch));
 		}
 		this.isBatching = false;
 		this.batchName = null;
 		this.batch = null;
-		this.redos.clear();
+		this.clearRedos();
+		this.trim();
+		this.updateState();
 	}
 	
 	public void discardBatch() {
@@ -268,7 +411,8 @@ public final class UndoManager {
 	
 	public Object storePosition() {
 		MarkPosition position = new MarkPosition();
-		this.undos.add(position);
+		this.pushUndo(position);
+		this.updateState();
 		return position;
 	}
 	
@@ -284,11 +428,15 @@ public final class UndoManager {
 			rindex = this.redos.indexOf(position);
 			this.redos.set(rindex, Edit.MARK);
 		}
+		this.recount();
+		this.updateState();
 	}
 	
 	public void clearPosition(Object position) {
 		this.undos.removeIf(u -> u == position);
 		this.redos.removeIf(r -> r == position);
+		this.recount();
+		this.updateState();
 	}
 	
 	public Object getTarget() {
@@ -303,6 +451,69 @@ public final class UndoManager {
 		return this.target;
 	}
 	
+	/**
+	 * Makes sure edits to the given object (part of the target) and everything
+	 * below it are tracked.
+	 * <p>
+	 * The items of lazy collections (see {@link org.praisenter.Watchable#lazy()}) are
+	 * not watched when the target is set.  Editors must call this method for those
+	 * items (or an object that contains them) before they are edited, typically when
+	 * they are selected.
+	 * @param object the object
+	 */
+	public void watch(Object object) {
+		this.watcher.watch(object);
+	}
+	
+	/**
+	 * Returns the maximum number of edits kept in the undo history.
+	 * @return int
+	 */
+	public int getMaxEdits() {
+		return this.maxEdits;
+	}
+	
+	/**
+	 * Sets the maximum number of edits kept in the undo history; the oldest
+	 * edits are dropped when exceeded.
+	 * @param maxEdits the maximum number of edits; must be positive
+	 */
+	public void setMaxEdits(int maxEdits) {
+		if (maxEdits <= 0) throw new IllegalArgumentException("The maximum number of edits must be greater than zero.");
+		this.maxEdits = maxEdits;
+		this.trim();
+		this.updateState();
+	}
+	
+	/**
+	 * Returns the maximum estimated size in bytes of the undo/redo history.
+	 * @return long
+	 */
+	public long getMaxSize() {
+		return this.maxSize;
+	}
+	
+	/**
+	 * Sets the maximum estimated size in bytes of the undo/redo history; the
+	 * oldest edits are dropped when exceeded.
+	 * @param maxSize the maximum size in bytes; must be positive
+	 * @see Edit#getEstimatedSize()
+	 */
+	public void setMaxSize(long maxSize) {
+		if (maxSize <= 0) throw new IllegalArgumentException("The maximum size must be greater than zero.");
+		this.maxSize = maxSize;
+		this.trim();
+		this.updateState();
+	}
+	
+	/**
+	 * Returns the estimated size in bytes of the undo/redo history.
+	 * @return long
+	 */
+	public long getEstimatedSize() {
+		return this.undoSize + this.redoSize;
+	}
+	
 	public boolean isUndoAvailable() {
 		return this.undoAvailable.get();
 	}
@@ -334,7 +545,7 @@ public final class UndoManager {
 	public ReadOnlyBooleanProperty topMarkedProperty() {
 		return this.topMarked;
 	}
-
+	
 	public boolean isNotTopMarked() {
 		return this.notTopMarked.get();
 	}
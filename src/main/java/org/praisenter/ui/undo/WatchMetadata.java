@@ -0,0 +1,176 @@
+package org.praisenter.ui.undo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.Watchable;
+
+import javafx.beans.Observable;
+
+/**
+ * The {@link Watchable} methods of a class.
+ * <p>
+ * Finding these requires scanning the declared methods of the class and all its super
+ * classes which is far too slow to do for every object registered (a bible has tens of
+ * thousands of verses).  Instead, the metadata is computed once per class and cached
+ * using {@link #forClass(Class)}.  Each method is converted to a {@link MethodHandle}
+ * so that reading a property doesn't go through reflective access checks.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+final class WatchMetadata {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/** Metadata for classes that have nothing to watch */
+	private static final WatchMetadata EMPTY = new WatchMetadata(new WatchedMethod[0]);
+
+	/** The per-class cache */
+	private static final ClassValue<WatchMetadata> CACHE = new ClassValue<WatchMetadata>() {
+		@Override
+		protected WatchMetadata computeValue(Class<?> type) {
+			return WatchMetadata.create(type);
+		}
+	};
+
+	/** The generic signature all method handles are adapted to */
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/** The watchable methods */
+	private final WatchedMethod[] methods;
+
+	private WatchMetadata(WatchedMethod[] methods) {
+		this.methods = methods;
+	}
+
+	/**
+	 * Returns the metadata for the given class.
+	 * @param clazz the class
+	 * @return {@link WatchMetadata}
+	 */
+	public static WatchMetadata forClass(Class<?> clazz) {
+		return CACHE.get(clazz);
+	}
+
+	private static WatchMetadata create(Class<?> clazz) {
+		if (clazz.isEnum() || clazz.isPrimitive() || clazz.isArray()) {
+			return EMPTY;
+		}
+
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		List<WatchedMethod> methods = new ArrayList<>();
+
+		// we have to inspect all super classes for all the methods
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+			for (Method method : c.getDeclaredMethods()) {
+				// skip the bridge methods generated for covariant return types
+				// (like ReadOnlyVerse.textProperty), they carry the annotation
+				// too, but would just register the same property again
+				if (method.isBridge()) {
+					continue;
+				}
+
+				// has to have the annotation
+				Watchable watchable = method.getAnnotation(Watchable.class);
+				if (watchable != null &&
+					Observable.class.isAssignableFrom(method.getReturnType())) {
+					try {
+						MethodHandle handle = lookup.unreflect(method).asType(GETTER_TYPE);
+						methods.add(new WatchedMethod(watchable.name(), watchable.lazy(), method.getName(), handle));
+					} catch (IllegalAccessException | IllegalArgumentException e) {
+						LOGGER.warn("Unable to watch '" + method.getName() + "' on '" + clazz.getName() + "': " + e.getMessage(), e);
+					}
+				}
+			}
+		}
+
+		if (methods.isEmpty()) {
+			return EMPTY;
+		}
+
+		return new WatchMetadata(methods.toArray(new WatchedMethod[0]));
+	}
+
+	/**
+	 * Returns true if there's nothing to watch.
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.methods.length == 0;
+	}
+
+	/**
+	 * Returns the watchable methods.
+	 * @return {@link WatchedMethod}[]
+	 */
+	public WatchedMethod[] getMethods() {
+		return this.methods;
+	}
+
+	/**
+	 * A single {@link Watchable} method.
+	 * @author William Bittle
+	 * @version 3.1.7
+	 */
+	static final class WatchedMethod {
+		private final String name;
+		private final boolean lazy;
+		private final String methodName;
+		private final MethodHandle getter;
+
+		private WatchedMethod(String name, boolean lazy, String methodName, MethodHandle getter) {
+			this.name = name;
+			this.lazy = lazy;
+			this.methodName = methodName;
+			this.getter = getter;
+		}
+
+		/**
+		 * Returns the value of this method for the given target.
+		 * @param target the target
+		 * @return Object
+		 * @throws InvocationTargetException if the method throws
+		 */
+		public Object get(Object target) throws InvocationTargetException {
+			try {
+				return (Object)this.getter.invokeExact(target);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				// wrap it like Method.invoke would
+				throw new InvocationTargetException(e);
+			}
+		}
+
+		/**
+		 * Returns the watch name given in the annotation.
+		 * @return String
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Returns true if the items of the collection should only be watched on request.
+		 * @return boolean
+		 * @see Watchable#lazy()
+		 */
+		public boolean isLazy() {
+			return this.lazy;
+		}
+
+		/**
+		 * Returns the method name.
+		 * @return String
+		 */
+		public String getMethodName() {
+			return this.methodName;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package org.praisenter.utility;
+
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Helper methods for reading XML documents one element at a time.
+ * @author William Bittle
+ * @version 3.1.7
+ */
+public final class XmlStreams {
+	private XmlStreams() {}
+	
+	/**
+	 * Returns a new reader for the given stream.
+	 * <p>
+	 * DTDs and external entities are not supported by the reader.
+	 * @param stream the stream to read
+	 * @return XMLStreamReader
+	 * @throws XMLStreamException if the reader couldn't be created
+	 */
+	public static final XMLStreamReader createReader(InputStream stream) throws XMLStreamException {
+		XMLInputFactory f = XMLInputFactory.newInstance();
+		// prevent XXE attacks
+		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
+		f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return f.createXMLStreamReader(stream);
+	}
+	
+	/**
+	 * Reads the text of the current element, including the text of any elements it contains,
+	 * and leaves the reader on the element's end tag.
+	 * <p>
+	 * The text of any contained element with one of the given names (ignoring case) and
+	 * the elements it contains is skipped.
+	 * @param reader the reader positioned on the start tag of an element
+	 * @param ignore the names of the elements whose text should be skipped
+	 * @return String
+	 * @throws XMLStreamException if the document isn't well formed
+	 */
+	public static final String readText(XMLStreamReader reader, String... ignore) throws XMLStreamException {
+		StringBuilder sb = new StringBuilder();
+		int depth = 0;
+		int ignoreDepth = -1;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				if (ignoreDepth < 0 && isNamed(reader.getLocalName(), ignore)) {
+					ignoreDepth = depth;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == 0) {
+					break;
+				}
+				if (depth == ignoreDepth) {
+					ignoreDepth = -1;
+				}
+				depth--;
+			} else if (ignoreDepth < 0 && (
+					event == XMLStreamConstants.CHARACTERS ||
+					event == XMLStreamConstants.CDATA ||
+					event == XMLStreamConstants.SPACE)) {
+				sb.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+			}
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Returns true if the given name is one of the given names (ignoring case).
+	 * @param name the name
+	 * @param names the names
+	 * @return boolean
+	 */
+	private static final boolean isNamed(String name, String[] names) {
+		for (String n : names) {
+			if (n.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
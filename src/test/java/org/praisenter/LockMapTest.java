@@ -0,0 +1,129 @@
+package org.praisenter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LockMapTest {
+
+	@Test
+	public void releaseRemovesEntry() {
+		LockMap<String> locks = new LockMap<>();
+		try (LockMap.Lease lease = locks.write("a")) {
+			Assertions.assertEquals(1, locks.size());
+			Assertions.assertTrue(lease.isWriteLocked());
+		}
+		Assertions.assertEquals(0, locks.size());
+
+		LockMap.Lease r1 = locks.read("a");
+		LockMap.Lease r2 = locks.read("a");
+		Assertions.assertEquals(1, locks.size());
+		r1.close();
+		Assertions.assertEquals(1, locks.size());
+		r2.close();
+		Assertions.assertEquals(0, locks.size());
+
+		// closing twice shouldn't release twice
+		r2.close();
+		Assertions.assertEquals(0, locks.size());
+	}
+
+	@Test
+	public void reentrant() {
+		LockMap<String> locks = new LockMap<>();
+		try (LockMap.Lease l1 = locks.write("a")) {
+			try (LockMap.Lease l2 = locks.write("a")) {
+				Assertions.assertEquals(1, locks.size());
+			}
+			Assertions.assertTrue(l1.isWriteLocked());
+		}
+		Assertions.assertEquals(0, locks.size());
+	}
+
+	@Test
+	public void timedAcquisition() throws Exception {
+		LockMap<String> locks = new LockMap<>();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (LockMap.Lease lease = locks.write("a")) {
+			// another thread can't get a read or write lock
+			Assertions.assertNull(executor.submit(() -> locks.tryWrite("a", 10, TimeUnit.MILLISECONDS)).get());
+			Assertions.assertNull(executor.submit(() -> locks.tryRead("a", 10, TimeUnit.MILLISECONDS)).get());
+
+			// but can get a lock for another key
+			LockMap.Lease other = executor.submit(() -> locks.tryWrite("b", 10, TimeUnit.MILLISECONDS)).get();
+			Assertions.assertNotNull(other);
+			executor.submit(other::close).get();
+
+			// failed attempts don't leak entries
+			Assertions.assertEquals(1, locks.size());
+		} finally {
+			executor.shutdown();
+		}
+		Assertions.assertEquals(0, locks.size());
+	}
+
+	@Test
+	public void sharedReaders() throws Exception {
+		LockMap<String> locks = new LockMap<>();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (LockMap.Lease lease = locks.read("a")) {
+			LockMap.Lease other = executor.submit(() -> locks.tryRead("a", 10, TimeUnit.MILLISECONDS)).get();
+			Assertions.assertNotNull(other);
+			Assertions.assertNull(executor.submit(() -> locks.tryWrite("a", 10, TimeUnit.MILLISECONDS)).get());
+			executor.submit(other::close).get();
+		} finally {
+			executor.shutdown();
+		}
+		Assertions.assertEquals(0, locks.size());
+	}
+
+	@Test
+	public void contention() throws Exception {
+		final int threads = 8;
+		final int iterations = 20000;
+		final int keys = 4;
+		final LockMap<Integer> locks = new LockMap<>();
+		final int[] counters = new int[keys];
+		final CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int offset = t;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < iterations; i++) {
+						int key = (i + offset) % keys;
+						try (LockMap.Lease lease = locks.write(key)) {
+							// not atomic, so only correct if the lock is exclusive
+							counters[key]++;
+						}
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		int total = 0;
+		for (int i = 0; i < keys; i++) {
+			total += counters[i];
+		}
+		Assertions.assertEquals(threads * iterations, total);
+		Assertions.assertEquals(0, locks.size());
+	}
+}
@@ -0,0 +1,44 @@
+package org.praisenter.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.praisenter.data.bible.Bible;
+import org.praisenter.data.json.JsonIO;
+import org.praisenter.data.song.Song;
+
+public class ImportHeaderTest {
+	@TempDir
+	private Path path;
+	
+	@Test
+	public void json() throws IOException {
+		Song song = new Song();
+		song.setName("test");
+		Path songPath = this.path.resolve("song.json");
+		JsonIO.write(songPath, song);
+		
+		ImportHeader header = ImportHeader.read(songPath);
+		Assertions.assertNotNull(header.getFormat());
+		Assertions.assertTrue(header.getFormat().is(Song.class));
+		Assertions.assertNull(header.getRootName());
+		
+		Assertions.assertTrue(new PraisenterFormatProvider<>(Song.class).isSupported(songPath, header));
+		Assertions.assertFalse(new PraisenterFormatProvider<>(Bible.class).isSupported(songPath, header));
+	}
+	
+	@Test
+	public void text() throws IOException {
+		Path textPath = this.path.resolve("song.txt");
+		Files.writeString(textPath, "{title: Test}\n[C]Some words");
+		
+		ImportHeader header = ImportHeader.read(textPath);
+		Assertions.assertNull(header.getRootName());
+		Assertions.assertNull(header.getFormat());
+		Assertions.assertTrue(header.getMimeType().startsWith("text"));
+	}
+}
@@ -0,0 +1,95 @@
+package org.praisenter.data;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.praisenter.data.song.Song;
+
+import javafx.collections.ListChangeListener;
+
+public class PersistableListTest {
+
+	private final Song ITEM1 = new Song();
+	private final Song ITEM2 = new Song();
+	private final Song ITEM3 = new Song();
+	private final Song ITEM4 = new Song();
+
+	private PersistableList<Song> list;
+	private int changes;
+
+	@BeforeEach
+	public void setupTest() {
+		this.list = new PersistableList<>();
+		this.list.addAll(List.of(ITEM1, ITEM2, ITEM3, ITEM4));
+		this.changes = 0;
+		this.list.addListener((ListChangeListener<Song>)(c) -> this.changes++);
+	}
+
+	private void assertIndices() {
+		for (int i = 0; i < this.list.size(); i++) {
+			Assertions.assertEquals(i, this.list.indexOfId(this.list.get(i).getId()));
+		}
+	}
+
+	@Test
+	public void lookup() {
+		Assertions.assertSame(ITEM3, this.list.getById(ITEM3.getId()));
+		Assertions.assertEquals(1, this.list.indexOfId(ITEM2.getId()));
+		Assertions.assertEquals(-1, this.list.indexOfId(UUID.randomUUID()));
+		Assertions.assertNull(this.list.getById(null));
+	}
+
+	@Test
+	public void remove() {
+		Assertions.assertTrue(this.list.removeById(ITEM2.getId()));
+		Assertions.assertFalse(this.list.removeById(ITEM2.getId()));
+		Assertions.assertEquals(3, this.list.size());
+		Assertions.assertEquals(-1, this.list.indexOfId(ITEM2.getId()));
+		this.assertIndices();
+
+		this.list.remove(ITEM4);
+		Assertions.assertEquals(-1, this.list.indexOfId(ITEM4.getId()));
+		this.assertIndices();
+	}
+
+	@Test
+	public void insert() {
+		Song item = new Song();
+		this.list.add(1, item);
+		Assertions.assertEquals(1, this.list.indexOfId(item.getId()));
+		this.assertIndices();
+	}
+
+	@Test
+	public void replace() {
+		Song copy = ITEM3.copy();
+		Assertions.assertTrue(this.list.replace(copy));
+		Assertions.assertSame(copy, this.list.get(2));
+		Assertions.assertEquals(4, this.list.size());
+
+		Song item = new Song();
+		Assertions.assertFalse(this.list.replace(item));
+		Assertions.assertEquals(5, this.list.size());
+		this.assertIndices();
+	}
+
+	@Test
+	public void batch() {
+		this.list.removeAllById(Set.of(ITEM1.getId(), ITEM3.getId()));
+		Assertions.assertEquals(1, this.changes);
+		Assertions.assertEquals(List.of(ITEM2, ITEM4), this.list);
+		this.assertIndices();
+
+		this.list.batch(() -> {
+			this.list.add(new Song());
+			this.list.removeById(ITEM2.getId());
+			this.list.replace(ITEM4.copy());
+		});
+		Assertions.assertEquals(2, this.changes);
+		this.assertIndices();
+	}
+}
@@ -0,0 +1,113 @@
+package org.praisenter.data.bible;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BibleAlignmentTest {
+	private static Bible createBible(int books, int chapters, int verses) {
+		Bible bible = new Bible("Test");
+		bible.setId(UUID.randomUUID());
+		bible.setModifiedDate(Instant.now());
+		for (int b = 1; b <= books; b++) {
+			Book book = new Book(b, "Book " + b);
+			for (int c = 1; c <= chapters; c++) {
+				Chapter chapter = new Chapter(c);
+				for (int v = 1; v <= verses; v++) {
+					chapter.getVerses().add(new Verse(v, b + " " + c + ":" + v));
+				}
+				book.getChapters().add(chapter);
+			}
+			bible.getBooks().add(book);
+		}
+		return bible;
+	}
+	
+	private static String toString(LocatedVerse verse) {
+		if (verse == null) return null;
+		return verse.getBook().getNumber() + " " + verse.getChapter().getNumber() + ":" + verse.getVerse().getNumber();
+	}
+	
+	private static void assertSame(LocatedVerseTriplet expected, LocatedVerseTriplet actual) {
+		if (expected == null) {
+			Assertions.assertNull(actual);
+			return;
+		}
+		Assertions.assertEquals(toString(expected.getPrevious()), toString(actual.getPrevious()));
+		Assertions.assertEquals(toString(expected.getCurrent()), toString(actual.getCurrent()));
+		Assertions.assertEquals(toString(expected.getNext()), toString(actual.getNext()));
+	}
+	
+	@Test
+	public void navigation() {
+		Bible bible = createBible(3, 3, 5);
+		VerseIndex index = VerseIndex.of(bible);
+		
+		Assertions.assertEquals(45, index.size());
+		Assertions.assertSame(index, VerseIndex.of(bible));
+		
+		// the index must navigate the same as the bible
+		for (int b = 1; b <= 3; b++) {
+			for (int c = 1; c <= 3; c++) {
+				for (int v = 1; v <= 5; v++) {
+					assertSame(bible.getTriplet(b, c, v), index.getTriplet(b, c, v));
+					assertSame(bible.getNextTriplet(b, c, v), index.getNextTriplet(b, c, v));
+					assertSame(bible.getPreviousTriplet(b, c, v), index.getPreviousTriplet(b, c, v));
+				}
+			}
+		}
+		Assertions.assertNull(index.getTriplet(4, 1, 1));
+		
+		// saving the bible makes a new index
+		bible.setModifiedDate(Instant.now().plusSeconds(1));
+		Assertions.assertNotSame(index, VerseIndex.of(bible));
+	}
+	
+	@Test
+	public void alignment() {
+		Bible primary = createBible(3, 3, 5);
+		
+		// the secondary numbers the books differently and is missing a verse
+		Bible secondary = createBible(3, 3, 5);
+		secondary.getBooks().get(0).setNumber(10);
+		secondary.getBooks().get(1).getChapters().get(0).getVerses().remove(4);
+		
+		BibleAlignment alignment = BibleAlignment.of(primary, secondary);
+		Assertions.assertSame(alignment, BibleAlignment.of(primary, secondary));
+		Assertions.assertEquals(1, alignment.getUnalignedCount());
+		
+		LocatedVerseTriplet triplet = VerseIndex.of(primary).getTriplet(1, 3, 5);
+		LocatedVerseTriplet matching = alignment.getMatchingTriplet(triplet);
+		Assertions.assertEquals("10 3:4", toString(matching.getPrevious()));
+		Assertions.assertEquals("10 3:5", toString(matching.getCurrent()));
+		Assertions.assertEquals("2 1:1", toString(matching.getNext()));
+		Assertions.assertSame(secondary, matching.getCurrent().getBible());
+		
+		// verses that don't exist in the other bible don't match anything
+		triplet = VerseIndex.of(primary).getTriplet(2, 1, 5);
+		matching = alignment.getMatchingTriplet(triplet);
+		Assertions.assertEquals("2 1:4", toString(matching.getPrevious()));
+		Assertions.assertNull(matching.getCurrent());
+		Assertions.assertEquals("2 2:1", toString(matching.getNext()));
+	}
+	
+	@Test
+	public void fullBible() {
+		Bible primary = createBible(66, 25, 25);
+		Bible secondary = createBible(66, 25, 25);
+		
+		// the aligned verses must be the same as the linear searches across the whole bible
+		BibleAlignment alignment = BibleAlignment.of(primary, secondary);
+		Assertions.assertEquals(0, alignment.getUnalignedCount());
+		for (int b = 1; b <= 66; b += 13) {
+			for (int c = 1; c <= 25; c += 6) {
+				for (int v = 1; v <= 25; v += 4) {
+					LocatedVerseTriplet triplet = VerseIndex.of(primary).getTriplet(b, c, v);
+					assertSame(secondary.getMatchingTriplet(primary.getTriplet(b, c, v)), alignment.getMatchingTriplet(triplet));
+				}
+			}
+		}
+	}
+}
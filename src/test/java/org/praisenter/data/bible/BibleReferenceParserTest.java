@@ -0,0 +1,117 @@
+package org.praisenter.data.bible;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BibleReferenceParserTest {
+	private static Bible createBible(String language, String... names) {
+		// the books are numbered like a protestant bible to pick up the abbreviations
+		int[] numbers = new int[] { 1, 43, 46, 50, 57, 65 };
+		int[] chapters = new int[] { 3, 4, 16, 4, 1, 1 };
+		
+		Bible bible = new Bible("Test");
+		bible.setLanguage(language);
+		for (int i = 0; i < names.length; i++) {
+			Book book = new Book(numbers[i], names[i]);
+			for (int c = 1; c <= chapters[i]; c++) {
+				Chapter chapter = new Chapter(c);
+				for (int v = 1; v <= 25; v++) {
+					chapter.getVerses().add(new Verse(v, names[i] + " " + c + ":" + v));
+				}
+				book.getChapters().add(chapter);
+			}
+			bible.getBooks().add(book);
+		}
+		return bible;
+	}
+	
+	private static Bible createBible() {
+		return createBible("en", "Genesis", "John", "1 Corinthians", "Philippians", "Philemon", "Jude");
+	}
+	
+	private static String toString(List<LocatedVerse> verses) {
+		StringBuilder sb = new StringBuilder();
+		for (LocatedVerse verse : verses) {
+			if (sb.length() > 0) {
+				sb.append(",");
+			}
+			sb.append(verse.getBook().getNumber()).append(" ")
+			  .append(verse.getChapter().getNumber()).append(":")
+			  .append(verse.getVerse().getNumber());
+		}
+		return sb.toString();
+	}
+	
+	@Test
+	public void searchResults() {
+		// the verses of a reference are shown as search results without any matches
+		BibleReferenceParser parser = new BibleReferenceParser(createBible());
+		for (LocatedVerse verse : parser.parse("John 3:16-17")) {
+			BibleSearchResult result = BibleSearchResult.of(verse);
+			Assertions.assertSame(verse.getVerse(), result.getVerse());
+			Assertions.assertTrue(result.getMatches().isEmpty());
+		}
+		Assertions.assertTrue(new BibleSearchResult(null, null, null, null, null, 0).getMatches().isEmpty());
+	}
+	
+	@Test
+	public void parse() {
+		BibleReferenceParser parser = new BibleReferenceParser(createBible());
+		
+		Assertions.assertEquals("46 13:4,46 13:5,46 13:6,46 13:7", toString(parser.parse("1 Cor 13:4-7")));
+		Assertions.assertEquals("46 13:4,46 13:5", toString(parser.parse("I Corinthians 13.4-5")));
+		Assertions.assertEquals("43 3:16", toString(parser.parse("Jn 3:16")));
+		Assertions.assertEquals("43 3:16", toString(parser.parse("john3:16")));
+		Assertions.assertEquals("43 3:16,43 3:17,43 3:19", toString(parser.parse("John 3:16-17, 19")));
+		Assertions.assertEquals("43 3:25,43 4:1,43 4:2", toString(parser.parse("John 3:25-4:2")));
+		Assertions.assertEquals("43 3:16,43 4:1,1 1:1", toString(parser.parse("John 3:16; 4:1; Gen 1:1")));
+		Assertions.assertEquals("50 4:13", toString(parser.parse("Phil 4:13")));
+		Assertions.assertEquals("57 1:6", toString(parser.parse("Philem 6")));
+		
+		// books with one chapter take verses
+		Assertions.assertEquals("65 1:5", toString(parser.parse("Jude 5")));
+		
+		// a chapter is all its verses
+		Assertions.assertEquals(25, parser.parse("Gen 2").size());
+		Assertions.assertEquals(50, parser.parse("Gen 2-3").size());
+	}
+	
+	@Test
+	public void invalid() {
+		BibleReferenceParser parser = new BibleReferenceParser(createBible());
+		
+		Assertions.assertTrue(parser.parse("grace").isEmpty());
+		Assertions.assertTrue(parser.parse("for God so loved").isEmpty());
+		Assertions.assertTrue(parser.parse("Johnx 3:16").isEmpty());
+		Assertions.assertTrue(parser.parse("John 3:99").isEmpty());
+		Assertions.assertTrue(parser.parse("John 9").isEmpty());
+		Assertions.assertTrue(parser.parse("John 3:16-").isEmpty());
+		Assertions.assertTrue(parser.parse("John 3:17-16").isEmpty());
+		Assertions.assertTrue(parser.parse("3:16").isEmpty());
+	}
+	
+	@Test
+	public void books() {
+		BibleReferenceParser parser = new BibleReferenceParser(createBible("es", "Génesis", "Juan", "1 Corintios", "Filipenses", "Filemón", "Judas"));
+		
+		// accents and case are ignored
+		Assertions.assertEquals("1 1:1", toString(parser.parse("genesis 1:1")));
+		Assertions.assertEquals("57 1:3", toString(parser.parse("FILEMON 3")));
+		Assertions.assertEquals("Filipenses", parser.findBook("Fil").getName());
+		Assertions.assertEquals("Filemón", parser.findBook("Filem").getName());
+		
+		// english abbreviations are only for english bibles
+		Assertions.assertNull(parser.findBook("Jn"));
+		
+		Bible bible = createBible();
+		parser = new BibleReferenceParser(bible);
+		Assertions.assertTrue(parser.isMatch("1 co", bible.getBooks().get(2)));
+		Assertions.assertTrue(parser.isMatch("", bible.getBooks().get(2)));
+		Assertions.assertFalse(parser.isMatch("jo", bible.getBooks().get(2)));
+		Assertions.assertTrue(parser.isMatch("jo", bible.getBooks().get(1)));
+		Assertions.assertTrue(parser.isCurrent(bible));
+		Assertions.assertFalse(parser.isCurrent(createBible()));
+	}
+}
@@ -0,0 +1,90 @@
+package org.praisenter.data.bible;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.praisenter.data.DataImportResult;
+
+public class ZefaniaBibleFormatProviderTest {
+	@TempDir
+	private Path path;
+
+	@Test
+	public void testImport() throws IOException {
+		Path file = this.path.resolve("test.xml");
+		Files.writeString(file,
+				"<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+				"<XMLBIBLE biblename=\"Test Bible\">\n" +
+				"  <INFORMATION><language>en</language><rights>Public Domain</rights></INFORMATION>\n" +
+				"  <BIBLEBOOK bnumber=\"1\" bname=\"Genesis\">\n" +
+				"    <CHAPTER cnumber=\"1\">\n" +
+				"      <VERS vnumber=\"1\">In the beginning <NOTE>a note</NOTE>God\n   created <STYLE>the heaven</STYLE> and the earth.</VERS>\n" +
+				"      <VERS vnumber=\"2\"><![CDATA[And the earth]]> was without form.</VERS>\n" +
+				"    </CHAPTER>\n" +
+				"  </BIBLEBOOK>\n" +
+				"</XMLBIBLE>", StandardCharsets.UTF_8);
+
+		ZefaniaBibleFormatProvider provider = new ZefaniaBibleFormatProvider();
+		DataImportResult<Bible> result = provider.imp(new BiblePersistAdapter(this.path), file);
+
+		Assertions.assertEquals(1, result.getCreated().size());
+		Bible bible = result.getCreated().get(0);
+		Assertions.assertEquals("Test Bible", bible.getName());
+		Assertions.assertEquals("en", bible.getLanguage());
+		Assertions.assertEquals("Public Domain", bible.getCopyright());
+		Assertions.assertEquals(1, bible.getBookCount());
+
+		Chapter chapter = bible.getBooks().get(0).getChapter(1);
+		Assertions.assertEquals(2, chapter.getVerses().size());
+		Assertions.assertEquals("In the beginning God created the heaven and the earth.", chapter.getVerses().get(0).getText());
+		Assertions.assertEquals("And the earth was without form.", chapter.getVerses().get(1).getText());
+	}
+
+	@Test
+	public void testOtherFormats() throws IOException {
+		ZefaniaBibleFormatProvider provider = new ZefaniaBibleFormatProvider();
+		BiblePersistAdapter adapter = new BiblePersistAdapter(this.path);
+
+		// other XML documents and text files aren't zefania bibles
+		Path xml = this.path.resolve("other.xml");
+		Files.writeString(xml, "<bible n=\"Test\"><b n=\"Genesis\"></b></bible>", StandardCharsets.UTF_8);
+		Assertions.assertTrue(provider.imp(adapter, xml).isEmpty());
+
+		Path text = this.path.resolve("other.txt");
+		Files.writeString(text, "Genesis 1:1 In the beginning", StandardCharsets.UTF_8);
+		Assertions.assertTrue(provider.imp(adapter, text).isEmpty());
+	}
+
+	@Test
+	public void testLarge() throws IOException {
+		Path file = this.path.resolve("large.xml");
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("<XMLBIBLE biblename=\"Large\">");
+			for (int b = 1; b <= 66; b++) {
+				writer.write("<BIBLEBOOK bnumber=\"" + b + "\" bname=\"Book " + b + "\">");
+				for (int c = 1; c <= 25; c++) {
+					writer.write("<CHAPTER cnumber=\"" + c + "\">");
+					for (int v = 1; v <= 25; v++) {
+						writer.write("<VERS vnumber=\"" + v + "\">The text of the verse " + b + " " + c + ":" + v + "</VERS>");
+					}
+					writer.write("</CHAPTER>");
+				}
+				writer.write("</BIBLEBOOK>");
+			}
+			writer.write("</XMLBIBLE>");
+		}
+
+		ZefaniaBibleFormatProvider provider = new ZefaniaBibleFormatProvider();
+		DataImportResult<Bible> result = provider.imp(new BiblePersistAdapter(this.path), file);
+
+		Bible bible = result.getCreated().get(0);
+		Assertions.assertEquals(66, bible.getBookCount());
+		Assertions.assertEquals("The text of the verse 66 25:25", bible.getBooks().get(65).getChapter(25).getVerses().get(24).getText());
+	}
+}
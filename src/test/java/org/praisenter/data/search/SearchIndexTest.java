@@ -0,0 +1,316 @@
+package org.praisenter.data.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
+public class SearchIndexTest {
+	private static final String VERSE = "For God so loved the world, that he gave his only begotten Son, that whosoever believeth in him should not perish, but have everlasting life.";
+	
+	private static final class Item implements Indexable {
+		private final ObjectProperty<UUID> id = new SimpleObjectProperty<UUID>(UUID.randomUUID());
+		private final String text;
+		private final String language;
+		
+		public Item(String text) {
+			this(text, null);
+		}
+		
+		public Item(String text, String language) {
+			this.text = text;
+			this.language = language;
+		}
+		
+		@Override
+		public UUID getId() {
+			return this.id.get();
+		}
+		
+		@Override
+		public void setId(UUID id) {
+			this.id.set(id);
+		}
+		
+		@Override
+		public ObjectProperty<UUID> idProperty() {
+			return this.id;
+		}
+		
+		@Override
+		public boolean identityEquals(Object other) {
+			return other instanceof Item && ((Item)other).getId().equals(this.getId());
+		}
+		
+		@Override
+		public String getName() {
+			return this.text;
+		}
+		
+		@Override
+		public List<Document> index() {
+			Document document = new Document();
+			document.add(new StringField(FIELD_ID, this.getId().toString(), Field.Store.YES));
+			document.add(new Field(FIELD_TEXT, this.text, FIELD_TEXT_TYPE));
+			if (this.language != null) {
+				document.add(new StringField(FIELD_LANGUAGE, this.language, Field.Store.NO));
+			}
+			return List.of(document);
+		}
+	}
+	
+	private static Analyzer analyzer() {
+		return new StandardAnalyzer(new CharArraySet(1, false));
+	}
+	
+	private static List<String> tokens(Analyzer analyzer, String text) throws Exception {
+		List<String> tokens = new ArrayList<String>();
+		try (TokenStream stream = analyzer.tokenStream(Indexable.FIELD_TEXT, text)) {
+			CharTermAttribute attr = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			while (stream.incrementToken()) {
+				tokens.add(attr.toString());
+			}
+			stream.end();
+		}
+		return tokens;
+	}
+	
+	private static String highlighted(SearchTextMatch match) {
+		StringBuilder sb = new StringBuilder();
+		for (SearchTextHighlight highlight : match.getHighlights()) {
+			sb.append(match.getValue(), highlight.getStart(), highlight.getEnd()).append("|");
+		}
+		return sb.toString();
+	}
+	
+	@Test
+	public void highlightFromOffsets() throws Exception {
+		SearchIndex index = new SearchIndex(new ByteBuffersDirectory(), analyzer());
+		index.reindex(List.of(new Item(VERSE), new Item("In the beginning God created the heaven and the earth.")));
+		Assertions.assertFalse(index.isReindexRequired());
+		
+		SearchResults results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "loved world", SearchType.ALL_WORDS, false, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+		
+		List<SearchTextMatch> matches = results.getResults().get(0).getMatches();
+		Assertions.assertEquals(1, matches.size());
+		SearchTextMatch match = matches.get(0);
+		Assertions.assertEquals(Indexable.FIELD_TEXT, match.getField());
+		Assertions.assertEquals(VERSE, match.getValue());
+		Assertions.assertEquals("loved|world|", highlighted(match));
+		Assertions.assertTrue(match.getMatchedText().contains("<B>loved</B> the <B>world</B>"));
+	}
+	
+	@Test
+	public void highlightFuzzyAndPhrase() throws Exception {
+		SearchIndex index = new SearchIndex(new ByteBuffersDirectory(), analyzer());
+		index.reindex(List.of(new Item(VERSE)));
+		
+		// fuzzy terms are expanded against the index
+		SearchResults results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "begoten", SearchType.ANY_WORD, true, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertEquals("begotten|", highlighted(results.getResults().get(0).getMatches().get(0)));
+		
+		// fuzzy phrase (span near)
+		results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "everlastin life", SearchType.PHRASE, true, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertEquals("everlasting|life|", highlighted(results.getResults().get(0).getMatches().get(0)));
+	}
+	
+	@Test
+	public void reindexRequiredWithoutOffsets() throws Exception {
+		Directory directory = new ByteBuffersDirectory();
+		
+		// an index from before offsets were stored
+		try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(analyzer()))) {
+			Document document = new Document();
+			document.add(new StringField(Indexable.FIELD_ID, UUID.randomUUID().toString(), Field.Store.YES));
+			document.add(new TextField(Indexable.FIELD_TEXT, VERSE, Field.Store.YES));
+			writer.addDocument(document);
+		}
+		
+		SearchIndex index = new SearchIndex(directory, analyzer());
+		Assertions.assertTrue(index.isReindexRequired());
+		
+		// highlighting still works by analyzing the text
+		SearchResults results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "perish", SearchType.ANY_WORD, false, 10));
+		Assertions.assertEquals("perish|", highlighted(results.getResults().get(0).getMatches().get(0)));
+		
+		index.reindex(List.of(new Item(VERSE)));
+		Assertions.assertFalse(index.isReindexRequired());
+	}
+	
+	@Test
+	public void prefixTokens() throws Exception {
+		List<String> tokens = new ArrayList<String>();
+		try (TokenStream stream = new PrefixAnalyzer(analyzer()).tokenStream(Indexable.FIELD_TEXT_PREFIX, "Loved a sheep")) {
+			CharTermAttribute attr = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			while (stream.incrementToken()) {
+				tokens.add(attr.toString());
+			}
+			stream.end();
+		}
+		Assertions.assertEquals(List.of("lo", "lov", "love", "loved", "a", "sh", "she", "shee", "sheep"), tokens);
+	}
+	
+	@Test
+	public void prefixSearch() throws Exception {
+		SearchIndex index = new SearchIndex(new ByteBuffersDirectory(), analyzer());
+		index.reindex(List.of(new Item(VERSE), new Item("In the beginning God created the heaven and the earth.")));
+		
+		// the last word is still being typed
+		SearchResults results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "God so lov", SearchType.ALL_WORDS, false, false, 10));
+		Assertions.assertEquals(0, results.getResults().size());
+		
+		results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "God so lov", SearchType.ALL_WORDS, false, true, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertEquals("God|so|loved|", highlighted(results.getResults().get(0).getMatches().get(0)));
+		
+		results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "only begot", SearchType.PHRASE, false, true, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertEquals("only|begotten|", highlighted(results.getResults().get(0).getMatches().get(0)));
+		
+		// only the other verse has a word starting with it
+		results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "heave", SearchType.ANY_WORD, false, true, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+	}
+	
+	@Test
+	public void cacheAndCancel() throws Exception {
+		SearchIndex index = new SearchIndex(new ByteBuffersDirectory(), analyzer());
+		Item item = new Item(VERSE);
+		index.reindex(List.of(item));
+		
+		SearchCriteria criteria = new SearchCriteria(Indexable.FIELD_TEXT, "world", SearchType.ANY_WORD, false, 10);
+		Assertions.assertThrows(CancellationException.class, () -> index.search(criteria, () -> true));
+		
+		// equal criteria get the same results until the index changes
+		SearchResults results = index.search(criteria);
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertSame(results, index.search(new SearchCriteria(Indexable.FIELD_TEXT, "world", SearchType.ANY_WORD, false, 10)));
+		Assertions.assertNotSame(results, index.search(new SearchCriteria(Indexable.FIELD_TEXT, "world", SearchType.ANY_WORD, true, 10)));
+		
+		index.delete(item);
+		Assertions.assertEquals(0, index.search(criteria).getResults().size());
+	}
+	
+	@Test
+	public void languageTokens() throws Exception {
+		// the characters and pairs when indexing, just the pairs when querying
+		Assertions.assertEquals(List.of("神", "神爱", "爱", "爱世", "世", "世人", "人", "god"), tokens(LanguageAnalyzer.forIndex("zh"), "神爱世人 God"));
+		Assertions.assertEquals(List.of("神爱", "爱世", "世人", "god"), tokens(LanguageAnalyzer.forQuery("zh").get(0), "神爱世人 God"));
+		Assertions.assertEquals(List.of("세상", "상을"), tokens(LanguageAnalyzer.forQuery("ko").get(0), "세상을"));
+		
+		// the words and their stems when indexing, just the stems when querying
+		Assertions.assertEquals(List.of("las", "palabras", "palabr", "luces", "luz"), tokens(LanguageAnalyzer.forIndex("es-MX"), "Las palabras luces"));
+		Assertions.assertEquals(List.of("las", "palabr", "luz"), tokens(LanguageAnalyzer.forQuery("es").get(0), "Las palabras luces"));
+		Assertions.assertEquals(List.of("coraca", "homem", "animal"), tokens(LanguageAnalyzer.forQuery("pt").get(0), "corações homens animais"));
+		Assertions.assertEquals(List.of("city", "glass", "goes"), tokens(LanguageAnalyzer.forQuery("en").get(0), "cities glass goes"));
+	}
+	
+	@Test
+	public void languageSearch() throws Exception {
+		SearchIndex index = new SearchIndex(new ByteBuffersDirectory(), analyzer());
+		index.reindex(List.of(
+				new Item("Porque de tal manera amó Dios al mundo, que ha dado a su Hijo unigénito", "es"),
+				new Item("En el principio era el Verbo, y el Verbo era con Dios", "es"),
+				new Item("하나님이 세상을 이처럼 사랑하사 독생자를 주셨으니", "ko"),
+				new Item(VERSE, "en")));
+		Assertions.assertFalse(index.isReindexRequired());
+		
+		// the stems match without fuzzy matching
+		SearchResults results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "mundos", SearchType.ALL_WORDS, false, false, 10, "es"));
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertEquals("mundo|", highlighted(results.getResults().get(0).getMatches().get(0)));
+		
+		// and for any language
+		results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "sons", SearchType.ANY_WORD, false, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertEquals("Son|", highlighted(results.getResults().get(0).getMatches().get(0)));
+		
+		// the pairs match part of a word
+		results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "세상", SearchType.ALL_WORDS, false, false, 10, "ko"));
+		Assertions.assertEquals(1, results.getResults().size());
+		Assertions.assertEquals("세상|", highlighted(results.getResults().get(0).getMatches().get(0)));
+		
+		results = index.search(new SearchCriteria(Indexable.FIELD_TEXT, "이처럼 사랑", SearchType.PHRASE, false, 10));
+		Assertions.assertEquals(1, results.getResults().size());
+	}
+	
+	@Test
+	public void reindexRequiredForAnalysis() throws Exception {
+		Directory directory = new ByteBuffersDirectory();
+		
+		// a new index is created with the current analysis
+		SearchIndex index = new SearchIndex(directory, analyzer());
+		index.create(new Item(VERSE));
+		index.update(new Item("In the beginning God created the heaven and the earth."));
+		Assertions.assertFalse(index.isReindexRequired());
+		
+		// an index from before the analysis was versioned
+		try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(analyzer()).setOpenMode(IndexWriterConfig.OpenMode.CREATE))) {
+			Document document = new Item(VERSE).index().get(0);
+			document.add(new TextField(Indexable.FIELD_TEXT_PREFIX, VERSE, Field.Store.NO));
+			writer.addDocument(document);
+		}
+		Assertions.assertTrue(index.isReindexRequired());
+	}
+	
+	@Test
+	public void paging() throws Exception {
+		SearchIndex index = new SearchIndex(new ByteBuffersDirectory(), analyzer());
+		List<Item> items = new ArrayList<Item>();
+		for (int i = 0; i < 5; i++) {
+			items.add(new Item("God said let there be light " + i));
+		}
+		index.reindex(items);
+		
+		SearchCriteria criteria = new SearchCriteria(Indexable.FIELD_TEXT, "light", SearchType.ANY_WORD, false, 2);
+		List<String> ids = new ArrayList<String>();
+		SearchResults page = index.search(criteria);
+		Assertions.assertEquals(5, page.getTotalHits());
+		Assertions.assertTrue(page.isTotalHitsExact());
+		while (true) {
+			Assertions.assertTrue(page.getResults().size() <= 2);
+			for (SearchResult result : page.getResults()) {
+				ids.add(result.getDocument().get(Indexable.FIELD_ID));
+				Assertions.assertEquals(1, result.getMatches().size());
+			}
+			if (!page.hasMore()) break;
+			page = index.searchNext(page, null);
+			Assertions.assertFalse(page.isFirstPage());
+		}
+		
+		// every result once
+		Assertions.assertEquals(5, ids.size());
+		Assertions.assertEquals(5, ids.stream().distinct().count());
+		
+		// the search starts again if the index changes between pages
+		page = index.search(criteria);
+		index.update(new Item("Let there be light"));
+		page = index.searchNext(page, null);
+		Assertions.assertTrue(page.isFirstPage());
+		Assertions.assertEquals(6, page.getTotalHits());
+	}
+}
@@ -13,7 +13,9 @@ import org.junit.jupiter.api.io.TempDir;
 import org.praisenter.Constants;
 import org.praisenter.Version;
 import org.praisenter.data.DataImportResult;
+import org.praisenter.data.ImportHeader;
 import org.praisenter.data.Tag;
+import org.praisenter.data.bible.BiblePersistAdapter;
 import org.praisenter.utility.MimeType;
 
 public class OpenLyricsSongFormatProviderTest {
@@ -31,6 +33,25 @@ public class OpenLyricsSongFormatProviderTest {
 		Assertions.assertEquals("application/xml", mimeType);
 	}
 	
+	@Test
+	public void testHeader() throws URISyntaxException {
+		Path songPath = Path.of(ClassLoader.getSystemResource("org/praisenter/data/song/openlyrics-example01.xml").toURI());
+		ImportHeader header = ImportHeader.read(songPath);
+		
+		Assertions.assertEquals("application/xml", header.getMimeType());
+		Assertions.assertTrue(header.isRoot("song"));
+		
+		// only the provider for the format should be picked
+		Assertions.assertTrue(new OpenLyricsSongFormatProvider().isSupported(songPath, header));
+		Assertions.assertFalse(new Praisenter1SongFormatProvider().isSupported(songPath, header));
+		Assertions.assertFalse(new Praisenter2SongFormatProvider().isSupported(songPath, header));
+		Assertions.assertFalse(new ChurchViewSongFormatProvider().isSupported(songPath, header));
+		
+		// and only the adapter for the type
+		Assertions.assertTrue(new SongPersistAdapter(this.path.resolve("songs")).isImportSupported(songPath, header));
+		Assertions.assertFalse(new BiblePersistAdapter(this.path.resolve("bibles")).isImportSupported(songPath, header));
+	}
+	
 	@Test
 	public void testExample01() throws URISyntaxException, IOException {
 		Path songPath = Path.of(ClassLoader.getSystemResource("org/praisenter/data/song/openlyrics-example01.xml").toURI());
@@ -0,0 +1,194 @@
+package org.praisenter.data.workspace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.praisenter.data.DataImportResult;
+import org.praisenter.data.ImportHeader;
+import org.praisenter.data.Persistable;
+import org.praisenter.data.media.Media;
+import org.praisenter.data.slide.Slide;
+import org.praisenter.data.song.Song;
+
+public class BatchImporterTest {
+	@TempDir
+	private Path path;
+	
+	@Test
+	public void batches() throws Exception {
+		List<Path> paths = this.files("1.txt", "2.txt", "3.txt", "4.txt", "5.txt");
+		
+		TestTarget songs = new TestTarget(Song.class, ".txt", null);
+		List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger progress = new AtomicInteger();
+		BatchImporter importer = new BatchImporter(List.of(songs), 2, (results) -> {
+			batches.add(count(results));
+			return CompletableFuture.completedFuture(null);
+		});
+		
+		DataImportResult<Persistable> result = importer.importData(paths, (p) -> progress.incrementAndGet()).get(10, TimeUnit.SECONDS);
+		
+		Assertions.assertEquals(5, result.getCreated().size());
+		Assertions.assertEquals(0, result.getErrors().size());
+		Assertions.assertEquals(5, progress.get());
+		Assertions.assertEquals(5, songs.added.size());
+		
+		// all but the last batch should be full
+		Assertions.assertEquals(5, batches.stream().mapToInt(Integer::intValue).sum());
+		Assertions.assertTrue(batches.stream().filter((n) -> n < 2).count() <= 1);
+	}
+	
+	@Test
+	public void mediaBeforeSlides() throws Exception {
+		List<Path> paths = this.files("1.txt", "2.txt", "3.txt");
+		
+		List<Persistable> added = Collections.synchronizedList(new ArrayList<>());
+		List<Boolean> found = Collections.synchronizedList(new ArrayList<>());
+		TestTarget media = new TestTarget(Media.class, ".txt", null);
+		TestTarget slides = new TestTarget(Slide.class, ".txt", null) {
+			@Override
+			public DataImportResult<Persistable> importFile(Path path, ImportHeader header) throws IOException {
+				// the media from the same file should have been added already
+				String name = path.getFileName().toString();
+				found.add(added.stream().anyMatch((p) -> p instanceof Media && name.equals(p.getName())));
+				return super.importFile(path, header);
+			}
+		};
+		
+		// the batch is bigger than all the files so only the flush adds the media
+		BatchImporter importer = new BatchImporter(List.of(media, slides), 100, (results) -> {
+			for (DataImportResult<Persistable> r : results) {
+				added.addAll(r.getCreated());
+			}
+			return CompletableFuture.completedFuture(null);
+		});
+		
+		DataImportResult<Persistable> result = importer.importData(paths, null).get(10, TimeUnit.SECONDS);
+		
+		Assertions.assertEquals(6, result.getCreated().size());
+		Assertions.assertEquals(List.of(true, true, true), found);
+		Assertions.assertEquals(6, added.size());
+	}
+	
+	@Test
+	public void partialFailure() throws Exception {
+		List<Path> paths = this.files("good.txt", "bad.txt", "other.bin");
+		
+		TestTarget songs = new TestTarget(Song.class, ".txt", "bad.txt");
+		BatchImporter importer = new BatchImporter(List.of(songs), 100, (results) -> CompletableFuture.completedFuture(null));
+		
+		DataImportResult<Persistable> result = importer.importData(paths, null).get(10, TimeUnit.SECONDS);
+		
+		// the good file is imported
+		Assertions.assertEquals(1, result.getCreated().size());
+		Assertions.assertEquals("good.txt", result.getCreated().get(0).getName());
+		Assertions.assertEquals(1, songs.added.size());
+		
+		// and there's one error for each of the other files
+		Assertions.assertEquals(2, result.getErrors().size());
+		Exception bad = error(result, "bad.txt");
+		Assertions.assertEquals(1, bad.getSuppressed().length);
+		Assertions.assertTrue(bad.getSuppressed()[0] instanceof IOException);
+		
+		// the unsupported file isn't imported at all
+		Exception other = error(result, "other.bin");
+		Assertions.assertEquals(0, other.getSuppressed().length);
+		Assertions.assertEquals(List.of("other.bin"), songs.skipped);
+	}
+	
+	private List<Path> files(String... names) throws IOException {
+		List<Path> paths = new ArrayList<>();
+		for (String name : names) {
+			Path p = this.path.resolve(name);
+			Files.writeString(p, name);
+			paths.add(p);
+		}
+		return paths;
+	}
+	
+	private static int count(List<DataImportResult<Persistable>> results) {
+		int n = 0;
+		for (DataImportResult<Persistable> r : results) {
+			n += r.getCreated().size() + r.getUpdated().size();
+		}
+		return n;
+	}
+	
+	private static Exception error(DataImportResult<Persistable> result, String name) {
+		for (Exception ex : result.getErrors()) {
+			if (ex.getMessage().contains(name)) {
+				return ex;
+			}
+		}
+		Assertions.fail("No error for '" + name + "'");
+		return null;
+	}
+	
+	private static class TestTarget implements BatchImporter.Target {
+		private final Class<?> type;
+		private final String extension;
+		private final String fail;
+		
+		private final List<Persistable> added = Collections.synchronizedList(new ArrayList<>());
+		private final List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+		
+		public TestTarget(Class<?> type, String extension, String fail) {
+			this.type = type;
+			this.extension = extension;
+			this.fail = fail;
+		}
+		
+		@Override
+		public Class<?> getType() {
+			return this.type;
+		}
+		
+		@Override
+		public boolean isSupported(Path path, ImportHeader header) {
+			String name = path.getFileName().toString();
+			if (!name.endsWith(this.extension)) {
+				this.skipped.add(name);
+				return false;
+			}
+			return true;
+		}
+		
+		@Override
+		public DataImportResult<Persistable> importFile(Path path, ImportHeader header) throws IOException {
+			String name = path.getFileName().toString();
+			if (name.equals(this.fail)) {
+				throw new IOException("Failed to read '" + name + "'");
+			}
+			
+			Persistable item;
+			if (this.type == Media.class) {
+				item = new Media();
+			} else if (this.type == Slide.class) {
+				item = new Slide();
+			} else {
+				item = new Song();
+			}
+			item.setName(name);
+			
+			DataImportResult<Persistable> result = new DataImportResult<>();
+			result.getCreated().add(item);
+			return result;
+		}
+		
+		@Override
+		public CompletableFuture<Void> addImported(DataImportResult<Persistable> result) {
+			this.added.addAll(result.getCreated());
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package org.praisenter.ui;
+
+import java.util.function.DoublePredicate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FitSearchTest {
+	private static final double[] STARTS = new double[] { 0.5, 1.0, 8.0, 12.3, 20.0, 47.9, 48.0, 48.1, 60.0, 100.0, 400.0, 1000.0 };
+	
+	@Test
+	public void sameFromAnyStart() {
+		// a line whose width grows with its size
+		double[] limits = new double[] { 1.05, 7.77, 48.0, 133.33, 512.0 };
+		for (double limit : limits) {
+			DoublePredicate fits = (s) -> s * 7.3 <= limit * 7.3;
+			double uncached = FitSearch.largest(fits, 20.0);
+			Assertions.assertEquals(Math.floor(limit / FitSearch.STEP) * FitSearch.STEP, uncached, 1e-9);
+			
+			// estimated starts, like the last fit scaled to a new size, give the same result
+			for (double start : STARTS) {
+				Assertions.assertEquals(uncached, FitSearch.largest(fits, start), 1e-9, "limit " + limit + " start " + start);
+			}
+		}
+	}
+	
+	@Test
+	public void wrapping() {
+		// a paragraph whose height jumps as lines wrap
+		DoublePredicate fits = (s) -> {
+			double lines = Math.ceil((s * 30.0) / 400.0);
+			return lines * s * 1.2 <= 300.0;
+		};
+		double uncached = FitSearch.largest(fits, 20.0);
+		Assertions.assertTrue(fits.test(uncached));
+		Assertions.assertFalse(fits.test(uncached + FitSearch.STEP));
+		for (double start : STARTS) {
+			Assertions.assertEquals(uncached, FitSearch.largest(fits, start), 1e-9, "start " + start);
+		}
+	}
+	
+	@Test
+	public void maximum() {
+		// the search never goes above the maximum
+		DoublePredicate fits = (s) -> s <= 36.0;
+		for (double start : STARTS) {
+			Assertions.assertEquals(36.0, FitSearch.largest(fits, start), 1e-9);
+		}
+	}
+	
+	@Test
+	public void nothingFits() {
+		for (double start : STARTS) {
+			Assertions.assertEquals(1.0, FitSearch.largest((s) -> false, start), 1e-9);
+		}
+	}
+}
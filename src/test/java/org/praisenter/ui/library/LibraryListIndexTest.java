@@ -0,0 +1,103 @@
+package org.praisenter.ui.library;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.praisenter.data.Persistable;
+import org.praisenter.data.Tag;
+import org.praisenter.data.song.Song;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+
+public class LibraryListIndexTest {
+	private ObservableList<Persistable> source;
+	private LibraryListIndex index;
+	private FilteredList<Persistable> filtered;
+	
+	private static Song song(String name, String... tags) {
+		Song song = new Song();
+		song.setName(name);
+		for (String tag : tags) {
+			song.getTags().add(new Tag(tag));
+		}
+		return song;
+	}
+	
+	private List<String> names(List<Persistable> items) {
+		return items.stream().map(Persistable::getName).collect(Collectors.toList());
+	}
+	
+	@BeforeEach
+	public void setupTest() {
+		this.source = FXCollections.observableArrayList();
+		this.index = new LibraryListIndex(this.source);
+		this.filtered = new FilteredList<>(this.source, (p) -> true);
+		this.source.addAll(
+			song("Amazing Grace", "Hymn"),
+			song("How Great Thou Art", "hymn"),
+			song("Great Is Thy Faithfulness"),
+			song("10,000 Reasons", "Worship"));
+	}
+	
+	@Test
+	public void filter() {
+		this.filtered.setPredicate(this.index.filter("great", null));
+		Assertions.assertEquals(List.of("How Great Thou Art", "Great Is Thy Faithfulness"), this.names(this.filtered));
+		
+		// narrowing
+		this.filtered.setPredicate(this.index.filter("great ", null));
+		Assertions.assertEquals(List.of("How Great Thou Art", "Great Is Thy Faithfulness"), this.names(this.filtered));
+		this.filtered.setPredicate(this.index.filter("great t", null));
+		Assertions.assertEquals(List.of("How Great Thou Art"), this.names(this.filtered));
+		
+		// widening again
+		this.filtered.setPredicate(this.index.filter("HYMN ", null));
+		Assertions.assertEquals(List.of("Amazing Grace", "How Great Thou Art"), this.names(this.filtered));
+		
+		this.filtered.setPredicate(this.index.filter("gr", null));
+		Assertions.assertEquals(3, this.filtered.size());
+		
+		this.filtered.setPredicate(this.index.filter("nothing", null));
+		Assertions.assertEquals(0, this.filtered.size());
+		
+		this.filtered.setPredicate(this.index.filter("", LibraryListType.BIBLE));
+		Assertions.assertEquals(0, this.filtered.size());
+		
+		this.filtered.setPredicate(this.index.filter(null, LibraryListType.SONG));
+		Assertions.assertEquals(4, this.filtered.size());
+	}
+	
+	@Test
+	public void incremental() {
+		this.filtered.setPredicate(this.index.filter("grace", null));
+		Assertions.assertEquals(1, this.filtered.size());
+		
+		// added items are checked against the current filter
+		this.source.add(song("Grace Alone"));
+		this.source.add(song("Other"));
+		Assertions.assertEquals(List.of("Amazing Grace", "Grace Alone"), this.names(this.filtered));
+		
+		// replacing an item (how the library updates items) re-indexes it
+		this.source.set(0, song("Amazing Love"));
+		Assertions.assertEquals(List.of("Grace Alone"), this.names(this.filtered));
+		
+		this.source.remove(5);
+		Assertions.assertEquals(List.of("Grace Alone"), this.names(this.filtered));
+		Assertions.assertEquals(5, this.index.size());
+	}
+	
+	@Test
+	public void sort() {
+		SortedList<Persistable> sorted = new SortedList<>(this.source, this.index.comparator(LibraryListSortField.NAME, true));
+		Assertions.assertEquals(List.of("10,000 Reasons", "Amazing Grace", "Great Is Thy Faithfulness", "How Great Thou Art"), this.names(sorted));
+		
+		sorted.setComparator(this.index.comparator(LibraryListSortField.NAME, false));
+		Assertions.assertEquals("How Great Thou Art", sorted.get(0).getName());
+	}
+}
@@ -0,0 +1,37 @@
+package org.praisenter.ui.slide;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FrameTimeHistogramTest {
+	private static final long MS = 1000000;
+
+	@Test
+	public void buckets() {
+		FrameTimeHistogram histogram = new FrameTimeHistogram();
+
+		// the first frame only marks the start
+		long now = 0;
+		histogram.frame(now);
+		Assertions.assertEquals(0, histogram.getFrameCount());
+
+		// 10 smooth frames at 60Hz
+		for (int i = 0; i < 10; i++) {
+			now += 16 * MS;
+			histogram.frame(now);
+		}
+
+		// 2 dropped frames
+		now += 33 * MS;
+		histogram.frame(now);
+		now += 80 * MS;
+		histogram.frame(now);
+
+		Assertions.assertEquals(12, histogram.getFrameCount());
+		Assertions.assertEquals(2, histogram.getFrameCountOver(16.7));
+		Assertions.assertEquals(1, histogram.getFrameCountOver(50.0));
+		Assertions.assertEquals(80.0, histogram.getLongest(), 0.001);
+		Assertions.assertEquals((160 + 33 + 80) / 12.0, histogram.getAverage(), 0.001);
+		Assertions.assertTrue(histogram.toString().startsWith("12 frames"));
+	}
+}
@@ -0,0 +1,61 @@
+package org.praisenter.ui.slide;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.praisenter.data.StringTextStore;
+import org.praisenter.data.slide.Slide;
+
+public class PreparedSlidesTest {
+	@Test
+	public void placeholderChangeAfterTake() {
+		PreparedSlides prepared = new PreparedSlides();
+		
+		Slide slide = new Slide();
+		slide.setPlaceholderData(new StringTextStore("first"));
+		
+		// prepare it ahead of time
+		long generation = prepared.clear();
+		prepared.want(slide);
+		Slide first = PreparedSlides.copy(slide);
+		Assertions.assertTrue(prepared.isWanted(first, generation));
+		Assertions.assertTrue(prepared.put(new PreparedSlide(first, first.getPlaceholderData(), null, Instant.now()), generation));
+		
+		// take it and prepare it again like a render does
+		PreparedSlide live = prepared.take(slide);
+		Assertions.assertNotNull(live);
+		Assertions.assertTrue(live.isPreparedAhead());
+		Assertions.assertNull(prepared.take(slide));
+		Slide again = PreparedSlides.copy(live.getSlide());
+		Assertions.assertTrue(prepared.put(new PreparedSlide(again, again.getPlaceholderData(), null, Instant.now()), generation));
+		
+		// a placeholder only render changes the displayed slide
+		live.getSlide().setPlaceholderData(new StringTextStore("second"));
+		
+		// the slide prepared again should be unchanged
+		PreparedSlide back = prepared.take(slide);
+		Assertions.assertNotNull(back);
+		Assertions.assertNotSame(live.getSlide(), back.getSlide());
+		Assertions.assertEquals("first", back.getSlide().getPlaceholderData().toString());
+		Assertions.assertEquals(PreparedSlides.getKey(slide), PreparedSlides.getKey(back.getSlide()));
+	}
+	
+	@Test
+	public void generation() {
+		PreparedSlides prepared = new PreparedSlides();
+		
+		Slide slide = new Slide();
+		slide.setPlaceholderData(new StringTextStore("text"));
+		
+		long generation = prepared.clear();
+		prepared.want(slide);
+		
+		// the slides changed while it was being prepared
+		prepared.clear();
+		Slide copy = PreparedSlides.copy(slide);
+		Assertions.assertFalse(prepared.isWanted(copy, generation));
+		Assertions.assertFalse(prepared.put(new PreparedSlide(copy, copy.getPlaceholderData(), null, Instant.now()), generation));
+		Assertions.assertNull(prepared.take(slide));
+	}
+}
@@ -0,0 +1,237 @@
+package org.praisenter.ui.slide.animation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.DoubleConsumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.praisenter.data.slide.animation.AnimationDirection;
+import org.praisenter.data.slide.animation.AnimationOperation;
+import org.praisenter.data.slide.animation.AnimationOrientation;
+import org.praisenter.data.slide.animation.AnimationShapeType;
+import org.praisenter.data.slide.animation.AnimationType;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.ArcType;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Shape;
+
+public class ClipTransitionTest {
+	private static final Bounds BOUNDS = new BoundingBox(-40, 10, 400, 300);
+	private static final double[] FRACTIONS = new double[] { 0.0, 0.1, 0.33, 0.5, 0.77, 0.95, 1.0 };
+	private static final int BLINDS = 7;
+	private static final int FRAMES = 200;
+
+	// the clips as they were computed with boolean operations
+
+	private static Shape blinds(AnimationOrientation orientation, double frac, boolean in) {
+		double x = BOUNDS.getMinX(), y = BOUNDS.getMinY(), w = BOUNDS.getWidth(), h = BOUNDS.getHeight();
+		Shape clip = in ? new Rectangle(x, y, w, h) : new Rectangle();
+		for (int i = 0; i < BLINDS; i++) {
+			Rectangle blind;
+			if (orientation == AnimationOrientation.HORIZONTAL) {
+				double bh = h / BLINDS;
+				blind = new Rectangle(x, y + bh * i + bh * frac, w, bh * (1.0 - frac));
+			} else {
+				double bw = w / BLINDS;
+				blind = new Rectangle(x + bw * i + bw * frac, y, bw * (1.0 - frac), h);
+			}
+			clip = in ? Shape.subtract(clip, blind) : Shape.union(clip, blind);
+		}
+		return clip;
+	}
+
+	private static Shape circle(AnimationOperation operation, double frac, boolean in) {
+		double x = BOUNDS.getMinX(), y = BOUNDS.getMinY(), w = BOUNDS.getWidth(), h = BOUNDS.getHeight();
+		double hw = w * 0.5, hh = h * 0.5;
+		boolean collapse = operation == AnimationOperation.COLLAPSE;
+		double r = Math.sqrt(hw * hw + hh * hh) * (collapse ? 1.0 - frac : frac);
+		Circle circle = new Circle(x + hw, y + hh, r);
+		if (collapse == in) {
+			return Shape.subtract(new Rectangle(x, y, w, h), circle);
+		}
+		return circle;
+	}
+
+	private static Shape split(AnimationOrientation orientation, AnimationOperation operation, double frac, boolean in) {
+		double x = BOUNDS.getMinX(), y = BOUNDS.getMinY(), w = BOUNDS.getWidth(), h = BOUNDS.getHeight();
+		double s = operation == AnimationOperation.COLLAPSE ? 1.0 - frac : frac;
+		Rectangle cut = orientation == AnimationOrientation.HORIZONTAL
+			? new Rectangle(x, y + h * 0.5 * (1.0 - s), w, h * s)
+			: new Rectangle(x + w * 0.5 * (1.0 - s), y, w * s, h);
+		if ((operation == AnimationOperation.EXPAND) == in) {
+			return cut;
+		}
+		return Shape.subtract(new Rectangle(x, y, w, h), cut);
+	}
+
+	private static Shape swipe(AnimationDirection direction, double frac, boolean in) {
+		double x = BOUNDS.getMinX(), y = BOUNDS.getMinY(), w = BOUNDS.getWidth(), h = BOUNDS.getHeight();
+		double hw = w * 0.5, hh = h * 0.5;
+		double r = Math.sqrt(hw * hw + hh * hh);
+		Arc arc;
+		switch (direction) {
+			case CLOCKWISE: arc = new Arc(x + hw, y + hh, r, r, 90.0, -360 * frac); break;
+			case COUNTER_CLOCKWISE: arc = new Arc(x + hw, y + hh, r, r, 90.0, 360 * frac); break;
+			case WEDGE_DOWN: arc = new Arc(x + hw, y + hh, r, r, 90 - 180 * frac, 360 * frac); break;
+			case WEDGE_UP: arc = new Arc(x + hw, y + hh, r, r, -90 - 180 * frac, 360 * frac); break;
+			default: throw new IllegalArgumentException();
+		}
+		arc.setType(ArcType.ROUND);
+		return in ? arc : Shape.subtract(new Rectangle(x, y, w, h), arc);
+	}
+
+	private static void assertSameClip(String name, Shape expected, Shape actual) {
+		// sample the bounds off of the edges
+		int mismatches = 0;
+		for (double px = BOUNDS.getMinX() + 0.37; px < BOUNDS.getMaxX(); px += 3.1) {
+			for (double py = BOUNDS.getMinY() + 0.29; py < BOUNDS.getMaxY(); py += 3.1) {
+				if (expected.contains(px, py) != actual.contains(px, py)) {
+					mismatches++;
+				}
+			}
+		}
+		// allow for the flattening of curves along their edges
+		Assertions.assertTrue(mismatches <= 20, name + " differs at " + mismatches + " points");
+	}
+
+	private static void verify(String name, CustomTransition tx, DoubleConsumer interpolate, BiFunction<Double, Boolean, Shape> reference) {
+		Region node = new Region();
+		tx.setNode(node);
+		for (AnimationType type : AnimationType.values()) {
+			boolean in = type == AnimationType.IN;
+			tx.setRate(in ? 1 : -1);
+			for (double frac : FRACTIONS) {
+				interpolate.accept(frac);
+				Assertions.assertTrue(node.getClip() instanceof Shape);
+				assertSameClip(name + " " + type + " " + frac, reference.apply(frac, in), (Shape)node.getClip());
+			}
+		}
+	}
+
+	private static void assertInPlace(String name, CustomTransition tx, DoubleConsumer interpolate) {
+		Region node = new Region();
+		tx.setNode(node);
+		for (AnimationType type : AnimationType.values()) {
+			tx.setRate(type == AnimationType.IN ? 1 : -1);
+			interpolate.accept(0.0);
+			Assertions.assertTrue(node.getClip() instanceof Path);
+			Path clip = (Path)node.getClip();
+			List<PathElement> elements = new ArrayList<>(clip.getElements());
+			
+			// each frame should only move the elements of the same clip
+			for (int i = 0; i <= FRAMES; i++) {
+				interpolate.accept((double)i / FRAMES);
+			}
+			Assertions.assertSame(clip, node.getClip(), name + " " + type + " replaced the clip");
+			Assertions.assertEquals(elements.size(), clip.getElements().size(), name + " " + type + " changed the number of elements");
+			for (int i = 0; i < elements.size(); i++) {
+				Assertions.assertSame(elements.get(i), clip.getElements().get(i), name + " " + type + " replaced element " + i);
+			}
+		}
+	}
+	
+	private static long time(DoubleConsumer frame) {
+		long start = System.nanoTime();
+		for (int i = 0; i <= FRAMES; i++) {
+			frame.accept((double)i / FRAMES);
+		}
+		return System.nanoTime() - start;
+	}
+	
+	@Test
+	public void frames() {
+		BlindsTransition blinds = new BlindsTransition();
+		blinds.setBounds(BOUNDS);
+		blinds.setBlindsCount(BLINDS);
+		blinds.setOrientation(AnimationOrientation.HORIZONTAL);
+		assertInPlace("Blinds", blinds, blinds::interpolate);
+		
+		ShapedTransition shaped = new ShapedTransition();
+		shaped.setBounds(BOUNDS);
+		shaped.setShapeType(AnimationShapeType.CIRCLE);
+		shaped.setOperation(AnimationOperation.COLLAPSE);
+		assertInPlace("Shaped", shaped, shaped::interpolate);
+		
+		SplitTransition split = new SplitTransition();
+		split.setBounds(BOUNDS);
+		split.setOrientation(AnimationOrientation.VERTICAL);
+		split.setOperation(AnimationOperation.COLLAPSE);
+		assertInPlace("Split", split, split::interpolate);
+		
+		SwipeTransition swipe = new SwipeTransition();
+		swipe.setBounds(BOUNDS);
+		swipe.setDirection(AnimationDirection.WEDGE_DOWN);
+		assertInPlace("Swipe", swipe, swipe::interpolate);
+		
+		// moving the blinds should be far cheaper than building them with boolean
+		// operations (about 80 times when measured); the margin allows for noisy machines
+		blinds.setRate(1);
+		for (int i = 0; i < 5; i++) {
+			time(blinds::interpolate);
+			time((frac) -> blinds(AnimationOrientation.HORIZONTAL, frac, true));
+		}
+		long moved = time(blinds::interpolate);
+		long built = time((frac) -> blinds(AnimationOrientation.HORIZONTAL, frac, true));
+		Assertions.assertTrue(moved * 5 < built, "Blinds took " + (moved / FRAMES) + "ns per frame vs " + (built / FRAMES) + "ns to build");
+	}
+	
+	@Test
+	public void blinds() {
+		for (AnimationOrientation orientation : AnimationOrientation.values()) {
+			BlindsTransition tx = new BlindsTransition();
+			tx.setBounds(BOUNDS);
+			tx.setBlindsCount(BLINDS);
+			tx.setOrientation(orientation);
+			verify("Blinds " + orientation, tx, tx::interpolate, (frac, in) -> blinds(orientation, frac, in));
+		}
+	}
+
+	@Test
+	public void shaped() {
+		for (AnimationOperation operation : AnimationOperation.values()) {
+			ShapedTransition tx = new ShapedTransition();
+			tx.setBounds(BOUNDS);
+			tx.setShapeType(AnimationShapeType.CIRCLE);
+			tx.setOperation(operation);
+			verify("Shaped " + operation, tx, tx::interpolate, (frac, in) -> circle(operation, frac, in));
+		}
+	}
+
+	@Test
+	public void split() {
+		for (AnimationOrientation orientation : AnimationOrientation.values()) {
+			for (AnimationOperation operation : AnimationOperation.values()) {
+				SplitTransition tx = new SplitTransition();
+				tx.setBounds(BOUNDS);
+				tx.setOrientation(orientation);
+				tx.setOperation(operation);
+				verify("Split " + orientation + " " + operation, tx, tx::interpolate, (frac, in) -> split(orientation, operation, frac, in));
+			}
+		}
+	}
+
+	@Test
+	public void swipe() {
+		AnimationDirection[] directions = new AnimationDirection[] {
+			AnimationDirection.CLOCKWISE,
+			AnimationDirection.COUNTER_CLOCKWISE,
+			AnimationDirection.WEDGE_DOWN,
+			AnimationDirection.WEDGE_UP
+		};
+		for (AnimationDirection direction : directions) {
+			SwipeTransition tx = new SwipeTransition();
+			tx.setBounds(BOUNDS);
+			tx.setDirection(direction);
+			verify("Swipe " + direction, tx, tx::interpolate, (frac, in) -> swipe(direction, frac, in));
+		}
+	}
+}
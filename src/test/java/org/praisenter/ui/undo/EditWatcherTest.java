@@ -0,0 +1,89 @@
+package org.praisenter.ui.undo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.praisenter.data.bible.Bible;
+import org.praisenter.data.bible.Book;
+import org.praisenter.data.bible.Chapter;
+import org.praisenter.data.bible.Verse;
+
+public class EditWatcherTest {
+
+	private static Bible createBible(int books, int chapters, int verses) {
+		Bible bible = new Bible("test");
+		for (int i = 1; i <= books; i++) {
+			Book book = new Book(i, "Book " + i);
+			for (int j = 1; j <= chapters; j++) {
+				Chapter chapter = new Chapter(j);
+				for (int k = 1; k <= verses; k++) {
+					chapter.getVerses().add(new Verse(k, "Verse " + k));
+				}
+				book.getChapters().add(chapter);
+			}
+			bible.getBooks().add(book);
+		}
+		return bible;
+	}
+
+	@Test
+	public void metadataIsCached() {
+		WatchMetadata metadata = WatchMetadata.forClass(Verse.class);
+		Assertions.assertSame(metadata, WatchMetadata.forClass(Verse.class));
+		Assertions.assertEquals(2, metadata.getMethods().length);
+
+		Assertions.assertTrue(WatchMetadata.forClass(String.class).isEmpty());
+	}
+
+	@Test
+	public void watchNested() {
+		Bible bible = createBible(2, 2, 2);
+		List<Edit> edits = new ArrayList<>();
+		EditWatcher watcher = new EditWatcher(edits::add);
+		watcher.register(bible);
+
+		// verses are lazy, so they aren't watched until requested
+		Chapter chapter = bible.getBooks().get(1).getChapters().get(1);
+		Verse verse = chapter.getVerses().get(0);
+		verse.setText("changed");
+		Assertions.assertEquals(0, edits.size());
+
+		watcher.watch(chapter);
+		verse.setText("changed again");
+		Assertions.assertEquals(1, edits.size());
+
+		// watching again doesn't register twice
+		watcher.watch(bible);
+		verse.setText("and again");
+		Assertions.assertEquals(2, edits.size());
+
+		// but the list of verses is always watched and added verses are watched
+		Verse added = new Verse(3, "added");
+		bible.getBooks().get(0).getChapters().get(0).getVerses().add(added);
+		added.setText("changed");
+		Assertions.assertEquals(4, edits.size());
+
+		watcher.unregister();
+		verse.setText("again");
+		Assertions.assertEquals(4, edits.size());
+		Assertions.assertEquals(0, watcher.count());
+	}
+
+	@Test
+	public void watchFullBible() {
+		// roughly the size of a full bible
+		Bible bible = createBible(66, 25, 19);
+		EditWatcher watcher = new EditWatcher((e) -> {});
+
+		watcher.register(bible);
+
+		// only the books and chapters are watched up front
+		Assertions.assertTrue(watcher.count() < 66 * 25 * 3);
+
+		watcher.watch(bible);
+		Assertions.assertTrue(watcher.count() > 66 * 25 * 19);
+		watcher.unregister();
+	}
+}
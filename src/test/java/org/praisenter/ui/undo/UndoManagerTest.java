@@ -0,0 +1,107 @@
+package org.praisenter.ui.undo;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+public class UndoManagerTest {
+
+	@Test
+	public void coalesce() {
+		UndoManager manager = new UndoManager();
+		StringProperty property = new SimpleStringProperty("");
+
+		// typing quickly into the same property is one edit
+		for (int i = 0; i < 10; i++) {
+			String ov = property.get();
+			property.set(ov + i);
+			manager.addEdit(new PropertyEdit<>("text", property, ov, property.get()));
+		}
+		Assertions.assertEquals(1, manager.getUndoCount());
+
+		manager.undo();
+		Assertions.assertEquals("", property.get());
+		Assertions.assertTrue(manager.isRedoAvailable());
+
+		// a new edit clears the redos
+		property.set("a");
+		manager.addEdit(new PropertyEdit<>("text", property, "", "a"));
+		Assertions.assertFalse(manager.isRedoAvailable());
+	}
+
+	@Test
+	public void boundedByCount() {
+		UndoManager manager = new UndoManager();
+		manager.setMaxEdits(5);
+		manager.mark();
+		Assertions.assertTrue(manager.isTopMarked());
+
+		for (int i = 0; i < 10; i++) {
+			// different properties so they aren't merged
+			StringProperty property = new SimpleStringProperty();
+			manager.addEdit(new PropertyEdit<>("text", property, null, "value"));
+		}
+
+		Assertions.assertEquals(5, manager.getUndoCount());
+		Assertions.assertFalse(manager.isMarked());
+		Assertions.assertTrue(manager.isNotTopMarked());
+
+		// undoing everything that's left doesn't get back to the saved state
+		for (int i = 0; i < 5; i++) {
+			manager.undo();
+		}
+		Assertions.assertFalse(manager.isUndoAvailable());
+		Assertions.assertFalse(manager.isTopMarked());
+
+		manager.reset();
+		Assertions.assertTrue(manager.isTopMarked());
+	}
+
+	@Test
+	public void boundedBySize() {
+		UndoManager manager = new UndoManager();
+		String text = "x".repeat(1000);
+		long size = new PropertyEdit<>("text", new SimpleStringProperty(), null, text).getEstimatedSize();
+		manager.setMaxSize(size * 3);
+
+		for (int i = 0; i < 10; i++) {
+			manager.addEdit(new PropertyEdit<>("text", new SimpleStringProperty(), null, text));
+		}
+
+		Assertions.assertEquals(3, manager.getUndoCount());
+		Assertions.assertTrue(manager.getEstimatedSize() <= size * 3);
+		Assertions.assertTrue(manager.getMemoryReport().contains("truncated"));
+	}
+
+	@Test
+	public void marks() {
+		UndoManager manager = new UndoManager();
+		StringProperty p1 = new SimpleStringProperty();
+		StringProperty p2 = new SimpleStringProperty();
+
+		manager.addEdit(new PropertyEdit<>("p1", p1, null, "a"));
+		Assertions.assertTrue(manager.isNotTopMarked());
+		manager.mark();
+		Assertions.assertTrue(manager.isTopMarked());
+		Assertions.assertTrue(manager.isUndoAvailable());
+
+		manager.addEdit(new PropertyEdit<>("p2", p2, null, "b"));
+		Assertions.assertFalse(manager.isTopMarked());
+		Assertions.assertTrue(manager.isMarked());
+
+		manager.undo();
+		Assertions.assertTrue(manager.isTopMarked());
+
+		// undoing past the mark moves it to the redos
+		manager.undo();
+		Assertions.assertFalse(manager.isTopMarked());
+		Assertions.assertFalse(manager.isUndoAvailable());
+		Assertions.assertFalse(manager.isMarked());
+
+		manager.redo();
+		Assertions.assertTrue(manager.isTopMarked());
+		Assertions.assertEquals(2, manager.getUndoCount());
+	}
+}